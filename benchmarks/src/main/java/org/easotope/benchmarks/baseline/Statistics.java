@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.benchmarks.baseline;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+// the implementation from before points were kept in primitive arrays, kept
+// unchanged apart from its package as the baseline for the benchmarks
+public class Statistics {
+	private static ConcurrentHashMap<Double,ConcurrentHashMap<Integer,Double>> probabilityToCriticalValues = new ConcurrentHashMap<Double,ConcurrentHashMap<Integer,Double>>();
+
+	private ArrayList<Double> numbers = new ArrayList<Double>();
+
+	public void addNumber(double number) {
+		numbers.add(number);
+	}
+	
+	public void addNumbers(Double[] array) {
+		for (Double value : array) {
+			if (value != null) {
+				numbers.add(value);
+			}
+		}
+	}
+
+	public int getSampleSize() {
+		return numbers.size();
+	}
+
+	public double getMean() {
+		if (getSampleSize() == 0) {
+			return Double.NaN;
+		}
+
+		double total = 0;
+		
+		for (double number : numbers) {
+			total += number;
+		}
+		
+		return total / numbers.size();
+	}
+
+//	public double getStandardDeviationPopulation() {
+//		if (getSampleSize() < 1) {
+//			return Double.NaN;
+//		}
+//
+//		return Math.sqrt(getSumOfSquares() / getSampleSize());
+//	}
+
+	public double getStandardDeviationSample() {
+		if (getSampleSize() < 2) {
+			return Double.NaN;
+		}
+
+		return Math.sqrt(getSumOfSquares() / (getSampleSize()-1));
+	}
+
+	public double getStandardErrorSample() {
+		if (getSampleSize() < 2) {
+			return Double.NaN;
+		}
+
+		return getStandardDeviationSample() / Math.sqrt(getSampleSize());
+	}
+
+	public double getConfidenceIntervalSample(double confidenceLevel) {
+		final double probability = 1 - ((1-(confidenceLevel/100.0)) / 2);
+
+		if (getSampleSize() < 2) {
+			return Double.NaN;
+		}
+        
+        double critVal = getCriticalValue(getSampleSize() - 1, probability);
+        return critVal * getStandardErrorSample();
+	}
+
+	// the inverse t distribution is expensive and only ever asked for a handful
+	// of confidence levels and sample sizes so the values are kept
+	private static double getCriticalValue(int degreesOfFreedom, double probability) {
+		ConcurrentHashMap<Integer,Double> degreesOfFreedomToCriticalValue = probabilityToCriticalValues.get(probability);
+
+		if (degreesOfFreedomToCriticalValue == null) {
+			probabilityToCriticalValues.putIfAbsent(probability, new ConcurrentHashMap<Integer,Double>());
+			degreesOfFreedomToCriticalValue = probabilityToCriticalValues.get(probability);
+		}
+
+		Double critVal = degreesOfFreedomToCriticalValue.get(degreesOfFreedom);
+
+		if (critVal == null) {
+			TDistribution tDist = new TDistribution(degreesOfFreedom);
+			critVal = tDist.inverseCumulativeProbability(probability);
+			degreesOfFreedomToCriticalValue.put(degreesOfFreedom, critVal);
+		}
+
+		return critVal;
+	}
+
+	private double getSumOfSquares() {
+		double mean = getMean();
+		double total = 0;
+
+		for (double number : numbers) {
+			total += (number - mean) * (number - mean);
+		}
+		
+		return total;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.benchmarks.math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.easotope.shared.math.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+public class StatisticsBenchmark {
+	@Param({ "10", "100", "1000" })
+	private int points;
+
+	private double[] values;
+	private Statistics reusedStatistics = new Statistics();
+
+	@Setup
+	public void setup() {
+		Random random = new Random(points);
+		values = new double[points];
+
+		for (int i=0; i<points; i++) {
+			values[i] = random.nextGaussian();
+		}
+	}
+
+	@Benchmark
+	public double baseline() {
+		org.easotope.benchmarks.baseline.Statistics statistics = new org.easotope.benchmarks.baseline.Statistics();
+
+		for (double value : values) {
+			statistics.addNumber(value);
+		}
+
+		return statistics.getMean() + statistics.getStandardDeviationSample() + statistics.getStandardErrorSample();
+	}
+
+	@Benchmark
+	public double current() {
+		Statistics statistics = new Statistics();
+
+		for (double value : values) {
+			statistics.addNumber(value);
+		}
+
+		return statistics.getMean() + statistics.getStandardDeviationSample() + statistics.getStandardErrorSample();
+	}
+
+	@Benchmark
+	public double currentReused() {
+		reusedStatistics.clear();
+
+		for (double value : values) {
+			reusedStatistics.addNumber(value);
+		}
+
+		return reusedStatistics.getMean() + reusedStatistics.getStandardDeviationSample() + reusedStatistics.getStandardErrorSample();
+	}
+}
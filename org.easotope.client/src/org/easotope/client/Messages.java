@@ -749,6 +749,7 @@ public class Messages extends NLS {
 
 	public static String driftParameterComposite_windowType;
 	public static String driftParameterComposite_corrInterval;
+	public static String driftParameterComposite_batch;
 	public static String driftParameterComposite_window;
 	public static String driftParameterComposite_minNumStandardsBeforeAndAfter;
 	public static String driftParameterComposite_applyStretching;
@@ -779,6 +780,7 @@ public class Messages extends NLS {
 
 	public static String nonlinearityParameterComposite_windowType;
 	public static String nonlinearityParameterComposite_corrInterval;
+	public static String nonlinearityParameterComposite_batch;
 	public static String nonlinearityParameterComposite_window;
 	public static String nonlinearityParameterComposite_minNumStandardsBeforeAndAfter;
 	public static String nonlinearityParameterComposite_standards;
@@ -808,6 +810,7 @@ public class Messages extends NLS {
 	public static String etfParameterComposite_temperatureRequired;
 	public static String etfParameterComposite_windowType;
 	public static String etfParameterComposite_corrInterval;
+	public static String etfParameterComposite_batch;
 	public static String etfParameterComposite_window;
 	public static String etfParameterComposite_newStandardsBeforeAfter;
 	public static String etfParameterComposite_standards;
@@ -818,6 +821,7 @@ public class Messages extends NLS {
 	public static String etfPblParameterComposite_temperatureRequired;
 	public static String etfPblParameterComposite_windowType;
 	public static String etfPblParameterComposite_corrInterval;
+	public static String etfPblParameterComposite_batch;
 	public static String etfPblParameterComposite_window;
 	public static String etfPblParameterComposite_newStandardsBeforeAfter;
 	public static String etfPblParameterComposite_standards;
@@ -881,6 +885,7 @@ public class Messages extends NLS {
 
 	public static String co2D48OffsetParameterComposite_windowType;
 	public static String co2D48OffsetParameterComposite_corrInterval;
+	public static String co2D48OffsetParameterComposite_batch;
 	public static String co2D48OffsetParameterComposite_window;
 	public static String co2D48OffsetParameterComposite_minNumStandardsBeforeAndAfter;
 	public static String co2D48OffsetParameterComposite_standard;
@@ -900,6 +905,7 @@ public class Messages extends NLS {
 
 	public static String co2D48OffsetPblParameterComposite_windowType;
 	public static String co2D48OffsetPblParameterComposite_corrInterval;
+	public static String co2D48OffsetPblParameterComposite_batch;
 	public static String co2D48OffsetPblParameterComposite_window;
 	public static String co2D48OffsetPblParameterComposite_minNumStandardsBeforeAndAfter;
 	public static String co2D48OffsetPblParameterComposite_standards;
@@ -30,6 +30,7 @@ package org.easotope.client.analysis.part.analysis.replicate.timeselector;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 
 import org.easotope.shared.analysis.cache.corrinterval.corrintervallist.CorrIntervalList;
@@ -49,6 +50,7 @@ public class RenderableItems {
 	private HashMap<ReplicateListItem,Integer> replicateListItemToId = new HashMap<ReplicateListItem,Integer>();
 	private HashMap<CorrIntervalListItem,Integer> corrIntervalListItemToId = new HashMap<CorrIntervalListItem,Integer>();
 	private HashMap<CorrIntervalListItem,CorrIntervalListItem> followingCorrIntervalListItem = new HashMap<CorrIntervalListItem,CorrIntervalListItem>();
+	private CorrIntervalListItem[] sortedCorrIntervalListItems = new CorrIntervalListItem[0];
 
 	void reset() {
 		sampleList = null;
@@ -60,6 +62,7 @@ public class RenderableItems {
 		replicateListItemToId.clear();
 		corrIntervalListItemToId.clear();
 		followingCorrIntervalListItem.clear();
+		sortedCorrIntervalListItems = new CorrIntervalListItem[0];
 	}
 
 	boolean isReady() {
@@ -110,6 +113,15 @@ public class RenderableItems {
 
 			precedingCorrIntervalListItem = currentCorrIntervalListItem;
 		}
+
+		sortedCorrIntervalListItems = corrIntervalList.values().toArray(new CorrIntervalListItem[corrIntervalList.size()]);
+
+		Arrays.sort(sortedCorrIntervalListItems, new Comparator<CorrIntervalListItem>() {
+			@Override
+			public int compare(CorrIntervalListItem o1, CorrIntervalListItem o2) {
+				return Long.compare(o1.getDate(), o2.getDate());
+			}
+		});
 	}
 
 	DateAndObject[] getSortedRenderableItems() {
@@ -168,16 +180,20 @@ public class RenderableItems {
 		return followingCorrIntervalListItem.get(corrIntervalListItem);
 	}
 
+	// the last corr interval starting on or before the date
 	CorrIntervalListItem getCorrIntervalListItemForDate(long date) {
+		int low = 0;
+		int high = sortedCorrIntervalListItems.length - 1;
 		CorrIntervalListItem bestChoice = null;
-		long bestChoiceDistance = Long.MAX_VALUE;
 
-		for (Integer key : corrIntervalList.keySet()) {
-			CorrIntervalListItem corrIntervalListItem = corrIntervalList.get(key);			
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
 
-			if (corrIntervalListItem.getDate() <= date && bestChoiceDistance > date - corrIntervalListItem.getDate()) {
-				bestChoice = corrIntervalListItem;
-				bestChoiceDistance = date - corrIntervalListItem.getDate();
+			if (sortedCorrIntervalListItems[middle].getDate() <= date) {
+				bestChoice = sortedCorrIntervalListItems[middle];
+				low = middle + 1;
+			} else {
+				high = middle - 1;
 			}
 		}
 
@@ -85,6 +85,7 @@ public class ParameterComposite extends RepStepParamComposite implements Standar
 
 		HashMap<Integer,String> possibilities = new HashMap<Integer,String>();
 		possibilities.put(WindowType.CorrInterval.ordinal(), Messages.co2D48OffsetParameterComposite_corrInterval);
+		possibilities.put(WindowType.Batch.ordinal(), Messages.co2D48OffsetParameterComposite_batch);
 		possibilities.put(WindowType.Window.ordinal(), Messages.co2D48OffsetParameterComposite_window);
 		windowType.setPossibilities(possibilities);
 
@@ -86,6 +86,7 @@ public class ParameterComposite extends RepStepParamComposite implements Standar
 
 		HashMap<Integer,String> possibilities = new HashMap<Integer,String>();
 		possibilities.put(WindowType.CorrInterval.ordinal(), Messages.driftParameterComposite_corrInterval);
+		possibilities.put(WindowType.Batch.ordinal(), Messages.driftParameterComposite_batch);
 		possibilities.put(WindowType.Window.ordinal(), Messages.driftParameterComposite_window);
 		windowType.setPossibilities(possibilities);
 
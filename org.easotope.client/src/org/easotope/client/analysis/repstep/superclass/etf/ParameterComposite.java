@@ -133,6 +133,7 @@ public class ParameterComposite extends RepStepParamComposite implements Standar
 
 		HashMap<Integer,String> possibilities = new HashMap<Integer,String>();
 		possibilities.put(WindowType.CorrInterval.ordinal(), Messages.etfParameterComposite_corrInterval);
+		possibilities.put(WindowType.Batch.ordinal(), Messages.etfParameterComposite_batch);
 		possibilities.put(WindowType.Window.ordinal(), Messages.etfParameterComposite_window);
 		windowType.setPossibilities(possibilities);
 
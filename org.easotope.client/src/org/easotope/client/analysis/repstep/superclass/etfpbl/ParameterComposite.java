@@ -133,6 +133,7 @@ public class ParameterComposite extends RepStepParamComposite implements Standar
 
 		HashMap<Integer,String> possibilities = new HashMap<Integer,String>();
 		possibilities.put(WindowType.CorrInterval.ordinal(), Messages.etfPblParameterComposite_corrInterval);
+		possibilities.put(WindowType.Batch.ordinal(), Messages.etfPblParameterComposite_batch);
 		possibilities.put(WindowType.Window.ordinal(), Messages.etfPblParameterComposite_window);
 		windowType.setPossibilities(possibilities);
 
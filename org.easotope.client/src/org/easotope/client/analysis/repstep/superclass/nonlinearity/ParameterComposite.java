@@ -85,6 +85,7 @@ public class ParameterComposite extends RepStepParamComposite implements Standar
 
 		HashMap<Integer,String> possibilities = new HashMap<Integer,String>();
 		possibilities.put(WindowType.CorrInterval.ordinal(), Messages.nonlinearityParameterComposite_corrInterval);
+		possibilities.put(WindowType.Batch.ordinal(), Messages.nonlinearityParameterComposite_batch);
 		possibilities.put(WindowType.Window.ordinal(), Messages.nonlinearityParameterComposite_window);
 		windowType.setPossibilities(possibilities);
 
@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.framework.core.network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+
+import org.junit.Test;
+
+public class BinaryCodecTest {
+	private BinaryCodec codec = new BinaryCodec();
+
+	@Test
+	public void primitivesAndStrings() throws Exception {
+		ArrayList<Serializable> list = new ArrayList<Serializable>();
+		list.add("text with ünïcödé");
+		list.add("");
+		list.add(Integer.MIN_VALUE);
+		list.add(Long.MAX_VALUE);
+		list.add(Double.NaN);
+		list.add(-0.0d);
+		list.add(Float.MIN_VALUE);
+		list.add((short) -7);
+		list.add((byte) 0x7f);
+		list.add('x');
+		list.add(true);
+		list.add(false);
+		list.add(null);
+
+		assertEquals(list, roundTrip(list));
+	}
+
+	@Test
+	public void arrays() throws Exception {
+		Fields fields = new Fields();
+		fields.ints = new int[] { 1, -2, Integer.MAX_VALUE };
+		fields.longs = new long[] { Long.MIN_VALUE, 0 };
+		fields.doubles = new double[] { 1.5, Double.NEGATIVE_INFINITY, Double.NaN };
+		fields.bytes = new byte[] { 0, -1, 2 };
+		fields.booleans = new boolean[] { true, false };
+		fields.strings = new String[] { "a", null, "c" };
+		fields.boxed = new Double[] { 1.0, null };
+		fields.nested = new int[][] { { 1 }, {}, null };
+
+		Fields result = roundTrip(fields);
+
+		assertArrayEquals(fields.ints, result.ints);
+		assertArrayEquals(fields.longs, result.longs);
+		assertArrayEquals(fields.doubles, result.doubles, 0.0);
+		assertArrayEquals(fields.bytes, result.bytes);
+		assertArrayEquals(fields.booleans, result.booleans);
+		assertArrayEquals(fields.strings, result.strings);
+		assertArrayEquals(fields.boxed, result.boxed);
+		assertArrayEquals(fields.nested, result.nested);
+		assertEquals(Double[].class, result.boxed.getClass());
+	}
+
+	@Test
+	public void collections() throws Exception {
+		HashMap<String,Object> map = new HashMap<String,Object>();
+		map.put("list", new ArrayList<Integer>(java.util.Arrays.asList(1, 2, 3)));
+		map.put("null", null);
+
+		HashSet<Object> set = new HashSet<Object>();
+		set.add(1L);
+		set.add("two");
+
+		Hashtable<String,Object> hashtable = new Hashtable<String,Object>();
+		hashtable.put("key", 3.0);
+
+		ArrayList<Serializable> list = new ArrayList<Serializable>();
+		list.add(map);
+		list.add(set);
+		list.add(hashtable);
+
+		assertEquals(list, roundTrip(list));
+	}
+
+	@Test
+	public void objectFieldsAndInheritance() throws Exception {
+		Child child = new Child();
+		child.parentValue = 4;
+		child.childValue = "child";
+		child.color = Color.GREEN;
+		child.notSent = "transient";
+
+		Child result = roundTrip(child);
+
+		assertEquals(4, result.parentValue);
+		assertEquals("child", result.childValue);
+		assertSame(Color.GREEN, result.color);
+		assertNull(result.notSent);
+	}
+
+	@Test
+	public void sharedReferencesAndCycles() throws Exception {
+		Node first = new Node();
+		Node second = new Node();
+		first.next = second;
+		second.next = first;
+
+		ArrayList<Node> list = new ArrayList<Node>();
+		list.add(first);
+		list.add(second);
+		list.add(first);
+
+		ArrayList<Node> result = roundTrip(list);
+
+		assertSame(result.get(0), result.get(2));
+		assertSame(result.get(1), result.get(0).next);
+		assertSame(result.get(0), result.get(1).next);
+	}
+
+	@Test
+	public void externalizable() throws Exception {
+		External external = new External();
+		external.value = 42;
+
+		External result = roundTrip(external);
+
+		assertEquals(42, result.value);
+		assertTrue(result.readExternalCalled);
+	}
+
+	@Test
+	public void customSerializationFallsBack() throws Exception {
+		Custom custom = new Custom();
+		custom.value = 7;
+
+		Custom result = roundTrip(custom);
+
+		assertEquals(7, result.value);
+		assertTrue(result.readObjectCalled);
+	}
+
+	@Test
+	public void stream() throws Exception {
+		ArrayList<Object> list = new ArrayList<Object>();
+
+		for (int i=0; i<10000; i++) {
+			list.add(new double[] { i, i / 2.0 });
+		}
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		codec.objectToStream(list, outputStream);
+
+		@SuppressWarnings("unchecked")
+		ArrayList<double[]> result = (ArrayList<double[]>) codec.streamToObject(new ByteArrayInputStream(outputStream.toByteArray()));
+
+		assertEquals(list.size(), result.size());
+
+		for (int i=0; i<list.size(); i++) {
+			assertArrayEquals((double[]) list.get(i), result.get(i), 0.0);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Serializable> T roundTrip(T object) throws Exception {
+		return (T) codec.bytesToObject(codec.objectToBytes(object));
+	}
+
+	private static class Fields implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		int[] ints;
+		long[] longs;
+		double[] doubles;
+		byte[] bytes;
+		boolean[] booleans;
+		String[] strings;
+		Double[] boxed;
+		int[][] nested;
+	}
+
+	private enum Color { RED, GREEN };
+
+	private static class Parent implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		int parentValue;
+	}
+
+	private static class Child extends Parent {
+		private static final long serialVersionUID = 1L;
+
+		String childValue;
+		Color color;
+		transient String notSent;
+	}
+
+	private static class Node implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		Node next;
+	}
+
+	public static class External implements Externalizable {
+		private static final long serialVersionUID = 1L;
+
+		int value;
+		transient boolean readExternalCalled = false;
+
+		public External() { }
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException {
+			out.writeInt(value);
+		}
+
+		@Override
+		public void readExternal(ObjectInput in) throws IOException {
+			value = in.readInt();
+			readExternalCalled = true;
+		}
+	}
+
+	private static class Custom implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		int value;
+		transient boolean readObjectCalled = false;
+
+		private void writeObject(ObjectOutputStream out) throws IOException {
+			out.defaultWriteObject();
+		}
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			in.defaultReadObject();
+			readObjectCalled = true;
+		}
+	}
+}
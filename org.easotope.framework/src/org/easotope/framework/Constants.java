@@ -36,4 +36,18 @@ public class Constants {
 	public static final String PROPERTY_OLDEST_COMPAT_VERSION = "org.easotope.oldestcompatversion";
 	public static final String PROPERTY_PREF_NODE_NAME = "org.easotope.prefnodename";
 	public static final String PROPERTY_DATABASE_NAME = "org.easotope.databasename";
+	public static final String PROPERTY_PIPELINE_DEPTH = "org.easotope.pipelinedepth";
+	public static final String PROPERTY_READ_ONLY_WORKERS = "org.easotope.readonlyworkers";
+	public static final String PROPERTY_BINARY_CODEC = "org.easotope.binarycodec";
+	public static final String PROPERTY_WRITE_QUEUE_BYTES = "org.easotope.writequeuebytes";
+	public static final String PROPERTY_WRITE_QUEUE_OVERFLOW = "org.easotope.writequeueoverflow";
+	public static final String PROPERTY_NIO_TRANSPORT = "org.easotope.niotransport";
+	public static final String PROPERTY_NIO_WORKERS = "org.easotope.nioworkers";
+	public static final String PROPERTY_CACHE_WARM_UP = "org.easotope.cachewarmup";
+	public static final String PROPERTY_WARM_UP_SAMPLES = "org.easotope.warmupsamples";
+	public static final String PROPERTY_PARALLEL_STEPS = "org.easotope.parallelsteps";
+	public static final String PROPERTY_LAZY_RECALCULATION = "org.easotope.lazyrecalculation";
+	public static final String PROPERTY_RECALCULATION_DELAY = "org.easotope.recalculationdelay";
+	public static final String PROPERTY_SLOW_PLUGIN_MILLIS = "org.easotope.slowpluginmillis";
+	public static final String PROPERTY_SLOW_QUERY_MILLIS = "org.easotope.slowquerymillis";
 }
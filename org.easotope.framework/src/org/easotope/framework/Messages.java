@@ -71,6 +71,26 @@ public class Messages extends NLS {
 	public static String objSocket_deserializedClassNotFound;
 	public static String objSocket_unexpectedEndOfFile;
 	public static String objSocket_readBytes;
+	public static String objSocket_errorWritingCodec;
+	public static String objSocket_usingCodec;
+	public static String objSocket_receivedNull;
+	public static String objSocket_errorReadingStream;
+	public static String objSocket_streamCipherFailed;
+	public static String objSocket_wroteStreamToQueue;
+	public static String objSocket_writingStream;
+	public static String objSocket_wroteStream;
+	public static String objSocket_errorWritingStream;
+	public static String objSocket_encryptionFailed;
+	public static String objSocket_writeQueueOverflow;
+	public static String objSocket_writeQueueDepth;
+	public static String objSocket_writeQueueStatistics;
+	public static String objSocket_unexpectedStream;
+
+	public static String objSocketSelector_started;
+	public static String objSocketSelector_stopped;
+	public static String objSocketSelector_selectFailed;
+	public static String objSocketSelector_registerFailed;
+	public static String objSocket_writeStalled;
 
 	public static String processor_connecting;
 	public static String processor_noConnection;
@@ -104,6 +124,7 @@ public class Messages extends NLS {
 	
 	public static String serverProcessor_unknownHost;
 	public static String serverProcessor_ioException;
+	public static String serverProcessor_connectionDroppedBeforeReply;
 	
 	public static String dbBackup_starting;
 	public static String dbBackup_ioError;
@@ -112,6 +133,10 @@ public class Messages extends NLS {
 	public static String dbBackup_cleanupOld;
 	public static String dbBackup_deleteError;
 	public static String dbBackup_stopRequested;
+	public static String dbBackup_startingOnline;
+	public static String dbBackup_sqlError;
+	public static String dbBackup_mkdirFailed;
+	public static String dbBackup_rawFilesCopied;
 
 	public static String userPasswordUpdate_userDoesNotExist;
 	public static String userPasswordUpdate_noUniquePrefs;
@@ -122,6 +147,7 @@ public class Messages extends NLS {
 	public static String arguments_backupdirHelp;
 	public static String arguments_backuptimesHelp;
 	public static String arguments_maxbackupsHelp;
+	public static String arguments_onlinebackupHelp;
 	public static String arguments_rebuildcorrintervalHelp;
 	public static String arguments_reparseacquisitionsHelp;
 	public static String arguments_reparsescansHelp;
@@ -136,6 +162,7 @@ public class Messages extends NLS {
 	public static String server_socketOpenError;
 	public static String server_socketClosed;
 	public static String server_acceptError;
+	public static String server_usingNioTransport;
 	public static String server_requestingStop;
 	public static String server_processorStopped;
 	public static String server_closingSocket;
@@ -152,13 +179,24 @@ public class Messages extends NLS {
 
 	public static String objSocketManager_threadCreateFailed;
 	public static String objSocketManager_noSuchThread;
-	public static String objSocketManager_terminalError;
-	public static String objSocketManager_ioException;
 	
 	public static String backupMgrInvalidTime;
 
 	public static String folderProcessor_couldNotSaveBatch;
 	public static String folderProcessor_batchItemNumberError;
+	public static String folderProcessor_readOnlyPoolFailed;
+	public static String folderProcessor_backgroundTaskFailed;
+	public static String folderProcessor_backgroundTaskFinished;
+	public static String folderProcessor_backgroundConnectionFailed;
+	public static String folderProcessor_backgroundPrepareFailed;
+	public static String folderProcessor_backgroundTaskGaveUp;
+	public static String folderProcessor_deferredWritesFailed;
+
+	public static String activator_slowPlugin;
+	public static String activator_tooManyWaterfallRounds;
+	public static String activator_eventsDistributed;
+
+	public static String slowQueryLogger_slowStatement;
 
 	static {
 		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
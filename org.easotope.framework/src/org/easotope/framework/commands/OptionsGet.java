@@ -29,6 +29,7 @@ package org.easotope.framework.commands;
 
 import java.util.Hashtable;
 
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.tables.Options;
 import org.easotope.framework.dbcore.util.RawFileManager;
 
@@ -36,7 +37,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class OptionsGet extends Command {
+public class OptionsGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private Options options;
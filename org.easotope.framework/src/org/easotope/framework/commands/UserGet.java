@@ -31,6 +31,7 @@ import java.util.Hashtable;
 
 import org.easotope.framework.dbcore.AuthenticationKeys;
 import org.easotope.framework.dbcore.DatabaseConstants;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.tables.User;
 import org.easotope.framework.dbcore.util.RawFileManager;
 
@@ -38,7 +39,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class UserGet extends Command {
+public class UserGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private int userId = DatabaseConstants.EMPTY_DB_ID;
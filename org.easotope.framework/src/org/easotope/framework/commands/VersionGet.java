@@ -30,6 +30,7 @@ package org.easotope.framework.commands;
 import java.util.Hashtable;
 
 import org.easotope.framework.core.util.SystemProperty;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.tables.Version;
 import org.easotope.framework.dbcore.util.RawFileManager;
 
@@ -37,7 +38,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class VersionGet extends Command {
+public class VersionGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private int clientVersion;
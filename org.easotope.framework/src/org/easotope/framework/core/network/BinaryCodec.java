@@ -0,0 +1,940 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.framework.core.network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// a compact replacement for java serialization on the wire. classes are sent by
+// name once per message and referred to by type id after that, primitives and
+// primitive arrays are written directly and Externalizable classes (ScratchPad)
+// use their own writeExternal format. classes that cannot be handled safely by
+// reflection are embedded using java serialization.
+public class BinaryCodec implements WireCodec {
+	public static final int ID = 1;
+
+	private static final byte FORMAT_VERSION = 1;
+	private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+	private static final byte NULL = 0;
+	private static final byte REFERENCE = 1;
+	private static final byte STRING = 2;
+	private static final byte INTEGER = 3;
+	private static final byte LONG = 4;
+	private static final byte DOUBLE = 5;
+	private static final byte FLOAT = 6;
+	private static final byte SHORT = 7;
+	private static final byte BYTE = 8;
+	private static final byte CHARACTER = 9;
+	private static final byte BOOLEAN_TRUE = 10;
+	private static final byte BOOLEAN_FALSE = 11;
+	private static final byte INT_ARRAY = 12;
+	private static final byte LONG_ARRAY = 13;
+	private static final byte DOUBLE_ARRAY = 14;
+	private static final byte BYTE_ARRAY = 15;
+	private static final byte BOOLEAN_ARRAY = 16;
+	private static final byte OBJECT_ARRAY = 17;
+	private static final byte ARRAY_LIST = 18;
+	private static final byte HASH_MAP = 19;
+	private static final byte HASH_SET = 20;
+	private static final byte HASHTABLE = 21;
+	private static final byte ENUM = 22;
+	private static final byte EXTERNALIZABLE = 23;
+	private static final byte OBJECT = 24;
+	private static final byte SERIALIZED = 25;
+
+	private static List<String> customSerializationMethods = Arrays.asList("writeObject", "readObject", "readObjectNoData", "writeReplace", "readResolve");
+	private static ConcurrentHashMap<Class<?>,ClassInfo> classInfos = new ConcurrentHashMap<Class<?>,ClassInfo>();
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return "binary";
+	}
+
+	@Override
+	public byte[] objectToBytes(Serializable object) throws IOException {
+		ByteBufferOutputStream byteBufferOutputStream = new ByteBufferOutputStream();
+		BinaryOutput output = new BinaryOutput(byteBufferOutputStream);
+
+		output.writeByte(FORMAT_VERSION);
+		output.writeObject(object);
+		output.close();
+
+		return byteBufferOutputStream.toByteArray();
+	}
+
+	@Override
+	public Serializable bytesToObject(byte[] bytes) throws IOException, ClassNotFoundException {
+		BinaryInput input = new BinaryInput(new ByteBufferInputStream(bytes));
+
+		int formatVersion = input.readByte();
+
+		if (formatVersion != FORMAT_VERSION) {
+			input.close();
+			throw new StreamCorruptedException("Unsupported binary codec format " + formatVersion);
+		}
+
+		Object object = input.readObject();
+		input.close();
+
+		return (Serializable) object;
+	}
+
+	@Override
+	public void objectToStream(Serializable object, OutputStream outputStream) throws IOException {
+		BinaryOutput output = new BinaryOutput(new BufferedOutputStream(outputStream, STREAM_BUFFER_SIZE));
+
+		output.writeByte(FORMAT_VERSION);
+		output.writeObject(object);
+		output.flush();
+	}
+
+	@Override
+	public Serializable streamToObject(InputStream inputStream) throws IOException, ClassNotFoundException {
+		BinaryInput input = new BinaryInput(new BufferedInputStream(inputStream, STREAM_BUFFER_SIZE));
+
+		int formatVersion = input.readByte();
+
+		if (formatVersion != FORMAT_VERSION) {
+			throw new StreamCorruptedException("Unsupported binary codec format " + formatVersion);
+		}
+
+		return (Serializable) input.readObject();
+	}
+
+	private static ClassInfo getClassInfo(Class<?> clazz) {
+		ClassInfo classInfo = classInfos.get(clazz);
+
+		if (classInfo == null) {
+			classInfo = new ClassInfo(clazz);
+			classInfos.put(clazz, classInfo);
+		}
+
+		return classInfo;
+	}
+
+	private static class ClassInfo {
+		private Class<?> clazz;
+		private byte kind = SERIALIZED;
+		private Constructor<?> constructor;
+		private Field[] fields;
+		private int layoutHash;
+
+		ClassInfo(Class<?> clazz) {
+			this.clazz = clazz;
+
+			if (clazz.isArray()) {
+				kind = OBJECT_ARRAY;
+
+			} else if (clazz.isEnum()) {
+				kind = ENUM;
+
+			} else if (Externalizable.class.isAssignableFrom(clazz)) {
+				try {
+					constructor = clazz.getConstructor();
+					kind = EXTERNALIZABLE;
+				} catch (NoSuchMethodException e) {
+					// fall back to serialization
+				}
+
+			} else if (isSafeForReflection(clazz)) {
+				try {
+					constructor = clazz.getDeclaredConstructor();
+					constructor.setAccessible(true);
+					fields = getSerializableFields(clazz);
+					kind = OBJECT;
+				} catch (Exception e) {
+					constructor = null;
+					fields = null;
+				}
+			}
+
+			layoutHash = clazz.getName().hashCode();
+
+			if (fields != null) {
+				for (Field field : fields) {
+					layoutHash = layoutHash * 31 + field.getName().hashCode();
+					layoutHash = layoutHash * 31 + field.getType().getName().hashCode();
+				}
+			}
+		}
+
+		// only classes that rely on default serialization of their own fields
+		private static boolean isSafeForReflection(Class<?> clazz) {
+			if (!Serializable.class.isAssignableFrom(clazz) || clazz.isAnonymousClass() || clazz.isLocalClass() || clazz.isSynthetic()) {
+				return false;
+			}
+
+			if (clazz.isMemberClass() && !Modifier.isStatic(clazz.getModifiers())) {
+				return false;
+			}
+
+			for (Class<?> current = clazz; current != null && Serializable.class.isAssignableFrom(current); current = current.getSuperclass()) {
+				if (current.getName().startsWith("java.") || current.getName().startsWith("javax.")) {
+					return false;
+				}
+
+				for (Method method : current.getDeclaredMethods()) {
+					if (customSerializationMethods.contains(method.getName())) {
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+
+		private static Field[] getSerializableFields(Class<?> clazz) {
+			ArrayList<Class<?>> hierarchy = new ArrayList<Class<?>>();
+
+			for (Class<?> current = clazz; current != null && Serializable.class.isAssignableFrom(current); current = current.getSuperclass()) {
+				hierarchy.add(0, current);
+			}
+
+			ArrayList<Field> result = new ArrayList<Field>();
+
+			for (Class<?> current : hierarchy) {
+				Field[] declaredFields = current.getDeclaredFields();
+
+				Arrays.sort(declaredFields, new Comparator<Field>() {
+					@Override
+					public int compare(Field field1, Field field2) {
+						return field1.getName().compareTo(field2.getName());
+					}
+				});
+
+				for (Field field : declaredFields) {
+					int modifiers = field.getModifiers();
+
+					if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+						continue;
+					}
+
+					field.setAccessible(true);
+					result.add(field);
+				}
+			}
+
+			return result.toArray(new Field[result.size()]);
+		}
+	}
+
+	private static class BinaryOutput extends DataOutputStream implements ObjectOutput {
+		private IdentityHashMap<Object,Integer> handles = new IdentityHashMap<Object,Integer>();
+		private HashMap<Class<?>,Integer> typeIds = new HashMap<Class<?>,Integer>();
+
+		BinaryOutput(OutputStream outputStream) {
+			super(outputStream);
+		}
+
+		@Override
+		public void writeObject(Object object) throws IOException {
+			if (object == null) {
+				writeByte(NULL);
+				return;
+			}
+
+			Integer handle = handles.get(object);
+
+			if (handle != null) {
+				writeByte(REFERENCE);
+				writeVarInt(handle);
+				return;
+			}
+
+			Class<?> clazz = object.getClass();
+
+			if (clazz == String.class) {
+				writeByte(STRING);
+				writeString((String) object);
+
+			} else if (clazz == Integer.class) {
+				writeByte(INTEGER);
+				writeSignedVarInt((Integer) object);
+
+			} else if (clazz == Long.class) {
+				writeByte(LONG);
+				writeSignedVarLong((Long) object);
+
+			} else if (clazz == Double.class) {
+				writeByte(DOUBLE);
+				writeDouble((Double) object);
+
+			} else if (clazz == Float.class) {
+				writeByte(FLOAT);
+				writeFloat((Float) object);
+
+			} else if (clazz == Short.class) {
+				writeByte(SHORT);
+				writeShort((Short) object);
+
+			} else if (clazz == Byte.class) {
+				writeByte(BYTE);
+				writeByte((Byte) object);
+
+			} else if (clazz == Character.class) {
+				writeByte(CHARACTER);
+				writeChar((Character) object);
+
+			} else if (clazz == Boolean.class) {
+				writeByte((Boolean) object ? BOOLEAN_TRUE : BOOLEAN_FALSE);
+
+			} else if (clazz == int[].class) {
+				int[] array = (int[]) object;
+				addHandle(object);
+				writeByte(INT_ARRAY);
+				writeVarInt(array.length);
+
+				for (int value : array) {
+					writeSignedVarInt(value);
+				}
+
+			} else if (clazz == long[].class) {
+				long[] array = (long[]) object;
+				addHandle(object);
+				writeByte(LONG_ARRAY);
+				writeVarInt(array.length);
+
+				for (long value : array) {
+					writeSignedVarLong(value);
+				}
+
+			} else if (clazz == double[].class) {
+				double[] array = (double[]) object;
+				addHandle(object);
+				writeByte(DOUBLE_ARRAY);
+				writeVarInt(array.length);
+
+				for (double value : array) {
+					writeDouble(value);
+				}
+
+			} else if (clazz == byte[].class) {
+				byte[] array = (byte[]) object;
+				addHandle(object);
+				writeByte(BYTE_ARRAY);
+				writeVarInt(array.length);
+				write(array);
+
+			} else if (clazz == boolean[].class) {
+				boolean[] array = (boolean[]) object;
+				addHandle(object);
+				writeByte(BOOLEAN_ARRAY);
+				writeVarInt(array.length);
+
+				for (boolean value : array) {
+					writeBoolean(value);
+				}
+
+			} else if (clazz == ArrayList.class) {
+				ArrayList<?> list = (ArrayList<?>) object;
+				addHandle(object);
+				writeByte(ARRAY_LIST);
+				writeVarInt(list.size());
+
+				for (Object element : list) {
+					writeObject(element);
+				}
+
+			} else if (clazz == HashSet.class) {
+				HashSet<?> set = (HashSet<?>) object;
+				addHandle(object);
+				writeByte(HASH_SET);
+				writeVarInt(set.size());
+
+				for (Object element : set) {
+					writeObject(element);
+				}
+
+			} else if (clazz == HashMap.class || clazz == Hashtable.class) {
+				Map<?,?> map = (Map<?,?>) object;
+				addHandle(object);
+				writeByte(clazz == HashMap.class ? HASH_MAP : HASHTABLE);
+				writeVarInt(map.size());
+
+				for (Map.Entry<?,?> entry : map.entrySet()) {
+					writeObject(entry.getKey());
+					writeObject(entry.getValue());
+				}
+
+			} else if (object instanceof Enum) {
+				writeByte(ENUM);
+				writeType(((Enum<?>) object).getDeclaringClass());
+				writeString(((Enum<?>) object).name());
+
+			} else if (clazz.isArray() && !clazz.getComponentType().isPrimitive()) {
+				Object[] array = (Object[]) object;
+				addHandle(object);
+				writeByte(OBJECT_ARRAY);
+				writeType(clazz.getComponentType());
+				writeVarInt(array.length);
+
+				for (Object element : array) {
+					writeObject(element);
+				}
+
+			} else {
+				ClassInfo classInfo = getClassInfo(clazz);
+
+				switch (classInfo.kind) {
+					case EXTERNALIZABLE:
+						addHandle(object);
+						writeByte(EXTERNALIZABLE);
+						writeType(clazz);
+						((Externalizable) object).writeExternal(this);
+						break;
+
+					case OBJECT:
+						addHandle(object);
+						writeByte(OBJECT);
+						writeType(clazz);
+						writeFields(object, classInfo.fields);
+						break;
+
+					default:
+						addHandle(object);
+						writeByte(SERIALIZED);
+						byte[] bytes = Serialization.objectToBytes((Serializable) object);
+						writeVarInt(bytes.length);
+						write(bytes);
+						break;
+				}
+			}
+		}
+
+		private void addHandle(Object object) {
+			handles.put(object, handles.size());
+		}
+
+		private void writeType(Class<?> clazz) throws IOException {
+			Integer typeId = typeIds.get(clazz);
+
+			if (typeId != null) {
+				writeVarInt(typeId);
+				return;
+			}
+
+			typeId = typeIds.size();
+			typeIds.put(clazz, typeId);
+
+			writeVarInt(typeId);
+			writeString(clazz.getName());
+			writeInt(getClassInfo(clazz).layoutHash);
+		}
+
+		private void writeString(String string) throws IOException {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length);
+			write(bytes);
+		}
+
+		private void writeVarInt(int value) throws IOException {
+			while ((value & ~0x7f) != 0) {
+				write((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+
+			write(value);
+		}
+
+		private void writeSignedVarInt(int value) throws IOException {
+			writeVarInt((value << 1) ^ (value >> 31));
+		}
+
+		private void writeSignedVarLong(long value) throws IOException {
+			value = (value << 1) ^ (value >> 63);
+
+			while ((value & ~0x7fL) != 0) {
+				write((int) ((value & 0x7f) | 0x80));
+				value >>>= 7;
+			}
+
+			write((int) value);
+		}
+
+		private void writeFields(Object object, Field[] fields) throws IOException {
+			try {
+				for (Field field : fields) {
+					Class<?> type = field.getType();
+
+					if (type == int.class) {
+						writeSignedVarInt(field.getInt(object));
+					} else if (type == double.class) {
+						writeDouble(field.getDouble(object));
+					} else if (type == long.class) {
+						writeSignedVarLong(field.getLong(object));
+					} else if (type == boolean.class) {
+						writeBoolean(field.getBoolean(object));
+					} else if (type == float.class) {
+						writeFloat(field.getFloat(object));
+					} else if (type == short.class) {
+						writeShort(field.getShort(object));
+					} else if (type == byte.class) {
+						writeByte(field.getByte(object));
+					} else if (type == char.class) {
+						writeChar(field.getChar(object));
+					} else {
+						writeObject(field.get(object));
+					}
+				}
+
+			} catch (IllegalAccessException e) {
+				throw new IOException(e);
+			}
+		}
+	}
+
+	private static class BinaryInput extends DataInputStream implements ObjectInput {
+		private ArrayList<Object> handles = new ArrayList<Object>();
+		private ArrayList<Class<?>> types = new ArrayList<Class<?>>();
+
+		BinaryInput(InputStream inputStream) {
+			super(inputStream);
+		}
+
+		@Override
+		public Object readObject() throws ClassNotFoundException, IOException {
+			byte tag = readByte();
+
+			switch (tag) {
+				case NULL:
+					return null;
+
+				case REFERENCE:
+					int handle = readVarInt();
+
+					if (handle < 0 || handle >= handles.size()) {
+						throw new StreamCorruptedException("Invalid reference " + handle);
+					}
+
+					return handles.get(handle);
+
+				case STRING:
+					return readString();
+
+				case INTEGER:
+					return readSignedVarInt();
+
+				case LONG:
+					return readSignedVarLong();
+
+				case DOUBLE:
+					return readDouble();
+
+				case FLOAT:
+					return readFloat();
+
+				case SHORT:
+					return readShort();
+
+				case BYTE:
+					return readByte();
+
+				case CHARACTER:
+					return readChar();
+
+				case BOOLEAN_TRUE:
+					return Boolean.TRUE;
+
+				case BOOLEAN_FALSE:
+					return Boolean.FALSE;
+
+				case INT_ARRAY: {
+					int[] array = new int[readVarInt()];
+					handles.add(array);
+
+					for (int i=0; i<array.length; i++) {
+						array[i] = readSignedVarInt();
+					}
+
+					return array;
+				}
+
+				case LONG_ARRAY: {
+					long[] array = new long[readVarInt()];
+					handles.add(array);
+
+					for (int i=0; i<array.length; i++) {
+						array[i] = readSignedVarLong();
+					}
+
+					return array;
+				}
+
+				case DOUBLE_ARRAY: {
+					double[] array = new double[readVarInt()];
+					handles.add(array);
+
+					for (int i=0; i<array.length; i++) {
+						array[i] = readDouble();
+					}
+
+					return array;
+				}
+
+				case BYTE_ARRAY: {
+					byte[] array = new byte[readVarInt()];
+					handles.add(array);
+					readFully(array);
+
+					return array;
+				}
+
+				case BOOLEAN_ARRAY: {
+					boolean[] array = new boolean[readVarInt()];
+					handles.add(array);
+
+					for (int i=0; i<array.length; i++) {
+						array[i] = readBoolean();
+					}
+
+					return array;
+				}
+
+				case ARRAY_LIST: {
+					int size = readVarInt();
+					ArrayList<Object> list = new ArrayList<Object>(size);
+					handles.add(list);
+
+					for (int i=0; i<size; i++) {
+						list.add(readObject());
+					}
+
+					return list;
+				}
+
+				case HASH_SET: {
+					int size = readVarInt();
+					HashSet<Object> set = new HashSet<Object>();
+					handles.add(set);
+
+					for (int i=0; i<size; i++) {
+						set.add(readObject());
+					}
+
+					return set;
+				}
+
+				case HASH_MAP:
+				case HASHTABLE: {
+					int size = readVarInt();
+					Map<Object,Object> map = (tag == HASH_MAP) ? new HashMap<Object,Object>() : new Hashtable<Object,Object>();
+					handles.add(map);
+
+					for (int i=0; i<size; i++) {
+						Object key = readObject();
+						map.put(key, readObject());
+					}
+
+					return map;
+				}
+
+				case ENUM: {
+					Class<?> clazz = readType();
+					String name = readString();
+
+					if (!clazz.isEnum()) {
+						throw new InvalidClassException(clazz.getName(), "Not an enum");
+					}
+
+					for (Object constant : clazz.getEnumConstants()) {
+						if (((Enum<?>) constant).name().equals(name)) {
+							return constant;
+						}
+					}
+
+					throw new InvalidClassException(clazz.getName(), "Unknown enum constant " + name);
+				}
+
+				case OBJECT_ARRAY: {
+					Class<?> componentType = readType();
+					Object[] array = (Object[]) Array.newInstance(componentType, readVarInt());
+					handles.add(array);
+
+					for (int i=0; i<array.length; i++) {
+						array[i] = readObject();
+					}
+
+					return array;
+				}
+
+				case EXTERNALIZABLE: {
+					ClassInfo classInfo = getClassInfo(readType());
+
+					if (classInfo.kind != EXTERNALIZABLE) {
+						throw new InvalidClassException(classInfo.clazz.getName(), "Not externalizable");
+					}
+
+					Externalizable object = (Externalizable) newInstance(classInfo);
+					handles.add(object);
+					object.readExternal(this);
+
+					return object;
+				}
+
+				case OBJECT: {
+					ClassInfo classInfo = getClassInfo(readType());
+
+					if (classInfo.kind != OBJECT) {
+						throw new InvalidClassException(classInfo.clazz.getName(), "Cannot be read by reflection");
+					}
+
+					Object object = newInstance(classInfo);
+					handles.add(object);
+					readFields(object, classInfo.fields);
+
+					return object;
+				}
+
+				case SERIALIZED: {
+					byte[] bytes = new byte[readVarInt()];
+					readFully(bytes);
+
+					Object object = Serialization.bytesToObject(bytes);
+					handles.add(object);
+
+					return object;
+				}
+
+				default:
+					throw new StreamCorruptedException("Unknown tag " + tag);
+			}
+		}
+
+		private Class<?> readType() throws IOException, ClassNotFoundException {
+			int typeId = readVarInt();
+
+			if (typeId < types.size() && typeId >= 0) {
+				return types.get(typeId);
+			}
+
+			if (typeId != types.size()) {
+				throw new StreamCorruptedException("Invalid type id " + typeId);
+			}
+
+			String name = readString();
+			int layoutHash = readInt();
+
+			Class<?> clazz = Class.forName(name, false, BinaryCodec.class.getClassLoader());
+
+			if (getClassInfo(clazz).layoutHash != layoutHash) {
+				throw new InvalidClassException(name, "Local class has a different field layout");
+			}
+
+			types.add(clazz);
+
+			return clazz;
+		}
+
+		private String readString() throws IOException {
+			byte[] bytes = new byte[readVarInt()];
+			readFully(bytes);
+
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		private int readVarInt() throws IOException {
+			int value = 0;
+
+			for (int shift=0; shift<35; shift+=7) {
+				int b = readUnsignedByte();
+				value |= (b & 0x7f) << shift;
+
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+
+			throw new StreamCorruptedException("Malformed variable length integer");
+		}
+
+		private int readSignedVarInt() throws IOException {
+			int value = readVarInt();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readSignedVarLong() throws IOException {
+			long value = 0;
+
+			for (int shift=0; shift<70; shift+=7) {
+				int b = readUnsignedByte();
+				value |= (long) (b & 0x7f) << shift;
+
+				if ((b & 0x80) == 0) {
+					return (value >>> 1) ^ -(value & 1);
+				}
+			}
+
+			throw new StreamCorruptedException("Malformed variable length integer");
+		}
+
+		private Object newInstance(ClassInfo classInfo) throws IOException {
+			try {
+				return classInfo.constructor.newInstance();
+			} catch (Exception e) {
+				throw new InvalidClassException(classInfo.clazz.getName(), e.getMessage());
+			}
+		}
+
+		private void readFields(Object object, Field[] fields) throws IOException, ClassNotFoundException {
+			try {
+				for (Field field : fields) {
+					Class<?> type = field.getType();
+
+					if (type == int.class) {
+						field.setInt(object, readSignedVarInt());
+					} else if (type == double.class) {
+						field.setDouble(object, readDouble());
+					} else if (type == long.class) {
+						field.setLong(object, readSignedVarLong());
+					} else if (type == boolean.class) {
+						field.setBoolean(object, readBoolean());
+					} else if (type == float.class) {
+						field.setFloat(object, readFloat());
+					} else if (type == short.class) {
+						field.setShort(object, readShort());
+					} else if (type == byte.class) {
+						field.setByte(object, readByte());
+					} else if (type == char.class) {
+						field.setChar(object, readChar());
+					} else {
+						field.set(object, readObject());
+					}
+				}
+
+			} catch (IllegalAccessException e) {
+				throw new IOException(e);
+			} catch (IllegalArgumentException e) {
+				throw new InvalidClassException(object.getClass().getName(), e.getMessage());
+			}
+		}
+	}
+
+	// unsynchronized replacements for the java.io byte array streams, the data
+	// streams above make one call per byte for most primitives
+
+	private static class ByteBufferOutputStream extends OutputStream {
+		private byte[] buffer = new byte[8192];
+		private int count = 0;
+
+		@Override
+		public void write(int b) {
+			if (count == buffer.length) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			if (count + length > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+			}
+
+			System.arraycopy(bytes, offset, buffer, count, length);
+			count += length;
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(buffer, count);
+		}
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+		private byte[] buffer;
+		private int position = 0;
+
+		ByteBufferInputStream(byte[] buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return (position < buffer.length) ? (buffer[position++] & 0xff) : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (position >= buffer.length) {
+				return -1;
+			}
+
+			length = Math.min(length, buffer.length - position);
+			System.arraycopy(buffer, position, bytes, offset, length);
+			position += length;
+
+			return length;
+		}
+
+		@Override
+		public long skip(long n) {
+			int skipped = (int) Math.max(0, Math.min(n, buffer.length - position));
+			position += skipped;
+
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return buffer.length - position;
+		}
+	}
+}
@@ -30,6 +30,7 @@ package org.easotope.framework.core.network;
 import java.math.BigInteger;
 import java.security.AlgorithmParameterGenerator;
 import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
@@ -70,6 +71,7 @@ public class DiffieHellmanAES {
 	private byte[] iv1 = new byte[16];
 	private byte[] iv2 = new byte[16];
 
+	private SecretKeySpec secretKey;
 	private Cipher ecipher;
 	private Cipher dcipher;
 
@@ -120,7 +122,7 @@ public class DiffieHellmanAES {
 		ka.doPhase(publicKey, true);
 		
 		byte[] masterKey = ka.generateSecret();
-		SecretKeySpec secretKey = new SecretKeySpec(masterKey, 0, 16, "AES");
+		secretKey = new SecretKeySpec(masterKey, 0, 16, "AES");
 
 		for (int i=0; i<16; i++) {
 			iv1[i] ^= remoteIv1[i];
@@ -140,7 +142,7 @@ public class DiffieHellmanAES {
 		return ecipher != null && dcipher != null;
 	} 
 
-	public byte[] encrypt(byte[] bytes) throws IllegalBlockSizeException, BadPaddingException {
+	public synchronized byte[] encrypt(byte[] bytes) throws IllegalBlockSizeException, BadPaddingException {
 		if (ecipher == null) {
 			throw new RuntimeException("Cannot encrypt because cipher was not initialized");
 		}
@@ -148,7 +150,7 @@ public class DiffieHellmanAES {
 		return ecipher.doFinal(bytes);
 	}
 
-	public byte[] decrypt(byte[] bytes) throws IllegalBlockSizeException, BadPaddingException {
+	public synchronized byte[] decrypt(byte[] bytes) throws IllegalBlockSizeException, BadPaddingException {
 		if (dcipher == null) {
 			throw new RuntimeException("Cannot decrypt because cipher was not initialized");
 		}
@@ -156,6 +158,20 @@ public class DiffieHellmanAES {
 		return dcipher.doFinal(bytes);
 	}
 
+	// streamed messages are encrypted with their own cipher so that other messages
+	// can use the shared ones at the same time, each cipher starts from the same iv
+	public Cipher createStreamEncryptCipher() throws GeneralSecurityException {
+		Cipher cipher = Cipher.getInstance(AES);
+		cipher.init(Cipher.ENCRYPT_MODE, secretKey, new IvParameterSpec(isListener ? iv1 : iv2));
+		return cipher;
+	}
+
+	public Cipher createStreamDecryptCipher() throws GeneralSecurityException {
+		Cipher cipher = Cipher.getInstance(AES);
+		cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(isListener ? iv2 : iv1));
+		return cipher;
+	}
+
 	public class MissingRemotePublicKey extends Exception {
 		private static final long serialVersionUID = 1L;
 
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.framework.core.network;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+
+// an object that is written to many sockets is encoded and compressed only once
+// for each wire codec, by whichever socket queues it first. only the encryption
+// is done separately for each socket.
+public class EncodedObject {
+	private Serializable object;
+	private HashMap<Integer,byte[]> codecIdToBytes = new HashMap<Integer,byte[]>();
+
+	public EncodedObject(Serializable object) {
+		this.object = object;
+	}
+
+	public Serializable getObject() {
+		return object;
+	}
+
+	synchronized byte[] getBytes(WireCodec wireCodec) throws IOException {
+		byte[] bytes = codecIdToBytes.get(wireCodec.getId());
+
+		if (bytes == null) {
+			bytes = Compression.compress(wireCodec.objectToBytes(object));
+			codecIdToBytes.put(wireCodec.getId(), bytes);
+		}
+
+		return bytes;
+	}
+}
@@ -33,34 +33,87 @@ import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.text.MessageFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.concurrent.Executor;
 import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import javax.crypto.BadPaddingException;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 
 import org.easotope.framework.Messages;
 import org.easotope.framework.core.logging.Log;
 import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.core.util.SystemProperty;
 
 public class ObjSocket implements Runnable {
 	private static volatile int idCounter = 0;
 
+	// a block length of STREAM_START is followed by a stream id and then by chunks
+	// of at most CHUNK_SIZE bytes, a chunk of length zero ends the stream
+	private static final int STREAM_START = -1;
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	// the wire codec is negotiated after the key exchange with int arrays sent
+	// using java serialization, which older peers ignore. the listener offers its
+	// codec and version, the other side answers with the codec it writes from then
+	// on and the listener confirms with the codec it writes from then on.
+	private static final int CODEC_OFFER = 0x45430001;
+	private static final int CODEC_ACCEPT = 0x45430002;
+	private static final int CODEC_CONFIRM = 0x45430003;
+
+	// a selector serviced socket that cannot be written to for this long is closed
+	// so that a stalled client does not hold its unwritten bytes forever
+	private static final long WRITE_STALL_TIMEOUT = 60000;
+
+	// a selector serviced socket stops reading while this many blocks wait to be decoded
+	private static final int MAX_RECEIVED_BLOCKS = 16;
+
 	private int id;
 	private Socket socket;
 	private InputStream inputStream;
 	private OutputStream outputStream;
 	private DiffieHellmanAES diffieHellmanAES;
+	private volatile WireCodec readCodec = new SerializationCodec();
+	private WireCodec writeCodec = new SerializationCodec();
+	private Object codecLock = new Object();
+	private volatile boolean remoteReadsStreams = false;
 	private WriteThread writeThread;
 	private boolean isListener;
 	private HashSet<ObjSocketListener> listeners;
+	private boolean closed = false;
+	private int localCodecId;
+	private int localVersion;
+
+	// only used when the socket is serviced by an ObjSocketSelector
+	private ObjSocketSelector objSocketSelector = null;
+	private ByteBuffer lengthBuffer = null;
+	private ByteBuffer blockBuffer = null;
+	private ArrayList<byte[]> handshakeBlocks = null;
+	private SelectionKey selectionKey = null;
+	private ArrayDeque<byte[]> receivedBlocks = new ArrayDeque<byte[]>();
+	private boolean decoding = false;
+	private boolean readsPaused = false;
+	private boolean closeAfterDecoding = false;
+	private Decoder decoder = new Decoder();
 
 	public ObjSocket(Socket socket, boolean isListener) throws IOException {
 		id = idCounter++;
@@ -82,22 +135,101 @@ public class ObjSocket implements Runnable {
 	}
 
 	public void run() {
-		if (initDiffieHellman()) {
+		if (writeHandshake() && readHandshake()) {
 			new Thread(writeThread).start();
 
-			synchronized (listeners) {
-				for (ObjSocketListener objSocketListener : listeners) {
-					objSocketListener.objSocketConnected(this);
-				}
+			if (!offerCodec()) {
+				close();
+				return;
 			}
 
+			notifyConnected();
 			handleReads();
 		}
 
 		close();
 	}
 
+	// instead of running on its own threads the socket can be serviced by a shared
+	// selector, in that case writes are done by a pooled thread only while there
+	// is something to write and reads are done by the selector as data arrives
+	public void start(ObjSocketSelector objSocketSelector) throws IOException {
+		this.objSocketSelector = objSocketSelector;
+
+		SocketChannel socketChannel = socket.getChannel();
+		socketChannel.configureBlocking(false);
+		outputStream = new ChannelOutputStream(socketChannel);
+		writeThread.setExecutor(objSocketSelector.getWriteExecutor());
+
+		lengthBuffer = ByteBuffer.allocate(Integer.SIZE / Byte.SIZE);
+		handshakeBlocks = new ArrayList<byte[]>();
+
+		if (!writeHandshake()) {
+			close();
+			return;
+		}
+
+		objSocketSelector.register(this);
+
+		// the writer finishes the handshake once the channel can take the rest
+		if (((ChannelOutputStream) outputStream).hasPendingBytes()) {
+			writeThread.schedule();
+		}
+	}
+
+	SocketChannel getSocketChannel() {
+		return socket.getChannel();
+	}
+
+	void setSelectionKey(SelectionKey selectionKey) {
+		this.selectionKey = selectionKey;
+	}
+
+	SelectionKey getSelectionKey() {
+		return selectionKey;
+	}
+
+	// called by the selector once a channel that was full can be written again
+	void resumeWrites() {
+		writeThread.resume();
+	}
+
+	// called by the selector while it waits for the channel to become writable
+	boolean isWriteStalled(long now) {
+		long pendingSince = ((ChannelOutputStream) outputStream).getPendingSince();
+
+		if (pendingSince == 0 || now - pendingSince <= WRITE_STALL_TIMEOUT) {
+			return false;
+		}
+
+		Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.objSocket_writeStalled, id, WRITE_STALL_TIMEOUT / 1000));
+
+		return true;
+	}
+
+	// called by the selector at the end of the stream, blocks that are still
+	// waiting to be decoded are handed to the listeners before the socket closes
+	void closeAfterDecoding() {
+		synchronized (receivedBlocks) {
+			if (decoding) {
+				closeAfterDecoding = true;
+				return;
+			}
+		}
+
+		close();
+	}
+
 	public void close() {
+		synchronized (listeners) {
+			if (closed) {
+				return;
+			}
+
+			closed = true;
+		}
+
+		Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_writeQueueStatistics, id, writeThread.getMaxQueuedBytes(), writeThread.getCoalescedCount()));
 		writeThread.suspendWrites();
 
 		try {
@@ -113,7 +245,22 @@ public class ObjSocket implements Runnable {
 		}
 	}
 
-	private boolean initDiffieHellman() {
+	// closes the socket from a thread other than the reading thread, with a selector
+	// nothing else will notice so the listeners have to be told here
+	private void closeSocket() {
+		if (objSocketSelector != null) {
+			close();
+			return;
+		}
+
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	private boolean writeHandshake() {
 		try {
 			diffieHellmanAES = new DiffieHellmanAES(isListener);
 			byte[] bytes = diffieHellmanAES.getLocalPublicKey();
@@ -148,6 +295,14 @@ public class ObjSocket implements Runnable {
 
 		Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_sentLocalPublicKey, id));
 
+		// the binary codec relies on both sides having identical classes
+		localCodecId = SystemProperty.useBinaryCodec() ? BinaryCodec.ID : SerializationCodec.ID;
+		localVersion = SystemProperty.getVersion();
+
+		return true;
+	}
+
+	private boolean readHandshake() {
 		byte[] bytes = null;
 
 		try {
@@ -199,6 +354,10 @@ public class ObjSocket implements Runnable {
 
 		Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_receivedRemoteIv2, id));
 
+		return completeHandshake(bytes, iv1, iv2);
+	}
+
+	private boolean completeHandshake(byte[] bytes, byte[] iv1, byte[] iv2) {
 		try {
 			diffieHellmanAES.setRemotePublicKey(bytes, iv1, iv2);
 
@@ -226,6 +385,73 @@ public class ObjSocket implements Runnable {
 		return true;
 	}
 
+	// only the listener starts the codec negotiation, an older listener never
+	// offers so the other side keeps using java serialization
+	private boolean offerCodec() {
+		if (!isListener) {
+			return true;
+		}
+
+		try {
+			writeThread.writeObject(new int[] { CODEC_OFFER, localCodecId, localVersion });
+
+		} catch (Exception exception) {
+			Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.objSocket_errorWritingCodec, id), exception);
+			return false;
+		}
+
+		return true;
+	}
+
+	// returns false if the object is not part of the codec negotiation
+	private boolean handleCodecMessage(Serializable object) {
+		if (!(object instanceof int[])) {
+			return false;
+		}
+
+		int[] message = (int[]) object;
+
+		if (!isListener && message.length == 3 && message[0] == CODEC_OFFER) {
+			boolean useBinary = localCodecId == BinaryCodec.ID && message[1] == BinaryCodec.ID && localVersion == message[2];
+			switchWriteCodec(CODEC_ACCEPT, useBinary ? BinaryCodec.ID : SerializationCodec.ID);
+
+		} else if (isListener && message.length == 2 && message[0] == CODEC_ACCEPT) {
+			// everything after the accept was written by the remote side with its new codec
+			readCodec = createCodec(message[1]);
+			remoteReadsStreams = true;
+			switchWriteCodec(CODEC_CONFIRM, message[1]);
+
+		} else if (!isListener && message.length == 2 && message[0] == CODEC_CONFIRM) {
+			readCodec = createCodec(message[1]);
+			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_usingCodec, id, readCodec.getName()));
+
+		} else {
+			return false;
+		}
+
+		return true;
+	}
+
+	// the message is still written with the old codec, anything queued after it
+	// uses the new codec
+	private void switchWriteCodec(int messageType, int codecId) {
+		synchronized (codecLock) {
+			try {
+				writeThread.writeObject(new int[] { messageType, codecId });
+
+			} catch (Exception exception) {
+				Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.objSocket_errorWritingCodec, id), exception);
+				return;
+			}
+
+			writeCodec = createCodec(codecId);
+		}
+	}
+
+	private WireCodec createCodec(int codecId) {
+		return (codecId == BinaryCodec.ID && localCodecId == BinaryCodec.ID) ? new BinaryCodec() : new SerializationCodec();
+	}
+
 	private void handleReads() {
 		while (true) {
 			Serializable object = readObject();
@@ -234,19 +460,129 @@ public class ObjSocket implements Runnable {
 				return;
 			}
 
-			synchronized (listeners) {
-				for (ObjSocketListener obSocketListener : listeners) {
-					obSocketListener.objSocketReceivedObject(this, object);
+			if (!handleCodecMessage(object)) {
+				notifyReceivedObject(object);
+			}
+		}
+	}
+
+	// called by the selector when the channel has data, returns false when
+	// the socket should be closed. complete blocks are handed to the decoder.
+	boolean readAvailable() {
+		try {
+			while (true) {
+				ByteBuffer buffer = (blockBuffer != null) ? blockBuffer : lengthBuffer;
+
+				if (socket.getChannel().read(buffer) == -1) {
+					return false;
+				}
+
+				if (buffer.hasRemaining()) {
+					return true;
 				}
+
+				if (blockBuffer == null) {
+					lengthBuffer.flip();
+					int length = lengthBuffer.getInt();
+					lengthBuffer.clear();
+
+					// only replies to the client are streamed
+					if (length < 0) {
+						Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_unexpectedStream, id));
+						return false;
+					}
+
+					blockBuffer = ByteBuffer.allocate(length);
+
+				} else {
+					byte[] bytes = blockBuffer.array();
+					blockBuffer = null;
+
+					Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_readBytes, bytes.length, id));
+
+					if (!queueReceivedBlock(bytes)) {
+						selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_READ);
+						return true;
+					}
+				}
+			}
+
+		} catch (IOException e) {
+			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_errorReadingBlock, id), e);
+			return false;
+		}
+	}
+
+	// returns false if reading should pause until the decoder catches up
+	private boolean queueReceivedBlock(byte[] bytes) {
+		synchronized (receivedBlocks) {
+			receivedBlocks.addLast(bytes);
+
+			if (!decoding) {
+				decoding = true;
+				objSocketSelector.getDecodeExecutor().execute(decoder);
+			}
+
+			if (receivedBlocks.size() >= MAX_RECEIVED_BLOCKS) {
+				readsPaused = true;
+				return false;
+			}
+
+			return true;
+		}
+	}
+
+	private boolean blockReceived(byte[] bytes) {
+		if (handshakeBlocks != null) {
+			handshakeBlocks.add(bytes);
+
+			if (handshakeBlocks.size() != 3) {
+				return true;
+			}
+
+			if (!completeHandshake(handshakeBlocks.get(0), handshakeBlocks.get(1), handshakeBlocks.get(2))) {
+				return false;
+			}
+
+			handshakeBlocks = null;
+
+			if (!offerCodec()) {
+				return false;
 			}
+
+			notifyConnected();
+
+			return true;
+		}
+
+		Serializable object = bytesToObject(bytes);
+
+		if (object == null) {
+			return false;
+		}
+
+		if (!handleCodecMessage(object)) {
+			notifyReceivedObject(object);
 		}
+
+		return true;
 	}
 
 	private Serializable readObject() {
 		byte[] bytes;
 
 		try {
-			bytes = readByteBlock();
+			Integer length = readLength();
+
+			if (length == null) {
+				return null;
+			}
+
+			if (length == STREAM_START) {
+				return readStream();
+			}
+
+			bytes = readByteBlock(length);
 
 		} catch (IOException e) {
 			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_errorReadingBlock, id), e);
@@ -257,6 +593,10 @@ public class ObjSocket implements Runnable {
 			return null;
 		}
 
+		return bytesToObject(bytes);
+	}
+
+	private Serializable bytesToObject(byte[] bytes) {
 		Serializable object = null;
 
 		try {
@@ -268,7 +608,7 @@ public class ObjSocket implements Runnable {
 				Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_decompressionError, id), exception);
 			}
 			
-			object = Serialization.bytesToObject(bytes);
+			object = readCodec.bytesToObject(bytes);
 
 		} catch (IOException exception) {
 			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_errorDeserializing, id), exception);
@@ -287,19 +627,84 @@ public class ObjSocket implements Runnable {
 			return null;
 		}
 
+		if (object == null) {
+			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_receivedNull, id));
+			return null;
+		}
+
 		Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_readObject, object.getClass().getSimpleName(), id));
 
 		return object;
 	}
 
-	private byte[] readByteBlock() throws IOException {
+	private Serializable readStream() throws IOException {
+		byte[] bytes = readBytes(Integer.SIZE / Byte.SIZE);
+
+		if (bytes == null) {
+			throw new IOException(MessageFormat.format(Messages.objSocket_unexpectedEndOfFile, id));
+		}
+
+		int streamId = ByteBuffer.wrap(bytes).getInt();
+		ChunkInputStream chunkInputStream = new ChunkInputStream();
+		Inflater inflater = new Inflater();
+		Serializable object = null;
+
+		try {
+			CipherInputStream cipherInputStream = new CipherInputStream(chunkInputStream, diffieHellmanAES.createStreamDecryptCipher());
+			InflaterInputStream inflaterInputStream = new InflaterInputStream(cipherInputStream, inflater, CHUNK_SIZE);
+			object = readCodec.streamToObject(inflaterInputStream);
+
+			// the stream must be read to its end to stay in sync with the next block
+			chunkInputStream.drain();
+
+		} catch (GeneralSecurityException exception) {
+			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_streamCipherFailed, id), exception);
+			return null;
+
+		} catch (ClassNotFoundException exception) {
+			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_deserializedClassNotFound, id), exception);
+			return null;
+
+		} catch (IOException exception) {
+			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_errorReadingStream, streamId, id), exception);
+			return null;
+
+		} finally {
+			inflater.end();
+		}
+
+		if (object == null) {
+			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_receivedNull, id));
+			return null;
+		}
+
+		Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_readObject, object.getClass().getSimpleName(), id));
+
+		return object;
+	}
+
+	private Integer readLength() throws IOException {
 		byte[] bytes = readBytes(Integer.SIZE / Byte.SIZE);
-		
+
 		if (bytes == null) {
 			return null;
 		}
 
-		bytes = readBytes(ByteBuffer.wrap(bytes).getInt());
+		return ByteBuffer.wrap(bytes).getInt();
+	}
+
+	private byte[] readByteBlock() throws IOException {
+		Integer length = readLength();
+
+		if (length == null) {
+			return null;
+		}
+
+		return readByteBlock(length);
+	}
+
+	private byte[] readByteBlock(int length) throws IOException {
+		byte[] bytes = readBytes(length);
 
 		if (bytes == null) {
 			throw new IOException(MessageFormat.format(Messages.objSocket_unexpectedEndOfFile, id));
@@ -332,6 +737,22 @@ public class ObjSocket implements Runnable {
 		return bytes;
 	}
 
+	private void notifyConnected() {
+		synchronized (listeners) {
+			for (ObjSocketListener objSocketListener : listeners) {
+				objSocketListener.objSocketConnected(this);
+			}
+		}
+	}
+
+	private void notifyReceivedObject(Serializable object) {
+		synchronized (listeners) {
+			for (ObjSocketListener objSocketListener : listeners) {
+				objSocketListener.objSocketReceivedObject(this, object);
+			}
+		}
+	}
+
 	private void notifyException(String message, Throwable throwable) {
 		ObjSocketException objSocketError = new ObjSocketException(message, throwable);
 
@@ -358,71 +779,313 @@ public class ObjSocket implements Runnable {
 		writeThread.writeObject(object);
 	}
 
+	// the object is encoded by the write thread directly onto the socket so only a
+	// fixed size buffer is needed regardless of the size of the object. because of
+	// that the caller gives up the object and must not modify it afterwards. peers
+	// that did not negotiate a codec predate streams and get a normal block instead.
+	public void writeObjectAsStream(Serializable object, int streamId) {
+		if (!remoteReadsStreams) {
+			try {
+				writeThread.writeObject(object);
+			} catch (Exception e) {
+				// already logged by the write thread
+			}
+
+			return;
+		}
+
+		writeThread.writeObjectAsStream(object, streamId);
+	}
+
+	// used for objects sent to many sockets, the encoding is done once by the
+	// first socket that queues it. an object with a non-null coalescing key
+	// replaces a queued object with the same key that has not been written yet.
+	public void writeEncodedObject(EncodedObject encodedObject, Object coalescingKey) {
+		writeThread.writeEncodedObject(encodedObject, coalescingKey);
+	}
+
 	public void suspendWrites() {
 		writeThread.suspendWrites();
 	}
 
+	public int getQueuedBlocks() {
+		return writeThread.getQueuedBlocks();
+	}
+
+	public long getQueuedBytes() {
+		return writeThread.getQueuedBytes();
+	}
+
+	public long getMaxQueuedBytes() {
+		return writeThread.getMaxQueuedBytes();
+	}
+
+	public int getCoalescedCount() {
+		return writeThread.getCoalescedCount();
+	}
+
 	private class WriteThread implements Runnable {
 		private boolean suspended = false;
-		private ArrayList<byte[]> byteBlocks = new ArrayList<byte[]>();
+		private ArrayDeque<QueuedBlock> queuedBlocks = new ArrayDeque<QueuedBlock>();
+		private HashMap<Object,QueuedBlock> coalescingKeyToQueuedBlock = new HashMap<Object,QueuedBlock>();
+		private long writeQueueBytes = SystemProperty.getWriteQueueBytes();
+		private boolean coalesceEvents = SystemProperty.coalesceQueuedEvents();
+		private long queuedBytes = 0;
+		private long budgetedBytes = 0;
+		private long maxQueuedBytes = 0;
+		private int coalescedCount = 0;
+		private int reportedQuarters = 0;
+		private Executor executor = null;
+		private boolean scheduled = false;
+
+		// with an executor the writer runs only while the queue is not empty and
+		// gives up its thread while the channel is full, the selector resumes it
+		// once the channel can be written again
+		void setExecutor(Executor executor) {
+			this.executor = executor;
+		}
+
+		void schedule() {
+			synchronized (queuedBlocks) {
+				if (!scheduled) {
+					scheduled = true;
+					executor.execute(this);
+				}
+			}
+		}
+
+		// the writer is still scheduled while it waits for the channel
+		void resume() {
+			executor.execute(this);
+		}
 
 		void writeObject(Serializable object) throws IOException, IllegalBlockSizeException, BadPaddingException {
 			if (suspended || diffieHellmanAES == null || !diffieHellmanAES.isReady()) {
 				return;
 			}
 
-			byte[] bytes = null;
+			// encoding and queueing are done under the codec lock so that nothing
+			// encoded with the old codec is queued after a codec switch
+			synchronized (codecLock) {
+				byte[] bytes = null;
 
-			try {
-				bytes = Serialization.objectToBytes(object);
+				try {
+					bytes = writeCodec.objectToBytes(object);
 
-			} catch (IOException exception) {
-				Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_serializeFailed, object.getClass().getName(), id), exception);
-				throw exception;
+				} catch (IOException exception) {
+					Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_serializeFailed, object.getClass().getName(), id), exception);
+					throw exception;
+				}
+
+				bytes = Compression.compress(bytes);
+
+				try {
+					bytes = diffieHellmanAES.encrypt(bytes);
+
+				} catch (IllegalBlockSizeException exception) {
+					Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_illegalBlockSizeException, id), exception);
+					throw exception;
+
+				} catch (BadPaddingException exception) {
+					Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_badPaddingException, id), exception);
+					throw exception;
+				}
+
+				if (enqueue(bytes, bytes.length, null, writeCodec, false)) {
+					Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_wroteObjectToQueue, object.getClass().getSimpleName(), id));
+				}
 			}
+		}
 
-			bytes = Compression.compress(bytes);
+		void writeObjectAsStream(Serializable object, int streamId) {
+			if (suspended || diffieHellmanAES == null || !diffieHellmanAES.isReady()) {
+				return;
+			}
 
-			try {
-				bytes = diffieHellmanAES.encrypt(bytes);
+			// streams are encoded in fixed size chunks as they are written so they
+			// take up no space in the queue until then
+
+			synchronized (codecLock) {
+				if (enqueue(new StreamedObject(object, streamId), 0, null, writeCodec, false)) {
+					Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_wroteStreamToQueue, object.getClass().getSimpleName(), id));
+				}
+			}
+		}
+
+		void writeEncodedObject(EncodedObject encodedObject, Object coalescingKey) {
+			if (suspended || diffieHellmanAES == null || !diffieHellmanAES.isReady()) {
+				return;
+			}
+
+			synchronized (codecLock) {
+				byte[] bytes = null;
+
+				try {
+					bytes = encodedObject.getBytes(writeCodec);
+
+				} catch (IOException exception) {
+					Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_serializeFailed, encodedObject.getObject().getClass().getName(), id), exception);
+					return;
+				}
+
+				if (enqueue(encodedObject, bytes.length, coalesceEvents ? coalescingKey : null, writeCodec, true)) {
+					Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_wroteObjectToQueue, encodedObject.getObject().getClass().getSimpleName(), id));
+				}
+			}
+		}
+
+		// a block with the same coalescing key as one still waiting in the queue
+		// replaces it and goes to the end of the queue so that it is never written
+		// ahead of blocks queued before it. if the budgeted blocks, which are the
+		// broadcast events, would grow past the byte budget the socket is closed and
+		// the remote side has to reconnect and reload its state. command replies
+		// are not budgeted because the client is waiting for them.
+		private boolean enqueue(Object block, long size, Object coalescingKey, WireCodec wireCodec, boolean budgeted) {
+			boolean overflow = false;
+			int quartersToReport = 0;
+			int blocks = 0;
+			long bytes = 0;
+
+			synchronized (queuedBlocks) {
+				if (suspended) {
+					return false;
+				}
+
+				QueuedBlock replacedBlock = (coalescingKey == null) ? null : coalescingKeyToQueuedBlock.remove(coalescingKey);
+
+				// the replaced block stays in the queue as an empty entry that the writer skips
+				if (replacedBlock != null) {
+					dequeued(replacedBlock);
+					replacedBlock.block = null;
+					replacedBlock.coalescingKey = null;
+					coalescedCount++;
+				}
+
+				if (budgeted && !queuedBlocks.isEmpty() && budgetedBytes + size > writeQueueBytes) {
+					overflow = true;
+					suspended = true;
+					blocks = queuedBlocks.size();
+					bytes = budgetedBytes;
+					clearQueue();
+					queuedBlocks.notify();
+
+				} else {
+					QueuedBlock queuedBlock = new QueuedBlock(block, size, coalescingKey, wireCodec, budgeted);
+					queuedBlocks.addLast(queuedBlock);
+					queuedBytes += size;
+
+					if (budgeted) {
+						budgetedBytes += size;
+					}
 
-				synchronized (byteBlocks) {
-					byteBlocks.add(0, bytes);
-					byteBlocks.notify();
+					if (coalescingKey != null) {
+						coalescingKeyToQueuedBlock.put(coalescingKey, queuedBlock);
+					}
+
+					queuedBlocks.notify();
+
+					if (executor != null && !scheduled) {
+						scheduled = true;
+						executor.execute(this);
+					}
+
+					maxQueuedBytes = Math.max(maxQueuedBytes, queuedBytes);
+
+					int quarters = (int) Math.min(4, budgetedBytes * 4 / writeQueueBytes);
+
+					if (quarters > reportedQuarters) {
+						reportedQuarters = quarters;
+						quartersToReport = quarters;
+						blocks = queuedBlocks.size();
+						bytes = budgetedBytes;
+					}
 				}
+			}
+
+			if (overflow) {
+				Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.objSocket_writeQueueOverflow, id, blocks, bytes));
 
-			} catch (IllegalBlockSizeException exception) {
-				Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_illegalBlockSizeException, id), exception);
-				throw exception;
+				closeSocket();
+
+				return false;
+			}
 
-			} catch (BadPaddingException exception) {
-				Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_badPaddingException, id), exception);
-				throw exception;
+			if (quartersToReport != 0) {
+				Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.objSocket_writeQueueDepth, id, blocks, bytes, quartersToReport * 25));
 			}
 
-			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_wroteObjectToQueue, object.getClass().getSimpleName(), id));
+			return true;
+		}
+
+		private void dequeued(QueuedBlock queuedBlock) {
+			queuedBytes -= queuedBlock.size;
+
+			if (queuedBlock.budgeted) {
+				budgetedBytes -= queuedBlock.size;
+			}
+		}
+
+		private void clearQueue() {
+			queuedBlocks.clear();
+			coalescingKeyToQueuedBlock.clear();
+			queuedBytes = 0;
+			budgetedBytes = 0;
 		}
 
 		void suspendWrites() {
 			suspended = true;
 
-			synchronized(byteBlocks) {
-				byteBlocks.clear();
-				byteBlocks.notify();
+			synchronized(queuedBlocks) {
+				clearQueue();
+				queuedBlocks.notify();
 			}
 			
 			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_writingSuspended, id));
 		}
 
+		int getQueuedBlocks() {
+			synchronized (queuedBlocks) {
+				return queuedBlocks.size();
+			}
+		}
+
+		long getQueuedBytes() {
+			synchronized (queuedBlocks) {
+				return queuedBytes;
+			}
+		}
+
+		long getMaxQueuedBytes() {
+			synchronized (queuedBlocks) {
+				return maxQueuedBytes;
+			}
+		}
+
+		int getCoalescedCount() {
+			synchronized (queuedBlocks) {
+				return coalescedCount;
+			}
+		}
+
 		@Override
 		public void run() {
 			while (true) {
-				byte[] bytes = null;
+				Object block = null;
+				WireCodec wireCodec = null;
+
+				if (!flushChannel()) {
+					return;
+				}
+
+				synchronized(queuedBlocks) {
+					while (queuedBlocks.size() == 0) {
+						if (executor != null) {
+							scheduled = false;
+							return;
+						}
 
-				synchronized(byteBlocks) {
-					while (byteBlocks.size() == 0) {
 						try {
-							byteBlocks.wait();
+							queuedBlocks.wait();
 						} catch (InterruptedException e) {
 							// ignore
 						}
@@ -433,7 +1096,61 @@ public class ObjSocket implements Runnable {
 						}
 					}
 
-					bytes = byteBlocks.remove(byteBlocks.size()-1);
+					QueuedBlock queuedBlock = queuedBlocks.removeFirst();
+
+					if (queuedBlock.coalescingKey != null) {
+						coalescingKeyToQueuedBlock.remove(queuedBlock.coalescingKey);
+					}
+
+					if (queuedBlock.block != null) {
+						dequeued(queuedBlock);
+					}
+
+					if (queuedBlocks.isEmpty()) {
+						reportedQuarters = 0;
+					}
+
+					block = queuedBlock.block;
+					wireCodec = queuedBlock.wireCodec;
+				}
+
+				// replaced by a newer block with the same coalescing key
+				if (block == null) {
+					continue;
+				}
+
+				if (block instanceof StreamedObject) {
+					if (!writeStream((StreamedObject) block, wireCodec)) {
+						closeSocket();
+
+						return;
+					}
+
+					continue;
+				}
+
+				byte[] bytes = null;
+
+				if (block instanceof EncodedObject) {
+					EncodedObject encodedObject = (EncodedObject) block;
+
+					try {
+						bytes = diffieHellmanAES.encrypt(encodedObject.getBytes(wireCodec));
+
+					} catch (IOException exception) {
+						Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_serializeFailed, encodedObject.getObject().getClass().getName(), id), exception);
+						continue;
+
+					} catch (GeneralSecurityException exception) {
+						Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.objSocket_encryptionFailed, id), exception);
+
+						closeSocket();
+
+						return;
+					}
+
+				} else {
+					bytes = (byte[]) block;
 				}
 
 				Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_writingBytes, bytes.length, id));
@@ -446,15 +1163,340 @@ public class ObjSocket implements Runnable {
 				} catch (IOException exception) {
 					Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_errorWritingToSocket, id), exception);
 
-					try {
-						socket.close();
-					} catch (IOException e) {
-						// ignore
+					closeSocket();
+
+					return;
+				}
+			}
+		}
+
+		// returns false if the writer has to stop, either because the socket was
+		// closed or because the selector will resume it once the channel is writable
+		private boolean flushChannel() {
+			if (!(outputStream instanceof ChannelOutputStream)) {
+				return true;
+			}
+
+			try {
+				if (((ChannelOutputStream) outputStream).writePendingBytes()) {
+					return true;
+				}
+
+			} catch (IOException exception) {
+				Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_errorWritingToSocket, id), exception);
+
+				closeSocket();
+
+				return false;
+			}
+
+			objSocketSelector.resumeWhenWritable(ObjSocket.this);
+
+			return false;
+		}
+
+		private boolean writeStream(StreamedObject streamedObject, WireCodec wireCodec) {
+			String name = streamedObject.object.getClass().getSimpleName();
+			Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_writingStream, name, id));
+
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+			try {
+				outputStream.write(ByteBuffer.allocate(8).putInt(STREAM_START).putInt(streamedObject.streamId).array());
+
+				ChunkOutputStream chunkOutputStream = new ChunkOutputStream();
+				CipherOutputStream cipherOutputStream = new CipherOutputStream(chunkOutputStream, diffieHellmanAES.createStreamEncryptCipher());
+				DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(cipherOutputStream, deflater, CHUNK_SIZE);
+
+				wireCodec.objectToStream(streamedObject.object, deflaterOutputStream);
+				deflaterOutputStream.close();
+
+				Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_wroteStream, name, chunkOutputStream.getBytesWritten(), id));
+
+			} catch (GeneralSecurityException exception) {
+				Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_streamCipherFailed, id), exception);
+				return false;
+
+			} catch (IOException exception) {
+				Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocket_errorWritingStream, name, id), exception);
+				return false;
+
+			} finally {
+				deflater.end();
+			}
+
+			return true;
+		}
+	}
+
+	private class QueuedBlock {
+		private Object block;
+		private long size;
+		private Object coalescingKey;
+		private WireCodec wireCodec;
+		private boolean budgeted;
+
+		QueuedBlock(Object block, long size, Object coalescingKey, WireCodec wireCodec, boolean budgeted) {
+			this.block = block;
+			this.size = size;
+			this.coalescingKey = coalescingKey;
+			this.wireCodec = wireCodec;
+			this.budgeted = budgeted;
+		}
+	}
+
+	private class StreamedObject {
+		private Serializable object;
+		private int streamId;
+
+		StreamedObject(Serializable object, int streamId) {
+			this.object = object;
+			this.streamId = streamId;
+		}
+	}
+
+	// decodes the blocks of a selector serviced socket in the order they arrived,
+	// only one decoder runs for a socket at a time
+	private class Decoder implements Runnable {
+		@Override
+		public void run() {
+			while (true) {
+				byte[] bytes = null;
+				boolean resumeReads = false;
+				boolean endOfStream = false;
+
+				synchronized (receivedBlocks) {
+					if (receivedBlocks.isEmpty()) {
+						decoding = false;
+						endOfStream = closeAfterDecoding;
+
+					} else {
+						bytes = receivedBlocks.removeFirst();
+
+						if (readsPaused && receivedBlocks.size() <= MAX_RECEIVED_BLOCKS / 2) {
+							readsPaused = false;
+							resumeReads = true;
+						}
+					}
+				}
+
+				if (bytes == null) {
+					if (endOfStream) {
+						close();
+					}
+
+					return;
+				}
+
+				if (resumeReads) {
+					objSocketSelector.resumeReads(ObjSocket.this);
+				}
+
+				// decoding stays marked as running so nothing more is decoded for this socket
+				if (!blockReceived(bytes)) {
+					synchronized (receivedBlocks) {
+						receivedBlocks.clear();
 					}
 
+					close();
+					return;
+				}
+			}
+		}
+	}
+
+	// writes to a non-blocking channel without ever waiting. whatever the channel
+	// does not take is kept in order and written by the writer once the selector
+	// reports the channel writable, so a streamed block is held here in full when
+	// the remote side reads slower than it is written.
+	private class ChannelOutputStream extends OutputStream {
+		private SocketChannel socketChannel;
+		private ArrayDeque<ByteBuffer> pendingBuffers = new ArrayDeque<ByteBuffer>();
+		private volatile long pendingSince = 0;
+
+		ChannelOutputStream(SocketChannel socketChannel) {
+			this.socketChannel = socketChannel;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			int end = offset + length;
+
+			if (pendingBuffers.isEmpty()) {
+				ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+				socketChannel.write(buffer);
+
+				if (!buffer.hasRemaining()) {
 					return;
 				}
+
+				offset = buffer.position();
+				pendingSince = System.currentTimeMillis();
 			}
+
+			// the callers reuse their arrays
+			pendingBuffers.addLast(ByteBuffer.wrap(Arrays.copyOfRange(bytes, offset, end)));
+		}
+
+		boolean hasPendingBytes() {
+			return !pendingBuffers.isEmpty();
+		}
+
+		// the time the channel last took any bytes while some were pending, or zero
+		long getPendingSince() {
+			return pendingSince;
+		}
+
+		// returns true once all the pending bytes are written
+		boolean writePendingBytes() throws IOException {
+			boolean progress = false;
+
+			while (!pendingBuffers.isEmpty()) {
+				ByteBuffer buffer = pendingBuffers.getFirst();
+
+				if (socketChannel.write(buffer) != 0) {
+					progress = true;
+				}
+
+				if (buffer.hasRemaining()) {
+					if (progress) {
+						pendingSince = System.currentTimeMillis();
+					}
+
+					return false;
+				}
+
+				pendingBuffers.removeFirst();
+			}
+
+			pendingSince = 0;
+
+			return true;
+		}
+	}
+
+	private class ChunkOutputStream extends OutputStream {
+		private byte[] buffer = new byte[CHUNK_SIZE];
+		private int count = 0;
+		private long bytesWritten = 0;
+
+		@Override
+		public void write(int b) throws IOException {
+			if (count == buffer.length) {
+				writeChunk();
+			}
+
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			while (length != 0) {
+				if (count == buffer.length) {
+					writeChunk();
+				}
+
+				int size = Math.min(length, buffer.length - count);
+				System.arraycopy(bytes, offset, buffer, count, size);
+
+				count += size;
+				offset += size;
+				length -= size;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (count != 0) {
+				writeChunk();
+			}
+
+			outputStream.write(ByteBuffer.allocate(4).putInt(0).array());
+			outputStream.flush();
+		}
+
+		long getBytesWritten() {
+			return bytesWritten;
+		}
+
+		private void writeChunk() throws IOException {
+			outputStream.write(ByteBuffer.allocate(4).putInt(count).array());
+			outputStream.write(buffer, 0, count);
+
+			bytesWritten += 4 + count;
+			count = 0;
+		}
+	}
+
+	private class ChunkInputStream extends InputStream {
+		private byte[] chunk = new byte[0];
+		private int position = 0;
+		private boolean finished = false;
+
+		@Override
+		public int read() throws IOException {
+			if (!fill()) {
+				return -1;
+			}
+
+			return chunk[position++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+
+			if (!fill()) {
+				return -1;
+			}
+
+			int size = Math.min(length, chunk.length - position);
+			System.arraycopy(chunk, position, bytes, offset, size);
+			position += size;
+
+			return size;
+		}
+
+		void drain() throws IOException {
+			while (fill()) {
+				position = chunk.length;
+			}
+		}
+
+		private boolean fill() throws IOException {
+			while (position == chunk.length) {
+				if (finished) {
+					return false;
+				}
+
+				Integer length = readLength();
+
+				if (length == null || length < 0 || length > CHUNK_SIZE) {
+					throw new IOException(MessageFormat.format(Messages.objSocket_unexpectedEndOfFile, id));
+				}
+
+				if (length == 0) {
+					finished = true;
+					return false;
+				}
+
+				chunk = readBytes(length);
+
+				if (chunk == null) {
+					throw new IOException(MessageFormat.format(Messages.objSocket_unexpectedEndOfFile, id));
+				}
+
+				position = 0;
+			}
+
+			return true;
 		}
 	}
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.framework.core.network;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.easotope.framework.Messages;
+import org.easotope.framework.core.logging.Log;
+import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.core.util.SystemProperty;
+
+// services any number of sockets with one thread for reads, a fixed pool of
+// threads for writes and a fixed pool of threads for decoding. the selector
+// thread only splits the incoming data into blocks, the handshake, decryption,
+// decompression and decoding of each socket's blocks are done in order by one
+// decoder thread at a time and the objects are handed to the listeners from there.
+// a writer whose channel is full gives up its thread and is resumed by the
+// selector once the channel is writable, so a slow client never holds a writer.
+public class ObjSocketSelector implements Runnable {
+	// how often sockets waiting to be written are checked for a stall
+	private static final long STALL_CHECK_INTERVAL = 1000;
+
+	private Selector selector;
+	private ExecutorService writeExecutor;
+	private ExecutorService decodeExecutor;
+	private ArrayList<ObjSocket> pendingRegistrations = new ArrayList<ObjSocket>();
+	private ArrayList<ObjSocket> pendingResumes = new ArrayList<ObjSocket>();
+	private ArrayList<ObjSocket> pendingWriteWaits = new ArrayList<ObjSocket>();
+	private HashSet<ObjSocket> waitingForWrites = new HashSet<ObjSocket>();
+
+	public ObjSocketSelector() throws IOException {
+		selector = Selector.open();
+		writeExecutor = Executors.newFixedThreadPool(SystemProperty.getNioWorkers(), new WorkerThreadFactory("Writer"));
+		decodeExecutor = Executors.newFixedThreadPool(SystemProperty.getNioWorkers(), new WorkerThreadFactory("Decoder"));
+
+		Thread thread = new Thread(this, getClass().getSimpleName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	ExecutorService getWriteExecutor() {
+		return writeExecutor;
+	}
+
+	Executor getDecodeExecutor() {
+		return decodeExecutor;
+	}
+
+	// channels can only be registered safely from the selector thread
+	void register(ObjSocket objSocket) {
+		synchronized (pendingRegistrations) {
+			pendingRegistrations.add(objSocket);
+		}
+
+		selector.wakeup();
+	}
+
+	// a socket stops reading while its decoder is behind, interest ops are only
+	// changed from the selector thread
+	void resumeReads(ObjSocket objSocket) {
+		synchronized (pendingResumes) {
+			pendingResumes.add(objSocket);
+		}
+
+		selector.wakeup();
+	}
+
+	// the socket's writer stops while its channel is full and is resumed once
+	// the selector reports the channel writable
+	void resumeWhenWritable(ObjSocket objSocket) {
+		synchronized (pendingWriteWaits) {
+			pendingWriteWaits.add(objSocket);
+		}
+
+		selector.wakeup();
+	}
+
+	@Override
+	public void run() {
+		Log.getInstance().log(Level.INFO, this, Messages.objSocketSelector_started);
+
+		while (true) {
+			try {
+				if (waitingForWrites.isEmpty()) {
+					selector.select();
+				} else {
+					selector.select(STALL_CHECK_INTERVAL);
+				}
+
+			} catch (IOException exception) {
+				Log.getInstance().log(Level.INFO, this, Messages.objSocketSelector_selectFailed, exception);
+				break;
+			}
+
+			registerPending();
+			resumePending();
+			waitForWritesPending();
+
+			Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+
+			while (iterator.hasNext()) {
+				SelectionKey selectionKey = iterator.next();
+				iterator.remove();
+
+				ObjSocket objSocket = (ObjSocket) selectionKey.attachment();
+
+				try {
+					if (selectionKey.isValid() && selectionKey.isWritable()) {
+						selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+						waitingForWrites.remove(objSocket);
+						objSocket.resumeWrites();
+					}
+
+					if (selectionKey.isValid() && (!selectionKey.isReadable() || objSocket.readAvailable())) {
+						continue;
+					}
+
+				} catch (CancelledKeyException e) {
+					// closed by another thread
+				}
+
+				selectionKey.cancel();
+				waitingForWrites.remove(objSocket);
+				objSocket.closeAfterDecoding();
+			}
+
+			closeStalled();
+		}
+
+		for (SelectionKey selectionKey : selector.keys()) {
+			((ObjSocket) selectionKey.attachment()).close();
+		}
+
+		try {
+			selector.close();
+		} catch (IOException e) {
+			// ignore
+		}
+
+		writeExecutor.shutdown();
+		decodeExecutor.shutdown();
+
+		Log.getInstance().log(Level.INFO, this, Messages.objSocketSelector_stopped);
+	}
+
+	private void registerPending() {
+		ArrayList<ObjSocket> objSockets;
+
+		synchronized (pendingRegistrations) {
+			objSockets = new ArrayList<ObjSocket>(pendingRegistrations);
+			pendingRegistrations.clear();
+		}
+
+		for (ObjSocket objSocket : objSockets) {
+			try {
+				objSocket.setSelectionKey(objSocket.getSocketChannel().register(selector, SelectionKey.OP_READ, objSocket));
+
+			} catch (ClosedChannelException exception) {
+				Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocketSelector_registerFailed, objSocket.getId()), exception);
+				objSocket.close();
+			}
+		}
+	}
+
+	private void resumePending() {
+		ArrayList<ObjSocket> objSockets;
+
+		synchronized (pendingResumes) {
+			objSockets = new ArrayList<ObjSocket>(pendingResumes);
+			pendingResumes.clear();
+		}
+
+		for (ObjSocket objSocket : objSockets) {
+			SelectionKey selectionKey = objSocket.getSelectionKey();
+
+			if (selectionKey != null && selectionKey.isValid()) {
+				selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_READ);
+			}
+		}
+	}
+
+	private void waitForWritesPending() {
+		ArrayList<ObjSocket> objSockets;
+
+		synchronized (pendingWriteWaits) {
+			objSockets = new ArrayList<ObjSocket>(pendingWriteWaits);
+			pendingWriteWaits.clear();
+		}
+
+		for (ObjSocket objSocket : objSockets) {
+			SelectionKey selectionKey = objSocket.getSelectionKey();
+
+			if (selectionKey != null && selectionKey.isValid()) {
+				selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
+				waitingForWrites.add(objSocket);
+
+			} else {
+				objSocket.close();
+			}
+		}
+	}
+
+	// a client that stops reading would otherwise keep its unwritten bytes forever
+	private void closeStalled() {
+		if (waitingForWrites.isEmpty()) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		Iterator<ObjSocket> iterator = waitingForWrites.iterator();
+
+		while (iterator.hasNext()) {
+			ObjSocket objSocket = iterator.next();
+			SelectionKey selectionKey = objSocket.getSelectionKey();
+
+			if (!selectionKey.isValid()) {
+				iterator.remove();
+
+			} else if (objSocket.isWriteStalled(now)) {
+				iterator.remove();
+				selectionKey.cancel();
+				objSocket.close();
+			}
+		}
+	}
+
+	private class WorkerThreadFactory implements ThreadFactory {
+		private String role;
+		private int count = 0;
+
+		WorkerThreadFactory(String role) {
+			this.role = role;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, ObjSocketSelector.class.getSimpleName() + "-" + role + "-" + count++);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
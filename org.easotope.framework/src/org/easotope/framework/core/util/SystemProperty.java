@@ -46,6 +46,77 @@ public class SystemProperty {
 		return getStringProperty(Constants.PROPERTY_DATABASE_NAME);
 	}
 
+	// the number of commands a client may have outstanding on one server connection
+	public static int getPipelineDepth() {
+		return getIntProperty(Constants.PROPERTY_PIPELINE_DEPTH, 16);
+	}
+
+	// the number of threads used to execute read only commands, 0 executes everything on the processor thread
+	public static int getReadOnlyWorkers() {
+		return getIntProperty(Constants.PROPERTY_READ_ONLY_WORKERS, 4);
+	}
+
+	// false forces java serialization on all new connections
+	public static boolean useBinaryCodec() {
+		return getBooleanProperty(Constants.PROPERTY_BINARY_CODEC, true);
+	}
+
+	// the number of bytes of events that may wait to be written to one socket before it is closed
+	public static int getWriteQueueBytes() {
+		return Math.max(1, getIntProperty(Constants.PROPERTY_WRITE_QUEUE_BYTES, 32 * 1024 * 1024));
+	}
+
+	// "coalesce" lets a queued event be replaced by a newer one for the same object,
+	// "disconnect" writes every event and relies only on the byte budget
+	public static boolean coalesceQueuedEvents() {
+		return !"disconnect".equals(getStringProperty(Constants.PROPERTY_WRITE_QUEUE_OVERFLOW, "coalesce"));
+	}
+
+	// true makes the server service all client sockets from one selector thread
+	public static boolean useNioTransport() {
+		return getBooleanProperty(Constants.PROPERTY_NIO_TRANSPORT, false);
+	}
+
+	// the number of threads the selector uses for writing and the number it uses for decoding
+	public static int getNioWorkers() {
+		return Math.max(1, getIntProperty(Constants.PROPERTY_NIO_WORKERS, 8));
+	}
+
+	// false leaves all calculation caches to be filled by the first commands that need them
+	public static boolean useCacheWarmUp() {
+		return getBooleanProperty(Constants.PROPERTY_CACHE_WARM_UP, true);
+	}
+
+	// the number of most recently measured samples whose calculations are precomputed at startup
+	public static int getWarmUpSamples() {
+		return Math.max(0, getIntProperty(Constants.PROPERTY_WARM_UP_SAMPLES, 100));
+	}
+
+	// false calculates the replicates of a corr interval one at a time even for independent steps
+	public static boolean useParallelSteps() {
+		return getBooleanProperty(Constants.PROPERTY_PARALLEL_STEPS, true);
+	}
+
+	// true only marks calculations affected by an edit as stale instead of deleting them right away
+	public static boolean useLazyRecalculation() {
+		return getBooleanProperty(Constants.PROPERTY_LAZY_RECALCULATION, false);
+	}
+
+	// the number of seconds without new edits before stale calculations are redone in the background
+	public static int getRecalculationDelay() {
+		return Math.max(0, getIntProperty(Constants.PROPERTY_RECALCULATION_DELAY, 30));
+	}
+
+	// plugin calls that take longer than this many milliseconds are logged
+	public static int getSlowPluginMillis() {
+		return Math.max(0, getIntProperty(Constants.PROPERTY_SLOW_PLUGIN_MILLIS, 1000));
+	}
+
+	// database statements that take longer than this many milliseconds are logged with their plan, 0 turns this off
+	public static int getSlowQueryMillis() {
+		return Math.max(0, getIntProperty(Constants.PROPERTY_SLOW_QUERY_MILLIS, 0));
+	}
+
 	private static String getStringProperty(String property) {
 		String string = System.getProperty(property);
 
@@ -71,4 +142,28 @@ public class SystemProperty {
 			throw new RuntimeException("Property " + property + " should be an integer but is " + string + ".");
 		}
 	}
+
+	private static boolean getBooleanProperty(String property, boolean defaultValue) {
+		if (System.getProperty(property) == null) {
+			return defaultValue;
+		}
+
+		return Boolean.parseBoolean(getStringProperty(property));
+	}
+
+	private static String getStringProperty(String property, String defaultValue) {
+		if (System.getProperty(property) == null) {
+			return defaultValue;
+		}
+
+		return getStringProperty(property);
+	}
+
+	private static int getIntProperty(String property, int defaultValue) {
+		if (System.getProperty(property) == null) {
+			return defaultValue;
+		}
+
+		return getIntProperty(property);
+	}
 }
@@ -27,14 +27,16 @@
 
 package org.easotope.framework.dbcore;
 
+import java.text.MessageFormat;
 import java.util.ArrayList;
 
 import org.easotope.framework.Constants;
+import org.easotope.framework.Messages;
+import org.easotope.framework.core.logging.Log;
+import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.core.util.SystemProperty;
 import org.easotope.framework.dbcore.cmdprocessors.Event;
-import org.easotope.framework.dbcore.extensionpoint.definition.Plugin;
 import org.easotope.framework.dbcore.util.RawFileManager;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.core.runtime.SafeRunner;
 import org.osgi.framework.BundleActivator;
@@ -45,6 +47,7 @@ import com.j256.ormlite.support.ConnectionSource;
 
 public class Activator implements BundleActivator {
 	private static BundleContext context;
+	private static EventRoutingTable routingTable = null;
 
 	public void start(BundleContext context) throws Exception {
 		Activator.context = context;
@@ -52,6 +55,10 @@ public class Activator implements BundleActivator {
 
 	public void stop(BundleContext context) throws Exception {
 		Activator.context = null;
+
+		synchronized (Activator.class) {
+			routingTable = null;
+		}
 	}
 
 	private static IExtensionRegistry getExtensionRegistry() {
@@ -61,64 +68,81 @@ public class Activator implements BundleActivator {
 		return reg;
 	}
 
+	private static synchronized EventRoutingTable getRoutingTable() {
+		if (routingTable == null) {
+			IExtensionRegistry registry = Activator.getExtensionRegistry();
+			routingTable = new EventRoutingTable(registry.getConfigurationElementsFor(Constants.PLUGIN_ID));
+		}
+
+		return routingTable;
+	}
+
 	public static ArrayList<Event> distributeEventToPlugins(ArrayList<Event> currentEvent, RawFileManager rawFileManager, ConnectionSource connectionSource) {
 		ArrayList<Event> waterfallEvents = new ArrayList<Event>();
 
-		IExtensionRegistry registry = Activator.getExtensionRegistry();
-		IConfigurationElement[] pluginConfigs = registry.getConfigurationElementsFor(Constants.PLUGIN_ID);
+		EventRoutingTable table = getRoutingTable();
+		EventRoutingTable.Route[] routes = table.getRoutes();
+		long slowPluginNanos = SystemProperty.getSlowPluginMillis() * 1000000L;
+		long startTime = System.nanoTime();
 
 		@SuppressWarnings("unchecked")
-		ArrayList<Event>[] newEvents = new ArrayList[pluginConfigs.length];
+		ArrayList<Event>[] newEvents = new ArrayList[routes.length];
 		@SuppressWarnings("unchecked")
-		ArrayList<Event>[] previousEvents = new ArrayList[pluginConfigs.length];
+		ArrayList<Event>[] previousEvents = new ArrayList[routes.length];
 
-		for (int i=0; i<pluginConfigs.length; i++) {
+		for (int i=0; i<routes.length; i++) {
 			newEvents[i] = new ArrayList<Event>();
-			newEvents[i].addAll(currentEvent);
 			previousEvents[i] = new ArrayList<Event>();
 		}
 
+		table.route(currentEvent, newEvents);
+
 		boolean eventsWereDelivered;
+		int rounds = 0;
 
 		do {
 			eventsWereDelivered = false;
 
 			for (int i=0; i<newEvents.length; i++) {
 				if (!newEvents[i].isEmpty()) {
-					Object object = null;
+					EventRoutingTable.Route route = routes[i];
+					PluginRunnable runnable = new PluginRunnable(route.getPlugin(), newEvents[i], previousEvents[i], rawFileManager, connectionSource);
+
+					long pluginStartTime = System.nanoTime();
+					SafeRunner.run(runnable);
+					long pluginNanos = System.nanoTime() - pluginStartTime;
 
-					try {
-						IConfigurationElement configElement = pluginConfigs[i];
-						object = configElement.createExecutableExtension("class");
-					} catch (CoreException ex) {
-						// do nothing
+					route.record(newEvents[i].size(), pluginNanos);
+
+					if (pluginNanos > slowPluginNanos) {
+						String message = MessageFormat.format(Messages.activator_slowPlugin, route.getName(), pluginNanos / 1000000, newEvents[i].size(), route.toString());
+						Log.getInstance().log(Level.INFO, Activator.class, message);
 					}
 
-					if (object instanceof Plugin) {
-						final Plugin plugin = (Plugin) object;
-						PluginRunnable runnable = new PluginRunnable(plugin, newEvents[i], previousEvents[i], rawFileManager, connectionSource);
-						SafeRunner.run(runnable);
-						ArrayList<Event> returnValue = runnable.getReturnValue();
-
-						previousEvents[i].addAll(newEvents[i]);
-						newEvents[i].clear();
-
-						for (int j=0; j<newEvents.length; j++) {
-							if (returnValue != null) {
-								newEvents[i].addAll(returnValue);
-							}
-						}
-
-						if (returnValue != null) {
-							waterfallEvents.addAll(returnValue);
-						}
-						
-						eventsWereDelivered = true;
+					ArrayList<Event> returnValue = runnable.getReturnValue();
+
+					previousEvents[i].addAll(newEvents[i]);
+					newEvents[i].clear();
+
+					if (returnValue != null) {
+						table.route(returnValue, newEvents);
+						waterfallEvents.addAll(returnValue);
 					}
+
+					eventsWereDelivered = true;
 				}
 			}
+
+			if (eventsWereDelivered && ++rounds == EventRoutingTable.MAX_WATERFALL_ROUNDS) {
+				String message = MessageFormat.format(Messages.activator_tooManyWaterfallRounds, rounds);
+				Log.getInstance().log(Level.INFO, Activator.class, message);
+				break;
+			}
 		} while (eventsWereDelivered);
-		
+
+		String message = MessageFormat.format(Messages.activator_eventsDistributed, currentEvent.size() + waterfallEvents.size(), rounds, (System.nanoTime() - startTime) / 1000000, table.getStatistics());
+		Log.getInstance().log(Level.DEBUG, Activator.class, message);
+
 		return waterfallEvents;
 	}
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.framework.dbcore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.easotope.framework.dbcore.cmdprocessors.Event;
+import org.easotope.framework.dbcore.extensionpoint.definition.Plugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+
+public class EventRoutingTable {
+	public static final int MAX_WATERFALL_ROUNDS = 100;
+
+	private Route[] routes;
+	private HashMap<Class<?>,Route[]> routesByEventClass = new HashMap<Class<?>,Route[]>();
+
+	EventRoutingTable(IConfigurationElement[] pluginConfigs) {
+		ArrayList<Route> list = new ArrayList<Route>();
+
+		for (IConfigurationElement configElement : pluginConfigs) {
+			Object object = null;
+
+			try {
+				object = configElement.createExecutableExtension("class");
+			} catch (CoreException ex) {
+				// do nothing
+			}
+
+			if (object instanceof Plugin) {
+				list.add(new Route(list.size(), (Plugin) object));
+			}
+		}
+
+		routes = list.toArray(new Route[list.size()]);
+	}
+
+	Route[] getRoutes() {
+		return routes;
+	}
+
+	// add each event to the pending list of every plugin that handles it
+	void route(ArrayList<Event> events, ArrayList<Event>[] pendingEvents) {
+		for (Event event : events) {
+			for (Route route : getRoutes(event.getClass())) {
+				pendingEvents[route.getIndex()].add(event);
+			}
+		}
+	}
+
+	private synchronized Route[] getRoutes(Class<?> eventClass) {
+		Route[] result = routesByEventClass.get(eventClass);
+
+		if (result == null) {
+			ArrayList<Route> list = new ArrayList<Route>();
+
+			for (Route route : routes) {
+				if (route.handles(eventClass)) {
+					list.add(route);
+				}
+			}
+
+			result = list.toArray(new Route[list.size()]);
+			routesByEventClass.put(eventClass, result);
+		}
+
+		return result;
+	}
+
+	public String getStatistics() {
+		StringBuffer buffer = new StringBuffer();
+
+		for (Route route : routes) {
+			if (buffer.length() != 0) {
+				buffer.append(", ");
+			}
+
+			buffer.append(route.toString());
+		}
+
+		return buffer.toString();
+	}
+
+	static class Route {
+		private int index;
+		private Plugin plugin;
+		private Class<?>[] eventClasses;
+		private long calls = 0;
+		private long events = 0;
+		private long totalNanos = 0;
+		private long maxNanos = 0;
+
+		Route(int index, Plugin plugin) {
+			this.index = index;
+			this.plugin = plugin;
+			this.eventClasses = plugin.getEventClasses();
+		}
+
+		int getIndex() {
+			return index;
+		}
+
+		Plugin getPlugin() {
+			return plugin;
+		}
+
+		String getName() {
+			return plugin.getClass().getName();
+		}
+
+		boolean handles(Class<?> eventClass) {
+			if (eventClasses == null) {
+				return true;
+			}
+
+			for (Class<?> handledClass : eventClasses) {
+				if (handledClass.isAssignableFrom(eventClass)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		synchronized void record(int numEvents, long nanos) {
+			calls++;
+			events += numEvents;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+		}
+
+		@Override
+		public synchronized String toString() {
+			return getName() + " calls=" + calls + " events=" + events + " totalMs=" + (totalNanos / 1000000) + " maxMs=" + (maxNanos / 1000000);
+		}
+	}
+}
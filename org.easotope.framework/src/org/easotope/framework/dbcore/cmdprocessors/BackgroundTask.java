@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.framework.dbcore.cmdprocessors;
+
+import org.easotope.framework.dbcore.util.RawFileManager;
+
+import com.j256.ormlite.support.ConnectionSource;
+
+// work that a processor runs in small steps whenever no commands are waiting. each
+// step is first prepared on a low priority thread with a connection of its own while
+// commands keep executing and then finished on the processor thread. finishing should
+// be short because a command that arrives while it runs has to wait for it.
+public interface BackgroundTask {
+	public String getName();
+
+	// does the slow part of the next step without writing to the database. if a command
+	// that may modify the database executes before the step is finished, this is called
+	// again and the result of the earlier call has to be replaced.
+	public default void prepareStep(ConnectionSource connectionSource, RawFileManager rawFileManager) {
+		// do nothing
+	}
+
+	// finishes the prepared step on the processor thread, returns false once there is no more work to do
+	public boolean runStep(ConnectionSource connectionSource, RawFileManager rawFileManager);
+
+	// returns false while the task wants to wait before its next step
+	public default boolean isReady() {
+		return true;
+	}
+}
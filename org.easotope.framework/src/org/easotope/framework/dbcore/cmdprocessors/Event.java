@@ -37,4 +37,11 @@ public abstract class Event implements Serializable {
 	public String getName() {
 		return getClass().getSimpleName() + "()";
 	}
+
+	// events that carry the complete new state of one object return a key that
+	// identifies that object, a newer event with an equal key makes an older one
+	// waiting to be sent redundant
+	public Object getCoalescingKey() {
+		return null;
+	}
 }
@@ -33,6 +33,10 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.easotope.framework.Messages;
 import org.easotope.framework.commands.Command;
@@ -46,14 +50,19 @@ import org.easotope.framework.dbcore.tables.Version;
 //ADD_FOR_BATCH_IMPORT
 //import org.easotope.framework.dbcore.util.BatchStorageManager;
 import org.easotope.framework.dbcore.util.RawFileManager;
+import org.easotope.framework.dbcore.util.SlowQueryLogger;
 
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
 import com.j256.ormlite.misc.TransactionManager;
 import com.j256.ormlite.support.ConnectionSource;
 
 public class FolderProcessor extends ThreadProcessor {
+	private static final long PREPARE_RETRY_DELAY = 10000; // milliseconds
+	private static final int MAX_PREPARE_FAILURES = 10;
+
 	private boolean isServerMode;
 	private boolean reparseAcquisitions;
 	private String source;
@@ -61,16 +70,32 @@ public class FolderProcessor extends ThreadProcessor {
 	private RawFileManager rawFileManager;
 //ADD_FOR_BATCH_IMPORT
 //	private BatchStorageManager batchStorageManager;
-	private boolean dbInitialized = false;
+	private volatile boolean dbInitialized = false;
 	private ConnectionSource connectionSource;
+	private int readOnlyWorkers;
+	private JdbcPooledConnectionSource readOnlyConnectionSource;
+	private ExecutorService readOnlyExecutor;
+	private Object readOnlyLock = new Object();
+	private int readOnlyCommandsInProgress = 0;
+	private ArrayList<BackgroundTask> backgroundTasks = new ArrayList<BackgroundTask>();
+	private int backgroundStepsRun = 0;
+	private ConnectionSource backgroundConnectionSource;
+	private ExecutorService backgroundExecutor;
+	private BackgroundTask preparingTask = null;
+	private BackgroundTask preparedTask = null;
+	private long preparedAt = 0;
+	private int prepareFailures = 0;
+	private long retryPrepareAt = 0;
+	private long modifyingCommandsStarted = 0;
 
 	public FolderProcessor(String source, boolean isServerMode, boolean reparseAcquisitions, boolean createIfNecessary) {
 		this.isServerMode = isServerMode;
 		this.reparseAcquisitions = reparseAcquisitions;
 		this.source = source;
+		this.readOnlyWorkers = SystemProperty.getReadOnlyWorkers();
 
 		String jdbcCompatibleSource = Platform.isWindows() ? source.replace(File.separator, "/") : source;
-		this.jdbcUrl = "jdbc:h2:" + jdbcCompatibleSource + "/" + SystemProperty.getDatabaseName() + ";USER=admin;PASSWORD=admin;WRITE_DELAY=0" + (createIfNecessary ? "" : ";IFEXISTS=TRUE");
+		this.jdbcUrl = "jdbc:h2:" + jdbcCompatibleSource + "/" + SystemProperty.getDatabaseName() + ";USER=admin;PASSWORD=admin;WRITE_DELAY=0;LOCK_TIMEOUT=10000" + (createIfNecessary ? "" : ";IFEXISTS=TRUE");
 	}
 
 	@Override
@@ -90,6 +115,11 @@ public class FolderProcessor extends ThreadProcessor {
 			rawFileManager = new RawFileManager(source);
 //ADD_FOR_BATCH_IMPORT
 //			batchStorageManager = new BatchStorageManager(source);
+
+			if (SystemProperty.getSlowQueryMillis() != 0) {
+				JdbcConnectionSource.setDatabaseConnectionProxyFactory(new SlowQueryLogger(SystemProperty.getSlowQueryMillis()));
+			}
+
 			connectionSource = new JdbcConnectionSource(jdbcUrl);
 
 			Dao<Version,Integer> versionDao = DaoManager.createDao(connectionSource, Version.class);
@@ -113,12 +143,38 @@ public class FolderProcessor extends ThreadProcessor {
 
 		ProcessorManager.getInstance().overrideProcessorForThread(new ImmediateProcessor(connectionSource, rawFileManager));
 
+		if (readOnlyWorkers > 0) {
+			try {
+				readOnlyConnectionSource = new JdbcPooledConnectionSource(jdbcUrl);
+				readOnlyConnectionSource.setMaxConnectionsFree(readOnlyWorkers);
+				readOnlyExecutor = Executors.newFixedThreadPool(readOnlyWorkers, new ReadOnlyThreadFactory());
+
+			} catch (SQLException e) {
+				Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.folderProcessor_readOnlyPoolFailed, jdbcUrl), e);
+				readOnlyConnectionSource = null;
+				readOnlyExecutor = null;
+			}
+		}
+
+		try {
+			backgroundConnectionSource = new JdbcConnectionSource(jdbcUrl);
+			backgroundExecutor = Executors.newSingleThreadExecutor(new BackgroundThreadFactory());
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.folderProcessor_backgroundConnectionFailed, jdbcUrl), e);
+			backgroundConnectionSource = null;
+			backgroundExecutor = null;
+		}
+
 		if (notReopeningAfterBackup && dbInitialized) {
 //ADD_FOR_BATCH_IMPORT
 //			batchStorageManager.removeAllCommands();
+			CoreStartup coreStartup = new CoreStartup(isServerMode, version.getLastServerVersion(), reparseAcquisitions);
 			ArrayList<Event> events = new ArrayList<Event>();
-			events.add(new CoreStartup(isServerMode, version.getLastServerVersion(), reparseAcquisitions));
+			events.add(coreStartup);
 			Activator.distributeEventToPlugins(events, rawFileManager, connectionSource);
+
+			backgroundTasks.addAll(coreStartup.getBackgroundTasks());
 		}
 
 		return true;
@@ -134,7 +190,254 @@ public class FolderProcessor extends ThreadProcessor {
 //	}
 
 	@Override
-	protected Command executeCommand(final Command command, final Hashtable<String,Object> authenticationObjects) {
+	protected boolean submitCommand(final CommandPacket commandPacket) {
+		Command command = commandPacket.getCommand();
+
+		if (readOnlyExecutor == null || !dbInitialized || !(command instanceof CommandThatDoesNotModifyDb || command instanceof CommandWithDeferredWrites)) {
+			// commands that modify the database never overlap with read only commands
+			// and the writes deferred by those commands are done before they start
+			waitForReadOnlyCommands();
+			runProcessorThreadTasks();
+			modifyingCommandsStarted++;
+			return super.submitCommand(commandPacket);
+		}
+
+		synchronized (readOnlyLock) {
+			readOnlyCommandsInProgress++;
+		}
+
+		final ConnectionSource connectionSource = readOnlyConnectionSource;
+		final long startedAt = modifyingCommandsStarted;
+
+		readOnlyExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				ProcessorManager.getInstance().overrideProcessorForThread(new ImmediateProcessor(connectionSource, rawFileManager));
+
+				try {
+					Command command = commandPacket.getCommand();
+					final Command reply = executeCommand(command, commandPacket.getAuthenticationObjects(), connectionSource, false);
+					ArrayList<Event> events = command.getAndRemoveEvents();
+
+					if (events != null && events.size() != 0) {
+						String message = MessageFormat.format(Messages.general_unexpectedEvents, command.getName());
+						Log.getInstance().log(Level.INFO, this, message);
+					}
+
+					// listeners and event handling only ever run on the processor thread
+					runOnProcessorThread(new Runnable() {
+						@Override
+						public void run() {
+							writeDeferred(commandPacket.getCommand(), startedAt);
+							commandCompleted(commandPacket, reply);
+						}
+					});
+
+				} finally {
+					ProcessorManager.getInstance().overrideProcessorForThread(null);
+
+					synchronized (readOnlyLock) {
+						readOnlyCommandsInProgress--;
+						readOnlyLock.notifyAll();
+					}
+				}
+			}
+		});
+
+		return true;
+	}
+
+	// the writes are dropped if the database may have changed since the command
+	// read it, the calculations are then simply redone the next time they are needed
+	private void writeDeferred(final Command command, long startedAt) {
+		if (!(command instanceof CommandWithDeferredWrites) || command.getStatus() != Command.Status.OK || startedAt != modifyingCommandsStarted || connectionSource == null) {
+			return;
+		}
+
+		try {
+			TransactionManager.callInTransaction(connectionSource, new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					((CommandWithDeferredWrites) command).writeDeferred(connectionSource, rawFileManager);
+					return null;
+				}
+			});
+
+		} catch (Exception e) {
+			String message = MessageFormat.format(Messages.folderProcessor_deferredWritesFailed, command.getName());
+			Log.getInstance().log(Level.INFO, this, message, e);
+		}
+	}
+
+	@Override
+	protected boolean hasBackgroundWork() {
+		return !backgroundTasks.isEmpty();
+	}
+
+	// background work is lower priority than read only commands too
+	@Override
+	protected boolean canRunBackgroundWork() {
+		if (preparingTask != null || System.currentTimeMillis() < retryPrepareAt) {
+			return false;
+		}
+
+		synchronized (readOnlyLock) {
+			if (readOnlyCommandsInProgress != 0) {
+				return false;
+			}
+		}
+
+		return getReadyBackgroundTask() != -1;
+	}
+
+	private int getReadyBackgroundTask() {
+		for (int i=0; i<backgroundTasks.size(); i++) {
+			if (backgroundTasks.get(i).isReady()) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	@Override
+	protected void runBackgroundStep() {
+		int index = getReadyBackgroundTask();
+
+		if (index == -1) {
+			return;
+		}
+
+		BackgroundTask backgroundTask = backgroundTasks.get(index);
+
+		if (backgroundTask != preparedTask || preparedAt != modifyingCommandsStarted) {
+			prepareBackgroundStep(backgroundTask);
+			return;
+		}
+
+		preparedTask = null;
+		boolean moreWork = false;
+
+		try {
+			moreWork = backgroundTask.runStep(connectionSource, rawFileManager);
+			backgroundStepsRun++;
+
+		} catch (Exception e) {
+			String message = MessageFormat.format(Messages.folderProcessor_backgroundTaskFailed, backgroundTask.getName());
+			Log.getInstance().log(Level.INFO, this, message, e);
+		}
+
+		if (!moreWork) {
+			String message = MessageFormat.format(Messages.folderProcessor_backgroundTaskFinished, backgroundTask.getName(), backgroundStepsRun);
+			Log.getInstance().log(Level.INFO, this, message);
+
+			removeBackgroundTask(backgroundTask);
+		}
+	}
+
+	// the step is prepared again if a command that may modify the database starts
+	// before it is run since the preparation may have read a mix of old and new data
+	private void prepareBackgroundStep(final BackgroundTask backgroundTask) {
+		final long startedAt = modifyingCommandsStarted;
+
+		if (backgroundExecutor == null) {
+			finishPreparing(backgroundTask, startedAt, prepareStep(backgroundTask, connectionSource));
+			return;
+		}
+
+		preparingTask = backgroundTask;
+
+		final ConnectionSource connectionSource = backgroundConnectionSource;
+
+		backgroundExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				ProcessorManager.getInstance().overrideProcessorForThread(new ImmediateProcessor(connectionSource, rawFileManager));
+				boolean result = false;
+
+				try {
+					result = prepareStep(backgroundTask, connectionSource);
+
+				} finally {
+					ProcessorManager.getInstance().overrideProcessorForThread(null);
+				}
+
+				final boolean prepared = result;
+
+				runOnProcessorThread(new Runnable() {
+					@Override
+					public void run() {
+						preparingTask = null;
+						finishPreparing(backgroundTask, startedAt, prepared);
+					}
+				});
+			}
+		});
+	}
+
+	private boolean prepareStep(BackgroundTask backgroundTask, ConnectionSource connectionSource) {
+		try {
+			backgroundTask.prepareStep(connectionSource, rawFileManager);
+			return true;
+
+		} catch (Exception e) {
+			String message = MessageFormat.format(Messages.folderProcessor_backgroundPrepareFailed, backgroundTask.getName());
+			Log.getInstance().log(Level.INFO, this, message, e);
+			return false;
+		}
+	}
+
+	// a failed preparation is usually a lock timeout while a command was writing so
+	// it is retried later, only a task that keeps failing is given up on
+	private void finishPreparing(BackgroundTask backgroundTask, long startedAt, boolean prepared) {
+		if (!prepared) {
+			prepareFailures++;
+
+			if (prepareFailures >= MAX_PREPARE_FAILURES) {
+				String message = MessageFormat.format(Messages.folderProcessor_backgroundTaskGaveUp, backgroundTask.getName(), prepareFailures);
+				Log.getInstance().log(Level.INFO, this, message);
+				removeBackgroundTask(backgroundTask);
+
+			} else {
+				retryPrepareAt = System.currentTimeMillis() + PREPARE_RETRY_DELAY * prepareFailures;
+			}
+
+			return;
+		}
+
+		prepareFailures = 0;
+		retryPrepareAt = 0;
+		preparedTask = backgroundTask;
+		preparedAt = startedAt;
+	}
+
+	private void removeBackgroundTask(BackgroundTask backgroundTask) {
+		backgroundTasks.remove(backgroundTask);
+		backgroundStepsRun = 0;
+		prepareFailures = 0;
+		retryPrepareAt = 0;
+	}
+
+	private void waitForReadOnlyCommands() {
+		synchronized (readOnlyLock) {
+			while (readOnlyCommandsInProgress != 0) {
+				try {
+					readOnlyLock.wait();
+				} catch (InterruptedException e) {
+					// do nothing
+				}
+			}
+		}
+	}
+
+	@Override
+	protected Command executeCommand(Command command, Hashtable<String,Object> authenticationObjects) {
+		return executeCommand(command, authenticationObjects, connectionSource, true);
+	}
+
+	// read only commands and commands with deferred writes do not write here so
+	// they run outside of a transaction and their read locks are released immediately
+	private Command executeCommand(final Command command, final Hashtable<String,Object> authenticationObjects, final ConnectionSource connectionSource, boolean inTransaction) {
 		if (!dbInitialized && !(command instanceof CommandThatDoesNotRequireInitializedDb)) {
 			command.setStatus(Command.Status.DB_ERROR, Messages.general_notInitialized);
 			return command;
@@ -186,7 +489,7 @@ public class FolderProcessor extends ThreadProcessor {
 //		}
 
 		try {
-			TransactionManager.callInTransaction(connectionSource, new Callable<Void>() {
+			Callable<Void> callable = new Callable<Void>() {
 				@Override
 				public Void call() throws Exception {
 //ADD_FOR_BATCH_IMPORT
@@ -256,6 +559,10 @@ public class FolderProcessor extends ThreadProcessor {
 //ADD_FOR_BATCH_IMPORT
 //						command.addEvents(batchEvents);
 
+						if (inTransaction && command instanceof CommandWithDeferredWrites) {
+							((CommandWithDeferredWrites) command).writeDeferred(connectionSource, rawFileManager);
+						}
+
 					} catch (Exception e) {
 						Throwable t = e;
 	
@@ -280,7 +587,13 @@ public class FolderProcessor extends ThreadProcessor {
 
 					return null;
 				}
-			});
+			};
+
+			if (inTransaction) {
+				TransactionManager.callInTransaction(connectionSource, callable);
+			} else {
+				callable.call();
+			}
 
 		} catch (Exception e) {
 			return command;
@@ -300,6 +613,40 @@ public class FolderProcessor extends ThreadProcessor {
 
 	@Override
 	protected void closeConnection() {
+		waitForReadOnlyCommands();
+		runProcessorThreadTasks();
+
+		// a step being prepared is finished first so that its connection is not reopened
+		// while the database is closed, it is prepared again after reopening
+		if (backgroundExecutor != null) {
+			backgroundExecutor.shutdown();
+
+			try {
+				backgroundExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				// do nothing
+			}
+
+			backgroundExecutor = null;
+		}
+
+		if (backgroundConnectionSource != null) {
+			backgroundConnectionSource.closeQuietly();
+			backgroundConnectionSource = null;
+		}
+
+		modifyingCommandsStarted++;
+
+		if (readOnlyExecutor != null) {
+			readOnlyExecutor.shutdown();
+			readOnlyExecutor = null;
+		}
+
+		if (readOnlyConnectionSource != null) {
+			readOnlyConnectionSource.closeQuietly();
+			readOnlyConnectionSource = null;
+		}
+
 		if (connectionSource != null) {
 			connectionSource.closeQuietly();
 			connectionSource = null;
@@ -324,4 +671,25 @@ public class FolderProcessor extends ThreadProcessor {
 			distributeEventToListeners(event, command);
 		}
 	}
+
+	private class ReadOnlyThreadFactory implements ThreadFactory {
+		private int count = 0;
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, getName() + "-ReadOnly-" + count++);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	private class BackgroundThreadFactory implements ThreadFactory {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, getName() + "-Background");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	}
 }
@@ -108,6 +108,10 @@ public class ImmediateProcessor extends Processor {
 					try {
 						command.execute(connectionSource, rawFileManager, authenticationObjects);
 
+						if (command instanceof CommandWithDeferredWrites) {
+							((CommandWithDeferredWrites) command).writeDeferred(connectionSource, rawFileManager);
+						}
+
 					} catch (Exception e) {
 						Throwable t = e;
 	
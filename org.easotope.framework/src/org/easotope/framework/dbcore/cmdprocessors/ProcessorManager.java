@@ -48,7 +48,12 @@ public class ProcessorManager {
 	}
 
 	public Processor getProcessor() {
-		Processor result = override.get(Thread.currentThread());
+		Processor result;
+
+		synchronized (override) {
+			result = override.get(Thread.currentThread());
+		}
+
 		return (result != null) ? result : processor;
 	}
 
@@ -87,7 +92,13 @@ public class ProcessorManager {
 	}
 
 	public void overrideProcessorForThread(Processor processor) {
-		override.put(Thread.currentThread(), processor);
+		synchronized (override) {
+			if (processor == null) {
+				override.remove(Thread.currentThread());
+			} else {
+				override.put(Thread.currentThread(), processor);
+			}
+		}
 	}
 
 	public void addListener(ProcessorManagerListener listener) {
@@ -32,6 +32,7 @@ import java.net.Socket;
 import java.net.UnknownHostException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Hashtable;
 
 import org.easotope.framework.Messages;
@@ -41,17 +42,27 @@ import org.easotope.framework.core.logging.Log.Level;
 import org.easotope.framework.core.network.ObjSocket;
 import org.easotope.framework.core.network.ObjSocketException;
 import org.easotope.framework.core.network.ObjSocketListener;
+import org.easotope.framework.core.util.SystemProperty;
 
 
 public class ServerProcessor extends ThreadProcessor implements ObjSocketListener {
 	private String host;
 	private int port;
+	private int pipelineDepth;
 	private ObjSocket objSocket;
 	private SocketStatus socketStatus = new SocketStatus();
-	
+	private HashMap<Integer,CommandPacket> commandsInFlight = new HashMap<Integer,CommandPacket>();
+	private volatile CommandPacket stopAndWaitCommand = null;
+
 	public ServerProcessor(String host, int port) {
+		this(host, port, SystemProperty.getPipelineDepth());
+	}
+
+	// a pipeline depth of 1 or less uses the original stop-and-wait protocol
+	public ServerProcessor(String host, int port, int pipelineDepth) {
 		this.host = host;
 		this.port = port;
+		this.pipelineDepth = pipelineDepth;
 	}
 
 	public String getSource() {
@@ -144,6 +155,48 @@ public class ServerProcessor extends ThreadProcessor implements ObjSocketListene
 		return reply;
 	}
 
+	@Override
+	protected boolean submitCommand(CommandPacket commandPacket) {
+		if (pipelineDepth <= 1) {
+			stopAndWaitCommand = commandPacket;
+			boolean result = super.submitCommand(commandPacket);
+			stopAndWaitCommand = null;
+
+			return result;
+		}
+
+		Command command = commandPacket.getCommand();
+
+		synchronized (socketStatus) {
+			while (commandsInFlight.size() >= pipelineDepth && !socketStatus.getClosed()) {
+				try {
+					socketStatus.wait();
+				} catch (InterruptedException e) {
+					// do nothing
+				}
+			}
+
+			if (!socketStatus.getClosed()) {
+				commandsInFlight.put(command.getClientUniqueId(), commandPacket);
+			}
+		}
+
+		if (socketStatus.getClosed()) {
+			closeConnection();
+			return false;
+		}
+
+		try {
+			objSocket.writeObject(command);
+
+		} catch (Exception e) {
+			closeConnection();
+			return false;
+		}
+
+		return true;
+	}
+
 	protected void handleEvents(ArrayList<Event> events, Command command) {
 		if (events == null) {
 			return;
@@ -163,9 +216,30 @@ public class ServerProcessor extends ThreadProcessor implements ObjSocketListene
 
 	public void objSocketReceivedObject(ObjSocket objSocket, Object object) {
 		if (object instanceof Command) {
+			final Command reply = (Command) object;
+			CommandPacket commandPacket = null;
+
+			// replies to pipelined commands may arrive in any order so they are matched by id
 			synchronized (socketStatus) {
-				socketStatus.setCommand((Command) object);
-				socketStatus.notify();
+				commandPacket = commandsInFlight.remove(reply.getClientUniqueId());
+
+				if (commandPacket == null) {
+					socketStatus.setCommand(reply);
+				}
+
+				socketStatus.notifyAll();
+			}
+
+			// listeners and events are handled on the processor thread as they are for other processors
+			if (commandPacket != null) {
+				final CommandPacket finalCommandPacket = commandPacket;
+
+				runOnProcessorThread(new Runnable() {
+					@Override
+					public void run() {
+						commandCompleted(finalCommandPacket, reply);
+					}
+				});
 			}
 
 		} else if (object instanceof Event) {
@@ -175,9 +249,29 @@ public class ServerProcessor extends ThreadProcessor implements ObjSocketListene
 
 	@Override
 	public void objSocketClosed(ObjSocket objSocket) {
+		ArrayList<CommandPacket> droppedCommands = new ArrayList<CommandPacket>();
+
 		synchronized (socketStatus) {
 			socketStatus.markClosed();
-			socketStatus.notify();
+			droppedCommands.addAll(commandsInFlight.values());
+			commandsInFlight.clear();
+			socketStatus.notifyAll();
+		}
+
+		// commands that were sent but never answered fail right away instead of waiting forever
+		for (final CommandPacket commandPacket : droppedCommands) {
+			runOnProcessorThread(new Runnable() {
+				@Override
+				public void run() {
+					Command command = commandPacket.getCommand();
+					command.setStatus(Command.Status.EXECUTION_ERROR, Messages.serverProcessor_connectionDroppedBeforeReply);
+					commandCompleted(commandPacket, command);
+				}
+			});
+		}
+
+		if (socketStatus.getOpen()) {
+			connectionLost();
 		}
 	}
 	
@@ -38,7 +38,11 @@ import org.easotope.framework.core.logging.Log;
 import org.easotope.framework.core.logging.Log.Level;
 
 public abstract class ThreadProcessor extends Processor implements Runnable {
+	private static final long BACKGROUND_WORK_POLL = 250; // milliseconds
+
 	private ArrayList<CommandPacket> commandQueue = new ArrayList<CommandPacket>();
+	private ArrayList<Runnable> processorThreadTasks = new ArrayList<Runnable>();
+	private volatile boolean connectionLost = false;
 
 	private CountDownLatch pausedLatch;
 	private CountDownLatch resumeLatch;
@@ -80,71 +84,140 @@ public abstract class ThreadProcessor extends Processor implements Runnable {
 		CommandPacket commandPacket = null;
 
 		while ((commandPacket = getCommandPacket()) != null) {
-			Command command = commandPacket.command;
-			Command reply = null;
-			Hashtable<String,Object> authenticationObjects = commandPacket.authenticationObjects;
-			CommandListener listener = commandPacket.listener;
-			
-			Log.getInstance().log(Level.INFO, getName(), MessageFormat.format(Messages.processor_executing, command.getName()));
-
-			reply = executeCommand(command, authenticationObjects);
-			
-			if (reply == null) {
+			Log.getInstance().log(Level.INFO, getName(), MessageFormat.format(Messages.processor_executing, commandPacket.getCommand().getName()));
+
+			if (!submitCommand(commandPacket)) {
+				runProcessorThreadTasks();
 				notifyConnectionDropped();
 				setConnected(false);
 				notifyStatusChanged();
 				return;
 			}
+		}
 
-			Command.Status status = reply.getStatus();
+		if (connectionLost) {
+			// completions queued just before the connection was marked lost
+			runProcessorThreadTasks();
+			closeConnection();
+			notifyConnectionDropped();
+			setConnected(false);
+			notifyStatusChanged();
+			return;
+		}
 
-			switch (status) {
-				case NONE:
-					break;
+		closeConnection();
+		setConnected(false);
+		notifyStatusChanged();
+		Log.getInstance().log(Level.INFO, getName(), Messages.processor_shutDown);
+	}
+
+	// returns true if there is background work waiting to be run
+	protected boolean hasBackgroundWork() {
+		return false;
+	}
+
+	// returns false if the background work has to wait for commands that are still executing
+	protected boolean canRunBackgroundWork() {
+		return true;
+	}
 
-				case DB_ERROR:
-					incNumDbErrors();
-					break;
+	// runs one step of the background work, called only when no commands are waiting
+	protected void runBackgroundStep() {
+		// do nothing
+	}
 
-				case PERMISSION_ERROR:
-					incNumPermissionErrors();
-					break;
+	// queues work that must run on the processor thread, such as completing a command
+	// whose reply arrived on another thread
+	protected void runOnProcessorThread(Runnable task) {
+		synchronized (commandQueue) {
+			processorThreadTasks.add(task);
+			commandQueue.notify();
+		}
+	}
 
-				case EXECUTION_ERROR:
-					incNumExecutionErrors();
-					break;
+	// called from any thread when the connection is gone, the processor thread
+	// runs the tasks queued before this call and then reports the dropped connection
+	protected void connectionLost() {
+		synchronized (commandQueue) {
+			connectionLost = true;
+			commandQueue.notify();
+		}
+	}
 
-				case VERIFY_AND_RESEND:
-					incNumVerifyAndResend();
+	protected void runProcessorThreadTasks() {
+		while (true) {
+			Runnable task = null;
 
-				case OK:
-					incNumCommandsExecuted();
-					break;
-			}
+			synchronized (commandQueue) {
+				if (processorThreadTasks.isEmpty()) {
+					return;
+				}
 
-			if (status != Command.Status.OK) {
-				Log.getInstance().log(Level.INFO, getName(), MessageFormat.format(Messages.processor_returnedStatus, status, reply.getMessage()));
+				task = processorThreadTasks.remove(0);
 			}
 
-			if (status == Command.Status.DB_ERROR) {
-				notifyDatabaseError(reply.getMessage());
-			}
+			task.run();
+		}
+	}
 
-			ArrayList<Event> events = command.getAndRemoveEvents();
+	// returns false if the connection was dropped before the command could be executed
+	protected boolean submitCommand(CommandPacket commandPacket) {
+		Command reply = executeCommand(commandPacket.getCommand(), commandPacket.getAuthenticationObjects());
 
-			if (listener != null) {
-				listener.commandExecuted(reply);
-			}
+		if (reply == null) {
+			return false;
+		}
 
-			handleEvents(events, command);
+		commandCompleted(commandPacket, reply);
+		return true;
+	}
 
-			notifyStatusChanged();
+	protected void commandCompleted(CommandPacket commandPacket, Command reply) {
+		Command command = commandPacket.getCommand();
+		CommandListener listener = commandPacket.getListener();
+		Command.Status status = reply.getStatus();
+
+		switch (status) {
+			case NONE:
+				break;
+
+			case DB_ERROR:
+				incNumDbErrors();
+				break;
+
+			case PERMISSION_ERROR:
+				incNumPermissionErrors();
+				break;
+
+			case EXECUTION_ERROR:
+				incNumExecutionErrors();
+				break;
+
+			case VERIFY_AND_RESEND:
+				incNumVerifyAndResend();
+
+			case OK:
+				incNumCommandsExecuted();
+				break;
 		}
 
-		closeConnection();
-		setConnected(false);
+		if (status != Command.Status.OK) {
+			Log.getInstance().log(Level.INFO, getName(), MessageFormat.format(Messages.processor_returnedStatus, status, reply.getMessage()));
+		}
+
+		if (status == Command.Status.DB_ERROR) {
+			notifyDatabaseError(reply.getMessage());
+		}
+
+		ArrayList<Event> events = command.getAndRemoveEvents();
+
+		if (listener != null) {
+			listener.commandExecuted(reply);
+		}
+
+		handleEvents(events, command);
+
 		notifyStatusChanged();
-		Log.getInstance().log(Level.INFO, getName(), Messages.processor_shutDown);
 	}
 
 	public void process(Command command, Hashtable<String,Object> authenticationObjects, CommandListener listener) {
@@ -194,7 +267,9 @@ public abstract class ThreadProcessor extends Processor implements Runnable {
 		Log.getInstance().log(Level.DEBUG, this, Messages.processor_lookingForCommand);
 
 		while (true) {
-			if (isStopping()) {
+			runProcessorThreadTasks();
+
+			if (isStopping() || connectionLost) {
 				return null;
 			}
 
@@ -232,23 +307,39 @@ public abstract class ThreadProcessor extends Processor implements Runnable {
 				notifyStatusChanged();
 			}
 
+			boolean runBackgroundStep = false;
+
 			synchronized (commandQueue) {
+				if (!processorThreadTasks.isEmpty() || connectionLost) {
+					continue;
+				}
+
 				if (commandQueue.size() != 0) {
 					Log.getInstance().log(Level.DEBUG, this, Messages.processor_returningCommand);
 					return commandQueue.remove(0);
 				}
 
-				try {
-					Log.getInstance().log(Level.DEBUG, this, Messages.processor_waitingForCommand);
-					commandQueue.wait();
-				} catch (InterruptedException e) {
-					// do nothing
+				if (hasBackgroundWork() && canRunBackgroundWork()) {
+					runBackgroundStep = true;
+
+				} else {
+					try {
+						Log.getInstance().log(Level.DEBUG, this, Messages.processor_waitingForCommand);
+						commandQueue.wait(hasBackgroundWork() ? BACKGROUND_WORK_POLL : 0);
+					} catch (InterruptedException e) {
+						// do nothing
+					}
 				}
 			}
+
+			// commands that arrive during the step are picked up as soon as it returns
+			if (runBackgroundStep) {
+				runBackgroundStep();
+			}
 		}
 	}
 
-	private class CommandPacket {
+	protected class CommandPacket {
 		private Command command;
 		private Hashtable<String,Object> authenticationObjects;
 		private CommandListener listener;
@@ -258,5 +349,17 @@ public abstract class ThreadProcessor extends Processor implements Runnable {
 			this.authenticationObjects = authenticationObjects;
 			this.listener = listener;
 		}
+
+		protected Command getCommand() {
+			return command;
+		}
+
+		protected Hashtable<String,Object> getAuthenticationObjects() {
+			return authenticationObjects;
+		}
+
+		protected CommandListener getListener() {
+			return listener;
+		}
 	}
 }
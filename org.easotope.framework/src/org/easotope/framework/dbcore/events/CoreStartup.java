@@ -27,8 +27,10 @@
 
 package org.easotope.framework.dbcore.events;
 
+import java.util.ArrayList;
 import java.util.Hashtable;
 
+import org.easotope.framework.dbcore.cmdprocessors.BackgroundTask;
 import org.easotope.framework.dbcore.cmdprocessors.Event;
 
 public class CoreStartup extends Event {
@@ -37,6 +39,7 @@ public class CoreStartup extends Event {
 	private boolean isServerMode;
 	private int lastServerVersion;
 	private boolean reparseAcquisitions;
+	private transient ArrayList<BackgroundTask> backgroundTasks = new ArrayList<BackgroundTask>();
 
 	public CoreStartup(boolean isServerMode, int lastServerVersion, boolean reparseAcquisitions) {
 		this.isServerMode = isServerMode;
@@ -56,6 +59,15 @@ public class CoreStartup extends Event {
 		return reparseAcquisitions;
 	}
 
+	// plugins add work here that the processor runs while it is otherwise idle
+	public void addBackgroundTask(BackgroundTask backgroundTask) {
+		backgroundTasks.add(backgroundTask);
+	}
+
+	public ArrayList<BackgroundTask> getBackgroundTasks() {
+		return backgroundTasks;
+	}
+
 	@Override
 	public boolean isAuthorized(Hashtable<String, Object> authenticationObjects) {
 		return false;
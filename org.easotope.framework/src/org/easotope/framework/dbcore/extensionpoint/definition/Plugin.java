@@ -36,4 +36,9 @@ import com.j256.ormlite.support.ConnectionSource;
 
 public interface Plugin {
 	public ArrayList<Event> processEvent(ArrayList<Event> newEvent, ArrayList<Event> previousEvent, RawFileManager rawFileManager, ConnectionSource connectionSource);
+
+	// the event classes this plugin handles, or null if it should be offered every event
+	public default Class<?>[] getEventClasses() {
+		return null;
+	}
 }
@@ -31,6 +31,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.sql.SQLException;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -45,23 +46,41 @@ import org.easotope.framework.Messages;
 import org.easotope.framework.core.logging.Log;
 import org.easotope.framework.core.logging.Log.Level;
 
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+
 public class DbBackup {
 	private final static String TEMP_FILE_PREFIX = "tmp";
 	private final static String FINAL_FILE_PREFIX = "backup_";
 	private final static String SIMPLE_DATE_FORMAT = "yyyy_MM_dd_HH_mm_ss";
 	private final static String ZIP_EXTENSION = ".zip";
+	private final static String RAW_FILES_DIR = "raw_files";
+	private final static String TEMP_FILE_EXTENSION = ".tmp";
+	private final static int BUFFER_SIZE = 64 * 1024;
 	private final Pattern backupFilePattern = Pattern.compile("^backup_\\d{4}_\\d{2}_\\d{2}_\\d{2}_\\d{2}_\\d{2}\\.zip$");
 
 	private String dbFolderPath;
 	private String backupFolderPath;
 	private int maxBackups;
+	private String jdbcUrl;
 	
 	private volatile boolean stopping = false;
 
 	public DbBackup(String dbFolderPath, String backupFolderPath, int maxBackups) {
+		this(dbFolderPath, backupFolderPath, maxBackups, null);
+	}
+
+	// with a jdbc url the backup is taken while the database stays open, the database
+	// itself goes into the backup file and the raw files are copied incrementally to a
+	// raw_files folder next to the backup files. to restore, unzip one backup file into
+	// an empty database folder and copy the shared raw_files folder into it. the shared
+	// folder is never pruned so it holds every raw file any of the backups refers to.
+	public DbBackup(String dbFolderPath, String backupFolderPath, int maxBackups, String jdbcUrl) {
 		this.dbFolderPath = dbFolderPath;
 		this.backupFolderPath = backupFolderPath;
 		this.maxBackups = maxBackups;
+		this.jdbcUrl = jdbcUrl;
 
 		if (!backupFolderPath.endsWith(File.separator)) {
 			this.backupFolderPath = this.backupFolderPath + File.separator;
@@ -74,24 +93,14 @@ public class DbBackup {
 		}
 
 		String backupFile = backupFolderPath + TEMP_FILE_PREFIX + ZIP_EXTENSION;
-		Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.dbBackup_starting, dbFolderPath, backupFile));
-
-		try {
-			ZipOutputStream zout = new ZipOutputStream(new FileOutputStream(backupFile));
-			File fileSource = new File(dbFolderPath);
-
-			String initialPath = "";
-			int lastSeparator = fileSource.getCanonicalPath().lastIndexOf(File.separatorChar);
 
-			if (lastSeparator != -1) {
-				initialPath = fileSource.getCanonicalPath().substring(lastSeparator+1) + "/";
+		if (jdbcUrl != null) {
+			if (!backupDatabaseOnline(backupFile)) {
+				new File(backupFile).delete();
+				return;
 			}
 
-			addDirectory(zout, initialPath, fileSource);
-			zout.close();
-
-		} catch (IOException e) {
-			Log.getInstance().log(Level.INFO, this, Messages.dbBackup_ioError, e);
+		} else if (!backupFolder(backupFile)) {
 			return;
 		}
 
@@ -110,6 +119,12 @@ public class DbBackup {
 			return;
 		}
 
+		// raw files are never modified once written so after the database snapshot
+		// every raw file it refers to is already in place and only new ones need copying
+		if (jdbcUrl != null && !copyNewRawFiles()) {
+			return;
+		}
+
 		if (maxBackups > 0) {
 			cleanupOldBackups();
 		}
@@ -117,6 +132,150 @@ public class DbBackup {
 		Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.dbBackup_complete, backupFile, finalFileName));
     }
 
+	private boolean backupFolder(String backupFile) {
+		Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.dbBackup_starting, dbFolderPath, backupFile));
+
+		try {
+			ZipOutputStream zout = new ZipOutputStream(new FileOutputStream(backupFile));
+			File fileSource = new File(dbFolderPath);
+
+			String initialPath = "";
+			int lastSeparator = fileSource.getCanonicalPath().lastIndexOf(File.separatorChar);
+
+			if (lastSeparator != -1) {
+				initialPath = fileSource.getCanonicalPath().substring(lastSeparator+1) + "/";
+			}
+
+			addDirectory(zout, initialPath, fileSource);
+			zout.close();
+
+		} catch (IOException e) {
+			Log.getInstance().log(Level.INFO, this, Messages.dbBackup_ioError, e);
+			return false;
+		}
+
+		return true;
+	}
+
+	// h2 copies the database files together with the transaction log so the
+	// snapshot is consistent without locking out other connections
+	private boolean backupDatabaseOnline(String backupFile) {
+		Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.dbBackup_startingOnline, dbFolderPath, backupFile));
+
+		new File(backupFile).delete();
+
+		ConnectionSource connectionSource = null;
+
+		try {
+			connectionSource = new JdbcConnectionSource(jdbcUrl);
+			DatabaseConnection databaseConnection = connectionSource.getReadWriteConnection(null);
+
+			try {
+				databaseConnection.executeStatement("BACKUP TO '" + backupFile.replace("'", "''") + "'", DatabaseConnection.DEFAULT_RESULT_FLAGS);
+			} finally {
+				connectionSource.releaseConnection(databaseConnection);
+			}
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, this, Messages.dbBackup_sqlError, e);
+			return false;
+
+		} finally {
+			if (connectionSource != null) {
+				try {
+					connectionSource.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private boolean copyNewRawFiles() {
+		File sourceDir = new File(dbFolderPath, RAW_FILES_DIR);
+		File targetDir = new File(backupFolderPath, RAW_FILES_DIR);
+
+		if (!targetDir.isDirectory() && !targetDir.mkdir()) {
+			Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.dbBackup_mkdirFailed, targetDir.getPath()));
+			return false;
+		}
+
+		File[] files = sourceDir.listFiles();
+		int copied = 0;
+
+		if (files == null) {
+			return true;
+		}
+
+		try {
+			for (File file : files) {
+				if (stopping) {
+					return false;
+				}
+
+				File target = new File(targetDir, file.getName());
+
+				// targets only ever appear by renaming a complete copy so an existing one is done
+				if (file.isDirectory() || target.exists()) {
+					continue;
+				}
+
+				File temp = new File(targetDir, file.getName() + TEMP_FILE_EXTENSION);
+				long length = file.length();
+				long lastModified = file.lastModified();
+
+				copyFile(file, temp);
+
+				// a raw file that is still being written is left for the next backup
+				if (file.length() != length || file.lastModified() != lastModified) {
+					temp.delete();
+					continue;
+				}
+
+				if (!temp.renameTo(target)) {
+					Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.dbBackup_renameFailed, temp.getPath(), target.getPath()));
+					temp.delete();
+					return false;
+				}
+
+				copied++;
+			}
+
+		} catch (IOException e) {
+			Log.getInstance().log(Level.INFO, this, Messages.dbBackup_ioError, e);
+			return false;
+		}
+
+		Log.getInstance().log(Level.INFO, this, MessageFormat.format(Messages.dbBackup_rawFilesCopied, copied, targetDir.getPath()));
+
+		return true;
+	}
+
+	private void copyFile(File source, File target) throws IOException {
+		FileInputStream fin = new FileInputStream(source);
+
+		try {
+			FileOutputStream fout = new FileOutputStream(target);
+
+			try {
+				int length;
+				byte[] buffer = new byte[BUFFER_SIZE];
+
+				while ((length = fin.read(buffer)) > 0) {
+					fout.write(buffer, 0, length);
+				}
+
+			} finally {
+				fout.close();
+			}
+
+		} finally {
+			fin.close();
+		}
+	}
+
     private void addDirectory(ZipOutputStream zout, String currentPath, File fileSource) throws IOException {
     		File[] files = fileSource.listFiles();
 
@@ -134,7 +293,7 @@ public class DbBackup {
 			zout.putNextEntry(new ZipEntry(currentPath + files[i].getName()));
 
 			int length;
-			byte[] buffer = new byte[1024];
+			byte[] buffer = new byte[BUFFER_SIZE];
 
 			while ((length = fin.read(buffer)) > 0 && !stopping) {
 				zout.write(buffer, 0, length);
@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.framework.dbcore.util;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.easotope.framework.Messages;
+import org.easotope.framework.core.logging.Log;
+import org.easotope.framework.core.logging.Log.Level;
+
+import com.j256.ormlite.dao.ObjectCache;
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.field.SqlType;
+import com.j256.ormlite.stmt.GenericRowMapper;
+import com.j256.ormlite.stmt.StatementBuilder.StatementType;
+import com.j256.ormlite.support.CompiledStatement;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.support.DatabaseConnectionProxy;
+import com.j256.ormlite.support.DatabaseConnectionProxyFactory;
+import com.j256.ormlite.support.DatabaseResults;
+
+// wraps database connections so that statements taking longer than a threshold
+// are logged together with their arguments and the plan H2 uses to run them
+public class SlowQueryLogger implements DatabaseConnectionProxyFactory {
+	private static final FieldType[] NO_FIELD_TYPES = new FieldType[0];
+
+	private long slowNanos;
+
+	public SlowQueryLogger(int slowMillis) {
+		this.slowNanos = slowMillis * 1000000L;
+	}
+
+	@Override
+	public DatabaseConnection createProxy(DatabaseConnection databaseConnection) throws SQLException {
+		return new TimedConnection(databaseConnection);
+	}
+
+	private void check(DatabaseConnection databaseConnection, String statement, Object[] args, SqlType[] sqlTypes, long nanos) {
+		if (nanos < slowNanos) {
+			return;
+		}
+
+		String plan = "";
+		String upperCase = statement.trim().toUpperCase();
+
+		if (upperCase.startsWith("SELECT") || upperCase.startsWith("UPDATE") || upperCase.startsWith("DELETE")) {
+			plan = explain(databaseConnection, statement, args, sqlTypes);
+		}
+
+		String message = MessageFormat.format(Messages.slowQueryLogger_slowStatement, nanos / 1000000, statement, Arrays.toString(args), plan);
+		Log.getInstance().log(Level.INFO, SlowQueryLogger.class, message);
+	}
+
+	private String explain(DatabaseConnection databaseConnection, String statement, Object[] args, SqlType[] sqlTypes) {
+		CompiledStatement compiledStatement = null;
+		DatabaseResults results = null;
+
+		try {
+			compiledStatement = databaseConnection.compileStatement("EXPLAIN " + statement, StatementType.SELECT, NO_FIELD_TYPES, DatabaseConnection.DEFAULT_RESULT_FLAGS, false);
+
+			for (int i=0; i<args.length; i++) {
+				compiledStatement.setObject(i, args[i], sqlTypes[i]);
+			}
+
+			results = compiledStatement.runQuery(null);
+			StringBuffer plan = new StringBuffer();
+
+			while (results.next()) {
+				plan.append(results.getString(0).replaceAll("\\s+", " "));
+			}
+
+			return plan.toString();
+
+		} catch (Exception e) {
+			return e.getMessage();
+
+		} finally {
+			if (results != null) {
+				results.closeQuietly();
+			}
+
+			if (compiledStatement != null) {
+				compiledStatement.closeQuietly();
+			}
+		}
+	}
+
+	private static SqlType[] getSqlTypes(FieldType[] argFieldTypes) {
+		SqlType[] sqlTypes = new SqlType[argFieldTypes.length];
+
+		for (int i=0; i<argFieldTypes.length; i++) {
+			sqlTypes[i] = argFieldTypes[i].getSqlType();
+		}
+
+		return sqlTypes;
+	}
+
+	private class TimedConnection extends DatabaseConnectionProxy {
+		private DatabaseConnection databaseConnection;
+
+		TimedConnection(DatabaseConnection databaseConnection) {
+			super(databaseConnection);
+			this.databaseConnection = databaseConnection;
+		}
+
+		@Override
+		public CompiledStatement compileStatement(String statement, StatementType type, FieldType[] argFieldTypes, int resultFlags, boolean cacheStore) throws SQLException {
+			return new TimedStatement(databaseConnection, statement, super.compileStatement(statement, type, argFieldTypes, resultFlags, cacheStore));
+		}
+
+		@Override
+		public int update(String statement, Object[] args, FieldType[] argfieldTypes) throws SQLException {
+			long start = System.nanoTime();
+			int result = super.update(statement, args, argfieldTypes);
+			check(databaseConnection, statement, args, getSqlTypes(argfieldTypes), System.nanoTime() - start);
+			return result;
+		}
+
+		@Override
+		public int delete(String statement, Object[] args, FieldType[] argfieldTypes) throws SQLException {
+			long start = System.nanoTime();
+			int result = super.delete(statement, args, argfieldTypes);
+			check(databaseConnection, statement, args, getSqlTypes(argfieldTypes), System.nanoTime() - start);
+			return result;
+		}
+
+		@Override
+		public <T> Object queryForOne(String statement, Object[] args, FieldType[] argfieldTypes, GenericRowMapper<T> rowMapper, ObjectCache objectCache) throws SQLException {
+			long start = System.nanoTime();
+			Object result = super.queryForOne(statement, args, argfieldTypes, rowMapper, objectCache);
+			check(databaseConnection, statement, args, getSqlTypes(argfieldTypes), System.nanoTime() - start);
+			return result;
+		}
+
+		@Override
+		public long queryForLong(String statement, Object[] args, FieldType[] argFieldTypes) throws SQLException {
+			long start = System.nanoTime();
+			long result = super.queryForLong(statement, args, argFieldTypes);
+			check(databaseConnection, statement, args, getSqlTypes(argFieldTypes), System.nanoTime() - start);
+			return result;
+		}
+
+		@Override
+		public long queryForLong(String statement) throws SQLException {
+			long start = System.nanoTime();
+			long result = super.queryForLong(statement);
+			check(databaseConnection, statement, new Object[0], new SqlType[0], System.nanoTime() - start);
+			return result;
+		}
+	}
+
+	private class TimedStatement implements CompiledStatement {
+		private DatabaseConnection databaseConnection;
+		private String statement;
+		private CompiledStatement compiledStatement;
+		private ArrayList<Object> args = new ArrayList<Object>();
+		private ArrayList<SqlType> sqlTypes = new ArrayList<SqlType>();
+
+		TimedStatement(DatabaseConnection databaseConnection, String statement, CompiledStatement compiledStatement) {
+			this.databaseConnection = databaseConnection;
+			this.statement = statement;
+			this.compiledStatement = compiledStatement;
+		}
+
+		@Override
+		public int getColumnCount() throws SQLException {
+			return compiledStatement.getColumnCount();
+		}
+
+		@Override
+		public String getColumnName(int column) throws SQLException {
+			return compiledStatement.getColumnName(column);
+		}
+
+		@Override
+		public int runUpdate() throws SQLException {
+			long start = System.nanoTime();
+			int result = compiledStatement.runUpdate();
+			check(System.nanoTime() - start);
+			return result;
+		}
+
+		@Override
+		public DatabaseResults runQuery(ObjectCache objectCache) throws SQLException {
+			long start = System.nanoTime();
+			DatabaseResults result = compiledStatement.runQuery(objectCache);
+			check(System.nanoTime() - start);
+			return result;
+		}
+
+		@Override
+		public int runExecute() throws SQLException {
+			long start = System.nanoTime();
+			int result = compiledStatement.runExecute();
+			check(System.nanoTime() - start);
+			return result;
+		}
+
+		@Override
+		public void close() throws IOException {
+			compiledStatement.close();
+		}
+
+		@Override
+		public void closeQuietly() {
+			compiledStatement.closeQuietly();
+		}
+
+		@Override
+		public void cancel() throws SQLException {
+			compiledStatement.cancel();
+		}
+
+		@Override
+		public void setObject(int parameterIndex, Object obj, SqlType sqlType) throws SQLException {
+			compiledStatement.setObject(parameterIndex, obj, sqlType);
+
+			while (args.size() <= parameterIndex) {
+				args.add(null);
+				sqlTypes.add(SqlType.UNKNOWN);
+			}
+
+			args.set(parameterIndex, obj);
+			sqlTypes.set(parameterIndex, sqlType);
+		}
+
+		@Override
+		public void setMaxRows(int max) throws SQLException {
+			compiledStatement.setMaxRows(max);
+		}
+
+		@Override
+		public void setQueryTimeout(long millis) throws SQLException {
+			compiledStatement.setQueryTimeout(millis);
+		}
+
+		private void check(long nanos) {
+			SlowQueryLogger.this.check(databaseConnection, statement, args.toArray(), sqlTypes.toArray(new SqlType[sqlTypes.size()]), nanos);
+		}
+	}
+}
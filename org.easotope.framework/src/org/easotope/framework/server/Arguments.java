@@ -48,6 +48,7 @@ public class Arguments {
 	private static String BACKUPDIR_ARG = "backupdir";
 	private static String BACKUPTIMES_ARG = "backuptimes";
 	private static String MAXBACKUPS_ARG = "maxbackups";
+	private static String ONLINEBACKUP_ARG = "onlinebackup";
 	private static String DEBUG_ARG = "debug";
 	private static String REPARSE_ACQUISITIONS_ARG = "reparseAcquisitions";
 
@@ -58,6 +59,7 @@ public class Arguments {
 	private String backupDir = null;
 	private String backupTimes = null;
 	private int maxBackups = -1;
+	private boolean onlineBackup = false;
 	private boolean debug = false;
 	private boolean reparseAcquisitions = false;
 
@@ -70,6 +72,7 @@ public class Arguments {
 		options.addOption(BACKUPDIR_ARG, true, Messages.arguments_backupdirHelp);
 		options.addOption(BACKUPTIMES_ARG, true, Messages.arguments_backuptimesHelp);
 		options.addOption(MAXBACKUPS_ARG, true, Messages.arguments_maxbackupsHelp);
+		options.addOption(ONLINEBACKUP_ARG, false, Messages.arguments_onlinebackupHelp);
 		options.addOption(DEBUG_ARG, false, Messages.arguments_debugHelp);
 		options.addOption(REPARSE_ACQUISITIONS_ARG, false, Messages.arguments_reparseacquisitionsHelp);
 
@@ -131,6 +134,10 @@ public class Arguments {
 	    			}
 	    		}
 
+	    		if (properties.containsKey(ONLINEBACKUP_ARG)) {
+	    			this.onlineBackup = Boolean.parseBoolean(properties.getProperty(ONLINEBACKUP_ARG));
+	    		}
+
 	    		if (properties.containsKey(DEBUG_ARG)) {
 	    			this.debug = Boolean.parseBoolean(properties.getProperty(DEBUG_ARG));
 	    		}
@@ -170,6 +177,10 @@ public class Arguments {
 			}
 		}
 
+	    if (commandLine.hasOption(ONLINEBACKUP_ARG)) {
+	    		this.onlineBackup = true;
+	    }
+
 	    if (commandLine.hasOption(DEBUG_ARG)) {
 	    		this.debug = true;
 	    }
@@ -222,6 +233,10 @@ public class Arguments {
 		return maxBackups;
 	}
 
+	public boolean isOnlineBackup() {
+		return onlineBackup;
+	}
+
 	public boolean isDebug() {
 		return debug;
 	}
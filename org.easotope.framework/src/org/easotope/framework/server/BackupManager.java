@@ -47,6 +47,7 @@ public class BackupManager {
 	private String dbFolderPath;
 	private String backupDir;
 	private int maxBackups;
+	private boolean onlineBackup;
 	private BackupTask mostRecentBackupTask;
 
 	private final Pattern timePattern = Pattern.compile("^\\d{4}$");
@@ -55,10 +56,11 @@ public class BackupManager {
 	private HashSet<HoursMinutes> times = new HashSet<HoursMinutes>();
 	private FolderProcessor processor;
 
-	public BackupManager(String dbFolderPath, String backupDir, String times, int maxBackups, FolderProcessor processor) {		
+	public BackupManager(String dbFolderPath, String backupDir, String times, int maxBackups, boolean onlineBackup, FolderProcessor processor) {		
 		this.dbFolderPath = dbFolderPath;
 		this.backupDir = backupDir;
 		this.maxBackups = maxBackups;
+		this.onlineBackup = onlineBackup;
 		this.processor = processor;
 
 		timer = new Timer(true);
@@ -134,14 +136,19 @@ public class BackupManager {
 		private DbBackup dbBackup;
 
 		public BackupTask(String dbFolderPath, String backupDir, int maxBackups) {
-			this.dbBackup = new DbBackup(dbFolderPath, backupDir, maxBackups);
+			this.dbBackup = new DbBackup(dbFolderPath, backupDir, maxBackups, onlineBackup ? processor.getJdbcUrl() : null);
 		}
 
 		@Override
         public void run() {
-        	processor.pause();
-        	dbBackup.execute();
-        	processor.resume();
+        	if (onlineBackup) {
+        		dbBackup.execute();
+
+        	} else {
+	        	processor.pause();
+	        	dbBackup.execute();
+	        	processor.resume();
+        	}
 
         	scheduleNext();
         }
@@ -44,6 +44,7 @@ import org.easotope.framework.core.network.ObjSocketException;
 import org.easotope.framework.core.network.ObjSocketListener;
 import org.easotope.framework.dbcore.cmdprocessors.CommandListener;
 import org.easotope.framework.dbcore.cmdprocessors.CommandThatSetsAuthenticationObjects;
+import org.easotope.framework.dbcore.cmdprocessors.CommandWithLargeReply;
 import org.easotope.framework.dbcore.cmdprocessors.FolderProcessor;
 
 public class Bridge implements CommandListener, ObjSocketListener {
@@ -79,6 +80,11 @@ public class Bridge implements CommandListener, ObjSocketListener {
 //			}
 //		}
 
+		if (command instanceof CommandWithLargeReply) {
+			objSocket.writeObjectAsStream(command, command.getClientUniqueId());
+			return;
+		}
+
 		try {
 			objSocket.writeObject(command);
 
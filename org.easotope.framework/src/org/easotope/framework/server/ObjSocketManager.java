@@ -27,21 +27,18 @@
 
 package org.easotope.framework.server;
 
-import java.io.IOException;
 import java.net.Socket;
-import java.text.MessageFormat;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 
-import javax.crypto.BadPaddingException;
-import javax.crypto.IllegalBlockSizeException;
-
 import org.easotope.framework.Messages;
 import org.easotope.framework.commands.Command;
 import org.easotope.framework.core.logging.Log;
 import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.core.network.EncodedObject;
 import org.easotope.framework.core.network.ObjSocket;
+import org.easotope.framework.core.network.ObjSocketSelector;
 import org.easotope.framework.dbcore.cmdprocessors.Event;
 import org.easotope.framework.dbcore.cmdprocessors.EventListener;
 import org.easotope.framework.dbcore.cmdprocessors.EventThatSetsAuthenticationObjects;
@@ -51,6 +48,7 @@ public class ObjSocketManager implements EventListener {
 	private static ObjSocketManager instance = new ObjSocketManager();
 	private HashSet<ObjSocket> objSockets = new HashSet<ObjSocket>();
 	private HashMap<ObjSocket,Bridge> objSocketToBridge = new HashMap<ObjSocket,Bridge>();
+	private ObjSocketSelector objSocketSelector = null;
 
 	private ObjSocketManager() { }
 
@@ -60,7 +58,7 @@ public class ObjSocketManager implements EventListener {
 
 	public synchronized void createObjSocket(Socket socket, FolderProcessor processor) {
 		Bridge bridge;
-		ObjSocket objSocket;
+		ObjSocket objSocket = null;
 
 		// processors automatically ignore duplicate listeners
 		processor.addEventListener(this);
@@ -72,15 +70,29 @@ public class ObjSocketManager implements EventListener {
 			objSocket.addListener(bridge);
 			bridge.setObjSocket(objSocket);
 
-			new Thread(objSocket).start();
+			objSockets.add(objSocket);
+			objSocketToBridge.put(objSocket, bridge);
+
+			// sockets accepted from a channel share one selector instead of each having their own threads
+			if (socket.getChannel() != null) {
+				if (objSocketSelector == null) {
+					objSocketSelector = new ObjSocketSelector();
+				}
+
+				objSocket.start(objSocketSelector);
+
+			} else {
+				new Thread(objSocket).start();
+			}
 
 		} catch (Exception exception) {
 			Log.getInstance().log(Level.INFO, this, Messages.objSocketManager_threadCreateFailed, exception);
-			return;
-		}
 
-		objSockets.add(objSocket);
-		objSocketToBridge.put(objSocket, bridge);
+			if (objSocket != null) {
+				objSockets.remove(objSocket);
+				objSocketToBridge.remove(objSocket);
+			}
+		}
 	}
 
 	public synchronized void removeObjectSocket(ObjSocket objSocket) {
@@ -91,9 +103,21 @@ public class ObjSocketManager implements EventListener {
 		objSocketToBridge.remove(objSocket);
 	}
 
+	// this runs on the processor thread. the event is serialized and compressed
+	// here once for each wire codec, when the first socket using that codec queues
+	// it, since its size is needed for the socket's byte budget. the write threads
+	// only encrypt and write the shared bytes.
 	@Override
 	public void eventReceived(Event event, Command command) {
-		for (ObjSocket objSocket : new HashSet<ObjSocket>(objSockets)) {
+		HashMap<ObjSocket,Bridge> objSocketToBridge;
+
+		synchronized (this) {
+			objSocketToBridge = new HashMap<ObjSocket,Bridge>(this.objSocketToBridge);
+		}
+
+		EncodedObject encodedObject = new EncodedObject(event);
+
+		for (ObjSocket objSocket : objSocketToBridge.keySet()) {
 			Bridge bridge = objSocketToBridge.get(objSocket);
 
 			if (event instanceof EventThatSetsAuthenticationObjects) {
@@ -107,18 +131,7 @@ public class ObjSocketManager implements EventListener {
 			}
 
 			if (event.isAuthorized(bridge.getAuthenticationObjects())) {
-				try {
-					objSocket.writeObject(event);
-
-				} catch (IllegalBlockSizeException e) {
-					Log.getInstance().log(Level.TERMINAL, this, Messages.objSocketManager_terminalError, e);
-
-				} catch (BadPaddingException e) {
-					Log.getInstance().log(Level.TERMINAL, this, Messages.objSocketManager_terminalError, e);
-
-				} catch (IOException e) {
-					Log.getInstance().log(Level.DEBUG, this, MessageFormat.format(Messages.objSocketManager_ioException, objSocket.getId()), e);
-				}
+				objSocket.writeEncodedObject(encodedObject, event.getCoalescingKey());
 			}
 		}
 	}
@@ -29,8 +29,10 @@ package org.easotope.framework.server;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
 import java.text.MessageFormat;
 import java.util.concurrent.CountDownLatch;
 
@@ -39,6 +41,7 @@ import org.easotope.framework.core.global.OptionsInfo;
 import org.easotope.framework.core.logging.Log;
 import org.easotope.framework.core.logging.Log.Level;
 import org.easotope.framework.core.logging.LogTerminateListener;
+import org.easotope.framework.core.util.SystemProperty;
 import org.easotope.framework.core.util.TopDir;
 import org.easotope.framework.dbcore.cmdprocessors.FolderProcessor;
 import org.easotope.framework.dbcore.cmdprocessors.Processor;
@@ -123,7 +126,7 @@ public class Server implements IApplication, ProcessorListener, LogTerminateList
 		OptionsInfo.getInstance();
 
 		if (serverArgs.getBackupDir() != null && serverArgs.getBackupTimes() != null) {
-			backupManager = new BackupManager(serverArgs.getDbDir(), serverArgs.getBackupDir(), serverArgs.getBackupTimes(), serverArgs.getMaxBackups(), processor);
+			backupManager = new BackupManager(serverArgs.getDbDir(), serverArgs.getBackupDir(), serverArgs.getBackupTimes(), serverArgs.getMaxBackups(), serverArgs.isOnlineBackup(), processor);
 		}
 
 		listen(serverArgs, processor);
@@ -136,7 +139,16 @@ public class Server implements IApplication, ProcessorListener, LogTerminateList
 
 	private void listen(Arguments tcpServerArgs, FolderProcessor processor) {
 		try {
-			serverSocket = new ServerSocket(tcpServerArgs.getPort());
+			if (SystemProperty.useNioTransport()) {
+				ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+				serverSocketChannel.bind(new InetSocketAddress(tcpServerArgs.getPort()));
+				serverSocket = serverSocketChannel.socket();
+				Log.getInstance().log(Level.INFO, Server.class, Messages.server_usingNioTransport);
+
+			} else {
+				serverSocket = new ServerSocket(tcpServerArgs.getPort());
+			}
+
 		} catch (IOException e) {
 			Log.getInstance().log(Level.INFO, Server.class, MessageFormat.format(Messages.server_socketOpenError, tcpServerArgs.getPort()), e);
 			return;
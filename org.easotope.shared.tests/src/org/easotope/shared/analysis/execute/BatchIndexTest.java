@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.execute;
+
+import static org.junit.Assert.assertEquals;
+
+import org.easotope.shared.analysis.execute.RepStepCalculator.BatchIndex;
+import org.easotope.shared.core.scratchpad.ReplicatePad;
+import org.easotope.shared.core.scratchpad.ReplicatePad.ReplicateType;
+import org.easotope.shared.core.scratchpad.ScratchPad;
+import org.junit.Test;
+
+public class BatchIndexTest {
+	private static final long GAP = 60l * 60l * 1000l;
+
+	@Test
+	public void gapEqualToBatchGapKeepsOneBatch() {
+		BatchIndex batchIndex = new BatchIndex(replicatePads(0, GAP, 2 * GAP), GAP);
+
+		for (int i=0; i<3; i++) {
+			assertEquals(0, batchIndex.getBatch(i));
+		}
+
+		assertEquals(0, batchIndex.getFirstPad(0));
+		assertEquals(2, batchIndex.getLastPad(0));
+	}
+
+	@Test
+	public void gapLongerThanBatchGapStartsNewBatch() {
+		BatchIndex batchIndex = new BatchIndex(replicatePads(0, GAP + 1), GAP);
+
+		assertEquals(0, batchIndex.getBatch(0));
+		assertEquals(1, batchIndex.getBatch(1));
+		assertEquals(0, batchIndex.getFirstPad(0));
+		assertEquals(0, batchIndex.getLastPad(0));
+		assertEquals(1, batchIndex.getFirstPad(1));
+		assertEquals(1, batchIndex.getLastPad(1));
+	}
+
+	@Test
+	public void severalBatches() {
+		long secondStart = 10 * GAP;
+		long thirdStart = 30 * GAP;
+		BatchIndex batchIndex = new BatchIndex(replicatePads(0, 100, 200, secondStart, secondStart + GAP, thirdStart), GAP);
+
+		int[] expectedBatches = { 0, 0, 0, 1, 1, 2 };
+
+		for (int i=0; i<expectedBatches.length; i++) {
+			assertEquals(expectedBatches[i], batchIndex.getBatch(i));
+		}
+
+		assertEquals(0, batchIndex.getFirstPad(0));
+		assertEquals(2, batchIndex.getLastPad(0));
+		assertEquals(3, batchIndex.getFirstPad(1));
+		assertEquals(4, batchIndex.getLastPad(1));
+		assertEquals(5, batchIndex.getFirstPad(2));
+		assertEquals(5, batchIndex.getLastPad(2));
+	}
+
+	@Test
+	public void onlyNeighboursAreCompared() {
+		// the batch spans more than the gap but no two neighbours are further apart
+		BatchIndex batchIndex = new BatchIndex(replicatePads(0, GAP, 2 * GAP, 3 * GAP, 4 * GAP), GAP);
+
+		assertEquals(0, batchIndex.getBatch(4));
+		assertEquals(4, batchIndex.getLastPad(0));
+	}
+
+	@Test
+	public void singleReplicate() {
+		BatchIndex batchIndex = new BatchIndex(replicatePads(123), GAP);
+
+		assertEquals(0, batchIndex.getBatch(0));
+		assertEquals(0, batchIndex.getFirstPad(0));
+		assertEquals(0, batchIndex.getLastPad(0));
+	}
+
+	@Test
+	public void zeroGapSplitsDifferentDates() {
+		BatchIndex batchIndex = new BatchIndex(replicatePads(0, 0, 1, 1), 0);
+
+		assertEquals(0, batchIndex.getBatch(1));
+		assertEquals(1, batchIndex.getBatch(2));
+		assertEquals(1, batchIndex.getBatch(3));
+		assertEquals(1, batchIndex.getLastPad(0));
+		assertEquals(3, batchIndex.getLastPad(1));
+	}
+
+	private ReplicatePad[] replicatePads(long... dates) {
+		ScratchPad<ReplicatePad> scratchPad = new ScratchPad<ReplicatePad>();
+		ReplicatePad[] replicatePads = new ReplicatePad[dates.length];
+
+		for (int i=0; i<dates.length; i++) {
+			replicatePads[i] = new ReplicatePad(scratchPad, dates[i], i + 1, ReplicateType.SAMPLE_RUN);
+		}
+
+		return replicatePads;
+	}
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.execute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Random;
+import java.util.Set;
+
+import org.easotope.framework.commands.Command;
+import org.easotope.framework.commands.OptionsGet;
+import org.easotope.framework.core.global.OptionsInfo;
+import org.easotope.framework.dbcore.cmdprocessors.CommandListener;
+import org.easotope.framework.dbcore.cmdprocessors.Processor;
+import org.easotope.framework.dbcore.cmdprocessors.ProcessorManager;
+import org.easotope.framework.dbcore.tables.Options;
+import org.easotope.framework.events.OptionsUpdated;
+import org.easotope.shared.admin.AcidTempParameter;
+import org.easotope.shared.admin.IsotopicScale;
+import org.easotope.shared.admin.StandardParameter;
+import org.easotope.shared.admin.tables.AcidTemp;
+import org.easotope.shared.admin.tables.Standard;
+import org.easotope.shared.analysis.execute.RepStepCalculator.StandardReplicatePads;
+import org.easotope.shared.analysis.execute.RepStepCalculator.StandardVerifier;
+import org.easotope.shared.analysis.execute.RepStepCalculator.WindowType;
+import org.easotope.shared.analysis.execute.dependency.DependencyManager;
+import org.easotope.shared.analysis.repstep.superclass.etf.dependencies.AcidTempsPlugin;
+import org.easotope.shared.analysis.tables.RepStep;
+import org.easotope.shared.analysis.tables.RepStepParams;
+import org.easotope.shared.core.NumericValue;
+import org.easotope.shared.core.scratchpad.Pad;
+import org.easotope.shared.core.scratchpad.ReplicatePad;
+import org.easotope.shared.core.scratchpad.ReplicatePad.ReplicateType;
+import org.easotope.shared.core.scratchpad.ScratchPad;
+import org.junit.Test;
+
+// standards, and the drift and etf fits made from them, are shared by all replicates
+// of a corr interval or batch. every output must be exactly what is calculated when
+// each replicate is done on its own. the window type is not shared and not tested here.
+public class RepStepCalculatorSharingTest {
+	private static final int NUM_REPLICATES = 60;
+	private static final long MINUTE = 60l * 1000l;
+
+	private static final String DRIFT_INPUT = "drift input";
+	private static final String DRIFT_OUTPUT = "drift output";
+	private static final String ETF_INPUT = "etf input";
+	private static final String ETF_CORRECTOR = "etf corrector";
+	private static final String ETF_PRE_CORRECTEE = "etf pre correctee";
+	private static final String ETF_POST_CORRECTEE = "etf post correctee";
+	private static final String ETF_ACID_TEMP = "etf acid temp";
+	private static final String ETF_SLOPE = "etf slope";
+	private static final String ETF_INTERCEPT = "etf intercept";
+	private static final String ETF_OUTPUT = "etf output";
+
+	@Test
+	public void sharedStandardsMatchStandardsFoundPerReplicate() {
+		for (boolean includeStds : new boolean[] { false, true }) {
+			setIncludeStds(includeStds);
+
+			for (WindowType windowType : new WindowType[] { WindowType.CorrInterval, WindowType.Batch }) {
+				ReplicatePad[] replicatePads = createReplicatePads();
+				RepStepCalculator calculator = createDriftCalculator(windowType, true);
+				HashSet<Integer> standardIds = standardIds(1, 2);
+
+				for (int i=0; i<replicatePads.length; i++) {
+					StandardReplicatePads shared = calculator.getStandardReplicatePads(replicatePads, i, windowType, 0, calculator.new SimpleStandardVerifier(standardIds));
+					StandardReplicatePads unshared = calculator.getStandardReplicatePads(replicatePads, i, windowType, 0, new UnsharedStandardVerifier(calculator, standardIds));
+					String message = windowType + " includeStds=" + includeStds + " pad=" + i;
+
+					assertEquals(message, new ArrayList<ReplicatePad>(unshared.getUsable()), new ArrayList<ReplicatePad>(shared.getUsable()));
+					assertEquals(message, new ArrayList<ReplicatePad>(unshared.getDisabled()), new ArrayList<ReplicatePad>(shared.getDisabled()));
+					assertEquals(message, new ArrayList<ReplicatePad>(unshared.getFailed()), new ArrayList<ReplicatePad>(shared.getFailed()));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void driftOutputsMatchPerReplicateCalculation() throws Exception {
+		for (boolean includeStds : new boolean[] { false, true }) {
+			setIncludeStds(includeStds);
+
+			for (WindowType windowType : new WindowType[] { WindowType.CorrInterval, WindowType.Batch }) {
+				for (final boolean applyStretching : new boolean[] { false, true }) {
+					final WindowType finalWindowType = windowType;
+
+					CalculatorFactory calculatorFactory = new CalculatorFactory() {
+						@Override
+						RepStepCalculator create() {
+							return createDriftCalculator(finalWindowType, applyStretching);
+						}
+					};
+
+					String[] volatileKeys = new String[] { DriftCalculator.VOLATILES.getVolatileDataOffsetKey() };
+					assertSameOutputs(windowType + " stretching=" + applyStretching + " includeStds=" + includeStds, calculatorFactory, new String[] { DRIFT_OUTPUT }, volatileKeys);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void etfOutputsMatchPerReplicateCalculation() throws Exception {
+		for (boolean includeStds : new boolean[] { false, true }) {
+			setIncludeStds(includeStds);
+
+			for (WindowType windowType : new WindowType[] { WindowType.CorrInterval, WindowType.Batch }) {
+				for (final boolean averageStandardsFirst : new boolean[] { false, true }) {
+					final WindowType finalWindowType = windowType;
+
+					CalculatorFactory calculatorFactory = new CalculatorFactory() {
+						@Override
+						RepStepCalculator create() {
+							return createEtfCalculator(finalWindowType, averageStandardsFirst);
+						}
+					};
+
+					String[] outputs = new String[] { ETF_SLOPE, ETF_INTERCEPT, ETF_OUTPUT };
+					assertSameOutputs(windowType + " averageStandardsFirst=" + averageStandardsFirst + " includeStds=" + includeStds, calculatorFactory, outputs, new String[0]);
+				}
+			}
+		}
+	}
+
+	// one calculator for the whole corr interval shares its standards and fits, a new
+	// calculator for every replicate calculates everything for that replicate alone
+	private void assertSameOutputs(String message, CalculatorFactory calculatorFactory, String[] outputColumns, String[] volatileKeys) throws Exception {
+		ReplicatePad[] sharedPads = createReplicatePads();
+		ReplicatePad[] singlePads = createReplicatePads();
+
+		RepStepCalculator sharedCalculator = calculatorFactory.create();
+
+		for (int i=0; i<sharedPads.length; i++) {
+			sharedCalculator.calculate(sharedPads, i, sharedCalculator.getDependencyManager(sharedPads, i));
+		}
+
+		for (int i=0; i<singlePads.length; i++) {
+			RepStepCalculator singleCalculator = calculatorFactory.create();
+			singleCalculator.calculate(singlePads, i, singleCalculator.getDependencyManager(singlePads, i));
+		}
+
+		boolean foundValue = false;
+
+		for (int i=0; i<sharedPads.length; i++) {
+			for (String column : outputColumns) {
+				Object expected = singlePads[i].getValue(column);
+				assertEquals(message + " pad=" + i + " column=" + column, expected, sharedPads[i].getValue(column));
+				foundValue = foundValue || expected != null;
+			}
+
+			for (String key : volatileKeys) {
+				assertEquals(message + " pad=" + i + " volatile=" + key, singlePads[i].getVolatileData(key), sharedPads[i].getVolatileData(key));
+			}
+		}
+
+		assertTrue(message, foundValue);
+	}
+
+	// standards with ids 1 and 2 are usable, 3 is not a standard of the steps. some
+	// standards are disabled and some were run at another acid temperature. there is a
+	// long gap in the middle so that batches are tested with two of them.
+	private ReplicatePad[] createReplicatePads() {
+		Random random = new Random(47);
+		ScratchPad<ReplicatePad> scratchPad = new ScratchPad<ReplicatePad>();
+		ReplicatePad[] replicatePads = new ReplicatePad[NUM_REPLICATES];
+		long date = 0;
+
+		for (int i=0; i<NUM_REPLICATES; i++) {
+			date += (i == NUM_REPLICATES / 2) ? 3 * 24 * 60 * MINUTE : 40 * MINUTE;
+
+			boolean isStandard = i % 3 != 2;
+			ReplicatePad replicatePad = new ReplicatePad(scratchPad, date, i + 1, isStandard ? ReplicateType.STANDARD_RUN : ReplicateType.SAMPLE_RUN);
+			replicatePad.setValue(Pad.DISABLED, isStandard && i % 7 == 0);
+
+			if (isStandard) {
+				int standardId = (i % 11 == 0) ? 3 : 1 + (i % 2);
+				replicatePad.setSourceId(standardId);
+
+				double expected = standardId == 1 ? 0.3 : 0.9;
+				replicatePad.setValue(ETF_CORRECTOR, 10.0 * standardId + random.nextDouble());
+				replicatePad.setValue(ETF_PRE_CORRECTEE, expected * 0.8 + random.nextDouble() * 0.01);
+				replicatePad.setValue(ETF_POST_CORRECTEE, expected * 0.8 - 0.02 + random.nextDouble() * 0.01);
+
+				if (i % 13 == 0) {
+					replicatePad.setValue(ETF_ACID_TEMP, 25.0);
+				} else if (i % 2 == 0) {
+					replicatePad.setValue(ETF_ACID_TEMP, 0.0);
+				}
+			}
+
+			double measured = isStandard ? (replicatePad.getSourceId() == 1 ? 2.0 : -10.0) : -4.0;
+			replicatePad.setValue(DRIFT_INPUT, measured + 0.001 * i + random.nextDouble() * 0.05);
+			replicatePad.setValue(ETF_INPUT, 0.5 + random.nextDouble() * 0.1);
+
+			replicatePads[i] = replicatePad;
+		}
+
+		return replicatePads;
+	}
+
+	private RepStepCalculator createDriftCalculator(WindowType windowType, boolean applyStretching) {
+		RepStep repStep = new RepStep();
+		repStep.setInputs(columns(DriftCalculator.INPUT_LABEL_δ13C, DRIFT_INPUT));
+		repStep.setOutputs(columns(DriftCalculator.OUTPUT_LABEL_δ13C, DRIFT_OUTPUT));
+
+		HashMap<String,Object> parameters = new HashMap<String,Object>();
+		parameters.put(RepStepCalculator.PARAMETER_WINDOW_TYPE, windowType.ordinal());
+		parameters.put(RepStepCalculator.PARAMETER_STANDARD_IDS, new int[] { 1, 2 });
+		parameters.put(DriftCalculator.PARAMETER_APPLY_STRETCHING, applyStretching);
+
+		RepStepCalculator calculator = new DriftCalculator(repStep);
+		calculator.setParameters(repStepParams(parameters));
+
+		return calculator;
+	}
+
+	private RepStepCalculator createEtfCalculator(WindowType windowType, boolean averageStandardsFirst) {
+		RepStep repStep = new RepStep();
+		repStep.setInputs(columns(EtfCalculator.INPUT_LABEL, ETF_INPUT, EtfCalculator.INPUT_LABEL_STANDARD_CORRECTOR, ETF_CORRECTOR, EtfCalculator.INPUT_LABEL_STANDARD_PRE_NONLINEARITY_CORRECTEE, ETF_PRE_CORRECTEE, EtfCalculator.INPUT_LABEL_STANDARD_POST_NONLINEARITY_CORRECTEE, ETF_POST_CORRECTEE, EtfCalculator.INPUT_LABEL_STANDARD_ACID_TEMP, ETF_ACID_TEMP));
+		repStep.setOutputs(columns(EtfCalculator.OUTPUT_LABEL_ETF_SLOPE, ETF_SLOPE, EtfCalculator.OUTPUT_LABEL_ETF_INTERCEPT, ETF_INTERCEPT, EtfCalculator.OUTPUT_LABEL, ETF_OUTPUT));
+
+		HashMap<String,Object> parameters = new HashMap<String,Object>();
+		parameters.put(RepStepCalculator.PARAMETER_WINDOW_TYPE, windowType.ordinal());
+		parameters.put(EtfCalculator.PARAMETER_AVERAGE_STANDARDS_FIRST, averageStandardsFirst);
+
+		RepStepCalculator calculator = new EtfCalculator(repStep);
+		calculator.setParameters(repStepParams(parameters));
+
+		return calculator;
+	}
+
+	private RepStepParams repStepParams(HashMap<String,Object> parameters) {
+		RepStepParams repStepParams = new RepStepParams();
+		repStepParams.setParameters(parameters);
+
+		return repStepParams;
+	}
+
+	private HashMap<String,String> columns(String... labelsAndColumns) {
+		HashMap<String,String> columns = new HashMap<String,String>();
+
+		for (int i=0; i<labelsAndColumns.length; i+=2) {
+			columns.put(labelsAndColumns[i], labelsAndColumns[i+1]);
+		}
+
+		return columns;
+	}
+
+	private static HashSet<Integer> standardIds(int... ids) {
+		HashSet<Integer> standardIds = new HashSet<Integer>();
+
+		for (int id : ids) {
+			standardIds.add(id);
+		}
+
+		return standardIds;
+	}
+
+	private static Standard[] standards() {
+		Standard[] standards = new Standard[2];
+
+		for (int i=0; i<standards.length; i++) {
+			HashMap<Integer,NumericValue> values = new HashMap<Integer,NumericValue>();
+			values.put(StandardParameter.δ13C.ordinal(), new NumericValue(i == 0 ? 2.0 : -10.0, IsotopicScale.VPDB.ordinal()));
+			values.put(StandardParameter.Δ47.ordinal(), new NumericValue(i == 0 ? 0.3 : 0.9, IsotopicScale.CDES.ordinal()));
+
+			standards[i] = new Standard();
+			standards[i].setId(i + 1);
+			standards[i].setName("standard " + (i + 1));
+			standards[i].setValues(values);
+		}
+
+		return standards;
+	}
+
+	private void setIncludeStds(boolean includeStds) {
+		Options options = new Options();
+		options.setIncludeStds(includeStds);
+
+		ProcessorManager.getInstance().overrideProcessorForThread(new OptionsProcessor(options));
+
+		try {
+			OptionsInfo.getInstance().eventReceived(new OptionsUpdated(options), null);
+		} finally {
+			ProcessorManager.getInstance().overrideProcessorForThread(null);
+		}
+	}
+
+	private static abstract class CalculatorFactory {
+		abstract RepStepCalculator create();
+	}
+
+	// accepts the same replicates as SimpleStandardVerifier but never shares them
+	private static class UnsharedStandardVerifier extends StandardVerifier {
+		private Set<Integer> potentialStandardIds;
+
+		UnsharedStandardVerifier(RepStepCalculator calculator, Set<Integer> potentialStandardIds) {
+			calculator.super();
+			this.potentialStandardIds = potentialStandardIds;
+		}
+
+		@Override
+		public Set<Integer> getPotentialStandardIds() {
+			return potentialStandardIds;
+		}
+
+		@Override
+		public boolean replicatePadIsAcceptable(ReplicatePad replicatePad) {
+			return true;
+		}
+	}
+
+	private static class DriftCalculator extends org.easotope.shared.analysis.repstep.co2.cdrift.Calculator {
+		static final org.easotope.shared.analysis.repstep.superclass.drift.VolatileKeys VOLATILES = new org.easotope.shared.analysis.repstep.superclass.drift.VolatileKeys(org.easotope.shared.analysis.repstep.co2.cdrift.Calculator.class.getName());
+
+		DriftCalculator(RepStep repStep) {
+			super(repStep);
+		}
+
+		@Override
+		public DependencyManager getDependencyManager(ReplicatePad[] replicatePads, int standardNumber) {
+			return new org.easotope.shared.analysis.repstep.superclass.drift.dependencies.Dependencies() {
+				@Override
+				public Standard[] getStandards() {
+					return standards();
+				}
+			};
+		}
+	}
+
+	private static class EtfCalculator extends org.easotope.shared.analysis.repstep.co2.d47etf.Calculator {
+		EtfCalculator(RepStep repStep) {
+			super(repStep);
+		}
+
+		@Override
+		public DependencyManager getDependencyManager(ReplicatePad[] replicatePads, int standardNumber) {
+			AcidTempsPlugin acidTempsPlugin = new AcidTempsPlugin() {
+				@Override
+				protected String getMZasString() {
+					return "47";
+				}
+
+				@Override
+				protected StandardParameter getStandardParameter() {
+					return StandardParameter.Δ47;
+				}
+
+				@Override
+				protected AcidTempParameter getAcidTempParameter() {
+					return AcidTempParameter.Δ47;
+				}
+			};
+
+			return new org.easotope.shared.analysis.repstep.superclass.etf.dependencies.Dependencies(acidTempsPlugin) {
+				@Override
+				public Standard[] getStandards() {
+					return standards();
+				}
+
+				@Override
+				public AcidTemp[] getAcidTemps() {
+					return new AcidTemp[2];
+				}
+			};
+		}
+	}
+
+	private static class OptionsProcessor extends Processor {
+		private Options options;
+
+		OptionsProcessor(Options options) {
+			this.options = options;
+		}
+
+		@Override
+		public String getSource() {
+			return "test";
+		}
+
+		@Override
+		public void process(Command command, Hashtable<String,Object> authenticationObjects, CommandListener listener) {
+			listener.commandExecuted(new FixedOptionsGet(options));
+		}
+	}
+
+	private static class FixedOptionsGet extends OptionsGet {
+		private static final long serialVersionUID = 1L;
+
+		private Options options;
+
+		FixedOptionsGet(Options options) {
+			this.options = options;
+		}
+
+		@Override
+		public Options getOptions() {
+			return options;
+		}
+	}
+}
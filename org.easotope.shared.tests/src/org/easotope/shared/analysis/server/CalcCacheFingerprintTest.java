@@ -0,0 +1,310 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+
+import org.easotope.framework.Constants;
+import org.easotope.shared.analysis.tables.CalcRepToCalcSamp;
+import org.easotope.shared.analysis.tables.CalcReplicateCache;
+import org.easotope.shared.analysis.tables.CalcSampleCache;
+import org.easotope.shared.analysis.tables.CorrIntervalError;
+import org.easotope.shared.analysis.tables.CorrIntervalScratchPad;
+import org.easotope.shared.analysis.tables.CorrIntervalV1;
+import org.easotope.shared.analysis.tables.RepAnalysis;
+import org.easotope.shared.analysis.tables.RepStep;
+import org.easotope.shared.analysis.tables.RepStepParams;
+import org.easotope.shared.analysis.tables.SamAnalysis;
+import org.easotope.shared.analysis.tables.SamStep;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+
+public class CalcCacheFingerprintTest {
+	private static int databaseCount = 0;
+
+	private String oldVersion;
+	private JdbcConnectionSource connectionSource;
+	private Dao<CorrIntervalV1,Integer> corrIntervalDao;
+	private Dao<RepAnalysis,Integer> repAnalysisDao;
+	private Dao<RepStepParams,Integer> repStepParamsDao;
+	private Dao<SamAnalysis,Integer> samAnalysisDao;
+
+	private int corrIntervalId;
+	private int repAnalysisId;
+	private int samAnalysisId;
+	private RepStepParams repStepParams;
+
+	@Before
+	public void setUp() throws Exception {
+		oldVersion = System.getProperty(Constants.PROPERTY_VERSION);
+		System.setProperty(Constants.PROPERTY_VERSION, "20231227");
+
+		connectionSource = new JdbcConnectionSource("jdbc:h2:mem:calcCacheFingerprint" + (databaseCount++));
+
+		for (Class<?> clazz : new Class<?>[] { CorrIntervalV1.class, RepAnalysis.class, RepStep.class, RepStepParams.class, SamAnalysis.class, SamStep.class, CalcReplicateCache.class, CalcRepToCalcSamp.class, CalcSampleCache.class, CorrIntervalScratchPad.class, CorrIntervalError.class }) {
+			TableUtils.createTable(connectionSource, clazz);
+		}
+
+		corrIntervalDao = DaoManager.createDao(connectionSource, CorrIntervalV1.class);
+		repAnalysisDao = DaoManager.createDao(connectionSource, RepAnalysis.class);
+		repStepParamsDao = DaoManager.createDao(connectionSource, RepStepParams.class);
+		samAnalysisDao = DaoManager.createDao(connectionSource, SamAnalysis.class);
+
+		CorrIntervalV1 corrInterval = new CorrIntervalV1();
+		corrInterval.setMassSpecId(1);
+		corrInterval.setDescription("corr interval");
+		corrInterval.setValidFrom(1000);
+		corrInterval.setDataAnalysis(new int[] { 1 });
+		corrInterval.setChannelToMzX10(new Integer[] { 440, 450, 460 });
+		corrInterval.setValidUntil(2000);
+		corrIntervalDao.create(corrInterval);
+		corrIntervalId = corrInterval.getId();
+
+		RepAnalysis repAnalysis = new RepAnalysis();
+		repAnalysis.setName("replicate analysis");
+		repAnalysis.setDescription("description");
+		repAnalysisDao.create(repAnalysis);
+		repAnalysisId = repAnalysis.getId();
+
+		RepStep repStep = new RepStep();
+		repStep.setAnalysisId(repAnalysisId);
+		repStep.setClazz("org.example.Step");
+		repStep.setPosition(0);
+		DaoManager.createDao(connectionSource, RepStep.class).create(repStep);
+
+		repStepParams = new RepStepParams();
+		repStepParams.setCorrIntervalId(corrIntervalId);
+		repStepParams.setAnalysisId(repAnalysisId);
+		repStepParams.setPosition(0);
+		repStepParams.setParameters(parameters(1.0));
+		repStepParamsDao.create(repStepParams);
+
+		SamAnalysis samAnalysis = new SamAnalysis();
+		samAnalysis.setName("sample analysis");
+		samAnalysis.setDescription("description");
+		samAnalysis.setRepAnalyses(new int[] { repAnalysisId });
+		samAnalysisDao.create(samAnalysis);
+		samAnalysisId = samAnalysis.getId();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connectionSource.close();
+
+		if (oldVersion == null) {
+			System.clearProperty(Constants.PROPERTY_VERSION);
+		} else {
+			System.setProperty(Constants.PROPERTY_VERSION, oldVersion);
+		}
+	}
+
+	@Test
+	public void sameDefinitionsGiveSameFingerprint() throws Exception {
+		String first = new CalcCacheFingerprint(connectionSource).getCorrIntervalFingerprint(corrIntervalId, repAnalysisId);
+		String second = new CalcCacheFingerprint(connectionSource).getCorrIntervalFingerprint(corrIntervalId, repAnalysisId);
+
+		assertEquals(first, second);
+		assertNotEquals(CalcCacheFingerprint.STALE, first);
+	}
+
+	@Test
+	public void fingerprintIsMemoized() throws Exception {
+		CalcCacheFingerprint calcCacheFingerprint = new CalcCacheFingerprint(connectionSource);
+		String before = calcCacheFingerprint.getCorrIntervalFingerprint(corrIntervalId, repAnalysisId);
+
+		repStepParams.setParameters(parameters(2.0));
+		repStepParamsDao.update(repStepParams);
+
+		assertEquals(before, calcCacheFingerprint.getCorrIntervalFingerprint(corrIntervalId, repAnalysisId));
+		assertNotEquals(before, new CalcCacheFingerprint(connectionSource).getCorrIntervalFingerprint(corrIntervalId, repAnalysisId));
+	}
+
+	@Test
+	public void stepParamsChangeCorrIntervalFingerprint() throws Exception {
+		String before = new CalcCacheFingerprint(connectionSource).getCorrIntervalFingerprint(corrIntervalId, repAnalysisId);
+
+		repStepParams.setParameters(parameters(2.0));
+		repStepParamsDao.update(repStepParams);
+
+		assertNotEquals(before, new CalcCacheFingerprint(connectionSource).getCorrIntervalFingerprint(corrIntervalId, repAnalysisId));
+	}
+
+	@Test
+	public void otherCorrIntervalDoesNotChangeFingerprint() throws Exception {
+		String before = new CalcCacheFingerprint(connectionSource).getCorrIntervalFingerprint(corrIntervalId, repAnalysisId);
+
+		CorrIntervalV1 other = new CorrIntervalV1();
+		other.setMassSpecId(1);
+		other.setDescription("other corr interval");
+		other.setValidFrom(2000);
+		other.setDataAnalysis(new int[] { 1 });
+		other.setChannelToMzX10(new Integer[] { 440, 450, 460 });
+		other.setValidUntil(3000);
+		corrIntervalDao.create(other);
+
+		RepStepParams otherParams = new RepStepParams();
+		otherParams.setCorrIntervalId(other.getId());
+		otherParams.setAnalysisId(repAnalysisId);
+		otherParams.setPosition(0);
+		otherParams.setParameters(parameters(3.0));
+		repStepParamsDao.create(otherParams);
+
+		assertEquals(before, new CalcCacheFingerprint(connectionSource).getCorrIntervalFingerprint(corrIntervalId, repAnalysisId));
+	}
+
+	@Test
+	public void analysisChangeChangesFingerprints() throws Exception {
+		CalcCacheFingerprint before = new CalcCacheFingerprint(connectionSource);
+		String corrIntervalBefore = before.getCorrIntervalFingerprint(corrIntervalId, repAnalysisId);
+		String sampleBefore = before.getSampleFingerprint(samAnalysisId, new int[] { corrIntervalId }, new int[] { repAnalysisId });
+
+		RepAnalysis repAnalysis = repAnalysisDao.queryForId(repAnalysisId);
+		repAnalysis.setDescription("changed");
+		repAnalysisDao.update(repAnalysis);
+
+		CalcCacheFingerprint after = new CalcCacheFingerprint(connectionSource);
+		assertNotEquals(corrIntervalBefore, after.getCorrIntervalFingerprint(corrIntervalId, repAnalysisId));
+		assertNotEquals(sampleBefore, after.getSampleFingerprint(samAnalysisId, new int[] { corrIntervalId }, new int[] { repAnalysisId }));
+		assertEquals(before.getSampleFingerprint(samAnalysisId, null, null), after.getSampleFingerprint(samAnalysisId, null, null));
+	}
+
+	@Test
+	public void versionChangesFingerprint() throws Exception {
+		String before = new CalcCacheFingerprint(connectionSource).getCorrIntervalFingerprint(corrIntervalId, repAnalysisId);
+
+		System.setProperty(Constants.PROPERTY_VERSION, "20240101");
+
+		assertNotEquals(before, new CalcCacheFingerprint(connectionSource).getCorrIntervalFingerprint(corrIntervalId, repAnalysisId));
+	}
+
+	@Test
+	public void removeStaleEntries() throws Exception {
+		CalcCacheFingerprint calcCacheFingerprint = new CalcCacheFingerprint(connectionSource);
+		String corrIntervalFingerprint = calcCacheFingerprint.getCorrIntervalFingerprint(corrIntervalId, repAnalysisId);
+
+		Dao<CalcReplicateCache,Integer> calcReplicateCacheDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
+		CalcReplicateCache currentReplicate = newCalcReplicateCache(corrIntervalFingerprint);
+		calcReplicateCacheDao.create(currentReplicate);
+		CalcReplicateCache staleReplicate = newCalcReplicateCache(CalcCacheFingerprint.STALE);
+		calcReplicateCacheDao.create(staleReplicate);
+
+		Dao<CalcSampleCache,Integer> calcSampleCacheDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
+		CalcSampleCache currentSample = newCalcSampleCache(calcCacheFingerprint.getSampleFingerprint(samAnalysisId, new int[] { corrIntervalId }, new int[] { repAnalysisId }));
+		calcSampleCacheDao.create(currentSample);
+		CalcSampleCache staleSample = newCalcSampleCache("0000");
+		calcSampleCacheDao.create(staleSample);
+		CalcSampleCache linkedSample = newCalcSampleCache(currentSample.getFingerprint());
+		calcSampleCacheDao.create(linkedSample);
+
+		Dao<CalcRepToCalcSamp,Integer> calcRepToCalcSampDao = DaoManager.createDao(connectionSource, CalcRepToCalcSamp.class);
+		CalcRepToCalcSamp currentLink = new CalcRepToCalcSamp();
+		currentLink.setCalcReplicateId(currentReplicate.getId());
+		currentLink.setCalcSampleId(currentSample.getId());
+		calcRepToCalcSampDao.create(currentLink);
+		CalcRepToCalcSamp staleLink = new CalcRepToCalcSamp();
+		staleLink.setCalcReplicateId(staleReplicate.getId());
+		staleLink.setCalcSampleId(linkedSample.getId());
+		calcRepToCalcSampDao.create(staleLink);
+
+		Dao<CorrIntervalScratchPad,Integer> corrIntervalScratchPadDao = DaoManager.createDao(connectionSource, CorrIntervalScratchPad.class);
+		CorrIntervalScratchPad currentScratchPad = newCorrIntervalScratchPad(corrIntervalFingerprint);
+		corrIntervalScratchPadDao.create(currentScratchPad);
+		CorrIntervalScratchPad staleScratchPad = newCorrIntervalScratchPad(CalcCacheFingerprint.STALE);
+		corrIntervalScratchPadDao.create(staleScratchPad);
+
+		Dao<CorrIntervalError,Integer> corrIntervalErrorDao = DaoManager.createDao(connectionSource, CorrIntervalError.class);
+		CorrIntervalError currentError = newCorrIntervalError(corrIntervalFingerprint);
+		corrIntervalErrorDao.create(currentError);
+		CorrIntervalError staleError = newCorrIntervalError(null);
+		corrIntervalErrorDao.create(staleError);
+
+		CalcCacheFingerprint.removeStaleEntries(connectionSource);
+
+		assertNotNull(calcReplicateCacheDao.queryForId(currentReplicate.getId()));
+		assertNull(calcReplicateCacheDao.queryForId(staleReplicate.getId()));
+		assertNotNull(calcSampleCacheDao.queryForId(currentSample.getId()));
+		assertNull(calcSampleCacheDao.queryForId(staleSample.getId()));
+		assertNull(calcSampleCacheDao.queryForId(linkedSample.getId()));
+		assertNotNull(calcRepToCalcSampDao.queryForId(currentLink.getId()));
+		assertNull(calcRepToCalcSampDao.queryForId(staleLink.getId()));
+		assertNotNull(corrIntervalScratchPadDao.queryForId(currentScratchPad.getId()));
+		assertNull(corrIntervalScratchPadDao.queryForId(staleScratchPad.getId()));
+		assertNotNull(corrIntervalErrorDao.queryForId(currentError.getId()));
+		assertNull(corrIntervalErrorDao.queryForId(staleError.getId()));
+	}
+
+	private HashMap<String,Object> parameters(double value) {
+		HashMap<String,Object> parameters = new HashMap<String,Object>();
+		parameters.put("value", value);
+		return parameters;
+	}
+
+	private CalcReplicateCache newCalcReplicateCache(String fingerprint) {
+		CalcReplicateCache calcReplicateCache = new CalcReplicateCache();
+		calcReplicateCache.setCorrIntervalId(corrIntervalId);
+		calcReplicateCache.setReplicateAnalysisId(repAnalysisId);
+		calcReplicateCache.setFingerprint(fingerprint);
+		return calcReplicateCache;
+	}
+
+	private CalcSampleCache newCalcSampleCache(String fingerprint) {
+		CalcSampleCache calcSampleCache = new CalcSampleCache();
+		calcSampleCache.setSampleAnalysisId(samAnalysisId);
+		calcSampleCache.setCorrIntervalIds(new int[] { corrIntervalId });
+		calcSampleCache.setRepAnalysisIds(new int[] { repAnalysisId });
+		calcSampleCache.setFingerprint(fingerprint);
+		return calcSampleCache;
+	}
+
+	private CorrIntervalScratchPad newCorrIntervalScratchPad(String fingerprint) {
+		CorrIntervalScratchPad corrIntervalScratchPad = new CorrIntervalScratchPad();
+		corrIntervalScratchPad.setCorrIntervalId(corrIntervalId);
+		corrIntervalScratchPad.setDataAnalysisId(repAnalysisId);
+		corrIntervalScratchPad.setFingerprint(fingerprint);
+		return corrIntervalScratchPad;
+	}
+
+	private CorrIntervalError newCorrIntervalError(String fingerprint) {
+		CorrIntervalError corrIntervalError = new CorrIntervalError();
+		corrIntervalError.setCorrIntervalId(corrIntervalId);
+		corrIntervalError.setDataAnalysislId(repAnalysisId);
+		corrIntervalError.setFingerprint(fingerprint);
+		return corrIntervalError;
+	}
+}
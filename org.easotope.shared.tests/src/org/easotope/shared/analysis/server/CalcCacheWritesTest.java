@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.easotope.framework.Constants;
+import org.easotope.shared.analysis.tables.CalcRepToCalcSamp;
+import org.easotope.shared.analysis.tables.CalcReplicateCache;
+import org.easotope.shared.analysis.tables.CalcSampleCache;
+import org.easotope.shared.core.scratchpad.ReplicatePad;
+import org.easotope.shared.core.scratchpad.ReplicatePad.ReplicateType;
+import org.easotope.shared.core.scratchpad.SamplePad;
+import org.easotope.shared.core.scratchpad.ScratchPad;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+
+public class CalcCacheWritesTest {
+	private static int databaseCount = 0;
+
+	private String oldVersion;
+	private JdbcConnectionSource connectionSource;
+	private Dao<CalcReplicateCache,Integer> calcReplicateCacheDao;
+	private Dao<CalcSampleCache,Integer> calcSampleCacheDao;
+	private Dao<CalcRepToCalcSamp,Integer> calcRepToCalcSampDao;
+
+	@Before
+	public void setUp() throws Exception {
+		oldVersion = System.getProperty(Constants.PROPERTY_VERSION);
+		System.setProperty(Constants.PROPERTY_VERSION, "20231227");
+
+		connectionSource = new JdbcConnectionSource("jdbc:h2:mem:calcCacheWrites" + (databaseCount++));
+
+		for (Class<?> clazz : new Class<?>[] { CalcReplicateCache.class, CalcRepToCalcSamp.class, CalcSampleCache.class }) {
+			TableUtils.createTable(connectionSource, clazz);
+		}
+
+		calcReplicateCacheDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
+		calcSampleCacheDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
+		calcRepToCalcSampDao = DaoManager.createDao(connectionSource, CalcRepToCalcSamp.class);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connectionSource.close();
+
+		if (oldVersion == null) {
+			System.clearProperty(Constants.PROPERTY_VERSION);
+		} else {
+			System.setProperty(Constants.PROPERTY_VERSION, oldVersion);
+		}
+	}
+
+	@Test
+	public void nothingIsWrittenUntilStored() throws Exception {
+		CalcCacheWrites calcCacheWrites = new CalcCacheWrites();
+		CalcReplicateCache calcReplicateCache = replicate(10, 1, "fingerprint");
+		calcCacheWrites.addCalcReplicateCache(calcReplicateCache);
+		calcCacheWrites.addCalcSampleCache(sample(20, 2, "fingerprint"), Arrays.asList(calcReplicateCache));
+
+		assertEquals(0, calcReplicateCacheDao.countOf());
+		assertEquals(0, calcSampleCacheDao.countOf());
+
+		calcCacheWrites.store(connectionSource);
+
+		List<CalcReplicateCache> calcReplicateCaches = calcReplicateCacheDao.queryForAll();
+		List<CalcSampleCache> calcSampleCaches = calcSampleCacheDao.queryForAll();
+		List<CalcRepToCalcSamp> links = calcRepToCalcSampDao.queryForAll();
+
+		assertEquals(1, calcReplicateCaches.size());
+		assertEquals(1, calcSampleCaches.size());
+		assertEquals(1, links.size());
+		assertEquals(calcReplicateCaches.get(0).getId(), links.get(0).getCalcReplicateId());
+		assertEquals(calcSampleCaches.get(0).getId(), links.get(0).getCalcSampleId());
+		assertEquals(1, calcSampleCaches.get(0).getReplicateIds().length);
+	}
+
+	@Test
+	public void pendingCalculationsAreHandedOutAsCopies() throws Exception {
+		CalcCacheWrites calcCacheWrites = new CalcCacheWrites();
+		calcCacheWrites.addCalcReplicateCache(replicate(10, 1, "fingerprint"));
+
+		CalcReplicateCache first = calcCacheWrites.getCalcReplicateCache(10, 1);
+		first.getScratchPad().removeChild(first.getScratchPad().getChild(0));
+
+		CalcReplicateCache second = calcCacheWrites.getCalcReplicateCache(10, 1);
+		assertEquals(1, second.getScratchPad().getChildren().size());
+		assertNull(calcCacheWrites.getCalcReplicateCache(10, 2));
+	}
+
+	@Test
+	public void staleReplicateIsReplacedInPlace() throws Exception {
+		CalcReplicateCache stale = replicate(10, 1, CalcCacheFingerprint.STALE);
+		calcReplicateCacheDao.create(stale);
+
+		CalcCacheWrites calcCacheWrites = new CalcCacheWrites();
+		CalcReplicateCache calcReplicateCache = replicate(10, 1, "fingerprint");
+		calcCacheWrites.addCalcReplicateCache(calcReplicateCache);
+		calcCacheWrites.addCalcSampleCache(sample(20, 2, "fingerprint"), Arrays.asList(calcReplicateCache));
+		calcCacheWrites.store(connectionSource);
+
+		List<CalcReplicateCache> calcReplicateCaches = calcReplicateCacheDao.queryForAll();
+		assertEquals(1, calcReplicateCaches.size());
+		assertEquals(stale.getId(), calcReplicateCaches.get(0).getId());
+		assertEquals("fingerprint", calcReplicateCaches.get(0).getFingerprint());
+		assertEquals(stale.getId(), calcRepToCalcSampDao.queryForAll().get(0).getCalcReplicateId());
+	}
+
+	@Test
+	public void calculationsStoredInTheMeantimeAreKept() throws Exception {
+		CalcReplicateCache storedReplicate = replicate(10, 1, "stored");
+		calcReplicateCacheDao.create(storedReplicate);
+		CalcSampleCache storedSample = sample(20, 2, "stored");
+		calcSampleCacheDao.create(storedSample);
+
+		CalcCacheWrites calcCacheWrites = new CalcCacheWrites();
+		CalcReplicateCache calcReplicateCache = replicate(10, 1, "fingerprint");
+		calcCacheWrites.addCalcReplicateCache(calcReplicateCache);
+		calcCacheWrites.addCalcSampleCache(sample(20, 2, "fingerprint"), Arrays.asList(calcReplicateCache));
+		calcCacheWrites.store(connectionSource);
+
+		assertEquals(1, calcReplicateCacheDao.countOf());
+		assertEquals("stored", calcReplicateCacheDao.queryForAll().get(0).getFingerprint());
+		assertEquals(1, calcSampleCacheDao.countOf());
+		assertEquals("stored", calcSampleCacheDao.queryForAll().get(0).getFingerprint());
+		assertEquals(0, calcRepToCalcSampDao.countOf());
+	}
+
+	@Test
+	public void staleSampleIsReplaced() throws Exception {
+		CalcReplicateCache staleReplicate = replicate(10, 1, CalcCacheFingerprint.STALE);
+		calcReplicateCacheDao.create(staleReplicate);
+		CalcSampleCache staleSample = sample(20, 2, CalcCacheFingerprint.STALE);
+		calcSampleCacheDao.create(staleSample);
+
+		CalcRepToCalcSamp link = new CalcRepToCalcSamp();
+		link.setCalcReplicateId(staleReplicate.getId());
+		link.setCalcSampleId(staleSample.getId());
+		calcRepToCalcSampDao.create(link);
+
+		CalcCacheWrites calcCacheWrites = new CalcCacheWrites();
+		CalcReplicateCache calcReplicateCache = replicate(10, 1, "fingerprint");
+		calcCacheWrites.addCalcReplicateCache(calcReplicateCache);
+		calcCacheWrites.addCalcSampleCache(sample(20, 2, "fingerprint"), Arrays.asList(calcReplicateCache));
+		calcCacheWrites.store(connectionSource);
+
+		List<CalcReplicateCache> calcReplicateCaches = calcReplicateCacheDao.queryForAll();
+		List<CalcSampleCache> calcSampleCaches = calcSampleCacheDao.queryForAll();
+		List<CalcRepToCalcSamp> links = calcRepToCalcSampDao.queryForAll();
+
+		assertEquals(1, calcReplicateCaches.size());
+		assertEquals("fingerprint", calcReplicateCaches.get(0).getFingerprint());
+		assertEquals(1, calcSampleCaches.size());
+		assertEquals("fingerprint", calcSampleCaches.get(0).getFingerprint());
+		assertNotEquals(staleSample.getId(), calcSampleCaches.get(0).getId());
+		assertEquals(1, links.size());
+		assertEquals(calcReplicateCaches.get(0).getId(), links.get(0).getCalcReplicateId());
+		assertEquals(calcSampleCaches.get(0).getId(), links.get(0).getCalcSampleId());
+	}
+
+	private CalcReplicateCache replicate(int replicateId, int replicateAnalysisId, String fingerprint) {
+		CalcReplicateCache calcReplicateCache = new CalcReplicateCache();
+		calcReplicateCache.setReplicateId(replicateId);
+		calcReplicateCache.setReplicateAnalysisId(replicateAnalysisId);
+		calcReplicateCache.setScratchPad(new ScratchPad<ReplicatePad>());
+		calcReplicateCache.setFingerprint(fingerprint);
+		new ReplicatePad(calcReplicateCache.getScratchPad(), 1000, replicateId, ReplicateType.SAMPLE_RUN);
+
+		return calcReplicateCache;
+	}
+
+	private CalcSampleCache sample(int sampleId, int sampleAnalysisId, String fingerprint) {
+		CalcSampleCache calcSampleCache = new CalcSampleCache();
+		calcSampleCache.setSampleId(sampleId);
+		calcSampleCache.setSampleAnalysisId(sampleAnalysisId);
+		calcSampleCache.setScratchPad(new ScratchPad<SamplePad>());
+		calcSampleCache.setReplicateIds(new int[] { 10 });
+		calcSampleCache.setFingerprint(fingerprint);
+		new SamplePad(calcSampleCache.getScratchPad(), "sample");
+
+		return calcSampleCache;
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.easotope.shared.analysis.tables.CorrIntervalV1;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+
+public class CorrIntervalIndexTest {
+	private static final int MASS_SPEC = 1;
+	private static final int OTHER_MASS_SPEC = 2;
+	private static final int EMPTY_MASS_SPEC = 3;
+	private static final int MANY_MASS_SPEC = 4;
+	private static final int NONE = -1;
+
+	private static int databaseCount = 0;
+
+	private JdbcConnectionSource connectionSource;
+	private Dao<CorrIntervalV1,Integer> corrIntervalDao;
+
+	private CorrIntervalV1 first;
+	private CorrIntervalV1 second;
+	private CorrIntervalV1 third;
+	private CorrIntervalV1 other;
+
+	@Before
+	public void setUp() throws Exception {
+		CorrIntervalIndex.invalidateAll();
+
+		connectionSource = new JdbcConnectionSource("jdbc:h2:mem:corrIntervalIndex" + (databaseCount++));
+		TableUtils.createTable(connectionSource, CorrIntervalV1.class);
+		corrIntervalDao = DaoManager.createDao(connectionSource, CorrIntervalV1.class);
+
+		// created out of order with a gap between the second and third
+		third = createCorrInterval(MASS_SPEC, 400, 500);
+		first = createCorrInterval(MASS_SPEC, 100, 200);
+		second = createCorrInterval(MASS_SPEC, 200, 300);
+		other = createCorrInterval(OTHER_MASS_SPEC, 0, 1000);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		CorrIntervalIndex.invalidateAll();
+		connectionSource.close();
+	}
+
+	@Test
+	public void corrIntervalBoundaries() throws Exception {
+		CorrIntervalIndex index = getIndex();
+
+		assertEquals(NONE, id(index.getCorrInterval(MASS_SPEC, Long.MIN_VALUE)));
+		assertEquals(NONE, id(index.getCorrInterval(MASS_SPEC, 99)));
+		assertEquals(id(first), id(index.getCorrInterval(MASS_SPEC, 100)));
+		assertEquals(id(first), id(index.getCorrInterval(MASS_SPEC, 199)));
+		assertEquals(id(second), id(index.getCorrInterval(MASS_SPEC, 200)));
+		assertEquals(id(second), id(index.getCorrInterval(MASS_SPEC, 299)));
+		assertEquals(NONE, id(index.getCorrInterval(MASS_SPEC, 300)));
+		assertEquals(NONE, id(index.getCorrInterval(MASS_SPEC, 399)));
+		assertEquals(id(third), id(index.getCorrInterval(MASS_SPEC, 400)));
+		assertEquals(id(third), id(index.getCorrInterval(MASS_SPEC, 499)));
+		assertEquals(NONE, id(index.getCorrInterval(MASS_SPEC, 500)));
+		assertEquals(NONE, id(index.getCorrInterval(MASS_SPEC, Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void corrIntervalsBoundaries() throws Exception {
+		CorrIntervalIndex index = getIndex();
+
+		assertEquals(ids(), ids(index.getCorrIntervals(MASS_SPEC, 0, 100)));
+		assertEquals(ids(first), ids(index.getCorrIntervals(MASS_SPEC, 0, 101)));
+		assertEquals(ids(first), ids(index.getCorrIntervals(MASS_SPEC, 150, 160)));
+		assertEquals(ids(first), ids(index.getCorrIntervals(MASS_SPEC, 199, 200)));
+		assertEquals(ids(second), ids(index.getCorrIntervals(MASS_SPEC, 200, 201)));
+		assertEquals(ids(first, second), ids(index.getCorrIntervals(MASS_SPEC, 199, 201)));
+		assertEquals(ids(), ids(index.getCorrIntervals(MASS_SPEC, 300, 400)));
+		assertEquals(ids(second, third), ids(index.getCorrIntervals(MASS_SPEC, 299, 401)));
+		assertEquals(ids(), ids(index.getCorrIntervals(MASS_SPEC, 500, 600)));
+		assertEquals(ids(first, second, third), ids(index.getCorrIntervals(MASS_SPEC, Long.MIN_VALUE, Long.MAX_VALUE)));
+
+		// an empty range still finds the corr interval covering it
+		assertEquals(ids(first), ids(index.getCorrIntervals(MASS_SPEC, 150, 150)));
+		assertEquals(ids(), ids(index.getCorrIntervals(MASS_SPEC, 300, 300)));
+	}
+
+	@Test
+	public void massSpecsAreSeparate() throws Exception {
+		CorrIntervalIndex index = getIndex();
+
+		assertEquals(id(other), id(index.getCorrInterval(OTHER_MASS_SPEC, 350)));
+		assertEquals(ids(other), ids(index.getCorrIntervals(OTHER_MASS_SPEC, 0, 1000)));
+		assertEquals(NONE, id(index.getCorrInterval(EMPTY_MASS_SPEC, 150)));
+		assertTrue(index.getCorrIntervals(EMPTY_MASS_SPEC, 0, 1000).isEmpty());
+	}
+
+	@Test
+	public void massSpecNotRequested() throws Exception {
+		CorrIntervalIndex index = CorrIntervalIndex.getInstance(connectionSource, Arrays.asList(MASS_SPEC));
+
+		assertEquals(NONE, id(index.getCorrInterval(OTHER_MASS_SPEC, 350)));
+		assertTrue(index.getCorrIntervals(OTHER_MASS_SPEC, 0, 1000).isEmpty());
+	}
+
+	@Test
+	public void sameAsLinearSearch() throws Exception {
+		Random random = new Random(1);
+		ArrayList<CorrIntervalV1> all = new ArrayList<CorrIntervalV1>();
+		long start = 0;
+
+		for (int i=0; i<50; i++) {
+			start += random.nextInt(3) * 10;
+			long end = start + 10 + random.nextInt(5) * 10;
+			all.add(createCorrInterval(MANY_MASS_SPEC, start, end));
+			start = end;
+		}
+
+		CorrIntervalIndex index = getIndex();
+
+		for (long date=-10; date<=start+10; date+=5) {
+			CorrIntervalV1 expected = null;
+
+			for (CorrIntervalV1 corrInterval : all) {
+				if (corrInterval.getValidFrom() <= date && date < corrInterval.getValidUntil()) {
+					expected = corrInterval;
+				}
+			}
+
+			assertEquals(id(expected), id(index.getCorrInterval(MANY_MASS_SPEC, date)));
+		}
+
+		for (int i=0; i<500; i++) {
+			long from = random.nextInt((int) start + 20) - 10;
+			long to = from + random.nextInt(200);
+			ArrayList<CorrIntervalV1> expected = new ArrayList<CorrIntervalV1>();
+
+			for (CorrIntervalV1 corrInterval : all) {
+				if (corrInterval.getValidFrom() < to && corrInterval.getValidUntil() > from) {
+					expected.add(corrInterval);
+				}
+			}
+
+			assertEquals(ids(expected), ids(index.getCorrIntervals(MANY_MASS_SPEC, from, to)));
+		}
+	}
+
+	@Test
+	public void invalidateRereadsMassSpec() throws Exception {
+		CorrIntervalIndex before = getIndex();
+		CorrIntervalV1 added = createCorrInterval(MASS_SPEC, 300, 400);
+
+		assertEquals(NONE, id(getIndex().getCorrInterval(MASS_SPEC, 350)));
+
+		CorrIntervalIndex.invalidate(MASS_SPEC);
+		CorrIntervalIndex after = getIndex();
+
+		assertEquals(NONE, id(before.getCorrInterval(MASS_SPEC, 350)));
+		assertEquals(id(added), id(after.getCorrInterval(MASS_SPEC, 350)));
+		assertEquals(4, after.getCorrIntervals(MASS_SPEC, 0, 1000).size());
+	}
+
+	private CorrIntervalIndex getIndex() throws Exception {
+		return CorrIntervalIndex.getInstance(connectionSource, Arrays.asList(MASS_SPEC, OTHER_MASS_SPEC, EMPTY_MASS_SPEC, MANY_MASS_SPEC));
+	}
+
+	// the index reads its own copies of the rows so they are compared by id
+	private int id(CorrIntervalV1 corrInterval) {
+		return corrInterval == null ? NONE : corrInterval.getId();
+	}
+
+	private List<Integer> ids(CorrIntervalV1... corrIntervals) {
+		return ids(Arrays.asList(corrIntervals));
+	}
+
+	private List<Integer> ids(List<CorrIntervalV1> corrIntervals) {
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+
+		for (CorrIntervalV1 corrInterval : corrIntervals) {
+			ids.add(corrInterval.getId());
+		}
+
+		return ids;
+	}
+
+	private CorrIntervalV1 createCorrInterval(int massSpecId, long validFrom, long validUntil) throws Exception {
+		CorrIntervalV1 corrInterval = new CorrIntervalV1();
+		corrInterval.setMassSpecId(massSpecId);
+		corrInterval.setDescription("corr interval");
+		corrInterval.setValidFrom(validFrom);
+		corrInterval.setValidUntil(validUntil);
+		corrInterval.setDataAnalysis(new int[] { 1 });
+		corrInterval.setChannelToMzX10(new Integer[] { 440, 450, 460 });
+		corrIntervalDao.create(corrInterval);
+		return corrInterval;
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.core.scratchpad;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Hashtable;
+
+import org.easotope.framework.commands.Command;
+import org.easotope.framework.commands.OptionsGet;
+import org.easotope.framework.core.global.OptionsInfo;
+import org.easotope.framework.dbcore.cmdprocessors.CommandListener;
+import org.easotope.framework.dbcore.cmdprocessors.Processor;
+import org.easotope.framework.dbcore.cmdprocessors.ProcessorManager;
+import org.easotope.framework.dbcore.tables.Options;
+import org.easotope.framework.events.OptionsUpdated;
+import org.easotope.shared.core.scratchpad.ReplicatePad.ReplicateType;
+import org.easotope.shared.math.Statistics;
+import org.easotope.shared.rawdata.tables.AcquisitionParsedV2.DataFormat;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AccumulatorTest {
+	private static final String VALUE = "value";
+
+	private ScratchPad<ReplicatePad> scratchPad;
+	private ReplicatePad replicatePad;
+	private Accumulator accumulator;
+
+	@Before
+	public void setUp() {
+		setConfidenceLevel(95.0);
+
+		scratchPad = new ScratchPad<ReplicatePad>();
+		replicatePad = new ReplicatePad(scratchPad, 0, 1, ReplicateType.SAMPLE_RUN);
+		replicatePad.setAccumulator(VALUE, null, null, null, false);
+		accumulator = (Accumulator) replicatePad.getValue(VALUE);
+
+		addAcquisition(replicatePad, 1.0);
+		addAcquisition(replicatePad, 2.0);
+		addAcquisition(replicatePad, 4.0);
+	}
+
+	@Test
+	public void valuesMatchStatistics() {
+		assertArrayEquals(expected(95.0, 1.0, 2.0, 4.0), accumulator.getAccumulatedValues(), 0.0);
+	}
+
+	@Test
+	public void unchangedTreeReturnsCachedValues() {
+		double[] values = accumulator.getAccumulatedValues();
+
+		assertSame(values, accumulator.getAccumulatedValues());
+	}
+
+	@Test
+	public void changedCellRecalculates() {
+		double[] values = accumulator.getAccumulatedValues();
+		addAcquisition(replicatePad, 8.0);
+
+		assertArrayEquals(expected(95.0, 1.0, 2.0, 4.0, 8.0), accumulator.getAccumulatedValues(), 0.0);
+		assertTrue(values != accumulator.getAccumulatedValues());
+	}
+
+	@Test
+	public void removedChildRecalculates() {
+		accumulator.getAccumulatedValues();
+		replicatePad.removeChild(2);
+
+		assertArrayEquals(expected(95.0, 1.0, 2.0), accumulator.getAccumulatedValues(), 0.0);
+	}
+
+	@Test
+	public void clearedChildRecalculates() {
+		accumulator.getAccumulatedValues();
+		replicatePad.getChild(0).clearData();
+
+		assertArrayEquals(expected(95.0, 2.0, 4.0), accumulator.getAccumulatedValues(), 0.0);
+	}
+
+	@Test
+	public void otherTreeDoesNotRecalculate() {
+		double[] values = accumulator.getAccumulatedValues();
+
+		ScratchPad<ReplicatePad> otherScratchPad = new ScratchPad<ReplicatePad>();
+		ReplicatePad otherReplicatePad = new ReplicatePad(otherScratchPad, 0, 2, ReplicateType.SAMPLE_RUN);
+		addAcquisition(otherReplicatePad, 100.0);
+
+		assertSame(values, accumulator.getAccumulatedValues());
+	}
+
+	@Test
+	public void movedChildRecalculatesBothTrees() {
+		ScratchPad<ReplicatePad> otherScratchPad = new ScratchPad<ReplicatePad>();
+		ReplicatePad otherReplicatePad = new ReplicatePad(otherScratchPad, 0, 2, ReplicateType.SAMPLE_RUN);
+		otherReplicatePad.setAccumulator(VALUE, null, null, null, false);
+		Accumulator otherAccumulator = (Accumulator) otherReplicatePad.getValue(VALUE);
+		addAcquisition(otherReplicatePad, 10.0);
+		addAcquisition(otherReplicatePad, 20.0);
+
+		accumulator.getAccumulatedValues();
+		otherAccumulator.getAccumulatedValues();
+
+		replicatePad.getChild(2).reassignToParent(otherReplicatePad);
+
+		assertArrayEquals(expected(95.0, 1.0, 2.0), accumulator.getAccumulatedValues(), 0.0);
+		assertArrayEquals(expected(95.0, 4.0, 10.0, 20.0), otherAccumulator.getAccumulatedValues(), 0.0);
+	}
+
+	@Test
+	public void confidenceLevelChangeRecalculates() {
+		accumulator.getAccumulatedValues();
+		setConfidenceLevel(99.0);
+
+		assertArrayEquals(expected(99.0, 1.0, 2.0, 4.0), accumulator.getAccumulatedValues(), 0.0);
+	}
+
+	@Test
+	public void copyHasItsOwnCache() {
+		double[] values = accumulator.getAccumulatedValues();
+
+		ScratchPad<ReplicatePad> copy = new ScratchPad<ReplicatePad>(scratchPad);
+		Accumulator copiedAccumulator = (Accumulator) copy.getChild(0).getValue(VALUE);
+		addAcquisition(copy.getChild(0), 8.0);
+
+		assertSame(values, accumulator.getAccumulatedValues());
+		assertArrayEquals(expected(95.0, 1.0, 2.0, 4.0, 8.0), copiedAccumulator.getAccumulatedValues(), 0.0);
+	}
+
+	@Test
+	public void recursiveAccumulatorSeesGrandchildren() {
+		ReplicatePad otherReplicatePad = new ReplicatePad(scratchPad, 1, 2, ReplicateType.SAMPLE_RUN);
+		otherReplicatePad.setAccumulator(VALUE, null, null, null, false);
+		addAcquisition(otherReplicatePad, 16.0);
+
+		scratchPad.setAccumulator(VALUE, null, null, null, true);
+		Accumulator recursiveAccumulator = (Accumulator) scratchPad.getValue(VALUE);
+
+		assertArrayEquals(expected(95.0, 1.0, 2.0, 4.0, 16.0), recursiveAccumulator.getAccumulatedValues(), 0.0);
+
+		replicatePad.getChild(0).clearData();
+
+		assertArrayEquals(expected(95.0, 2.0, 4.0, 16.0), recursiveAccumulator.getAccumulatedValues(), 0.0);
+	}
+
+	private void addAcquisition(ReplicatePad parent, double value) {
+		AcquisitionPad acquisitionPad = new AcquisitionPad(parent, DataFormat.DUALINLET, parent.getChildren().size());
+		acquisitionPad.setValue(VALUE, value);
+	}
+
+	private double[] expected(double confidenceLevel, double... numbers) {
+		Statistics statistics = new Statistics();
+
+		for (double number : numbers) {
+			statistics.addNumber(number);
+		}
+
+		return new double[] { statistics.getMean(), statistics.getStandardDeviationSample(), statistics.getStandardErrorSample(), statistics.getConfidenceIntervalSample(confidenceLevel) };
+	}
+
+	// accumulators read the confidence level from the options which are normally
+	// fetched from the database, so the first request is answered here instead
+	private void setConfidenceLevel(double confidenceLevel) {
+		Options options = new Options();
+		options.setConfidenceLevel(confidenceLevel);
+
+		ProcessorManager.getInstance().overrideProcessorForThread(new OptionsProcessor(options));
+
+		try {
+			OptionsInfo.getInstance().eventReceived(new OptionsUpdated(options), null);
+		} finally {
+			ProcessorManager.getInstance().overrideProcessorForThread(null);
+		}
+	}
+
+	private static class OptionsProcessor extends Processor {
+		private Options options;
+
+		OptionsProcessor(Options options) {
+			this.options = options;
+		}
+
+		@Override
+		public String getSource() {
+			return "test";
+		}
+
+		@Override
+		public void process(Command command, Hashtable<String,Object> authenticationObjects, CommandListener listener) {
+			listener.commandExecuted(new FixedOptionsGet(options));
+		}
+	}
+
+	private static class FixedOptionsGet extends OptionsGet {
+		private static final long serialVersionUID = 1L;
+
+		private Options options;
+
+		FixedOptionsGet(Options options) {
+			this.options = options;
+		}
+
+		@Override
+		public Options getOptions() {
+			return options;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.core.scratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.easotope.shared.core.scratchpad.Pad.Status;
+import org.junit.Test;
+
+public class PadCellsTest {
+	@Test
+	public void valuesKeepTheirType() {
+		PadCells cells = new PadCells();
+		PadDate date = new PadDate(1234l);
+
+		cells.put("double", 1.5);
+		cells.put("negative zero", -0.0d);
+		cells.put("nan", Double.NaN);
+		cells.put("integer", Integer.MIN_VALUE);
+		cells.put("true", true);
+		cells.put("false", false);
+		cells.put("string", "text");
+		cells.put("status", Status.WARNING);
+		cells.put("date", date);
+
+		assertEquals(Double.valueOf(1.5), cells.get("double"));
+		assertEquals(Double.valueOf(-0.0d), cells.get("negative zero"));
+		assertEquals(Double.valueOf(Double.NaN), cells.get("nan"));
+		assertEquals(Integer.valueOf(Integer.MIN_VALUE), cells.get("integer"));
+		assertEquals(Boolean.TRUE, cells.get("true"));
+		assertEquals(Boolean.FALSE, cells.get("false"));
+		assertEquals("text", cells.get("string"));
+		assertSame(Status.WARNING, cells.get("status"));
+		assertSame(date, cells.get("date"));
+	}
+
+	@Test
+	public void nullIsStoredButMissingIsNot() {
+		PadCells cells = new PadCells();
+		cells.put("null", null);
+
+		assertTrue(cells.containsKey("null"));
+		assertNull(cells.get("null"));
+		assertFalse(cells.containsKey("PadCellsTest never used column"));
+		assertNull(cells.get("PadCellsTest never used column"));
+		assertEquals(new HashSet<String>(Arrays.asList("null")), cells.keySet());
+	}
+
+	@Test
+	public void overwriteChangesType() {
+		PadCells cells = new PadCells();
+
+		cells.put("a", "text");
+		cells.put("a", 2.0);
+		assertEquals(Double.valueOf(2.0), cells.get("a"));
+		assertTrue(cells.objectKeySet().isEmpty());
+
+		cells.put("a", 7);
+		assertEquals(Integer.valueOf(7), cells.get("a"));
+
+		cells.put("a", Status.OK);
+		assertSame(Status.OK, cells.get("a"));
+		assertEquals(new HashSet<String>(Arrays.asList("a")), cells.objectKeySet());
+
+		cells.put("a", null);
+		assertNull(cells.get("a"));
+		assertTrue(cells.containsKey("a"));
+		assertEquals(1, cells.keySet().size());
+	}
+
+	@Test
+	public void manyColumnsInAnyOrder() {
+		PadCells cells = new PadCells();
+		HashSet<String> expected = new HashSet<String>();
+
+		// columns are interned in a different order than they are inserted
+		for (int i=0; i<200; i++) {
+			new PadCells().put("column " + i, i);
+		}
+
+		for (int i=199; i>=0; i--) {
+			if (i % 3 == 0) {
+				cells.put("column " + i, "value " + i);
+			} else {
+				cells.put("column " + i, (double) i);
+			}
+
+			expected.add("column " + i);
+		}
+
+		for (int i=0; i<200; i++) {
+			if (i % 3 == 0) {
+				assertEquals("value " + i, cells.get("column " + i));
+			} else {
+				assertEquals(Double.valueOf(i), cells.get("column " + i));
+			}
+		}
+
+		assertEquals(expected, cells.keySet());
+		assertEquals(67, cells.objectKeySet().size());
+	}
+
+	@Test
+	public void copyIsIndependent() {
+		PadCells cells = new PadCells();
+		cells.put("number", 1.0);
+		cells.put("string", "original");
+
+		PadCells copy = new PadCells(cells);
+		copy.put("number", 2.0);
+		copy.put("string", "changed");
+		copy.put("added", true);
+
+		assertEquals(Double.valueOf(1.0), cells.get("number"));
+		assertEquals("original", cells.get("string"));
+		assertFalse(cells.containsKey("added"));
+		assertEquals(Double.valueOf(2.0), copy.get("number"));
+		assertEquals("changed", copy.get("string"));
+		assertEquals(Boolean.TRUE, copy.get("added"));
+	}
+
+	@Test
+	public void clear() {
+		PadCells cells = new PadCells();
+		cells.put("number", 1.0);
+		cells.put("string", "text");
+		cells.clear();
+
+		assertTrue(cells.keySet().isEmpty());
+		assertNull(cells.get("number"));
+
+		cells.put("string", 3);
+		assertEquals(Integer.valueOf(3), cells.get("string"));
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.core.scratchpad;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.easotope.shared.core.scratchpad.Pad.Status;
+import org.easotope.shared.core.scratchpad.ReplicatePad.ReplicateType;
+import org.easotope.shared.rawdata.tables.AcquisitionParsedV2.DataFormat;
+import org.junit.Test;
+
+public class ScratchPadTest {
+	@Test
+	public void cellsSurviveRoundTrip() throws Exception {
+		ScratchPad<ReplicatePad> scratchPad = createScratchPad();
+		ScratchPad<ReplicatePad> result = roundTrip(scratchPad);
+
+		assertEquals(scratchPad.getAllColumns(), result.getAllColumns());
+		assertEquals(2, result.getChildren().size());
+
+		for (int i=0; i<2; i++) {
+			assertSameCells(scratchPad.getChild(i), result.getChild(i));
+			assertEquals(2, result.getChild(i).getChildren().size());
+
+			for (int j=0; j<2; j++) {
+				assertSameCells(scratchPad.getChild(i).getChild(j), result.getChild(i).getChild(j));
+			}
+		}
+	}
+
+	@Test
+	public void accumulatorsSurviveRoundTrip() throws Exception {
+		ScratchPad<ReplicatePad> result = roundTrip(createScratchPad());
+		ReplicatePad replicatePad = result.getChild(0);
+
+		Accumulator accumulator = (Accumulator) replicatePad.getValue("mean");
+		assertFalse(accumulator.isFrozen());
+		assertTrue(accumulator.isRecursive());
+		assertSame(replicatePad, accumulator.getOwningPad());
+		assertEquals("mean", accumulator.getProperty());
+
+		assertEquals("mean", ((AccumulatorStdDevSample) replicatePad.getValue("std dev")).getAccumulatorColumn());
+		assertEquals("mean", ((AccumulatorStdErr) replicatePad.getValue("std err")).getAccumulatorColumn());
+		assertEquals("mean", ((AccumulatorCL) replicatePad.getValue("cl")).getAccumulatorColumn());
+
+		Accumulator frozen = (Accumulator) replicatePad.getValue("frozen");
+		assertTrue(frozen.isFrozen());
+		assertArrayEquals(new double[] { 1.0, 2.0, 3.0, 4.0 }, frozen.getAccumulatedValues(), 0.0);
+	}
+
+	@Test
+	public void copyRebindsAccumulators() throws Exception {
+		ScratchPad<ReplicatePad> scratchPad = createScratchPad();
+		ScratchPad<ReplicatePad> copy = new ScratchPad<ReplicatePad>(scratchPad);
+
+		for (int i=0; i<2; i++) {
+			ReplicatePad original = scratchPad.getChild(i);
+			ReplicatePad copied = copy.getChild(i);
+
+			assertSameCells(original, copied);
+
+			Accumulator accumulator = (Accumulator) copied.getValue("mean");
+			assertSame(copied, accumulator.getOwningPad());
+			assertTrue(accumulator != original.getValue("mean"));
+
+			// frozen accumulators hold no reference to their pad so they are shared
+			assertSame(original.getValue("frozen"), copied.getValue("frozen"));
+		}
+	}
+
+	@Test
+	public void copyIsIndependent() throws Exception {
+		ScratchPad<ReplicatePad> scratchPad = createScratchPad();
+		ScratchPad<ReplicatePad> copy = new ScratchPad<ReplicatePad>(scratchPad);
+
+		copy.getChild(0).setValue("added", 5);
+		copy.getChild(0).getChild(0).clearData();
+
+		assertNull(scratchPad.getChild(0).getValue("added"));
+		assertEquals(Double.valueOf(1.0), scratchPad.getChild(0).getChild(0).getValue("value"));
+	}
+
+	private ScratchPad<ReplicatePad> createScratchPad() {
+		ScratchPad<ReplicatePad> scratchPad = new ScratchPad<ReplicatePad>();
+
+		for (int i=0; i<2; i++) {
+			ReplicatePad replicatePad = new ReplicatePad(scratchPad, 1000l * i, i + 1, ReplicateType.STANDARD_RUN);
+			replicatePad.setValue("string", "replicate " + i);
+			replicatePad.setValue("integer", -i);
+			replicatePad.setValue("status", i == 0 ? Status.OK : Status.ERROR);
+			replicatePad.setValue("date", new PadDate(5000l + i));
+			replicatePad.setAccumulator("mean", "std dev", "std err", "cl", true);
+			replicatePad.setValue("frozen", new Accumulator(1.0, 2.0, 3.0, 4.0));
+
+			for (int j=0; j<2; j++) {
+				AcquisitionPad acquisitionPad = new AcquisitionPad(replicatePad, DataFormat.DUALINLET, 1000l * i + j);
+				acquisitionPad.setValue("value", 1.0 + j);
+				acquisitionPad.setValue("nan", Double.NaN);
+				acquisitionPad.setValue("flag", j == 0);
+
+				if (j == 1) {
+					// a column that only some pads have
+					acquisitionPad.setValue("sparse", 42);
+				}
+			}
+		}
+
+		return scratchPad;
+	}
+
+	private void assertSameCells(Pad expected, Pad actual) {
+		assertEquals(expected.getClass(), actual.getClass());
+
+		if (expected instanceof DatedPad) {
+			assertEquals(((DatedPad) expected).getDate(), ((DatedPad) actual).getDate());
+		}
+
+		for (String column : expected.getAllColumns()) {
+			// the identifier is formatted from the date with the user's time zone
+			if (column.equals(Pad.ID)) {
+				continue;
+			}
+
+			Object expectedValue = expected.getValue(column);
+			Object actualValue = actual.getValue(column);
+
+			if (expectedValue instanceof Accumulator || expectedValue instanceof AccumulatorStdDevSample || expectedValue instanceof AccumulatorStdErr || expectedValue instanceof AccumulatorCL) {
+				assertEquals(column, expectedValue.getClass(), actualValue.getClass());
+
+			} else if (expectedValue instanceof PadDate) {
+				assertEquals(column, ((PadDate) expectedValue).getLongValue(), ((PadDate) actualValue).getLongValue());
+
+			} else {
+				assertEquals(column, expectedValue, actualValue);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private ScratchPad<ReplicatePad> roundTrip(ScratchPad<ReplicatePad> scratchPad) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+			output.writeObject(scratchPad);
+		}
+
+		try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (ScratchPad<ReplicatePad>) input.readObject();
+		}
+	}
+}
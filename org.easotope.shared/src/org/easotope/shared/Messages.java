@@ -163,6 +163,8 @@ public class Messages {
 	public static String recalculateCorrInterval_couldNotFindCorrInterval;
 	public static String recalculateCorrInterval_errorLoadingCorrIntervalError;
 	public static String recalculateCorrInterval_errorLoadingCorrIntervalScratchPad;
+	public static String recalculateCorrInterval_couldNotCalculateFingerprint;
+	public static String recalculateCorrInterval_errorWhileMarkingStale;
 
 	public static String singleReplicateCalculator_missingInput;
 
@@ -187,6 +189,25 @@ public class Messages {
 	public static String loadOrCalculateSample_problemWithGetCalcSampleCacheIdsFromCorrIntervalAndReplicateAnalysis;
 	public static String loadOrCalculateSample_problemWithGetCalcSampleCacheIdsFromReplicateId;
 	public static String loadOrCalculateSample_problemWithGetCalcSampleCacheIdsFromSampleId;
+	public static String loadOrCalculateSample_fingerprintFailed;
+	public static String loadOrCalculateSample_problemMarkingStale;
+
+	public static String calcCacheFingerprint_removedStaleEntries;
+
+	public static String coreStartupHandler_rebuildingCaches;
+	public static String coreStartupHandler_errorPreparingCaches;
+
+	public static String cacheWarmUpTask_name;
+	public static String cacheWarmUpTask_errorFindingWork;
+	public static String cacheWarmUpTask_starting;
+	public static String cacheWarmUpTask_progress;
+
+	public static String staleCalculationTask_name;
+	public static String staleCalculationTask_starting;
+	public static String staleCalculationTask_errorCheckingEntry;
+
+	public static String upgrade20231227_errorCreatingIndex;
+	public static String upgrade20231227_errorCreatingIndexes;
 
 	public static String samStepGenericSample_name;
 	public static String samStepGenericSample_shortDocumentation;
@@ -35,6 +35,7 @@ import org.easotope.shared.admin.tables.MassSpec;
 import org.easotope.shared.admin.tables.RefGas;
 import org.easotope.shared.core.cache.AbstractCache;
 import org.easotope.shared.core.cache.CacheListener;
+import org.easotope.shared.core.cache.CachePlugin;
 
 public class MassSpecCache extends AbstractCache {
 	private MassSpecListPlugin massSpecListPlugin = new MassSpecListPlugin();
@@ -53,6 +54,11 @@ public class MassSpecCache extends AbstractCache {
 		addPlugin(refGasPlugin);
 	}
 
+	@Override
+	protected boolean isSharedReferenceData(CachePlugin cachePlugin) {
+		return true;
+	}
+
 	public synchronized int massSpecListGet(CacheListener listener) {
 		return getObject(massSpecListPlugin, listener);
 	}
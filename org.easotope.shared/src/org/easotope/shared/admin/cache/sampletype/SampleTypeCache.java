@@ -35,6 +35,7 @@ import org.easotope.shared.admin.tables.AcidTemp;
 import org.easotope.shared.admin.tables.SampleType;
 import org.easotope.shared.core.cache.AbstractCache;
 import org.easotope.shared.core.cache.CacheListener;
+import org.easotope.shared.core.cache.CachePlugin;
 
 public class SampleTypeCache extends AbstractCache {
 	private SampleTypeListPlugin sampleTypeListPlugin = new SampleTypeListPlugin();
@@ -53,6 +54,11 @@ public class SampleTypeCache extends AbstractCache {
 		addPlugin(acidTempPlugin);
 	}
 
+	@Override
+	protected boolean isSharedReferenceData(CachePlugin cachePlugin) {
+		return true;
+	}
+
 	public synchronized int sampleTypeListGet(CacheListener listener) {
 		return getObject(sampleTypeListPlugin, listener);
 	}
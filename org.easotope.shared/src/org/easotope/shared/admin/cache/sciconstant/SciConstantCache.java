@@ -33,6 +33,7 @@ import org.easotope.shared.admin.cache.sciconstant.sciconstantlist.SciConstantLi
 import org.easotope.shared.admin.tables.SciConstant;
 import org.easotope.shared.core.cache.AbstractCache;
 import org.easotope.shared.core.cache.CacheListener;
+import org.easotope.shared.core.cache.CachePlugin;
 
 public class SciConstantCache extends AbstractCache {
 	private SciConstantListPlugin sciConstantListPlugin = new SciConstantListPlugin();
@@ -47,6 +48,11 @@ public class SciConstantCache extends AbstractCache {
 		addPlugin(sciConstantPlugin);
 	}
 
+	@Override
+	protected boolean isSharedReferenceData(CachePlugin cachePlugin) {
+		return true;
+	}
+
 	public synchronized int sciConstantListGet(CacheListener listener) {
 		return getObject(sciConstantListPlugin, listener);
 	}
@@ -32,6 +32,7 @@ import org.easotope.shared.admin.cache.standard.standardlist.StandardListPlugin;
 import org.easotope.shared.admin.tables.Standard;
 import org.easotope.shared.core.cache.AbstractCache;
 import org.easotope.shared.core.cache.CacheListener;
+import org.easotope.shared.core.cache.CachePlugin;
 
 public class StandardCache extends AbstractCache {
 	private StandardListPlugin standardListPlugin = new StandardListPlugin();
@@ -46,6 +47,11 @@ public class StandardCache extends AbstractCache {
 		addPlugin(standardPlugin);
 	}
 
+	@Override
+	protected boolean isSharedReferenceData(CachePlugin cachePlugin) {
+		return true;
+	}
+
 	public synchronized int standardListGet(CacheListener listener) {
 		return getObject(standardListPlugin, listener);
 	}
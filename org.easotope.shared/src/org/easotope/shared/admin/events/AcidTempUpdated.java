@@ -46,6 +46,11 @@ public class AcidTempUpdated extends Event {
 		this.acidTemp = acidTemp;
 	}
 
+	@Override
+	public Object getCoalescingKey() {
+		return "AcidTempUpdated:" + acidTemp.getId();
+	}
+
 	public AcidTemp getAcidTemp() {
 		return acidTemp;
 	}
@@ -46,6 +46,11 @@ public class SciConstantUpdated extends Event {
 		this.sciConstant = sciConstant;
 	}
 
+	@Override
+	public Object getCoalescingKey() {
+		return "SciConstantUpdated:" + sciConstant.getId();
+	}
+
 	public SciConstant getSciConstant() {
 		return sciConstant;
 	}
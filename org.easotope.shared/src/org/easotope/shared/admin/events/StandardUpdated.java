@@ -46,6 +46,11 @@ public class StandardUpdated extends Event {
 		this.standard = standard;
 	}
 
+	@Override
+	public Object getCoalescingKey() {
+		return "StandardUpdated:" + standard.getId();
+	}
+
 	public Standard getStandard() {
 		return standard;
 	}
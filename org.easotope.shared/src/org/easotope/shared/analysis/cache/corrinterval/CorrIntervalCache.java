@@ -35,6 +35,7 @@ import org.easotope.shared.analysis.tables.CorrIntervalV1;
 import org.easotope.shared.analysis.tables.RepStepParams;
 import org.easotope.shared.core.cache.AbstractCache;
 import org.easotope.shared.core.cache.CacheListener;
+import org.easotope.shared.core.cache.CachePlugin;
 
 public class CorrIntervalCache extends AbstractCache {
 	private CorrIntervalListPlugin corrIntervalListPlugin = new CorrIntervalListPlugin();
@@ -53,6 +54,11 @@ public class CorrIntervalCache extends AbstractCache {
 		addPlugin(repStepParamsPlugin);
 	}
 
+	@Override
+	protected boolean isSharedReferenceData(CachePlugin cachePlugin) {
+		return cachePlugin == corrIntervalListPlugin || cachePlugin == corrIntervalPlugin;
+	}
+
 	public int corrIntervalListGet(int massSpecId, CacheListener listener) {
 		return getObject(corrIntervalListPlugin, listener, massSpecId);
 	}
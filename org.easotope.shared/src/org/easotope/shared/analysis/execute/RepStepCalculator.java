@@ -28,8 +28,14 @@
 package org.easotope.shared.analysis.execute;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.easotope.framework.core.global.OptionsInfo;
 import org.easotope.shared.analysis.execute.calculator.AnalysisConstants;
@@ -46,6 +52,12 @@ public abstract class RepStepCalculator extends StepCalculator {
 	public final static String PARAMETER_WINDOW_TYPE = "PARAMETER_WINDOW_TYPE";
 	public final static String PARAMETER_MIN_NUM_STANDARDS_BEFORE_AFTER = "PARAMETER_MIN_NUM_STANDARDS_BEFORE_AFTER";
 	public final static String PARAMETER_STANDARD_IDS = "PARAMETER_STANDARD_IDS";
+	public final static String PARAMETER_BATCH_GAP_MINUTES = "PARAMETER_BATCH_GAP_MINUTES";
+
+	public static final int DEFAULT_BATCH_GAP_MINUTES = 360;
+
+	private Map<ReplicatePad[],BatchIndex> batchIndexes = Collections.synchronizedMap(new WeakHashMap<ReplicatePad[],BatchIndex>());
+	private Map<ReplicatePad[],HashMap<Object,StandardReplicatePads>> sharedStandardReplicatePads = Collections.synchronizedMap(new WeakHashMap<ReplicatePad[],HashMap<Object,StandardReplicatePads>>());
 
 	public abstract DependencyManager getDependencyManager(ReplicatePad[] replicatePads, int standardNumber);
 	public abstract void calculate(ReplicatePad[] replicatePads, int padNumber, DependencyManager dependencyManager) throws EasotopeStepException;
@@ -62,19 +74,63 @@ public abstract class RepStepCalculator extends StepCalculator {
 		return ((RepStep) getStep()).isApplyToResults();
 	}
 
+	// true if calculate() only writes to the target pad and only reads values of
+	// other pads that were written by earlier steps. such a step may be calculated
+	// for all replicates at the same time.
+	public boolean isIndependentPerReplicate() {
+		return false;
+	}
+
+	public int getBatchGapMinutes() {
+		Integer parameter = (Integer) getParameter(PARAMETER_BATCH_GAP_MINUTES);
+		return parameter == null ? DEFAULT_BATCH_GAP_MINUTES : parameter;
+	}
+
+	// must be called whenever a replicate is flagged with errors since this
+	// changes which standards are usable for the remaining replicates
+	public void invalidateStandardWindows() {
+		sharedStandardReplicatePads.clear();
+	}
+
 	protected StandardReplicatePads getStandardReplicatePads(ReplicatePad[] replicatePads, int targetPadNumber, WindowType windowType, int minNumStandardsBeforeAfter, StandardVerifier standardVerifier) {
 		StandardReplicatePads resultReplicates = new StandardReplicatePads(standardVerifier);
+		boolean includeStds = OptionsInfo.getInstance().getOptions().isIncludeStds();
+		Object sharingKey = standardVerifier.getSharingKey();
+
+		// when the target is not itself a candidate standard, every replicate in the
+		// corr interval or batch sees the same standards so the set is only built once
+		boolean canShare = sharingKey != null && (includeStds || !resultReplicates.isCandidate(replicatePads[targetPadNumber]));
 
 		switch (windowType) {
 			case Batch:
-				// NOT IMPLEMENTED YET
+				BatchIndex batchIndex = getBatchIndex(replicatePads);
+				int batch = batchIndex.getBatch(targetPadNumber);
+				int firstPad = batchIndex.getFirstPad(batch);
+				int lastPad = batchIndex.getLastPad(batch);
+
+				if (canShare) {
+					return getSharedStandardReplicatePads(replicatePads, firstPad, lastPad, Arrays.asList(WindowType.Batch, batch, sharingKey), standardVerifier);
+				}
+
+				for (int i=firstPad; i<=lastPad; i++) {
+					if (!includeStds && i == targetPadNumber) {
+						continue;
+					}
+
+					resultReplicates.addReplicatePad(replicatePads[i]);
+				}
+
 				break;
 
 			case CorrInterval:
+				if (canShare) {
+					return getSharedStandardReplicatePads(replicatePads, 0, replicatePads.length-1, sharingKey, standardVerifier);
+				}
+
 				for (int i=0; i<replicatePads.length; i++) {
 					ReplicatePad replicatePad = replicatePads[i];
 
-					if (!OptionsInfo.getInstance().getOptions().isIncludeStds() && i == targetPadNumber) {
+					if (!includeStds && i == targetPadNumber) {
 						continue;
 					}
 
@@ -107,6 +163,48 @@ public abstract class RepStepCalculator extends StepCalculator {
 		return resultReplicates;
 	}
 
+	private StandardReplicatePads getSharedStandardReplicatePads(ReplicatePad[] replicatePads, int firstPad, int lastPad, Object sharingKey, StandardVerifier standardVerifier) {
+		HashMap<Object,StandardReplicatePads> keyToStandardReplicatePads;
+
+		synchronized (sharedStandardReplicatePads) {
+			keyToStandardReplicatePads = sharedStandardReplicatePads.get(replicatePads);
+
+			if (keyToStandardReplicatePads == null) {
+				keyToStandardReplicatePads = new HashMap<Object,StandardReplicatePads>();
+				sharedStandardReplicatePads.put(replicatePads, keyToStandardReplicatePads);
+			}
+		}
+
+		synchronized (keyToStandardReplicatePads) {
+			StandardReplicatePads resultReplicates = keyToStandardReplicatePads.get(sharingKey);
+
+			if (resultReplicates == null) {
+				resultReplicates = new StandardReplicatePads(standardVerifier);
+
+				for (int i=firstPad; i<=lastPad; i++) {
+					resultReplicates.addReplicatePad(replicatePads[i]);
+				}
+
+				keyToStandardReplicatePads.put(sharingKey, resultReplicates);
+			}
+
+			return resultReplicates;
+		}
+	}
+
+	private BatchIndex getBatchIndex(ReplicatePad[] replicatePads) {
+		synchronized (batchIndexes) {
+			BatchIndex batchIndex = batchIndexes.get(replicatePads);
+
+			if (batchIndex == null) {
+				batchIndex = new BatchIndex(replicatePads, getBatchGapMinutes() * 60l * 1000l);
+				batchIndexes.put(replicatePads, batchIndex);
+			}
+
+			return batchIndex;
+		}
+	}
+
 	public static void removeStandardIds(RepStepParams repStepParams, HashSet<Integer> standardIds) {
 		int[] oldStdIds = (int[]) repStepParams.getParameters().get(PARAMETER_STANDARD_IDS);
 
@@ -132,9 +230,56 @@ public abstract class RepStepCalculator extends StepCalculator {
 		repStepParams.getParameters().put(PARAMETER_STANDARD_IDS, result);
 	}
 
+	// replicates are sorted by date so a batch is a run of replicates in which
+	// no two neighbours are further apart than the batch gap
+	static class BatchIndex {
+		private int[] padToBatch;
+		private int[] batchToFirstPad;
+
+		BatchIndex(ReplicatePad[] replicatePads, long batchGap) {
+			padToBatch = new int[replicatePads.length];
+			ArrayList<Integer> firstPads = new ArrayList<Integer>();
+			int batch = -1;
+
+			for (int i=0; i<replicatePads.length; i++) {
+				if (i == 0 || replicatePads[i].getDate() - replicatePads[i-1].getDate() > batchGap) {
+					firstPads.add(i);
+					batch++;
+				}
+
+				padToBatch[i] = batch;
+			}
+
+			firstPads.add(replicatePads.length);
+			batchToFirstPad = new int[firstPads.size()];
+
+			for (int i=0; i<batchToFirstPad.length; i++) {
+				batchToFirstPad[i] = firstPads.get(i);
+			}
+		}
+
+		int getBatch(int padNumber) {
+			return padToBatch[padNumber];
+		}
+
+		int getFirstPad(int batch) {
+			return batchToFirstPad[batch];
+		}
+
+		int getLastPad(int batch) {
+			return batchToFirstPad[batch+1] - 1;
+		}
+	}
+
 	public abstract class StandardVerifier {
 		public abstract Set<Integer> getPotentialStandardIds();
 		public abstract boolean replicatePadIsAcceptable(ReplicatePad replicatePad);
+
+		// verifiers that return equal keys must accept exactly the same replicates,
+		// null means the standards found may not be shared with other replicates
+		public Object getSharingKey() {
+			return null;
+		}
 	}
 
 	public class SimpleStandardVerifier extends StandardVerifier {
@@ -161,29 +306,40 @@ public abstract class RepStepCalculator extends StepCalculator {
 		public boolean replicatePadIsAcceptable(ReplicatePad replicatePad) {
 			return true;
 		}
+
+		@Override
+		public Object getSharingKey() {
+			// subclasses may accept fewer replicates so they must provide their own key
+			return getClass() == SimpleStandardVerifier.class ? Arrays.asList(SimpleStandardVerifier.class, potentialStandardIds) : null;
+		}
 	}
 
 	public class StandardReplicatePads {
 		private StandardVerifier standardVerifier = null;
-		private HashSet<ReplicatePad> usable = new HashSet<ReplicatePad>();
-		private HashSet<ReplicatePad> disabled = new HashSet<ReplicatePad>();
-		private HashSet<ReplicatePad> failed = new HashSet<ReplicatePad>();
+		private HashSet<ReplicatePad> usable = new LinkedHashSet<ReplicatePad>();
+		private HashSet<ReplicatePad> disabled = new LinkedHashSet<ReplicatePad>();
+		private HashSet<ReplicatePad> failed = new LinkedHashSet<ReplicatePad>();
+		private HashMap<Object,Object> derivedResults = new HashMap<Object,Object>();
 
 		public StandardReplicatePads(StandardVerifier standardVerifier) {
 			this.standardVerifier = standardVerifier;
 		}
 
-		public boolean addReplicatePad(ReplicatePad replicatePad) {
+		public boolean isCandidate(ReplicatePad replicatePad) {
 			if (replicatePad.getReplicateType() != ReplicateType.STANDARD_RUN || !standardVerifier.getPotentialStandardIds().contains(replicatePad.getSourceId())) {
 				return false;
 			}
 
 			Boolean hasErrors = (Boolean) replicatePad.getVolatileData(AnalysisConstants.VOLATILE_DATA_HAS_ERRORS);
 
-			if (hasErrors != null && hasErrors == true) {
+			return hasErrors == null || hasErrors == false;
+		}
+
+		public boolean addReplicatePad(ReplicatePad replicatePad) {
+			if (!isCandidate(replicatePad)) {
 				return false;
 			}
-			
+
 			if (standardVerifier.replicatePadIsAcceptable(replicatePad)) {
 				Boolean disabledFlag = (Boolean) replicatePad.getValue(ReplicatePad.DISABLED);
 
@@ -212,5 +368,15 @@ public abstract class RepStepCalculator extends StepCalculator {
 		public HashSet<ReplicatePad> getFailed() {
 			return failed;
 		}
+
+		// results calculated only from these standards may be kept here so that
+		// replicates sharing the same standards do not recalculate them
+		public synchronized Object getDerivedResult(Object key) {
+			return derivedResults.get(key);
+		}
+
+		public synchronized void setDerivedResult(Object key, Object result) {
+			derivedResults.put(key, result);
+		}
 	}
 }
@@ -28,9 +28,12 @@
 package org.easotope.shared.analysis.execute.calculator;
 
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.easotope.framework.core.logging.Log;
 import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.core.util.SystemProperty;
 import org.easotope.shared.analysis.execute.AnalysisCalculator;
 import org.easotope.shared.analysis.execute.AnalysisWithParameters;
 import org.easotope.shared.analysis.execute.CalculationError;
@@ -47,7 +50,9 @@ import org.easotope.shared.core.scratchpad.ScratchPad;
 import org.easotope.shared.rawdata.tables.ReplicateV1;
 
 public class AllStandardsCalculator extends AnalysisCalculator implements DependencyManagerListener {
-	private enum State { ValidateNumbers, FetchDependency, Execute, IncrementNumbers, Terminating, Finished };
+	private enum State { ValidateNumbers, FetchDependency, Execute, IncrementNumbers, ParallelFetchDependencies, ParallelExecute, Terminating, Finished };
+
+	private static final int PADS_PER_TASK = 16;
 
 	private AnalysisWithParameters dataAnalysis;
 	private ScratchPad<ReplicatePad> scratchPad;
@@ -59,6 +64,9 @@ public class AllStandardsCalculator extends AnalysisCalculator implements Depend
 	private int currentRepStepNumber = 0;
 	private ArrayList<CalculationError> calculationErrors = new ArrayList<CalculationError>();
 	private ArrayList<DependencyManager> dependencyManagers = new ArrayList<DependencyManager>();
+	private boolean parallelSteps = SystemProperty.useParallelSteps();
+	private DependencyManager[] stepDependencyManagers = null;
+	private boolean[] stepPadsToCalculate = null;
 
 	public AllStandardsCalculator(AnalysisWithParameters dataAnalysis, ScratchPad<ReplicatePad> scratchPad) {
 		this.dataAnalysis = dataAnalysis;
@@ -102,6 +110,11 @@ public class AllStandardsCalculator extends AnalysisCalculator implements Depend
 					if (currentRepStepNumber >= dataAnalysis.getStepCalculators().length || currentScratchPadItem >= replicatePadArray.length) {
 						state = State.Terminating;
 
+					} else if (parallelSteps && currentScratchPadItem == 0 && ((RepStepCalculator) dataAnalysis.getStepCalculators()[currentRepStepNumber]).isIndependentPerReplicate() && ((RepStepCalculator) dataAnalysis.getStepCalculators()[currentRepStepNumber]).appliesToContext()) {
+						stepDependencyManagers = new DependencyManager[replicatePadArray.length];
+						stepPadsToCalculate = new boolean[replicatePadArray.length];
+						state = State.ParallelFetchDependencies;
+
 					} else if (replicatePadArray[currentScratchPadItem].getVolatileData(AnalysisConstants.VOLATILE_DATA_HAS_ERRORS) != null) {
 						state = State.IncrementNumbers;
 
@@ -159,6 +172,7 @@ public class AllStandardsCalculator extends AnalysisCalculator implements Depend
 								CalculationError calculationError = new CalculationError(currentReplicatePad, dataAnalysis.getStepControllers()[currentRepStepNumber], plugin.getErrorMessage());
 								calculationErrors.add(calculationError);
 								currentReplicatePad.setVolatileData(AnalysisConstants.VOLATILE_DATA_HAS_ERRORS, true);
+								currentNode.invalidateStandardWindows();
 							}
 						}
 
@@ -177,6 +191,7 @@ public class AllStandardsCalculator extends AnalysisCalculator implements Depend
 							CalculationError calculationError = new CalculationError(currentReplicatePad, dataAnalysis.getStepControllers()[currentRepStepNumber], message);
 							calculationErrors.add(calculationError);
 							currentReplicatePad.setVolatileData(AnalysisConstants.VOLATILE_DATA_HAS_ERRORS, true);
+							currentNode.invalidateStandardWindows();
 						}
 					}
 					
@@ -196,6 +211,61 @@ public class AllStandardsCalculator extends AnalysisCalculator implements Depend
 					state = State.ValidateNumbers;
 					break;
 
+				case ParallelFetchDependencies:
+					Log.getInstance().log(Level.DEBUG, this, "State: ParallelFetchDependencies " + currentScratchPadItem + " " + currentRepStepNumber);
+
+					// dependencies are fetched one replicate at a time on this thread since
+					// they may have to wait for the processor
+					currentNode = (RepStepCalculator) dataAnalysis.getStepCalculators()[currentRepStepNumber];
+
+					while (currentScratchPadItem < replicatePadArray.length) {
+						int padNumber = currentScratchPadItem++;
+						ReplicatePad replicatePad = replicatePadArray[padNumber];
+
+						if (replicatePad.getVolatileData(AnalysisConstants.VOLATILE_DATA_HAS_ERRORS) != null || replicatePad.getReplicateType() != ReplicateType.STANDARD_RUN) {
+							continue;
+						}
+
+						DependencyManager padDependencyManager = currentNode.getDependencyManager(replicatePadArray, padNumber);
+
+						stepPadsToCalculate[padNumber] = true;
+						stepDependencyManagers[padNumber] = padDependencyManager;
+						dependencyManagers.add(0, padDependencyManager);
+
+						if (padDependencyManager != null) {
+							padDependencyManager.execute((ReplicateV1) replicatePad.getVolatileData(AnalysisConstants.VOLATILE_DATA_REPLICATE), currentNode);
+
+							if (!padDependencyManager.allDependenciesAreLoaded()) {
+								padDependencyManager.addListener(this);
+								Log.getInstance().log(Level.DEBUG, this, "waiting for dependencies");
+								return;
+							}
+						}
+					}
+
+					state = State.ParallelExecute;
+					break;
+
+				case ParallelExecute:
+					Log.getInstance().log(Level.DEBUG, this, "State: ParallelExecute");
+
+					for (DependencyManager padDependencyManager : stepDependencyManagers) {
+						if (padDependencyManager != null && !padDependencyManager.allDependenciesAreLoaded()) {
+							Log.getInstance().log(Level.DEBUG, this, "dependencies are not loaded");
+							return;
+						}
+					}
+
+					executeInParallel();
+
+					stepDependencyManagers = null;
+					stepPadsToCalculate = null;
+					currentScratchPadItem = 0;
+					currentRepStepNumber++;
+
+					state = State.ValidateNumbers;
+					break;
+
 				default:
 					assert(false);
 					break;
@@ -210,6 +280,103 @@ public class AllStandardsCalculator extends AnalysisCalculator implements Depend
 		Log.getInstance().log(Level.DEBUG, this, "finished executing");
 	}
 
+	// every replicate of the current step is calculated on the fork join pool. this
+	// gives the same result as calculating them in order only as long as none of them
+	// fails, since a failed replicate is left out of the standards of the replicates
+	// after it. the replicates after the first failure are therefore calculated again
+	// one at a time just as the sequential path would.
+	private void executeInParallel() {
+		final RepStepCalculator currentNode = (RepStepCalculator) dataAnalysis.getStepCalculators()[currentRepStepNumber];
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final ArrayList<CalculationError>[] padErrors = new ArrayList[replicatePadArray.length];
+
+		Log.getInstance().log(Level.DEBUG, this, "executing node " + dataAnalysis.getStepControllers()[currentRepStepNumber].getStepName() + " in parallel");
+
+		ForkJoinPool.commonPool().invoke(new ParallelCalculation(currentNode, padErrors, 0, replicatePadArray.length));
+
+		boolean failed = false;
+
+		for (int padNumber=0; padNumber<replicatePadArray.length; padNumber++) {
+			if (!stepPadsToCalculate[padNumber]) {
+				continue;
+			}
+
+			ArrayList<CalculationError> errors = failed ? calculatePad(currentNode, padNumber) : padErrors[padNumber];
+
+			if (errors != null) {
+				calculationErrors.addAll(errors);
+				replicatePadArray[padNumber].setVolatileData(AnalysisConstants.VOLATILE_DATA_HAS_ERRORS, true);
+				currentNode.invalidateStandardWindows();
+				failed = true;
+			}
+		}
+	}
+
+	private ArrayList<CalculationError> calculatePad(RepStepCalculator currentNode, int padNumber) {
+		ArrayList<CalculationError> errors = null;
+		DependencyManager padDependencyManager = stepDependencyManagers[padNumber];
+		ReplicatePad replicatePad = replicatePadArray[padNumber];
+
+		if (padDependencyManager != null && !padDependencyManager.allDependenciesAreValid()) {
+			for (DependencyPlugin plugin : padDependencyManager.getDependencyPlugins()) {
+				if (plugin.getState() == DependencyPlugin.PluginState.ERROR) {
+					if (errors == null) {
+						errors = new ArrayList<CalculationError>();
+					}
+
+					errors.add(new CalculationError(replicatePad, dataAnalysis.getStepControllers()[currentRepStepNumber], plugin.getErrorMessage()));
+				}
+			}
+
+			return errors;
+		}
+
+		try {
+			currentNode.calculate(replicatePadArray, padNumber, padDependencyManager);
+
+		} catch (Exception e) {
+			String date = DateFormat.format(replicatePad.getDate(), "GMT", true, true);
+			Log.getInstance().log(Level.INFO, this, "error executing node " + dataAnalysis.getStepControllers()[currentRepStepNumber].getStepName() + " with replicate timestamp " + date, e);
+
+			String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+			errors = new ArrayList<CalculationError>();
+			errors.add(new CalculationError(replicatePad, dataAnalysis.getStepControllers()[currentRepStepNumber], message));
+		}
+
+		return errors;
+	}
+
+	private class ParallelCalculation extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private RepStepCalculator currentNode;
+		private ArrayList<CalculationError>[] padErrors;
+		private int from;
+		private int to;
+
+		private ParallelCalculation(RepStepCalculator currentNode, ArrayList<CalculationError>[] padErrors, int from, int to) {
+			this.currentNode = currentNode;
+			this.padErrors = padErrors;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > PADS_PER_TASK) {
+				int middle = (from + to) / 2;
+				invokeAll(new ParallelCalculation(currentNode, padErrors, from, middle), new ParallelCalculation(currentNode, padErrors, middle, to));
+				return;
+			}
+
+			for (int padNumber=from; padNumber<to; padNumber++) {
+				if (stepPadsToCalculate[padNumber]) {
+					padErrors[padNumber] = calculatePad(currentNode, padNumber);
+				}
+			}
+		}
+	}
+
 	@Override
 	public ScratchPad<ReplicatePad> getScratchPad() {
 		return scratchPad;
@@ -210,6 +210,7 @@ public class SingleReplicateCalculator extends AnalysisCalculator implements Dep
 								CalculationError calculationError = new CalculationError(currentReplicatePad, dataAnalysisWithParameters.getStepControllers()[currentNodeNumber], plugin.getErrorMessage());
 								calculationErrors.add(calculationError);
 								currentReplicatePad.setVolatileData(AnalysisConstants.VOLATILE_DATA_HAS_ERRORS, true);
+								currentNode.invalidateStandardWindows();
 							}
 						}
 
@@ -226,6 +227,7 @@ public class SingleReplicateCalculator extends AnalysisCalculator implements Dep
 							CalculationError calculationError = new CalculationError(currentReplicatePad, dataAnalysisWithParameters.getStepControllers()[currentNodeNumber], message);
 							calculationErrors.add(calculationError);
 							currentReplicatePad.setVolatileData(AnalysisConstants.VOLATILE_DATA_HAS_ERRORS, true);
+							currentNode.invalidateStandardWindows();
 						}
 					}
 					
@@ -94,6 +94,11 @@ public class Calculator extends RepStepCalculator {
 		return null;
 	}
 
+	@Override
+	public boolean isIndependentPerReplicate() {
+		return true;
+	}
+
 	@Override
 	public void calculate(ReplicatePad[] replicatePads, int padNumber, DependencyManager dependencyManager) {
 		calculateReplicate(replicatePads[padNumber]);
@@ -110,6 +110,11 @@ public class Calculator extends RepStepCalculator {
 		return new Dependencies();
 	}
 
+	@Override
+	public boolean isIndependentPerReplicate() {
+		return true;
+	}
+
 	@Override
 	public void calculate(ReplicatePad[] replicatePads, int targetPadNumber, DependencyManager dependencyManager) {
 		HashMap<Integer,Standard> standardIdToStandard = new HashMap<Integer,Standard>();
@@ -93,6 +93,11 @@ public class Calculator extends RepStepCalculator {
 		return null;
 	}
 
+	@Override
+	public boolean isIndependentPerReplicate() {
+		return true;
+	}
+
 	@Override
 	public void calculate(ReplicatePad[] replicatePads, int targetPadNumber, DependencyManager dependencyManager) {
 		Double sampleΔ48 = getDouble(replicatePads[targetPadNumber], INPUT_LABEL_SAMPLE_Δ48);
@@ -140,6 +140,11 @@ public class Calculator extends RepStepCalculator {
 		return null;
 	}
 
+	@Override
+	public boolean isIndependentPerReplicate() {
+		return true;
+	}
+
 	@Override
 	public void calculate(ReplicatePad[] replicatePads, int padNumber, DependencyManager dependencyManager) {
 		ReplicatePad scanFileBefore = null;
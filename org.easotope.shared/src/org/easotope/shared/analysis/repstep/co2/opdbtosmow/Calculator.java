@@ -47,6 +47,11 @@ public class Calculator extends RepStepCalculator {
 		return new Dependencies();
 	}
 
+	@Override
+	public boolean isIndependentPerReplicate() {
+		return true;
+	}
+
 	@Override
 	public void calculate(ReplicatePad[] replicatePads, int padNumber, DependencyManager dependencyManager) {
 		Double value = getDouble(replicatePads[padNumber], INPUT_LABEL_δ18O);
@@ -65,6 +65,11 @@ public class Calculator extends RepStepCalculator {
 		return new Dependencies();
 	}
 
+	@Override
+	public boolean isIndependentPerReplicate() {
+		return true;
+	}
+
 	@Override
 	public void calculate(ReplicatePad[] replicatePads, int padNumber, DependencyManager dependencyManager) {
 		Dependencies dependencies = (Dependencies) dependencyManager;
@@ -44,6 +44,11 @@ public abstract class Calculator extends RepStepCalculator {
 		super(repStep);
 	}
 
+	@Override
+	public boolean isIndependentPerReplicate() {
+		return true;
+	}
+
 	@Override
 	public final void calculate(ReplicatePad[] replicatePads, int padNumber, DependencyManager dependencyManager) {
 		Double factor = null;
@@ -27,8 +27,10 @@
 
 package org.easotope.shared.analysis.repstep.superclass.drift;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 import org.easotope.shared.admin.StandardParameter;
 import org.easotope.shared.admin.tables.Standard;
@@ -49,6 +51,9 @@ public abstract class Calculator extends RepStepCalculator {
 	public static final int[] DEFAULT_STANDARD_IDS = new int[0];
 	public static final boolean DEFAULT_APPLY_STRETCHING = true;
 
+	private static final String DERIVED_STRETCHED_REGRESSION = "DERIVED_STRETCHED_REGRESSION";
+	private static final String DERIVED_UNSTRETCHED_MEAN = "DERIVED_UNSTRETCHED_MEAN";
+
 	public abstract VolatileKeys getVolatiles();
 	public abstract String getInputLabel();
 	public abstract String getOutputLabel();
@@ -84,6 +89,11 @@ public abstract class Calculator extends RepStepCalculator {
 		return new Dependencies();
 	}
 
+	@Override
+	public boolean isIndependentPerReplicate() {
+		return true;
+	}
+
 	@Override
 	public final void calculate(ReplicatePad[] replicatePads, int targetPadNumber, DependencyManager dependencyManager) {
 		HashMap<Integer,Double> standardIdToExpectedValue = new HashMap<Integer,Double>();
@@ -104,7 +114,7 @@ public abstract class Calculator extends RepStepCalculator {
 
 		StandardReplicatePads standardReplicatePads = getStandardReplicatePads(replicatePads, targetPadNumber, getWindowType(), getMinNumStandardsBeforeAfter(), new SimpleStandardVerifier(acceptableStandardIds));
 		HashSet<Integer> uniqueStandardIds = new HashSet<Integer>();
-		HashSet<DriftPoint> driftPoints = new HashSet<DriftPoint>();
+		HashSet<DriftPoint> driftPoints = new LinkedHashSet<DriftPoint>();
 
 		for (ReplicatePad replicatePad : standardReplicatePads.getUsable()) {
 			int standardId = replicatePad.getSourceId();
@@ -121,9 +131,9 @@ public abstract class Calculator extends RepStepCalculator {
 
 		if (driftPoints.size() != 0) {
 			if (uniqueStandardIds.size() > 1 && getApplyStretching()) {
-				offset = getStretchedOffset(replicatePads, targetPadNumber, driftPoints, value);
+				offset = getStretchedOffset(replicatePads, targetPadNumber, standardReplicatePads, standardIdToExpectedValue, driftPoints, value);
 			} else {
-				offset = getUnstretchedOffset(replicatePads, targetPadNumber, driftPoints);
+				offset = getUnstretchedOffset(standardReplicatePads, standardIdToExpectedValue, driftPoints);
 			}
 		}
 
@@ -149,15 +159,25 @@ public abstract class Calculator extends RepStepCalculator {
 		replicatePads[targetPadNumber].setValue(labelToColumnName(getOutputLabel()), value);
 	}
 
-	private double getStretchedOffset(ReplicatePad[] replicatePads, int padNumber, HashSet<DriftPoint> driftPoints, double measuredValue) {
-		LinearRegression linearRegression = new LinearRegression();
+	// the fit only depends on the usable standards and their expected values so it is
+	// shared by all replicates that see the same standards. the shared regression is
+	// read only once it has been stored.
+	private double getStretchedOffset(ReplicatePad[] replicatePads, int padNumber, StandardReplicatePads standardReplicatePads, HashMap<Integer,Double> standardIdToExpectedValue, HashSet<DriftPoint> driftPoints, double measuredValue) {
+		Object derivedKey = Arrays.asList(DERIVED_STRETCHED_REGRESSION, standardIdToExpectedValue);
+		LinearRegression linearRegression = (LinearRegression) standardReplicatePads.getDerivedResult(derivedKey);
+
+		if (linearRegression == null) {
+			linearRegression = new LinearRegression();
 
-		for (DriftPoint driftPoint : driftPoints) {
-			linearRegression.addCoordinate(driftPoint.getMeasuredValue(), driftPoint.getExpectedValue());
+			for (DriftPoint driftPoint : driftPoints) {
+				linearRegression.addCoordinate(driftPoint.getMeasuredValue(), driftPoint.getExpectedValue());
+			}
+
+			standardReplicatePads.setDerivedResult(derivedKey, linearRegression);
 		}
 
 		if (linearRegression.isInvalid()) {
-			return getUnstretchedOffset(replicatePads, padNumber, driftPoints);
+			return getUnstretchedOffset(standardReplicatePads, standardIdToExpectedValue, driftPoints);
 		}
 
 		replicatePads[padNumber].setVolatileData(getVolatiles().getVolatileDataLinearRegressionKey(), linearRegression);
@@ -166,14 +186,22 @@ public abstract class Calculator extends RepStepCalculator {
 		return expected - measuredValue;
 	}
 
-	private double getUnstretchedOffset(ReplicatePad[] replicatePads, int padNumber, HashSet<DriftPoint> driftPoints) {
-		Statistics statistics = new Statistics();
+	private double getUnstretchedOffset(StandardReplicatePads standardReplicatePads, HashMap<Integer,Double> standardIdToExpectedValue, HashSet<DriftPoint> driftPoints) {
+		Object derivedKey = Arrays.asList(DERIVED_UNSTRETCHED_MEAN, standardIdToExpectedValue);
+		Double offset = (Double) standardReplicatePads.getDerivedResult(derivedKey);
+
+		if (offset == null) {
+			Statistics statistics = new Statistics();
+
+			for (DriftPoint driftPoint : driftPoints) {
+				statistics.addNumber(driftPoint.getExpectedValue() - driftPoint.getMeasuredValue());
+			}
 
-		for (DriftPoint driftPoint : driftPoints) {
-			statistics.addNumber(driftPoint.getExpectedValue() - driftPoint.getMeasuredValue());
+			offset = statistics.getSampleSize() != 0 ? statistics.getMean() : 0.0d;
+			standardReplicatePads.setDerivedResult(derivedKey, offset);
 		}
 
-		return statistics.getSampleSize() != 0 ? statistics.getMean() : 0.0d;
+		return offset;
 	}
 
 	public class DriftPoint {
@@ -29,8 +29,10 @@ package org.easotope.shared.analysis.repstep.superclass.etf;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.easotope.shared.admin.tables.AcidTemp;
@@ -56,6 +58,8 @@ public abstract class Calculator extends RepStepCalculator {
 	public static final int[] DEFAULT_STANDARD_IDS = new int[0];
 	public static final boolean DEFAULT_AVERAGE_STANDARDS_FIRST = false;
 
+	private static final String DERIVED_ETF_REGRESSION = "DERIVED_ETF_REGRESSION";
+
 	public abstract VolatileKeys getVolatiles();
 	public abstract String getInputLabel();
 	public abstract String getInputStandardCorrectorLabel();
@@ -98,6 +102,11 @@ public abstract class Calculator extends RepStepCalculator {
 		return parameter == null ? DEFAULT_AVERAGE_STANDARDS_FIRST : parameter;
 	}
 
+	@Override
+	public boolean isIndependentPerReplicate() {
+		return true;
+	}
+
 	@Override
 	public void calculate(ReplicatePad[] replicatePads, int padNumber, DependencyManager dependencyManager) throws EasotopeStepException {
 		Dependencies dependencies = (Dependencies) dependencyManager;
@@ -111,7 +120,7 @@ public abstract class Calculator extends RepStepCalculator {
 		HashMap<Integer,AverageLine> standardIdToAverageLines = new HashMap<Integer,AverageLine>();
 		ArrayList<GraphPoint> standardGraphPoints = new ArrayList<GraphPoint>();
 		ArrayList<ConnectingLine> connectingLines = new ArrayList<ConnectingLine>();
-		HashSet<GraphPoint> standardPostNonlinearityGraphPoints = new HashSet<GraphPoint>();
+		HashSet<GraphPoint> standardPostNonlinearityGraphPoints = new LinkedHashSet<GraphPoint>();
 
 		StandardReplicatePads standardReplicatePads = getStandardReplicatePads(replicatePads, padNumber, getWindowType(), getMinNumStandardsBeforeAFter(), new EtfStandardVerifier(standardIdToStandard.keySet(), getAcidTemperature()));
 
@@ -187,7 +196,10 @@ public abstract class Calculator extends RepStepCalculator {
 			}
 		}
 
-		LinearRegression regression = new LinearRegression(!getAverageStandardsFirst());
+		// the regression is shared by all replicates that see the same standards
+		Object derivedKey = Arrays.asList(DERIVED_ETF_REGRESSION, getAverageStandardsFirst(), standardIdToKnownValueNoAcidCorr);
+		LinearRegression sharedRegression = (LinearRegression) standardReplicatePads.getDerivedResult(derivedKey);
+		LinearRegression regression = sharedRegression != null ? sharedRegression : new LinearRegression(!getAverageStandardsFirst());
 		HashSet<GraphPoint> etfGraphPoints = new HashSet<GraphPoint>();
 
 		if (getAverageStandardsFirst()) {
@@ -202,7 +214,10 @@ public abstract class Calculator extends RepStepCalculator {
 				AverageLine line = standardIdToAverageLines.get(standardId);
 				double x = line.getIntercept();
 				double y = standardIdToKnownValueNoAcidCorr.get(standardId);
-				regression.addCoordinate(x, y);
+
+				if (sharedRegression == null) {
+					regression.addCoordinate(x, y);
+				}
 
 				etfGraphPoints.add(new GraphPoint(-1, -1, -1, standard.getName(), x, y, standard.getColorId(), standard.getShapeId(), false));
 			}
@@ -223,7 +238,7 @@ public abstract class Calculator extends RepStepCalculator {
 				long date = graphPoint.getDate();
 				boolean disabled = graphPoint.getDisabled();
 
-				if (!disabled) {
+				if (!disabled && sharedRegression == null) {
 					regression.addCoordinate(x, y);
 				}
 
@@ -231,6 +246,10 @@ public abstract class Calculator extends RepStepCalculator {
 			}
 		}
 
+		if (sharedRegression == null) {
+			standardReplicatePads.setDerivedResult(derivedKey, regression);
+		}
+
 		replicatePads[padNumber].setVolatileData(getVolatiles().getVolatileDataEtfGraphPointsKey(), etfGraphPoints);
 
 		if (!regression.isInvalid()) {
@@ -405,5 +424,10 @@ public abstract class Calculator extends RepStepCalculator {
 
 			return DoubleTools.essentiallyEqual(standardAcidTemp, targetReplicateAcidTemperature);
 		}
+
+		@Override
+		public Object getSharingKey() {
+			return Arrays.asList(EtfStandardVerifier.class, getPotentialStandardIds(), targetReplicateAcidTemperature);
+		}
 	}
 }
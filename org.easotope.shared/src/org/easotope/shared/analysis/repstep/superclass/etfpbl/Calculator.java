@@ -96,6 +96,11 @@ public abstract class Calculator extends RepStepCalculator {
 		return parameter == null ? DEFAULT_AVERAGE_STANDARDS_FIRST : parameter;
 	}
 
+	@Override
+	public boolean isIndependentPerReplicate() {
+		return true;
+	}
+
 	@Override
 	public void calculate(ReplicatePad[] replicatePads, int padNumber, DependencyManager dependencyManager) throws EasotopeStepException {
 		Dependencies dependencies = (Dependencies) dependencyManager;
@@ -0,0 +1,217 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.server;
+
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+import org.easotope.framework.core.logging.Log;
+import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.dbcore.DatabaseConstants;
+import org.easotope.framework.dbcore.cmdprocessors.BackgroundTask;
+import org.easotope.framework.dbcore.util.RawFileManager;
+import org.easotope.shared.Messages;
+import org.easotope.shared.analysis.tables.CalcSampleCache;
+import org.easotope.shared.analysis.tables.CorrIntervalScratchPad;
+import org.easotope.shared.analysis.tables.CorrIntervalV1;
+import org.easotope.shared.rawdata.tables.ReplicateV1;
+import org.easotope.shared.rawdata.tables.Sample;
+
+import com.j256.ormlite.dao.CloseableIterator;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.support.ConnectionSource;
+
+// precomputes the corr interval scratch pads and then the calculations of the
+// most recently measured samples so that the first users after a restart do not
+// wait for them. each step calculates one item. corr intervals are calculated while
+// the step is prepared so that commands are only delayed by storing them, samples
+// are calculated on the processor thread since their corr intervals are then cached.
+public class CacheWarmUpTask implements BackgroundTask {
+	private static final long PROGRESS_INTERVAL = 10000; // milliseconds
+
+	private int maxSamples;
+	private ArrayDeque<int[]> corrIntervalWork = null;
+	private ArrayDeque<int[]> sampleWork = null;
+	private LoadOrCalculateCorrInterval preparedCorrInterval = null;
+	private int totalItems = 0;
+	private int itemsDone = 0;
+	private long busyTime = 0;
+	private long lastProgress = 0;
+
+	public CacheWarmUpTask(int maxSamples) {
+		this.maxSamples = maxSamples;
+	}
+
+	@Override
+	public String getName() {
+		return Messages.cacheWarmUpTask_name;
+	}
+
+	@Override
+	public void prepareStep(ConnectionSource connectionSource, RawFileManager rawFileManager) {
+		preparedCorrInterval = null;
+
+		if (corrIntervalWork == null || corrIntervalWork.isEmpty()) {
+			return;
+		}
+
+		long startTime = System.currentTimeMillis();
+
+		int[] item = corrIntervalWork.peek();
+		preparedCorrInterval = LoadOrCalculateCorrInterval.calculateWithoutStoring(item[0], item[1], connectionSource);
+
+		busyTime += System.currentTimeMillis() - startTime;
+	}
+
+	@Override
+	public boolean runStep(ConnectionSource connectionSource, RawFileManager rawFileManager) {
+		long startTime = System.currentTimeMillis();
+
+		if (corrIntervalWork == null) {
+			try {
+				findWork(connectionSource);
+
+			} catch (SQLException e) {
+				Log.getInstance().log(Level.INFO, this, Messages.cacheWarmUpTask_errorFindingWork, e);
+				return false;
+			}
+
+			String message = MessageFormat.format(Messages.cacheWarmUpTask_starting, corrIntervalWork.size(), sampleWork.size());
+			Log.getInstance().log(Level.INFO, this, message);
+
+			lastProgress = System.currentTimeMillis();
+			return totalItems != 0;
+		}
+
+		// corr intervals first since every sample calculation needs them
+		if (!corrIntervalWork.isEmpty()) {
+			corrIntervalWork.poll();
+			preparedCorrInterval.store(connectionSource);
+			preparedCorrInterval = null;
+
+		} else if (!sampleWork.isEmpty()) {
+			int[] item = sampleWork.poll();
+			new LoadOrCalculateSample(connectionSource).getCalcSampleCache(item[0], item[1]);
+		}
+
+		itemsDone++;
+		busyTime += System.currentTimeMillis() - startTime;
+
+		boolean moreWork = !corrIntervalWork.isEmpty() || !sampleWork.isEmpty();
+		long now = System.currentTimeMillis();
+
+		if (!moreWork || now - lastProgress >= PROGRESS_INTERVAL) {
+			// the estimate only counts time spent calculating since idle time says nothing about the remaining work
+			long secondsRemaining = (busyTime * (totalItems - itemsDone) / itemsDone) / 1000;
+			String message = MessageFormat.format(Messages.cacheWarmUpTask_progress, itemsDone, totalItems, secondsRemaining);
+			Log.getInstance().log(Level.INFO, this, message);
+			lastProgress = now;
+		}
+
+		return moreWork;
+	}
+
+	// only the key columns of the cache tables are read so that no scratch pads are deserialized
+	private void findWork(ConnectionSource connectionSource) throws SQLException {
+		HashSet<String> cachedCorrIntervals = new HashSet<String>();
+
+		Dao<CorrIntervalScratchPad,Integer> corrIntervalScratchPadDao = DaoManager.createDao(connectionSource, CorrIntervalScratchPad.class);
+		QueryBuilder<CorrIntervalScratchPad,Integer> corrIntervalScratchPadQuery = corrIntervalScratchPadDao.queryBuilder();
+		corrIntervalScratchPadQuery.selectColumns(CorrIntervalScratchPad.CORR_INTERVAL_ID_FIELD_NAME, CorrIntervalScratchPad.DATA_ANALYSIS_ID_FIELD_NAME);
+
+		for (CorrIntervalScratchPad corrIntervalScratchPad : corrIntervalScratchPadQuery.query()) {
+			cachedCorrIntervals.add(corrIntervalScratchPad.getCorrIntervalId() + ":" + corrIntervalScratchPad.getDataAnalysisId());
+		}
+
+		corrIntervalWork = new ArrayDeque<int[]>();
+		Dao<CorrIntervalV1,Integer> corrIntervalDao = DaoManager.createDao(connectionSource, CorrIntervalV1.class);
+
+		for (CorrIntervalV1 corrInterval : corrIntervalDao.queryForAll()) {
+			for (int replicateAnalysisId : corrInterval.getDataAnalysis()) {
+				if (!cachedCorrIntervals.contains(corrInterval.getId() + ":" + replicateAnalysisId)) {
+					corrIntervalWork.add(new int[] { corrInterval.getId(), replicateAnalysisId });
+				}
+			}
+		}
+
+		HashSet<String> cachedSamples = new HashSet<String>();
+
+		Dao<CalcSampleCache,Integer> calcSampleCacheDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
+		QueryBuilder<CalcSampleCache,Integer> calcSampleCacheQuery = calcSampleCacheDao.queryBuilder();
+		calcSampleCacheQuery.selectColumns(CalcSampleCache.SAMPLEID_FIELD_NAME, CalcSampleCache.SAMPLE_ANALYSIS_ID_FIELD_NAME);
+
+		for (CalcSampleCache calcSampleCache : calcSampleCacheQuery.query()) {
+			cachedSamples.add(calcSampleCache.getSampleId() + ":" + calcSampleCache.getSampleAnalysisId());
+		}
+
+		LinkedHashSet<Integer> recentSampleIds = new LinkedHashSet<Integer>();
+
+		if (maxSamples != 0) {
+			Dao<ReplicateV1,Integer> replicateDao = DaoManager.createDao(connectionSource, ReplicateV1.class);
+			QueryBuilder<ReplicateV1,Integer> replicateQuery = replicateDao.queryBuilder();
+			replicateQuery.selectColumns(ReplicateV1.SAMPLEID_FIELD_NAME, ReplicateV1.DATE_FIELD_NAME);
+			replicateQuery.where().ne(ReplicateV1.SAMPLEID_FIELD_NAME, DatabaseConstants.EMPTY_DB_ID);
+			replicateQuery.orderBy(ReplicateV1.DATE_FIELD_NAME, false);
+
+			CloseableIterator<ReplicateV1> replicateIterator = replicateDao.iterator(replicateQuery.prepare());
+
+			try {
+				while (replicateIterator.hasNext() && recentSampleIds.size() < maxSamples) {
+					recentSampleIds.add(replicateIterator.next().getSampleId());
+				}
+
+			} finally {
+				replicateIterator.closeQuietly();
+			}
+		}
+
+		sampleWork = new ArrayDeque<int[]>();
+		Dao<Sample,Integer> sampleDao = DaoManager.createDao(connectionSource, Sample.class);
+
+		for (int sampleId : recentSampleIds) {
+			Sample sample = sampleDao.queryForId(sampleId);
+
+			if (sample == null || sample.getSamAnalyses() == null) {
+				continue;
+			}
+
+			for (int sampleAnalysisId : sample.getSamAnalyses()) {
+				if (!cachedSamples.contains(sampleId + ":" + sampleAnalysisId)) {
+					sampleWork.add(new int[] { sampleId, sampleAnalysisId });
+				}
+			}
+		}
+
+		totalItems = corrIntervalWork.size() + sampleWork.size();
+	}
+}
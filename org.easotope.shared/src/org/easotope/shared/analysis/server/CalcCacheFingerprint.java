@@ -0,0 +1,300 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.easotope.framework.core.logging.Log;
+import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.core.util.SystemProperty;
+import org.easotope.framework.dbcore.tables.TableObjectWithIntegerId;
+import org.easotope.shared.Messages;
+import org.easotope.shared.analysis.tables.CalcRepToCalcSamp;
+import org.easotope.shared.analysis.tables.CalcReplicateCache;
+import org.easotope.shared.analysis.tables.CalcSampleCache;
+import org.easotope.shared.analysis.tables.CorrIntervalError;
+import org.easotope.shared.analysis.tables.CorrIntervalScratchPad;
+import org.easotope.shared.analysis.tables.CorrIntervalV1;
+import org.easotope.shared.analysis.tables.RepAnalysis;
+import org.easotope.shared.analysis.tables.RepStep;
+import org.easotope.shared.analysis.tables.RepStepParams;
+import org.easotope.shared.analysis.tables.SamAnalysis;
+import org.easotope.shared.analysis.tables.SamStep;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.stmt.DeleteBuilder;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.support.ConnectionSource;
+
+// a fingerprint of the software version and the analysis definition that a cached
+// calculation was made with. replicate and acquisition changes are removed from the
+// caches by the event handlers as they happen, so a cache entry whose fingerprint
+// still matches after a restart is still valid.
+public class CalcCacheFingerprint {
+	private static final String FORMAT = "1";
+
+	// never equal to a real fingerprint. entries marked with it are redone when they
+	// are next read, or removed at startup like any other entry that does not match.
+	public static final String STALE = "STALE";
+
+	private ConnectionSource connectionSource;
+	private HashMap<String,String> corrIntervalFingerprints = new HashMap<String,String>();
+	private HashMap<Integer,String> samAnalysisFingerprints = new HashMap<Integer,String>();
+
+	public CalcCacheFingerprint(ConnectionSource connectionSource) {
+		this.connectionSource = connectionSource;
+	}
+
+	// covers the corr interval itself, the replicate analysis and its steps, and the
+	// step parameters of the analysis within the corr interval
+	public String getCorrIntervalFingerprint(int corrIntervalId, int repAnalysisId) throws SQLException {
+		String key = corrIntervalId + "," + repAnalysisId;
+		String fingerprint = corrIntervalFingerprints.get(key);
+
+		if (fingerprint == null) {
+			MessageDigest digest = newDigest();
+
+			Dao<CorrIntervalV1,Integer> corrIntervalDao = DaoManager.createDao(connectionSource, CorrIntervalV1.class);
+			QueryBuilder<CorrIntervalV1,Integer> corrIntervalQuery = corrIntervalDao.queryBuilder();
+			corrIntervalQuery.where().eq(TableObjectWithIntegerId.ID_FIELD_NAME, corrIntervalId);
+			addRows(digest, corrIntervalDao, corrIntervalQuery);
+
+			Dao<RepAnalysis,Integer> repAnalysisDao = DaoManager.createDao(connectionSource, RepAnalysis.class);
+			QueryBuilder<RepAnalysis,Integer> repAnalysisQuery = repAnalysisDao.queryBuilder();
+			repAnalysisQuery.where().eq(TableObjectWithIntegerId.ID_FIELD_NAME, repAnalysisId);
+			addRows(digest, repAnalysisDao, repAnalysisQuery);
+
+			Dao<RepStep,Integer> repStepDao = DaoManager.createDao(connectionSource, RepStep.class);
+			QueryBuilder<RepStep,Integer> repStepQuery = repStepDao.queryBuilder();
+			repStepQuery.where().eq(RepStep.ANALYSIS_ID_FIELD_NAME, repAnalysisId);
+			addRows(digest, repStepDao, repStepQuery);
+
+			Dao<RepStepParams,Integer> repStepParamsDao = DaoManager.createDao(connectionSource, RepStepParams.class);
+			QueryBuilder<RepStepParams,Integer> repStepParamsQuery = repStepParamsDao.queryBuilder();
+			repStepParamsQuery.where().eq(RepStepParams.CORR_INTERVAL_ID_FIELD_NAME, corrIntervalId).and().eq(RepStepParams.ANALYSIS_ID_FIELD_NAME, repAnalysisId);
+			addRows(digest, repStepParamsDao, repStepParamsQuery);
+
+			fingerprint = toHex(digest.digest());
+			corrIntervalFingerprints.put(key, fingerprint);
+		}
+
+		return fingerprint;
+	}
+
+	// a sample calculation also depends on every corr interval and replicate analysis
+	// pair that its replicates were calculated with
+	public String getSampleFingerprint(int samAnalysisId, int[] corrIntervalIds, int[] repAnalysisIds) throws SQLException {
+		MessageDigest digest = newDigest();
+		digest.update(getSamAnalysisFingerprint(samAnalysisId).getBytes(StandardCharsets.UTF_8));
+
+		if (corrIntervalIds != null && repAnalysisIds != null) {
+			for (int i=0; i<corrIntervalIds.length && i<repAnalysisIds.length; i++) {
+				digest.update(getCorrIntervalFingerprint(corrIntervalIds[i], repAnalysisIds[i]).getBytes(StandardCharsets.UTF_8));
+			}
+		}
+
+		return toHex(digest.digest());
+	}
+
+	private String getSamAnalysisFingerprint(int samAnalysisId) throws SQLException {
+		String fingerprint = samAnalysisFingerprints.get(samAnalysisId);
+
+		if (fingerprint == null) {
+			MessageDigest digest = newDigest();
+
+			Dao<SamAnalysis,Integer> samAnalysisDao = DaoManager.createDao(connectionSource, SamAnalysis.class);
+			QueryBuilder<SamAnalysis,Integer> samAnalysisQuery = samAnalysisDao.queryBuilder();
+			samAnalysisQuery.where().eq(TableObjectWithIntegerId.ID_FIELD_NAME, samAnalysisId);
+			addRows(digest, samAnalysisDao, samAnalysisQuery);
+
+			Dao<SamStep,Integer> samStepDao = DaoManager.createDao(connectionSource, SamStep.class);
+			QueryBuilder<SamStep,Integer> samStepQuery = samStepDao.queryBuilder();
+			samStepQuery.where().eq(SamStep.ANALYSIS_ID_FIELD_NAME, samAnalysisId);
+			addRows(digest, samStepDao, samStepQuery);
+
+			fingerprint = toHex(digest.digest());
+			samAnalysisFingerprints.put(samAnalysisId, fingerprint);
+		}
+
+		return fingerprint;
+	}
+
+	// removes every cache entry whose fingerprint no longer matches the current
+	// software version and analysis definitions. only the key columns are read so
+	// the scratch pads are never deserialized.
+	public static void removeStaleEntries(ConnectionSource connectionSource) throws SQLException {
+		CalcCacheFingerprint calcCacheFingerprint = new CalcCacheFingerprint(connectionSource);
+
+		Dao<CalcReplicateCache,Integer> calcReplicateCacheDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
+		QueryBuilder<CalcReplicateCache,Integer> calcReplicateCacheQuery = calcReplicateCacheDao.queryBuilder();
+		calcReplicateCacheQuery.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME, CalcReplicateCache.CORR_INTERVAL_ID_FIELD_NAME, CalcReplicateCache.REPLICATE_ANALYSIS_ID_FIELD_NAME, CalcReplicateCache.FINGERPRINT_FIELD_NAME);
+		HashSet<Integer> staleCalcReplicateCacheIds = new HashSet<Integer>();
+
+		for (CalcReplicateCache calcReplicateCache : calcReplicateCacheQuery.query()) {
+			String fingerprint = calcCacheFingerprint.getCorrIntervalFingerprint(calcReplicateCache.getCorrIntervalId(), calcReplicateCache.getReplicateAnalysisId());
+
+			if (!fingerprint.equals(calcReplicateCache.getFingerprint())) {
+				staleCalcReplicateCacheIds.add(calcReplicateCache.getId());
+			}
+		}
+
+		Dao<CalcSampleCache,Integer> calcSampleCacheDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
+		QueryBuilder<CalcSampleCache,Integer> calcSampleCacheQuery = calcSampleCacheDao.queryBuilder();
+		calcSampleCacheQuery.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME, CalcSampleCache.SAMPLE_ANALYSIS_ID_FIELD_NAME, CalcSampleCache.CORR_INTERVALS_IDS_FIELD_NAME, CalcSampleCache.REP_ANALYSIS_IDS_FIELD_NAME, CalcSampleCache.FINGERPRINT_FIELD_NAME);
+		HashSet<Integer> staleCalcSampleCacheIds = new HashSet<Integer>();
+
+		for (CalcSampleCache calcSampleCache : calcSampleCacheQuery.query()) {
+			String fingerprint = calcCacheFingerprint.getSampleFingerprint(calcSampleCache.getSampleAnalysisId(), calcSampleCache.getCorrIntervalIds(), calcSampleCache.getRepAnalysisIds());
+
+			if (!fingerprint.equals(calcSampleCache.getFingerprint())) {
+				staleCalcSampleCacheIds.add(calcSampleCache.getId());
+			}
+		}
+
+		// a sample calculation that used a stale replicate calculation is also stale
+		Dao<CalcRepToCalcSamp,Integer> calcRepToCalcSampDao = DaoManager.createDao(connectionSource, CalcRepToCalcSamp.class);
+
+		for (CalcRepToCalcSamp calcRepToCalcSamp : calcRepToCalcSampDao) {
+			if (staleCalcReplicateCacheIds.contains(calcRepToCalcSamp.getCalcReplicateId())) {
+				staleCalcSampleCacheIds.add(calcRepToCalcSamp.getCalcSampleId());
+			}
+		}
+
+		LoadOrCalculateSample loadOrCalculateSample = new LoadOrCalculateSample(connectionSource);
+
+		for (int calcSampleCacheId : staleCalcSampleCacheIds) {
+			loadOrCalculateSample.removeSampleCalculations(calcSampleCacheId);
+		}
+
+		// stale replicate calculations that were not removed along with a sample
+		if (!staleCalcReplicateCacheIds.isEmpty()) {
+			ArrayList<Integer> ids = new ArrayList<Integer>(staleCalcReplicateCacheIds);
+
+			DeleteBuilder<CalcRepToCalcSamp,Integer> calcRepToCalcSampDelete = calcRepToCalcSampDao.deleteBuilder();
+			calcRepToCalcSampDelete.where().in(CalcRepToCalcSamp.CALC_REPLICATE_ID_FIELD_NAME, ids);
+			calcRepToCalcSampDelete.delete();
+
+			calcReplicateCacheDao.deleteIds(ids);
+		}
+
+		Dao<CorrIntervalScratchPad,Integer> corrIntervalScratchPadDao = DaoManager.createDao(connectionSource, CorrIntervalScratchPad.class);
+		QueryBuilder<CorrIntervalScratchPad,Integer> corrIntervalScratchPadQuery = corrIntervalScratchPadDao.queryBuilder();
+		corrIntervalScratchPadQuery.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME, CorrIntervalScratchPad.CORR_INTERVAL_ID_FIELD_NAME, CorrIntervalScratchPad.DATA_ANALYSIS_ID_FIELD_NAME, CorrIntervalScratchPad.FINGERPRINT_FIELD_NAME);
+		ArrayList<Integer> staleCorrIntervalScratchPadIds = new ArrayList<Integer>();
+
+		for (CorrIntervalScratchPad corrIntervalScratchPad : corrIntervalScratchPadQuery.query()) {
+			String fingerprint = calcCacheFingerprint.getCorrIntervalFingerprint(corrIntervalScratchPad.getCorrIntervalId(), corrIntervalScratchPad.getDataAnalysisId());
+
+			if (!fingerprint.equals(corrIntervalScratchPad.getFingerprint())) {
+				staleCorrIntervalScratchPadIds.add(corrIntervalScratchPad.getId());
+			}
+		}
+
+		if (!staleCorrIntervalScratchPadIds.isEmpty()) {
+			corrIntervalScratchPadDao.deleteIds(staleCorrIntervalScratchPadIds);
+		}
+
+		Dao<CorrIntervalError,Integer> corrIntervalErrorDao = DaoManager.createDao(connectionSource, CorrIntervalError.class);
+		QueryBuilder<CorrIntervalError,Integer> corrIntervalErrorQuery = corrIntervalErrorDao.queryBuilder();
+		corrIntervalErrorQuery.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME, CorrIntervalError.CORR_INTERVAL_ID_FIELD_NAME, CorrIntervalError.DATA_ANALYSIS_ID_FIELD_NAME, CorrIntervalError.FINGERPRINT_FIELD_NAME);
+		ArrayList<Integer> staleCorrIntervalErrorIds = new ArrayList<Integer>();
+
+		for (CorrIntervalError corrIntervalError : corrIntervalErrorQuery.query()) {
+			String fingerprint = calcCacheFingerprint.getCorrIntervalFingerprint(corrIntervalError.getCorrIntervalId(), corrIntervalError.getDataAnalysislId());
+
+			if (!fingerprint.equals(corrIntervalError.getFingerprint())) {
+				staleCorrIntervalErrorIds.add(corrIntervalError.getId());
+			}
+		}
+
+		if (!staleCorrIntervalErrorIds.isEmpty()) {
+			corrIntervalErrorDao.deleteIds(staleCorrIntervalErrorIds);
+		}
+
+		String message = MessageFormat.format(Messages.calcCacheFingerprint_removedStaleEntries, staleCalcSampleCacheIds.size(), staleCalcReplicateCacheIds.size(), staleCorrIntervalScratchPadIds.size(), staleCorrIntervalErrorIds.size());
+		Log.getInstance().log(Level.INFO, CalcCacheFingerprint.class, message);
+	}
+
+	private MessageDigest newDigest() {
+		MessageDigest digest;
+
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+
+		digest.update((FORMAT + ":" + SystemProperty.getVersion() + ":").getBytes(StandardCharsets.UTF_8));
+
+		return digest;
+	}
+
+	// the raw column values are hashed rather than the objects so the result does
+	// not depend on how the fields deserialize
+	private <T> void addRows(MessageDigest digest, Dao<T,Integer> dao, QueryBuilder<T,Integer> queryBuilder) throws SQLException {
+		queryBuilder.orderBy(TableObjectWithIntegerId.ID_FIELD_NAME, true);
+		GenericRawResults<String[]> results = dao.queryRaw(queryBuilder.prepareStatementString());
+
+		try {
+			for (String[] row : results) {
+				for (String column : row) {
+					digest.update(String.valueOf(column).getBytes(StandardCharsets.UTF_8));
+					digest.update((byte) 0);
+				}
+
+				digest.update((byte) 1);
+			}
+
+		} finally {
+			try {
+				results.close();
+			} catch (Exception e) {
+				// ignore
+			}
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder stringBuilder = new StringBuilder();
+
+		for (byte b : bytes) {
+			stringBuilder.append(String.format("%02x", b));
+		}
+
+		return stringBuilder.toString();
+	}
+}
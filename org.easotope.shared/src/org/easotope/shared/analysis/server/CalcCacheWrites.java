@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+import org.easotope.framework.dbcore.DatabaseConstants;
+import org.easotope.shared.analysis.tables.CalcReplicateCache;
+import org.easotope.shared.analysis.tables.CalcSampleCache;
+
+import com.j256.ormlite.support.ConnectionSource;
+
+// calculations made by a command that runs on a read only connection can not be
+// stored as they are made. they are collected here, so that the command reuses them
+// instead of calculating them again, and stored by store() once the command is done.
+// the callers modify what they are handed so only copies are kept and returned.
+public class CalcCacheWrites {
+	private LinkedHashMap<String,LoadOrCalculateCorrInterval> corrIntervals = new LinkedHashMap<String,LoadOrCalculateCorrInterval>();
+	private LinkedHashMap<String,CalcReplicateCache> calcReplicateCaches = new LinkedHashMap<String,CalcReplicateCache>();
+	private LinkedHashMap<String,CalcSampleCache> calcSampleCaches = new LinkedHashMap<String,CalcSampleCache>();
+	private HashMap<String,Collection<CalcReplicateCache>> calcSampleCacheReplicates = new HashMap<String,Collection<CalcReplicateCache>>();
+
+	LoadOrCalculateCorrInterval getCorrInterval(int corrIntervalId, int replicateAnalysisId) {
+		return corrIntervals.get(corrIntervalId + "/" + replicateAnalysisId);
+	}
+
+	void addCorrInterval(LoadOrCalculateCorrInterval loadOrCalculateCorrInterval, int corrIntervalId, int replicateAnalysisId) {
+		corrIntervals.put(corrIntervalId + "/" + replicateAnalysisId, loadOrCalculateCorrInterval);
+	}
+
+	CalcReplicateCache getCalcReplicateCache(int replicateId, int replicateAnalysisId) {
+		CalcReplicateCache calcReplicateCache = calcReplicateCaches.get(replicateId + "/" + replicateAnalysisId);
+		return calcReplicateCache == null ? null : new CalcReplicateCache(calcReplicateCache);
+	}
+
+	void addCalcReplicateCache(CalcReplicateCache calcReplicateCache) {
+		calcReplicateCaches.put(calcReplicateCache.getReplicateId() + "/" + calcReplicateCache.getReplicateAnalysisId(), new CalcReplicateCache(calcReplicateCache));
+	}
+
+	CalcSampleCache getCalcSampleCache(int sampleId, int sampleAnalysisId) {
+		CalcSampleCache calcSampleCache = calcSampleCaches.get(sampleId + "/" + sampleAnalysisId);
+		return calcSampleCache == null ? null : new CalcSampleCache(calcSampleCache);
+	}
+
+	// the replicate caches are the ones the sample was calculated from, they are
+	// linked to the sample cache once they have been stored
+	void addCalcSampleCache(CalcSampleCache calcSampleCache, Collection<CalcReplicateCache> replicates) {
+		String key = calcSampleCache.getSampleId() + "/" + calcSampleCache.getSampleAnalysisId();
+		calcSampleCaches.put(key, new CalcSampleCache(calcSampleCache));
+		calcSampleCacheReplicates.put(key, new ArrayList<CalcReplicateCache>(replicates));
+	}
+
+	public boolean isEmpty() {
+		return corrIntervals.isEmpty() && calcReplicateCaches.isEmpty() && calcSampleCaches.isEmpty();
+	}
+
+	// must be called on the write connection before anything else modifies the
+	// database. calculations that were stored by someone else in the meantime are
+	// kept and stale ones are replaced, in the same order as a command that stores
+	// its calculations right away.
+	public void store(ConnectionSource connectionSource) {
+		LoadOrCalculateSample loadOrCalculateSample = new LoadOrCalculateSample(connectionSource);
+
+		for (CalcSampleCache calcSampleCache : calcSampleCaches.values()) {
+			loadOrCalculateSample.removeStaleSampleCalculations(calcSampleCache.getSampleId(), calcSampleCache.getSampleAnalysisId());
+		}
+
+		for (LoadOrCalculateCorrInterval loadOrCalculateCorrInterval : corrIntervals.values()) {
+			loadOrCalculateCorrInterval.store(connectionSource);
+		}
+
+		for (CalcReplicateCache calcReplicateCache : calcReplicateCaches.values()) {
+			loadOrCalculateSample.storeCalcReplicateCache(calcReplicateCache);
+		}
+
+		for (String key : calcSampleCaches.keySet()) {
+			HashSet<Integer> calcReplicateCacheIds = new HashSet<Integer>();
+
+			for (CalcReplicateCache calcReplicateCache : calcSampleCacheReplicates.get(key)) {
+				CalcReplicateCache stored = calcReplicateCaches.get(calcReplicateCache.getReplicateId() + "/" + calcReplicateCache.getReplicateAnalysisId());
+				calcReplicateCacheIds.add(stored != null ? stored.getId() : calcReplicateCache.getId());
+			}
+
+			// a replicate that could not be stored would leave the sample badly linked
+			if (!calcReplicateCacheIds.contains(DatabaseConstants.EMPTY_DB_ID)) {
+				loadOrCalculateSample.storeCalcSampleCache(calcSampleCaches.get(key), calcReplicateCacheIds);
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.server;
+
+// read only commands and background tasks can run concurrently on the server so
+// calculations that store their results in a cache table are serialized per cache
+// row. a fixed number of striped locks is used so that nothing has to be pruned.
+// locks must be acquired in the order sample then correction interval.
+public class CalculationLocks {
+	private static final int NUM_STRIPES = 64;
+
+	private static Object[] sampleLocks = createLocks();
+	private static Object[] corrIntervalLocks = createLocks();
+
+	public static Object getSampleLock(int sampleId, int sampleAnalysisId) {
+		return sampleLocks[stripe(sampleId, sampleAnalysisId)];
+	}
+
+	public static Object getCorrIntervalLock(int corrIntervalId, int replicateAnalysisId) {
+		return corrIntervalLocks[stripe(corrIntervalId, replicateAnalysisId)];
+	}
+
+	private static Object[] createLocks() {
+		Object[] locks = new Object[NUM_STRIPES];
+
+		for (int i=0; i<NUM_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+
+		return locks;
+	}
+
+	private static int stripe(int id, int analysisId) {
+		int hash = id * 31 + analysisId;
+		hash ^= (hash >>> 16);
+
+		return (hash & 0x7fffffff) % NUM_STRIPES;
+	}
+}
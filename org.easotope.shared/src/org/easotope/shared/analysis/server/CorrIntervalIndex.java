@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.server;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import org.easotope.shared.analysis.tables.CorrIntervalV1;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.support.ConnectionSource;
+
+// the corr intervals of each mass spec sorted by start date and shared by all
+// threads so that the corr intervals covering a time or overlapping a time range
+// are found in memory with a binary search. a mass spec is read from the
+// database the first time it is needed and dropped again when its corr
+// intervals are updated.
+public class CorrIntervalIndex {
+	private static HashMap<Integer,Timeline> massSpecIdToTimeline = new HashMap<Integer,Timeline>();
+	private static long version = 0;
+
+	private HashMap<Integer,Timeline> timelines;
+
+	private CorrIntervalIndex(HashMap<Integer,Timeline> timelines) {
+		this.timelines = timelines;
+	}
+
+	public static CorrIntervalIndex getInstance(ConnectionSource connectionSource, Collection<Integer> massSpecIds) throws SQLException {
+		HashMap<Integer,Timeline> timelines = new HashMap<Integer,Timeline>();
+		HashSet<Integer> missingMassSpecIds = new HashSet<Integer>();
+		long basedOnVersion;
+
+		synchronized (CorrIntervalIndex.class) {
+			basedOnVersion = version;
+
+			for (int massSpecId : massSpecIds) {
+				Timeline timeline = massSpecIdToTimeline.get(massSpecId);
+
+				if (timeline != null) {
+					timelines.put(massSpecId, timeline);
+				} else {
+					missingMassSpecIds.add(massSpecId);
+				}
+			}
+		}
+
+		if (missingMassSpecIds.isEmpty()) {
+			return new CorrIntervalIndex(timelines);
+		}
+
+		Dao<CorrIntervalV1,Integer> corrIntervalDao = DaoManager.createDao(connectionSource, CorrIntervalV1.class);
+		QueryBuilder<CorrIntervalV1,Integer> queryBuilder = corrIntervalDao.queryBuilder();
+		queryBuilder.where().in(CorrIntervalV1.MASSSPECID_FIELD_NAME, missingMassSpecIds);
+
+		HashMap<Integer,ArrayList<CorrIntervalV1>> massSpecIdToList = new HashMap<Integer,ArrayList<CorrIntervalV1>>();
+
+		for (int massSpecId : missingMassSpecIds) {
+			massSpecIdToList.put(massSpecId, new ArrayList<CorrIntervalV1>());
+		}
+
+		for (CorrIntervalV1 corrInterval : corrIntervalDao.query(queryBuilder.prepare())) {
+			massSpecIdToList.get(corrInterval.getMassSpecId()).add(corrInterval);
+		}
+
+		synchronized (CorrIntervalIndex.class) {
+			for (int massSpecId : massSpecIdToList.keySet()) {
+				Timeline timeline = new Timeline(massSpecIdToList.get(massSpecId));
+				timelines.put(massSpecId, timeline);
+
+				// not shared if the corr intervals changed while they were being read
+				if (version == basedOnVersion) {
+					massSpecIdToTimeline.put(massSpecId, timeline);
+				}
+			}
+		}
+
+		return new CorrIntervalIndex(timelines);
+	}
+
+	public static synchronized void invalidate(int massSpecId) {
+		massSpecIdToTimeline.remove(massSpecId);
+		version++;
+	}
+
+	public static synchronized void invalidateAll() {
+		massSpecIdToTimeline.clear();
+		version++;
+	}
+
+	// returns the corr interval for which validFrom <= date < validUntil or null
+	public CorrIntervalV1 getCorrInterval(int massSpecId, long date) {
+		Timeline timeline = timelines.get(massSpecId);
+		return timeline == null ? null : timeline.getCorrInterval(date);
+	}
+
+	// returns the corr intervals for which validFrom < to and validUntil > from
+	public List<CorrIntervalV1> getCorrIntervals(int massSpecId, long from, long to) {
+		Timeline timeline = timelines.get(massSpecId);
+		return timeline == null ? new ArrayList<CorrIntervalV1>() : timeline.getCorrIntervals(from, to);
+	}
+
+	private static class Timeline {
+		private CorrIntervalV1[] corrIntervals;
+		private long[] maxValidUntil;
+
+		Timeline(List<CorrIntervalV1> list) {
+			corrIntervals = list.toArray(new CorrIntervalV1[list.size()]);
+
+			Arrays.sort(corrIntervals, new Comparator<CorrIntervalV1>() {
+				@Override
+				public int compare(CorrIntervalV1 o1, CorrIntervalV1 o2) {
+					return Long.compare(o1.getValidFrom(), o2.getValidFrom());
+				}
+			});
+
+			// the largest end date up to each position so that a range search
+			// stays correct even if corr intervals were to overlap
+			maxValidUntil = new long[corrIntervals.length];
+
+			for (int i=0; i<corrIntervals.length; i++) {
+				maxValidUntil[i] = (i == 0) ? corrIntervals[i].getValidUntil() : Math.max(maxValidUntil[i-1], corrIntervals[i].getValidUntil());
+			}
+		}
+
+		// the corr intervals of a mass spec never overlap so this is the
+		// last one starting on or before the date
+		CorrIntervalV1 getCorrInterval(long date) {
+			int found = lastStartingBefore(date + 1);
+
+			if (found == -1 || corrIntervals[found].getValidUntil() <= date) {
+				return null;
+			}
+
+			return corrIntervals[found];
+		}
+
+		List<CorrIntervalV1> getCorrIntervals(long from, long to) {
+			ArrayList<CorrIntervalV1> result = new ArrayList<CorrIntervalV1>();
+			int last = lastStartingBefore(to);
+
+			for (int i=firstEndingAfter(from); i<=last; i++) {
+				if (corrIntervals[i].getValidUntil() > from) {
+					result.add(corrIntervals[i]);
+				}
+			}
+
+			return result;
+		}
+
+		// index of the last corr interval with validFrom < date or -1
+		private int lastStartingBefore(long date) {
+			int low = 0;
+			int high = corrIntervals.length - 1;
+			int found = -1;
+
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+
+				if (corrIntervals[middle].getValidFrom() < date) {
+					found = middle;
+					low = middle + 1;
+				} else {
+					high = middle - 1;
+				}
+			}
+
+			return found;
+		}
+
+		// index of the first position whose largest end date is after the date
+		private int firstEndingAfter(long date) {
+			int low = 0;
+			int high = corrIntervals.length - 1;
+			int found = corrIntervals.length;
+
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+
+				if (maxValidUntil[middle] > date) {
+					found = middle;
+					high = middle - 1;
+				} else {
+					low = middle + 1;
+				}
+			}
+
+			return found;
+		}
+	}
+}
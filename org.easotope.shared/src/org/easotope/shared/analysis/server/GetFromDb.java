@@ -29,8 +29,11 @@ package org.easotope.shared.analysis.server;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
+import org.easotope.framework.dbcore.tables.TableObjectWithIntegerId;
+
 import org.easotope.shared.analysis.tables.RepAnalysis;
 import org.easotope.shared.analysis.tables.RepStep;
 import org.easotope.shared.analysis.tables.RepStepParams;
@@ -49,6 +52,9 @@ import com.j256.ormlite.stmt.Where;
 import com.j256.ormlite.support.ConnectionSource;
 
 public class GetFromDb {
+	// keeps the IN lists of bulk queries to a size every database handles well
+	public static final int MAX_IDS_PER_QUERY = 500;
+
 	public static RepAnalysis getRepAnalysis(ConnectionSource connectionSource, int repAnalysisId) throws SQLException {
 		Dao<RepAnalysis,Integer> repAnalysisDao = DaoManager.createDao(connectionSource, RepAnalysis.class);
 		return repAnalysisDao.queryForId(repAnalysisId);
@@ -130,4 +136,62 @@ public class GetFromDb {
 
 		return acquisitions;
 	}
+
+	// loads the acquisitions of many replicates with a few IN queries instead of
+	// one query per replicate and one per acquisition. the result maps each of
+	// the given replicate ids to its acquisitions.
+	public static HashMap<Integer,ArrayList<Acquisition>> getAcquisitions(ConnectionSource connectionSource, List<Integer> replicateIds) throws SQLException {
+		HashMap<Integer,ArrayList<Acquisition>> replicateIdToAcquisitions = new HashMap<Integer,ArrayList<Acquisition>>();
+
+		for (int replicateId : replicateIds) {
+			replicateIdToAcquisitions.put(replicateId, new ArrayList<Acquisition>());
+		}
+
+		if (replicateIds.isEmpty()) {
+			return replicateIdToAcquisitions;
+		}
+
+		Dao<AcquisitionInputV0,Integer> acquisitionInputDao = DaoManager.createDao(connectionSource, AcquisitionInputV0.class);
+		ArrayList<AcquisitionInputV0> acquisitionInputs = new ArrayList<AcquisitionInputV0>();
+
+		for (int i=0; i<replicateIds.size(); i+=MAX_IDS_PER_QUERY) {
+			List<Integer> ids = replicateIds.subList(i, Math.min(i + MAX_IDS_PER_QUERY, replicateIds.size()));
+
+			QueryBuilder<AcquisitionInputV0,Integer> queryBuilder = acquisitionInputDao.queryBuilder();
+			queryBuilder.where().in(AcquisitionInputV0.REPLICATEID_FIELD_NAME, ids);
+			queryBuilder.orderBy(TableObjectWithIntegerId.ID_FIELD_NAME, true);
+			acquisitionInputs.addAll(acquisitionInputDao.query(queryBuilder.prepare()));
+		}
+
+		ArrayList<Integer> acquisitionParsedIds = new ArrayList<Integer>();
+
+		for (AcquisitionInputV0 acquisitionInput : acquisitionInputs) {
+			acquisitionParsedIds.add(acquisitionInput.getAcquisitionParsedId());
+		}
+
+		HashMap<Integer,AcquisitionParsedV2> idToAcquisitionParsed = new HashMap<Integer,AcquisitionParsedV2>();
+		Dao<AcquisitionParsedV2,Integer> acquisitionParsedDao = DaoManager.createDao(connectionSource, AcquisitionParsedV2.class);
+
+		for (int i=0; i<acquisitionParsedIds.size(); i+=MAX_IDS_PER_QUERY) {
+			List<Integer> ids = acquisitionParsedIds.subList(i, Math.min(i + MAX_IDS_PER_QUERY, acquisitionParsedIds.size()));
+
+			QueryBuilder<AcquisitionParsedV2,Integer> parsedQueryBuilder = acquisitionParsedDao.queryBuilder();
+			parsedQueryBuilder.where().in(TableObjectWithIntegerId.ID_FIELD_NAME, ids);
+
+			for (AcquisitionParsedV2 acquisitionParsed : acquisitionParsedDao.query(parsedQueryBuilder.prepare())) {
+				idToAcquisitionParsed.put(acquisitionParsed.getId(), acquisitionParsed);
+			}
+		}
+
+		for (AcquisitionInputV0 acquisitionInput : acquisitionInputs) {
+			if (acquisitionInput.getOffPeakCycles() == null) {
+				acquisitionInput.setOffPeakCycles(new boolean[acquisitionInput.getDisabledCycles().length]);
+			}
+
+			AcquisitionParsedV2 acquisitionParsed = idToAcquisitionParsed.get(acquisitionInput.getAcquisitionParsedId());
+			replicateIdToAcquisitions.get(acquisitionInput.getReplicateId()).add(new Acquisition(null, null, acquisitionParsed, acquisitionInput));
+		}
+
+		return replicateIdToAcquisitions;
+	}
 }
@@ -71,10 +71,13 @@ import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.stmt.PreparedDelete;
 import com.j256.ormlite.stmt.PreparedQuery;
 import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.UpdateBuilder;
 import com.j256.ormlite.stmt.Where;
 import com.j256.ormlite.support.ConnectionSource;
 
 public class LoadOrCalculateCorrInterval {
+	private static final int STANDARDS_PER_BULK_LOAD = 100;
+
 	private static HashMap<Integer,String> mzX10ToAlgorithm = new HashMap<Integer,String>();
 	private static HashMap<Integer,String> mzX10ToX2 = new HashMap<Integer,String>();
 	private static HashMap<Integer,String> mzX10ToSlope = new HashMap<Integer,String>();
@@ -87,16 +90,167 @@ public class LoadOrCalculateCorrInterval {
 	private ConnectionSource connectionSource;
 	private OverviewResolution overviewRes;
 
+	private boolean writeToDb;
 	private CorrIntervalScratchPad corrIntervalScratchPad = null;
 	private List<CorrIntervalError> corrIntervalErrors = null;
+	private String fingerprint = null;
 
 	public LoadOrCalculateCorrInterval(int corrIntervalId, int replicateAnalysisId, ConnectionSource connectionSource) {
+		this(corrIntervalId, replicateAnalysisId, connectionSource, true);
+	}
+
+	private LoadOrCalculateCorrInterval(int corrIntervalId, int replicateAnalysisId, ConnectionSource connectionSource, boolean writeToDb) {
 		this.corrIntervalId = corrIntervalId;
 		this.replicateAnalysisId = replicateAnalysisId;
 		this.connectionSource = connectionSource;
+		this.writeToDb = writeToDb;
 
 		overviewRes = OptionsInfo.getInstance().getOptions().getOverviewResolution();
 
+		if (writeToDb) {
+			synchronized (CalculationLocks.getCorrIntervalLock(corrIntervalId, replicateAnalysisId)) {
+				loadOrCalculate();
+			}
+
+		} else {
+			recalculateCorrInterval();
+		}
+
+		AbstractCache.clearCachesForThisThread();
+	}
+
+	// for commands on a read only connection, calculations that are missing or stale
+	// are redone and left in calcCacheWrites to be stored once the command is done
+	public LoadOrCalculateCorrInterval(int corrIntervalId, int replicateAnalysisId, ConnectionSource connectionSource, CalcCacheWrites calcCacheWrites) {
+		this.corrIntervalId = corrIntervalId;
+		this.replicateAnalysisId = replicateAnalysisId;
+		this.connectionSource = connectionSource;
+		this.writeToDb = false;
+
+		overviewRes = OptionsInfo.getInstance().getOptions().getOverviewResolution();
+
+		LoadOrCalculateCorrInterval pending = calcCacheWrites.getCorrInterval(corrIntervalId, replicateAnalysisId);
+
+		if (pending != null) {
+			copyCalculations(pending);
+
+		} else if (!load()) {
+			recalculateCorrInterval();
+
+			pending = new LoadOrCalculateCorrInterval(this);
+			calcCacheWrites.addCorrInterval(pending, corrIntervalId, replicateAnalysisId);
+		}
+
+		AbstractCache.clearCachesForThisThread();
+	}
+
+	private LoadOrCalculateCorrInterval(LoadOrCalculateCorrInterval loadOrCalculateCorrInterval) {
+		this.corrIntervalId = loadOrCalculateCorrInterval.corrIntervalId;
+		this.replicateAnalysisId = loadOrCalculateCorrInterval.replicateAnalysisId;
+		this.connectionSource = loadOrCalculateCorrInterval.connectionSource;
+		this.overviewRes = loadOrCalculateCorrInterval.overviewRes;
+		this.writeToDb = false;
+		this.fingerprint = loadOrCalculateCorrInterval.fingerprint;
+
+		copyCalculations(loadOrCalculateCorrInterval);
+	}
+
+	private void copyCalculations(LoadOrCalculateCorrInterval loadOrCalculateCorrInterval) {
+		CorrIntervalScratchPad otherScratchPad = loadOrCalculateCorrInterval.corrIntervalScratchPad;
+		corrIntervalScratchPad = otherScratchPad == null ? null : new CorrIntervalScratchPad(otherScratchPad);
+
+		corrIntervalErrors = new ArrayList<CorrIntervalError>();
+
+		for (CorrIntervalError corrIntervalError : loadOrCalculateCorrInterval.corrIntervalErrors) {
+			corrIntervalErrors.add(new CorrIntervalError(corrIntervalError));
+		}
+	}
+
+	// calculates without touching the cache tables so that background tasks can do the
+	// slow part on a connection of their own, the result is written later by store()
+	public static LoadOrCalculateCorrInterval calculateWithoutStoring(int corrIntervalId, int replicateAnalysisId, ConnectionSource connectionSource) {
+		return new LoadOrCalculateCorrInterval(corrIntervalId, replicateAnalysisId, connectionSource, false);
+	}
+
+	// writes a result from calculateWithoutStoring() in place of any stale calculations,
+	// returns false if up to date calculations were stored in the meantime
+	public boolean store(ConnectionSource connectionSource) {
+		synchronized (CalculationLocks.getCorrIntervalLock(corrIntervalId, replicateAnalysisId)) {
+			try {
+				if (hasUpToDateCalculations(connectionSource)) {
+					return false;
+				}
+
+			} catch (SQLException e) {
+				String message = MessageFormat.format(Messages.recalculateCorrInterval_errorLoadingCorrIntervalScratchPad, corrIntervalId, replicateAnalysisId);
+				Log.getInstance().log(Level.INFO, this, message, e);
+				return false;
+			}
+
+			removeCorrIntervalCalculations(corrIntervalId, replicateAnalysisId, connectionSource);
+
+			for (CorrIntervalError corrIntervalError : corrIntervalErrors) {
+				try {
+					Dao<CorrIntervalError,Integer> corrIntervalErrorDao = DaoManager.createDao(connectionSource, CorrIntervalError.class);
+					corrIntervalErrorDao.create(corrIntervalError);
+
+				} catch (SQLException e) {
+					Log.getInstance().log(Level.INFO, this, Messages.recalculateCorrInterval_couldNotSaveErrorToDb + corrIntervalError.getErrorMessage(), e);
+				}
+			}
+
+			if (corrIntervalScratchPad != null) {
+				try {
+					Dao<CorrIntervalScratchPad,Integer> corrIntervalScratchPadDao = DaoManager.createDao(connectionSource, CorrIntervalScratchPad.class);
+					corrIntervalScratchPadDao.create(corrIntervalScratchPad);
+
+				} catch (SQLException e) {
+					String message = MessageFormat.format(Messages.correctionIntervalUpdatedHandler_scratchPadSaveError, corrIntervalId, replicateAnalysisId);
+					Log.getInstance().log(Level.INFO, this, message);
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private boolean hasUpToDateCalculations(ConnectionSource connectionSource) throws SQLException {
+		Dao<CorrIntervalScratchPad,Integer> corrIntervalScratchPadDao = DaoManager.createDao(connectionSource, CorrIntervalScratchPad.class);
+		QueryBuilder<CorrIntervalScratchPad,Integer> corrIntervalScratchPadQuery = corrIntervalScratchPadDao.queryBuilder();
+		Where<CorrIntervalScratchPad,Integer> corrIntervalScratchPadWhere = corrIntervalScratchPadQuery.where();
+		corrIntervalScratchPadWhere.eq(CorrIntervalScratchPad.CORR_INTERVAL_ID_FIELD_NAME, corrIntervalId);
+		corrIntervalScratchPadWhere.eq(CorrIntervalScratchPad.DATA_ANALYSIS_ID_FIELD_NAME, replicateAnalysisId);
+		corrIntervalScratchPadWhere.isNull(CorrIntervalScratchPad.FINGERPRINT_FIELD_NAME);
+		corrIntervalScratchPadWhere.ne(CorrIntervalScratchPad.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+		corrIntervalScratchPadWhere.or(2);
+		corrIntervalScratchPadWhere.and(3);
+
+		if (corrIntervalScratchPadQuery.countOf() != 0) {
+			return true;
+		}
+
+		Dao<CorrIntervalError,Integer> corrIntervalErrorDao = DaoManager.createDao(connectionSource, CorrIntervalError.class);
+		QueryBuilder<CorrIntervalError,Integer> corrIntervalErrorQuery = corrIntervalErrorDao.queryBuilder();
+		Where<CorrIntervalError,Integer> corrIntervalErrorWhere = corrIntervalErrorQuery.where();
+		corrIntervalErrorWhere.eq(CorrIntervalError.CORR_INTERVAL_ID_FIELD_NAME, corrIntervalId);
+		corrIntervalErrorWhere.eq(CorrIntervalError.DATA_ANALYSIS_ID_FIELD_NAME, replicateAnalysisId);
+		corrIntervalErrorWhere.isNull(CorrIntervalError.FINGERPRINT_FIELD_NAME);
+		corrIntervalErrorWhere.ne(CorrIntervalError.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+		corrIntervalErrorWhere.or(2);
+		corrIntervalErrorWhere.and(3);
+
+		return corrIntervalErrorQuery.countOf() != 0;
+	}
+
+	private void loadOrCalculate() {
+		if (!load()) {
+			removeCorrIntervalCalculations(corrIntervalId, replicateAnalysisId, connectionSource);
+			recalculateCorrInterval();
+		}
+	}
+
+	// returns false if there are no usable calculations in the database
+	private boolean load() {
 		try {
 			Dao<CorrIntervalError,Integer> corrIntervalErrorDao = DaoManager.createDao(connectionSource, CorrIntervalError.class);
 
@@ -128,19 +282,24 @@ public class LoadOrCalculateCorrInterval {
 		boolean hasScratchPad = corrIntervalScratchPadList != null && corrIntervalScratchPadList.size() == 1;
 		boolean hasErrors = corrIntervalErrors != null && corrIntervalErrors.size() != 0;
 
-		if (hasScratchPad) {
-			corrIntervalScratchPad = corrIntervalScratchPadList.get(0);
-		}
+		// calculations marked as stale by an edit are redone the first time they are needed
+		boolean isStale = hasScratchPad && CalcCacheFingerprint.STALE.equals(corrIntervalScratchPadList.get(0).getFingerprint());
 
-		if (!hasScratchPad && !hasErrors) {
-			if (corrIntervalScratchPadList != null && corrIntervalScratchPadList.size() > 1) {
-				removeCorrIntervalCalculations(corrIntervalId, replicateAnalysisId, connectionSource);
+		if (hasErrors) {
+			for (CorrIntervalError corrIntervalError : corrIntervalErrors) {
+				isStale = isStale || CalcCacheFingerprint.STALE.equals(corrIntervalError.getFingerprint());
 			}
+		}
 
-			recalculateCorrInterval();
+		if (isStale) {
+			return false;
 		}
 
-		AbstractCache.clearCachesForThisThread();
+		if (hasScratchPad) {
+			corrIntervalScratchPad = corrIntervalScratchPadList.get(0);
+		}
+
+		return hasScratchPad || hasErrors;
 	}
 
 	public CorrIntervalScratchPad getCorrIntervalScratchPad() {
@@ -191,10 +350,53 @@ public class LoadOrCalculateCorrInterval {
 		return recordsRemoved != 0;
 	}
 
+	// marks the calculations as stale without deleting them so that they are redone
+	// only when next read, returns true if there was anything to mark
+	public static boolean markCorrIntervalCalculationsStale(int corrIntervalId, int replicateAnalysisId, ConnectionSource connectionSource) {
+		int recordsMarked = 0;
+
+		try {
+			Dao<CorrIntervalScratchPad,Integer> corrIntervalScratchPadDao = DaoManager.createDao(connectionSource, CorrIntervalScratchPad.class);
+			UpdateBuilder<CorrIntervalScratchPad,Integer> updateBuilder = corrIntervalScratchPadDao.updateBuilder();
+			updateBuilder.updateColumnValue(CorrIntervalScratchPad.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+			updateBuilder.where()
+				.eq(CorrIntervalScratchPad.CORR_INTERVAL_ID_FIELD_NAME, corrIntervalId)
+				.and()
+				.eq(CorrIntervalScratchPad.DATA_ANALYSIS_ID_FIELD_NAME, replicateAnalysisId);
+			recordsMarked += updateBuilder.update();
+
+			Dao<CorrIntervalError,Integer> corrIntervalErrorDao = DaoManager.createDao(connectionSource, CorrIntervalError.class);
+			UpdateBuilder<CorrIntervalError,Integer> errorUpdateBuilder = corrIntervalErrorDao.updateBuilder();
+			errorUpdateBuilder.updateColumnValue(CorrIntervalError.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+			errorUpdateBuilder.where()
+				.eq(CorrIntervalError.CORR_INTERVAL_ID_FIELD_NAME, corrIntervalId)
+				.and()
+				.eq(CorrIntervalError.DATA_ANALYSIS_ID_FIELD_NAME, replicateAnalysisId);
+			recordsMarked += errorUpdateBuilder.update();
+
+		} catch (SQLException e) {
+			String message = MessageFormat.format(Messages.recalculateCorrInterval_errorWhileMarkingStale, corrIntervalId, replicateAnalysisId);
+			Log.getInstance().log(Level.INFO, LoadOrCalculateCorrInterval.class, message, e);
+
+			// fall back to removing them
+			return removeCorrIntervalCalculations(corrIntervalId, replicateAnalysisId, connectionSource);
+		}
+
+		return recordsMarked != 0;
+	}
+
 	private void recalculateCorrInterval() {
 		corrIntervalScratchPad = null;
 		corrIntervalErrors = new ArrayList<CorrIntervalError>();
 
+		try {
+			fingerprint = new CalcCacheFingerprint(connectionSource).getCorrIntervalFingerprint(corrIntervalId, replicateAnalysisId);
+
+		} catch (SQLException e) {
+			String message = MessageFormat.format(Messages.recalculateCorrInterval_couldNotCalculateFingerprint, corrIntervalId, replicateAnalysisId);
+			Log.getInstance().log(Level.INFO, this, message, e);
+		}
+
 		CorrIntervalV1 corrInterval = null;
 
 		try {
@@ -212,6 +414,7 @@ public class LoadOrCalculateCorrInterval {
 		corrIntervalScratchPad.setCorrIntervalId(corrIntervalId);
 		corrIntervalScratchPad.setDataAnalysisId(replicateAnalysisId);
 		corrIntervalScratchPad.setScratchPad(new ScratchPad<ReplicatePad>());
+		corrIntervalScratchPad.setFingerprint(fingerprint);
 
 		AnalysisWithParameters replicateAnalysisWithParameters = null;
 
@@ -295,6 +498,11 @@ public class LoadOrCalculateCorrInterval {
 			corrIntervalScratchPad.getScratchPad().removeChildren(unwanted);
 		}
 
+		if (!writeToDb) {
+			this.corrIntervalScratchPad = corrIntervalScratchPad;
+			return;
+		}
+
 		try {
 			Dao<CorrIntervalScratchPad,Integer> corrIntervalScratchPadDao = DaoManager.createDao(connectionSource, CorrIntervalScratchPad.class);
 			corrIntervalScratchPadDao.create(corrIntervalScratchPad);
@@ -326,16 +534,37 @@ public class LoadOrCalculateCorrInterval {
 			PreparedQuery<ReplicateV1> preparedQuery = queryBuilder.prepare();
 			List<ReplicateV1> results = replicateDao.query(preparedQuery);
 
-			for (ReplicateV1 replicate : results) {
-				try {
-					List<Acquisition> acquisitions = GetFromDb.getAcquisitions(connectionSource, replicate.getId());
-					int replicateNumber = RawDataHelper.addReplicateToScratchPad(coreIntervalScratchPad.getScratchPad(), replicate, acquisitions);
-					coreIntervalScratchPad.getScratchPad().getChild(replicateNumber).setVolatileData(AnalysisConstants.VOLATILE_DATA_REPLICATE, replicate);
+			// acquisitions are loaded in bulk a block of replicates at a time so that
+			// only one block of raw data is held in memory on top of the scratch pad
+			for (int i=0; i<results.size(); i+=STANDARDS_PER_BULK_LOAD) {
+				List<ReplicateV1> block = results.subList(i, Math.min(i + STANDARDS_PER_BULK_LOAD, results.size()));
+				ArrayList<Integer> replicateIds = new ArrayList<Integer>();
+
+				for (ReplicateV1 replicate : block) {
+					replicateIds.add(replicate.getId());
+				}
+
+				HashMap<Integer,ArrayList<Acquisition>> replicateIdToAcquisitions = null;
 
+				try {
+					replicateIdToAcquisitions = GetFromDb.getAcquisitions(connectionSource, replicateIds);
 				} catch (Exception e) {
-					String message = MessageFormat.format(Messages.recalculateCorrInterval_errorReadingStandards, replicate.getId(), corrInterval.getId());
-					Log.getInstance().log(Level.INFO, this, message, e);
-					writeErrorToDb(message);
+					// fall back to loading the replicates one by one so that the
+					// replicate causing the problem is reported
+					Log.getInstance().log(Level.DEBUG, this, "bulk loading of acquisitions failed", e);
+				}
+
+				for (ReplicateV1 replicate : block) {
+					try {
+						List<Acquisition> acquisitions = replicateIdToAcquisitions != null ? replicateIdToAcquisitions.get(replicate.getId()) : GetFromDb.getAcquisitions(connectionSource, replicate.getId());
+						int replicateNumber = RawDataHelper.addReplicateToScratchPad(coreIntervalScratchPad.getScratchPad(), replicate, acquisitions);
+						coreIntervalScratchPad.getScratchPad().getChild(replicateNumber).setVolatileData(AnalysisConstants.VOLATILE_DATA_REPLICATE, replicate);
+
+					} catch (Exception e) {
+						String message = MessageFormat.format(Messages.recalculateCorrInterval_errorReadingStandards, replicate.getId(), corrInterval.getId());
+						Log.getInstance().log(Level.INFO, this, message, e);
+						writeErrorToDb(message);
+					}
 				}
 			}
 
@@ -430,6 +659,13 @@ public class LoadOrCalculateCorrInterval {
 	}
 
 	private void writeErrorToDb(CorrIntervalError corrIntervalError) {		
+		corrIntervalError.setFingerprint(fingerprint);
+		corrIntervalErrors.add(corrIntervalError);
+
+		if (!writeToDb) {
+			return;
+		}
+
 		try {
 			Dao<CorrIntervalError,Integer> corrIntervalErrorDao = DaoManager.createDao(connectionSource, CorrIntervalError.class);
 			corrIntervalErrorDao.create(corrIntervalError);
@@ -437,8 +673,6 @@ public class LoadOrCalculateCorrInterval {
 		} catch (SQLException e) {
 			Log.getInstance().log(Level.INFO, this, Messages.recalculateCorrInterval_couldNotSaveErrorToDb + corrIntervalError.getErrorMessage(), e);
 		}
-
-		corrIntervalErrors.add(corrIntervalError);
 	}
 
 	static {
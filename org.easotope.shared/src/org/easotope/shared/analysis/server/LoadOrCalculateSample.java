@@ -29,13 +29,17 @@ package org.easotope.shared.analysis.server;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import org.easotope.framework.core.global.OptionsInfo;
 import org.easotope.framework.core.logging.Log;
 import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.dbcore.DatabaseConstants;
+import org.easotope.framework.dbcore.tables.TableObjectWithIntegerId;
 import org.easotope.shared.Messages;
 import org.easotope.shared.analysis.execute.AnalysisWithParameters;
 import org.easotope.shared.analysis.execute.CalculationError;
@@ -73,20 +77,54 @@ import org.easotope.shared.rawdata.tables.Sample;
 
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
-import com.j256.ormlite.stmt.PreparedQuery;
+import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.UpdateBuilder;
 import com.j256.ormlite.support.ConnectionSource;
 
 public class LoadOrCalculateSample {
-	private static final String CALC_REPLICATE_CACHE_IDS = "CALC_REPLICATE_CACHE_IDS";
+	private static final String CALC_REPLICATE_CACHES = "CALC_REPLICATE_CACHES";
 
 	private ConnectionSource connectionSource;
+	private CalcCacheWrites calcCacheWrites;
+	private CalcCacheFingerprint calcCacheFingerprint = null;
 
 	public LoadOrCalculateSample(ConnectionSource connectionSource) {
+		this(connectionSource, null);
+	}
+
+	// with calcCacheWrites nothing is written to the database, new calculations are
+	// left there to be stored once the command is done
+	public LoadOrCalculateSample(ConnectionSource connectionSource, CalcCacheWrites calcCacheWrites) {
 		this.connectionSource = connectionSource;
+		this.calcCacheWrites = calcCacheWrites;
+	}
+
+	// fingerprints are memoized for the life of this object, which never outlives
+	// a single command or event
+	private CalcCacheFingerprint getCalcCacheFingerprint() {
+		if (calcCacheFingerprint == null) {
+			calcCacheFingerprint = new CalcCacheFingerprint(connectionSource);
+		}
+
+		return calcCacheFingerprint;
 	}
 
 	public CalcSampleCache getCalcSampleCache(int sampleId, int sampleAnalysisId) {
+		synchronized (CalculationLocks.getSampleLock(sampleId, sampleAnalysisId)) {
+			return loadOrCalculate(sampleId, sampleAnalysisId);
+		}
+	}
+
+	private CalcSampleCache loadOrCalculate(int sampleId, int sampleAnalysisId) {
+		if (calcCacheWrites != null) {
+			CalcSampleCache calcSampleCache = calcCacheWrites.getCalcSampleCache(sampleId, sampleAnalysisId);
+
+			if (calcSampleCache != null) {
+				return calcSampleCache;
+			}
+		}
+
 		try {
 			Dao<CalcSampleCache,Integer> calcSampleDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
 
@@ -96,7 +134,13 @@ public class LoadOrCalculateSample {
 			List<CalcSampleCache> list = calcSampleDao.queryForFieldValues(queryMap);
 
 			if (list != null && list.size() == 1) {
-				return list.get(0);
+				if (!CalcCacheFingerprint.STALE.equals(list.get(0).getFingerprint())) {
+					return list.get(0);
+				}
+
+				if (calcCacheWrites == null) {
+					removeSampleCalculations(list.get(0).getId());
+				}
 			}
 
 		} catch (Exception e) {
@@ -105,33 +149,92 @@ public class LoadOrCalculateSample {
 
 		CalcSampleCache calcSampleCache = createCalcSampleCache(sampleId, sampleAnalysisId);
 
+		try {
+			calcSampleCache.setFingerprint(getCalcCacheFingerprint().getSampleFingerprint(sampleAnalysisId, calcSampleCache.getCorrIntervalIds(), calcSampleCache.getRepAnalysisIds()));
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_fingerprintFailed, e);
+		}
+
+		@SuppressWarnings("unchecked")
+		ArrayList<CalcReplicateCache> calcReplicateCaches = (ArrayList<CalcReplicateCache>) calcSampleCache.getScratchPad().getVolatileData(CALC_REPLICATE_CACHES);
+
+		if (calcCacheWrites != null) {
+			calcCacheWrites.addCalcSampleCache(calcSampleCache, calcReplicateCaches);
+
+		} else {
+			HashSet<Integer> calcReplicateCacheIds = new HashSet<Integer>();
+
+			for (CalcReplicateCache calcReplicateCache : calcReplicateCaches) {
+				calcReplicateCacheIds.add(calcReplicateCache.getId());
+			}
+
+			saveCalcSampleCache(calcSampleCache, calcReplicateCacheIds);
+		}
+
+		AbstractCache.clearCachesForThisThread();
+
+		return calcSampleCache;
+	}
+
+	private void saveCalcSampleCache(CalcSampleCache calcSampleCache, Collection<Integer> calcReplicateCacheIds) {
 		try {
 			Dao<CalcSampleCache,Integer> calcSampleCacheDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
 			calcSampleCacheDao.create(calcSampleCache);
 
-			@SuppressWarnings("unchecked")
-			HashSet<Integer> calcReplicateCacheIds = (HashSet<Integer>) calcSampleCache.getScratchPad().getVolatileData(CALC_REPLICATE_CACHE_IDS);
-
-			if (calcReplicateCacheIds != null) {
-				Dao<CalcRepToCalcSamp,Integer> calcRepToCalcSampDao = DaoManager.createDao(connectionSource, CalcRepToCalcSamp.class);
+			Dao<CalcRepToCalcSamp,Integer> calcRepToCalcSampDao = DaoManager.createDao(connectionSource, CalcRepToCalcSamp.class);
 
-				for (int calcReplicateId : calcReplicateCacheIds) {
-					CalcRepToCalcSamp calcRepToCalcSamp = new CalcRepToCalcSamp();
+			for (int calcReplicateId : calcReplicateCacheIds) {
+				CalcRepToCalcSamp calcRepToCalcSamp = new CalcRepToCalcSamp();
 
-					calcRepToCalcSamp.setCalcSampleId(calcSampleCache.getId());
-					calcRepToCalcSamp.setCalcReplicateId(calcReplicateId);
+				calcRepToCalcSamp.setCalcSampleId(calcSampleCache.getId());
+				calcRepToCalcSamp.setCalcReplicateId(calcReplicateId);
 
-					calcRepToCalcSampDao.create(calcRepToCalcSamp);
-				}
+				calcRepToCalcSampDao.create(calcRepToCalcSamp);
 			}
 
 		} catch (Exception e) {
 			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_sampleSaveFailed, e);
 		}
+	}
 
-		AbstractCache.clearCachesForThisThread();
+	// stores a sample calculated for CalcCacheWrites unless another one has been
+	// stored in the meantime, stale ones must have been removed beforehand
+	void storeCalcSampleCache(CalcSampleCache calcSampleCache, Collection<Integer> calcReplicateCacheIds) {
+		synchronized (CalculationLocks.getSampleLock(calcSampleCache.getSampleId(), calcSampleCache.getSampleAnalysisId())) {
+			try {
+				Dao<CalcSampleCache,Integer> calcSampleDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
+				QueryBuilder<CalcSampleCache,Integer> calcSampleQuery = calcSampleDao.queryBuilder();
+				calcSampleQuery.where().eq(CalcSampleCache.SAMPLEID_FIELD_NAME, calcSampleCache.getSampleId()).and().eq(CalcSampleCache.SAMPLE_ANALYSIS_ID_FIELD_NAME, calcSampleCache.getSampleAnalysisId());
+
+				if (calcSampleQuery.countOf() != 0) {
+					return;
+				}
 
-		return calcSampleCache;
+			} catch (SQLException e) {
+				Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemReadingCalcSampleCache, e);
+				return;
+			}
+
+			saveCalcSampleCache(calcSampleCache, calcReplicateCacheIds);
+		}
+	}
+
+	// removes the calculations of the sample only if they are marked as stale
+	void removeStaleSampleCalculations(int sampleId, int sampleAnalysisId) {
+		try {
+			Dao<CalcSampleCache,Integer> calcSampleDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
+			QueryBuilder<CalcSampleCache,Integer> calcSampleQuery = calcSampleDao.queryBuilder();
+			calcSampleQuery.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME);
+			calcSampleQuery.where().eq(CalcSampleCache.SAMPLEID_FIELD_NAME, sampleId).and().eq(CalcSampleCache.SAMPLE_ANALYSIS_ID_FIELD_NAME, sampleAnalysisId).and().eq(CalcSampleCache.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+
+			for (CalcSampleCache calcSampleCache : calcSampleQuery.query()) {
+				removeSampleCalculations(calcSampleCache.getId());
+			}
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemReadingCalcSampleCache, e);
+		}
 	}
 
 	private CalcSampleCache createCalcSampleCache(int sampleId, int sampleAnalysisId) {
@@ -142,8 +245,8 @@ public class LoadOrCalculateSample {
 		calcSampleCache.setFormatLookup(new FormatLookup());
 		calcSampleCache.setScratchPad(new ScratchPad<SamplePad>());
 
-		HashSet<Integer> calcReplicateCacheIds = new HashSet<Integer>();
-		calcSampleCache.getScratchPad().setVolatileData(CALC_REPLICATE_CACHE_IDS, calcReplicateCacheIds);
+		ArrayList<CalcReplicateCache> calcReplicateCaches = new ArrayList<CalcReplicateCache>();
+		calcSampleCache.getScratchPad().setVolatileData(CALC_REPLICATE_CACHES, calcReplicateCaches);
 
 		ArrayList<String> list = new ArrayList<String>();
 		list.add(Pad.ID);
@@ -193,33 +296,35 @@ public class LoadOrCalculateSample {
 		}
 
 		if (replicateList != null) {
+			// corr intervals and the user's choices of rep analysis are read once
+			// for the whole sample instead of once per replicate
+			CorrIntervalIndex corrIntervalIndex = null;
+
+			try {
+				HashSet<Integer> massSpecIds = new HashSet<Integer>();
+
+				for (ReplicateV1 replicate : replicateList) {
+					massSpecIds.add(replicate.getMassSpecId());
+				}
+
+				corrIntervalIndex = CorrIntervalIndex.getInstance(connectionSource, massSpecIds);
+
+			} catch (Exception e) {
+				Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemReadingCorrIntervalList, e);
+			}
+
+			List<RepAnalysisChoice> repAnalysisChoices = null;
+			boolean repAnalysisChoicesRead = false;
+
 			for (ReplicateV1 replicate : replicateList) {
 				replicateIds.put(replicate.getDate(), replicate.getId());
 
 				ArrayList<Integer> potentialRepAnalysesForThisReplicate = new ArrayList<Integer>();
 				potentialRepAnalysisIds.put(replicate.getDate(), potentialRepAnalysesForThisReplicate);
 
-				List<CorrIntervalV1> corrIntervalList = null;
-
-				try {
-					Dao<CorrIntervalV1,Integer> corrIntervalDao = DaoManager.createDao(connectionSource, CorrIntervalV1.class);
-					QueryBuilder<CorrIntervalV1, Integer> queryBuilder = corrIntervalDao.queryBuilder();
-					queryBuilder.where()
-						.eq(CorrIntervalV1.MASSSPECID_FIELD_NAME, replicate.getMassSpecId())
-						.and()
-						.le(CorrIntervalV1.VALIDFROM_FIELD_NAME, replicate.getDate())
-						.and()
-						.gt(CorrIntervalV1.VALIDUNTIL_FIELD_NAME, replicate.getDate());
-					PreparedQuery<CorrIntervalV1> preparedQuery = queryBuilder.prepare();
+				CorrIntervalV1 corrInterval = corrIntervalIndex == null ? null : corrIntervalIndex.getCorrInterval(replicate.getMassSpecId(), replicate.getDate());
 
-					corrIntervalList = corrIntervalDao.query(preparedQuery);
-
-				} catch (Exception e) {
-					Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemReadingCorrIntervalList, e);
-					corrIntervalList = null;
-				}
-
-				if (corrIntervalList == null || corrIntervalList.size() == 0) {
+				if (corrInterval == null) {
 					ReplicatePad pad = new ReplicatePad(calcSampleCache.getScratchPad().getChild(0), replicate.getDate(), replicate.getId(), ReplicateType.SAMPLE_RUN);
 					pad.setValue(Pad.ANALYSIS, Messages.loadOrCalculateSample_unknown);
 					pad.setValue(Pad.ANALYSIS_STATUS, Status.ERROR);
@@ -227,7 +332,6 @@ public class LoadOrCalculateSample {
 					continue;
 				}
 
-				CorrIntervalV1 corrInterval = corrIntervalList.get(0);
 				HashSet<Integer> existingRepAnalyses = new HashSet<Integer>();
 
 				for (int i : corrInterval.getDataAnalysis()) {
@@ -253,7 +357,7 @@ public class LoadOrCalculateSample {
 					CalcReplicateCache calcReplicateCache = getCalcReplicateCache(replicate, repAnalysisId, corrInterval);
 					calcReplicateCache.getScratchPad().getChild(0).reassignToParent(calcSampleCache.getScratchPad().getChild(0));
 
-					calcReplicateCacheIds.add(calcReplicateCache.getId());
+					calcReplicateCaches.add(calcReplicateCache);
 					corrIntervalIds.add(calcReplicateCache.getCorrIntervalId());
 					repAnalysisIds.add(calcReplicateCache.getReplicateAnalysisId());
 
@@ -261,19 +365,21 @@ public class LoadOrCalculateSample {
 					calcSampleCache.getFormatLookup().add(calcReplicateCache.getFormatLookup());
 
 				} else {
-					List<RepAnalysisChoice> repAnalysisChoices = null;
+					if (!repAnalysisChoicesRead) {
+						repAnalysisChoicesRead = true;
 
-					try {
-						Dao<RepAnalysisChoice,Integer> repSelectionDao = DaoManager.createDao(connectionSource, RepAnalysisChoice.class);
+						try {
+							Dao<RepAnalysisChoice,Integer> repSelectionDao = DaoManager.createDao(connectionSource, RepAnalysisChoice.class);
 
-						HashMap<String,Object> fields = new HashMap<String,Object>();
-						fields.put(RepAnalysisChoice.SAMPLE_ID_FIELD_NAME, sample.getId());
-						fields.put(RepAnalysisChoice.SAM_ANALYSIS_ID_FIELD_NAME, samAnalysis.getId());
+							HashMap<String,Object> fields = new HashMap<String,Object>();
+							fields.put(RepAnalysisChoice.SAMPLE_ID_FIELD_NAME, sample.getId());
+							fields.put(RepAnalysisChoice.SAM_ANALYSIS_ID_FIELD_NAME, samAnalysis.getId());
 
-						repAnalysisChoices = repSelectionDao.queryForFieldValues(fields);
+							repAnalysisChoices = repSelectionDao.queryForFieldValues(fields);
 
-					} catch (SQLException e) {
-						// ignore
+						} catch (SQLException e) {
+							// ignore
+						}
 					}
 
 					if (repAnalysisChoices != null && repAnalysisChoices.size() == 1 && potentialRepAnalyses.contains(repAnalysisChoices.get(0).getRepIdsToRepAnalysisChoice().get(replicate.getId()))) {
@@ -281,7 +387,7 @@ public class LoadOrCalculateSample {
 						CalcReplicateCache calcReplicateCache = getCalcReplicateCache(replicate, userSelectedRepAnalysisId, corrInterval);
 						calcReplicateCache.getScratchPad().getChild(0).reassignToParent(calcSampleCache.getScratchPad().getChild(0));
 
-						calcReplicateCacheIds.add(calcReplicateCache.getId());
+						calcReplicateCaches.add(calcReplicateCache);
 						corrIntervalIds.add(calcReplicateCache.getCorrIntervalId());
 						repAnalysisIds.add(calcReplicateCache.getReplicateAnalysisId());
 
@@ -405,6 +511,16 @@ public class LoadOrCalculateSample {
 	}
 
 	private CalcReplicateCache getCalcReplicateCache(ReplicateV1 replicate, int replicateAnalysisId, CorrIntervalV1 corrInterval) {
+		if (calcCacheWrites != null) {
+			CalcReplicateCache calcReplicateCache = calcCacheWrites.getCalcReplicateCache(replicate.getId(), replicateAnalysisId);
+
+			if (calcReplicateCache != null) {
+				return calcReplicateCache;
+			}
+		}
+
+		int staleCalcReplicateCacheId = DatabaseConstants.EMPTY_DB_ID;
+
 		try {
 			Dao<CalcReplicateCache,Integer> calcReplicateDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
 
@@ -414,7 +530,12 @@ public class LoadOrCalculateSample {
 			List<CalcReplicateCache> list = calcReplicateDao.queryForFieldValues(queryMap);
 
 			if (list != null && list.size() == 1) {
-				return list.get(0);
+				if (!CalcCacheFingerprint.STALE.equals(list.get(0).getFingerprint())) {
+					return list.get(0);
+				}
+
+				// a stale entry is recalculated in place so that other samples stay linked to it
+				staleCalcReplicateCacheId = list.get(0).getId();
 			}
 
 		} catch (Exception e) {
@@ -423,15 +544,65 @@ public class LoadOrCalculateSample {
 
 		CalcReplicateCache calcReplicateCache = createCalcReplicateCache(replicate, replicateAnalysisId, corrInterval);
 
+		try {
+			calcReplicateCache.setFingerprint(getCalcCacheFingerprint().getCorrIntervalFingerprint(corrInterval.getId(), replicateAnalysisId));
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_fingerprintFailed, e);
+		}
+
+		if (calcCacheWrites != null) {
+			calcCacheWrites.addCalcReplicateCache(calcReplicateCache);
+		} else {
+			saveCalcReplicateCache(calcReplicateCache, staleCalcReplicateCacheId);
+		}
+
+		return calcReplicateCache;
+	}
+
+	private void saveCalcReplicateCache(CalcReplicateCache calcReplicateCache, int staleCalcReplicateCacheId) {
 		try {
 			Dao<CalcReplicateCache,Integer> calcReplicateCacheDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
-			calcReplicateCacheDao.create(calcReplicateCache);
+
+			if (staleCalcReplicateCacheId != DatabaseConstants.EMPTY_DB_ID) {
+				calcReplicateCache.setId(staleCalcReplicateCacheId);
+				calcReplicateCacheDao.update(calcReplicateCache);
+			} else {
+				calcReplicateCacheDao.create(calcReplicateCache);
+			}
 
 		} catch (Exception e) {
 				Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_replicateSaveFailed, e);
 		}
+	}
 
-		return calcReplicateCache;
+	// stores a replicate calculated for CalcCacheWrites, if an up to date one has been
+	// stored in the meantime that one is kept and its id is taken
+	void storeCalcReplicateCache(CalcReplicateCache calcReplicateCache) {
+		int staleCalcReplicateCacheId = DatabaseConstants.EMPTY_DB_ID;
+
+		try {
+			Dao<CalcReplicateCache,Integer> calcReplicateDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
+			QueryBuilder<CalcReplicateCache,Integer> calcReplicateQuery = calcReplicateDao.queryBuilder();
+			calcReplicateQuery.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME, CalcReplicateCache.FINGERPRINT_FIELD_NAME);
+			calcReplicateQuery.where().eq(CalcReplicateCache.REPLICATE_ID_FIELD_NAME, calcReplicateCache.getReplicateId()).and().eq(CalcReplicateCache.REPLICATE_ANALYSIS_ID_FIELD_NAME, calcReplicateCache.getReplicateAnalysisId());
+			List<CalcReplicateCache> list = calcReplicateQuery.query();
+
+			if (list.size() == 1) {
+				if (!CalcCacheFingerprint.STALE.equals(list.get(0).getFingerprint())) {
+					calcReplicateCache.setId(list.get(0).getId());
+					return;
+				}
+
+				staleCalcReplicateCacheId = list.get(0).getId();
+			}
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemReadingCalcReplicateCache, e);
+			return;
+		}
+
+		saveCalcReplicateCache(calcReplicateCache, staleCalcReplicateCacheId);
 	}
 
 	private CalcReplicateCache createCalcReplicateCache(ReplicateV1 replicate, int replicateAnalysisId, CorrIntervalV1 corrInterval) {		
@@ -461,7 +632,7 @@ public class LoadOrCalculateSample {
 			List<RepStepParams> repStepParameters = GetFromDb.getRepStepParameters(connectionSource, corrInterval.getId(), replicateAnalysisId);
 			AnalysisWithParameters dataAnalysisWithParameters = new AnalysisWithParameters(repAnalysis, repSteps, repStepParameters);
 
-			LoadOrCalculateCorrInterval loadOrCalculateCorrInterval = new LoadOrCalculateCorrInterval(corrInterval.getId(), replicateAnalysisId, connectionSource);
+			LoadOrCalculateCorrInterval loadOrCalculateCorrInterval = (calcCacheWrites != null) ? new LoadOrCalculateCorrInterval(corrInterval.getId(), replicateAnalysisId, connectionSource, calcCacheWrites) : new LoadOrCalculateCorrInterval(corrInterval.getId(), replicateAnalysisId, connectionSource);
 			scratchPad = loadOrCalculateCorrInterval.getCorrIntervalScratchPad().getScratchPad();
 			List<CorrIntervalError> corrIntervalErrors = loadOrCalculateCorrInterval.getCorrIntervalError();
 
@@ -542,17 +713,14 @@ public class LoadOrCalculateSample {
 
 		try {
 			Dao<CalcReplicateCache,Integer> calcReplicateCacheDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
-			Dao<CalcRepToCalcSamp,Integer> calcRepToCalcSampDao = DaoManager.createDao(connectionSource, CalcRepToCalcSamp.class);
+			QueryBuilder<CalcReplicateCache,Integer> queryBuilder = calcReplicateCacheDao.queryBuilder();
+			queryBuilder.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME);
+			queryBuilder.where()
+				.eq(CalcReplicateCache.CORR_INTERVAL_ID_FIELD_NAME, corrIntervalId)
+				.and()
+				.eq(CalcReplicateCache.REPLICATE_ANALYSIS_ID_FIELD_NAME, replicateAnalysisId);
 
-			HashMap<String,Object> queryMap = new HashMap<String,Object>();
-			queryMap.put(CalcReplicateCache.CORR_INTERVAL_ID_FIELD_NAME, corrIntervalId);
-			queryMap.put(CalcReplicateCache.REPLICATE_ANALYSIS_ID_FIELD_NAME, replicateAnalysisId);
-
-			for (CalcReplicateCache calcReplicateCache : calcReplicateCacheDao.queryForFieldValues(queryMap)) {
-				for (CalcRepToCalcSamp calcRepToCalcSamp : calcRepToCalcSampDao.queryForEq(CalcRepToCalcSamp.CALC_REPLICATE_ID_FIELD_NAME, calcReplicateCache.getId())) {
-					results.add(calcRepToCalcSamp.getCalcSampleId());
-				}
-			}
+			results.addAll(getCalcSampleCacheIdsFromCalcReplicateCacheIds(queryBuilder.query()));
 
 		} catch (SQLException e) {
 			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemWithGetCalcSampleCacheIdsFromCorrIntervalAndReplicateAnalysis, e);
@@ -566,12 +734,14 @@ public class LoadOrCalculateSample {
 
 		try {
 			Dao<CalcSampleCache,Integer> calcSampleDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
-
-			HashMap<String,Object> queryMap = new HashMap<String,Object>();
-			queryMap.put(CalcSampleCache.SAMPLEID_FIELD_NAME, sampleId);
-			queryMap.put(CalcSampleCache.SAMPLE_ANALYSIS_ID_FIELD_NAME, sampleAnalysisId);
-
-			for (CalcSampleCache calcSampleCache : calcSampleDao.queryForFieldValues(queryMap)) {
+			QueryBuilder<CalcSampleCache,Integer> queryBuilder = calcSampleDao.queryBuilder();
+			queryBuilder.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME);
+			queryBuilder.where()
+				.eq(CalcSampleCache.SAMPLEID_FIELD_NAME, sampleId)
+				.and()
+				.eq(CalcSampleCache.SAMPLE_ANALYSIS_ID_FIELD_NAME, sampleAnalysisId);
+
+			for (CalcSampleCache calcSampleCache : queryBuilder.query()) {
 				results.add(calcSampleCache.getId());
 			}
 
@@ -587,13 +757,11 @@ public class LoadOrCalculateSample {
 
 		try {
 			Dao<CalcReplicateCache,Integer> calcReplicateCacheDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
-			Dao<CalcRepToCalcSamp,Integer> calcRepToCalcSampDao = DaoManager.createDao(connectionSource, CalcRepToCalcSamp.class);
+			QueryBuilder<CalcReplicateCache,Integer> queryBuilder = calcReplicateCacheDao.queryBuilder();
+			queryBuilder.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME);
+			queryBuilder.where().eq(CalcReplicateCache.REPLICATE_ID_FIELD_NAME, replicateId);
 
-			for (CalcReplicateCache calcReplicateCache : calcReplicateCacheDao.queryForEq(CalcReplicateCache.REPLICATE_ID_FIELD_NAME, replicateId)) {
-				for (CalcRepToCalcSamp calcRepToCalcSamp : calcRepToCalcSampDao.queryForEq(CalcRepToCalcSamp.CALC_REPLICATE_ID_FIELD_NAME, calcReplicateCache.getId())) {
-					results.add(calcRepToCalcSamp.getCalcSampleId());
-				}
-			}
+			results.addAll(getCalcSampleCacheIdsFromCalcReplicateCacheIds(queryBuilder.query()));
 
 		} catch (SQLException e) {
 			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemWithGetCalcSampleCacheIdsFromReplicateId, e);
@@ -607,8 +775,11 @@ public class LoadOrCalculateSample {
 
 		try {
 			Dao<CalcSampleCache,Integer> calcSampleDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
+			QueryBuilder<CalcSampleCache,Integer> queryBuilder = calcSampleDao.queryBuilder();
+			queryBuilder.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME);
+			queryBuilder.where().eq(CalcSampleCache.SAMPLEID_FIELD_NAME, sampleId);
 
-			for (CalcSampleCache calcSampleCache : calcSampleDao.queryForEq(CalcSampleCache.SAMPLEID_FIELD_NAME, sampleId)) {
+			for (CalcSampleCache calcSampleCache : queryBuilder.query()) {
 				results.add(calcSampleCache.getId());
 			}
 
@@ -619,34 +790,157 @@ public class LoadOrCalculateSample {
 		return results;
 	}
 
+	private LinkedHashSet<Integer> getCalcSampleCacheIdsFromCalcReplicateCacheIds(List<CalcReplicateCache> calcReplicateCaches) throws SQLException {
+		LinkedHashSet<Integer> results = new LinkedHashSet<Integer>();
+
+		if (calcReplicateCaches.isEmpty()) {
+			return results;
+		}
+
+		ArrayList<Integer> calcReplicateCacheIds = new ArrayList<Integer>();
+
+		for (CalcReplicateCache calcReplicateCache : calcReplicateCaches) {
+			calcReplicateCacheIds.add(calcReplicateCache.getId());
+		}
+
+		Dao<CalcRepToCalcSamp,Integer> calcRepToCalcSampDao = DaoManager.createDao(connectionSource, CalcRepToCalcSamp.class);
+
+		for (int i=0; i<calcReplicateCacheIds.size(); i+=GetFromDb.MAX_IDS_PER_QUERY) {
+			List<Integer> ids = calcReplicateCacheIds.subList(i, Math.min(i + GetFromDb.MAX_IDS_PER_QUERY, calcReplicateCacheIds.size()));
+
+			QueryBuilder<CalcRepToCalcSamp,Integer> queryBuilder = calcRepToCalcSampDao.queryBuilder();
+			queryBuilder.selectColumns(CalcRepToCalcSamp.CALC_SAMPLE_ID_FIELD_NAME);
+			queryBuilder.where().in(CalcRepToCalcSamp.CALC_REPLICATE_ID_FIELD_NAME, ids);
+
+			for (CalcRepToCalcSamp calcRepToCalcSamp : queryBuilder.query()) {
+				results.add(calcRepToCalcSamp.getCalcSampleId());
+			}
+		}
+
+		return results;
+	}
+
+	// marks the calc sample caches so that they are recalculated when next read instead
+	// of deleting them right away. the returned objects only contain the id, sample id
+	// and sample analysis id.
+	public ArrayList<CalcSampleCache> markSampleCalculationsStale(Collection<Integer> calcSampleCacheIds) {
+		ArrayList<CalcSampleCache> results = new ArrayList<CalcSampleCache>();
+		ArrayList<Integer> allIds = new ArrayList<Integer>(new LinkedHashSet<Integer>(calcSampleCacheIds));
+
+		try {
+			Dao<CalcSampleCache,Integer> calcSampleDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
+
+			for (int i=0; i<allIds.size(); i+=GetFromDb.MAX_IDS_PER_QUERY) {
+				List<Integer> ids = allIds.subList(i, Math.min(i + GetFromDb.MAX_IDS_PER_QUERY, allIds.size()));
+
+				QueryBuilder<CalcSampleCache,Integer> calcSampleQuery = calcSampleDao.queryBuilder();
+				calcSampleQuery.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME, CalcSampleCache.SAMPLEID_FIELD_NAME, CalcSampleCache.SAMPLE_ANALYSIS_ID_FIELD_NAME);
+				calcSampleQuery.where().in(TableObjectWithIntegerId.ID_FIELD_NAME, ids);
+				results.addAll(calcSampleQuery.query());
+
+				UpdateBuilder<CalcSampleCache,Integer> updateBuilder = calcSampleDao.updateBuilder();
+				updateBuilder.updateColumnValue(CalcSampleCache.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+				updateBuilder.where().in(TableObjectWithIntegerId.ID_FIELD_NAME, ids);
+				updateBuilder.update();
+			}
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemMarkingStale, e);
+		}
+
+		return results;
+	}
+
+	public void markReplicateCalculationsStale(int replicateId) {
+		try {
+			Dao<CalcReplicateCache,Integer> calcReplicateCacheDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
+			UpdateBuilder<CalcReplicateCache,Integer> updateBuilder = calcReplicateCacheDao.updateBuilder();
+			updateBuilder.updateColumnValue(CalcReplicateCache.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+			updateBuilder.where().eq(CalcReplicateCache.REPLICATE_ID_FIELD_NAME, replicateId);
+			updateBuilder.update();
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemMarkingStale, e);
+		}
+	}
+
+	public void markReplicateCalculationsStale(int corrIntervalId, int replicateAnalysisId) {
+		try {
+			Dao<CalcReplicateCache,Integer> calcReplicateCacheDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
+			UpdateBuilder<CalcReplicateCache,Integer> updateBuilder = calcReplicateCacheDao.updateBuilder();
+			updateBuilder.updateColumnValue(CalcReplicateCache.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+			updateBuilder.where()
+				.eq(CalcReplicateCache.CORR_INTERVAL_ID_FIELD_NAME, corrIntervalId)
+				.and()
+				.eq(CalcReplicateCache.REPLICATE_ANALYSIS_ID_FIELD_NAME, replicateAnalysisId);
+			updateBuilder.update();
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemMarkingStale, e);
+		}
+	}
+
+	// only the key columns are read and everything is removed with set based deletes,
+	// the serialized scratch pads of the cache entries are never loaded. the returned
+	// object only contains the id, sample id and sample analysis id.
 	public CalcSampleCache removeSampleCalculations(int calcSampleCacheId) {
 		CalcSampleCache calcSampleCache = null;
 
 		try {
 			Dao<CalcSampleCache,Integer> calcSampleDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
-			calcSampleCache = calcSampleDao.queryForId(calcSampleCacheId);
+			QueryBuilder<CalcSampleCache,Integer> calcSampleQuery = calcSampleDao.queryBuilder();
+			calcSampleQuery.selectColumns(TableObjectWithIntegerId.ID_FIELD_NAME, CalcSampleCache.SAMPLEID_FIELD_NAME, CalcSampleCache.SAMPLE_ANALYSIS_ID_FIELD_NAME);
+			calcSampleQuery.where().idEq(calcSampleCacheId);
+			calcSampleCache = calcSampleQuery.queryForFirst();
 
 			if (calcSampleCache == null) {
 				return null;
 			}
 
 			Dao<CalcRepToCalcSamp,Integer> calcRepToCalcSampDao = DaoManager.createDao(connectionSource, CalcRepToCalcSamp.class);
+			QueryBuilder<CalcRepToCalcSamp,Integer> calcRepToCalcSampQuery = calcRepToCalcSampDao.queryBuilder();
+			calcRepToCalcSampQuery.selectColumns(CalcRepToCalcSamp.CALC_REPLICATE_ID_FIELD_NAME);
+			calcRepToCalcSampQuery.where().eq(CalcRepToCalcSamp.CALC_SAMPLE_ID_FIELD_NAME, calcSampleCacheId);
+
 			HashSet<Integer> calcReplicateCacheIds = new HashSet<Integer>();
 
-			for (CalcRepToCalcSamp calcRepToCalcSamp : calcRepToCalcSampDao.queryForEq(CalcRepToCalcSamp.CALC_SAMPLE_ID_FIELD_NAME, calcSampleCacheId)) {
+			for (CalcRepToCalcSamp calcRepToCalcSamp : calcRepToCalcSampQuery.query()) {
 				calcReplicateCacheIds.add(calcRepToCalcSamp.getCalcReplicateId());
-				calcRepToCalcSampDao.deleteById(calcRepToCalcSamp.getId());
 			}
 
-			Dao<CalcReplicateCache,Integer> calcReplicateCacheDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
+			DeleteBuilder<CalcRepToCalcSamp,Integer> calcRepToCalcSampDelete = calcRepToCalcSampDao.deleteBuilder();
+			calcRepToCalcSampDelete.where().eq(CalcRepToCalcSamp.CALC_SAMPLE_ID_FIELD_NAME, calcSampleCacheId);
+			calcRepToCalcSampDelete.delete();
+
+			ArrayList<Integer> candidateIds = new ArrayList<Integer>(calcReplicateCacheIds);
+
+			// calc replicate caches that are still used by other calc sample caches are kept
+			for (int i=0; i<candidateIds.size(); i+=GetFromDb.MAX_IDS_PER_QUERY) {
+				List<Integer> ids = candidateIds.subList(i, Math.min(i + GetFromDb.MAX_IDS_PER_QUERY, candidateIds.size()));
+
+				QueryBuilder<CalcRepToCalcSamp,Integer> stillUsedQuery = calcRepToCalcSampDao.queryBuilder();
+				stillUsedQuery.selectColumns(CalcRepToCalcSamp.CALC_REPLICATE_ID_FIELD_NAME);
+				stillUsedQuery.where().in(CalcRepToCalcSamp.CALC_REPLICATE_ID_FIELD_NAME, ids);
 
-			for (int calcReplicateCacheId : calcReplicateCacheIds) {
-				if (calcRepToCalcSampDao.queryForEq(CalcRepToCalcSamp.CALC_REPLICATE_ID_FIELD_NAME, calcReplicateCacheId).size() == 0) {
-					calcReplicateCacheDao.deleteById(calcReplicateCacheId);
+				for (CalcRepToCalcSamp calcRepToCalcSamp : stillUsedQuery.query()) {
+					calcReplicateCacheIds.remove(calcRepToCalcSamp.getCalcReplicateId());
 				}
 			}
 
-			calcSampleDao.delete(calcSampleCache);
+			Dao<CalcReplicateCache,Integer> calcReplicateCacheDao = DaoManager.createDao(connectionSource, CalcReplicateCache.class);
+			ArrayList<Integer> unusedIds = new ArrayList<Integer>(calcReplicateCacheIds);
+
+			for (int i=0; i<unusedIds.size(); i+=GetFromDb.MAX_IDS_PER_QUERY) {
+				List<Integer> ids = unusedIds.subList(i, Math.min(i + GetFromDb.MAX_IDS_PER_QUERY, unusedIds.size()));
+
+				DeleteBuilder<CalcReplicateCache,Integer> calcReplicateCacheDelete = calcReplicateCacheDao.deleteBuilder();
+				calcReplicateCacheDelete.where().in(TableObjectWithIntegerId.ID_FIELD_NAME, ids);
+				calcReplicateCacheDelete.delete();
+			}
+
+			DeleteBuilder<CalcSampleCache,Integer> calcSampleDelete = calcSampleDao.deleteBuilder();
+			calcSampleDelete.where().idEq(calcSampleCacheId);
+			calcSampleDelete.delete();
 
 		} catch (SQLException e) {
 			Log.getInstance().log(Level.INFO, LoadOrCalculateSample.class, Messages.loadOrCalculateSample_problemDeletingCalcSampleCache, e);
@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.analysis.server;
+
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.easotope.framework.core.logging.Log;
+import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.core.util.SystemProperty;
+import org.easotope.framework.dbcore.cmdprocessors.BackgroundTask;
+import org.easotope.framework.dbcore.util.RawFileManager;
+import org.easotope.shared.Messages;
+import org.easotope.shared.analysis.tables.CalcSampleCache;
+import org.easotope.shared.analysis.tables.CorrIntervalError;
+import org.easotope.shared.analysis.tables.CorrIntervalScratchPad;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.support.ConnectionSource;
+
+// redoes the calculations that the event handlers marked as stale once no new edits
+// have arrived for a while, so that a burst of edits during an import leads to one
+// recalculation instead of one per edit. anything requested before that is
+// recalculated by the read itself. corr intervals are recalculated while the step
+// is prepared so that commands are only delayed by storing them. the task never
+// finishes.
+public class StaleCalculationTask implements BackgroundTask {
+	private static LinkedHashMap<String,int[]> staleCorrIntervals = new LinkedHashMap<String,int[]>();
+	private static LinkedHashMap<String,int[]> staleSamples = new LinkedHashMap<String,int[]>();
+	private static long lastMarked = 0;
+	private static boolean announced = false;
+
+	private LoadOrCalculateCorrInterval preparedCorrInterval = null;
+
+	public static synchronized void addCorrInterval(int corrIntervalId, int replicateAnalysisId) {
+		staleCorrIntervals.put(corrIntervalId + ":" + replicateAnalysisId, new int[] { corrIntervalId, replicateAnalysisId });
+		lastMarked = System.currentTimeMillis();
+	}
+
+	public static synchronized void addSample(int sampleId, int sampleAnalysisId) {
+		staleSamples.put(sampleId + ":" + sampleAnalysisId, new int[] { sampleId, sampleAnalysisId });
+		lastMarked = System.currentTimeMillis();
+	}
+
+	private static synchronized int[] peekCorrInterval() {
+		Iterator<int[]> iterator = staleCorrIntervals.values().iterator();
+		return iterator.hasNext() ? iterator.next() : null;
+	}
+
+	private static synchronized int[] pollCorrInterval() {
+		return poll(staleCorrIntervals);
+	}
+
+	private static synchronized int[] pollSample() {
+		return poll(staleSamples);
+	}
+
+	private static int[] poll(LinkedHashMap<String,int[]> map) {
+		Iterator<int[]> iterator = map.values().iterator();
+
+		if (!iterator.hasNext()) {
+			return null;
+		}
+
+		int[] item = iterator.next();
+		iterator.remove();
+
+		return item;
+	}
+
+	@Override
+	public String getName() {
+		return Messages.staleCalculationTask_name;
+	}
+
+	@Override
+	public boolean isReady() {
+		synchronized (StaleCalculationTask.class) {
+			if (staleCorrIntervals.isEmpty() && staleSamples.isEmpty()) {
+				return false;
+			}
+
+			return System.currentTimeMillis() - lastMarked >= SystemProperty.getRecalculationDelay() * 1000L;
+		}
+	}
+
+	@Override
+	public void prepareStep(ConnectionSource connectionSource, RawFileManager rawFileManager) {
+		preparedCorrInterval = null;
+
+		int[] item = peekCorrInterval();
+
+		try {
+			if (item != null && isCorrIntervalStillStale(connectionSource, item[0], item[1])) {
+				preparedCorrInterval = LoadOrCalculateCorrInterval.calculateWithoutStoring(item[0], item[1], connectionSource);
+			}
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, this, Messages.staleCalculationTask_errorCheckingEntry, e);
+		}
+	}
+
+	@Override
+	public boolean runStep(ConnectionSource connectionSource, RawFileManager rawFileManager) {
+		synchronized (StaleCalculationTask.class) {
+			if (!announced) {
+				String message = MessageFormat.format(Messages.staleCalculationTask_starting, staleCorrIntervals.size(), staleSamples.size());
+				Log.getInstance().log(Level.INFO, this, message);
+				announced = true;
+			}
+		}
+
+		// corr intervals first since every sample calculation needs them, the
+		// one polled here is the one that was prepared
+		int[] item = pollCorrInterval();
+
+		try {
+			if (item != null) {
+				if (preparedCorrInterval != null) {
+					preparedCorrInterval.store(connectionSource);
+					preparedCorrInterval = null;
+				}
+
+			} else {
+				item = pollSample();
+
+				if (item != null && isSampleStillStale(connectionSource, item[0], item[1])) {
+					new LoadOrCalculateSample(connectionSource).getCalcSampleCache(item[0], item[1]);
+				}
+			}
+
+		} catch (SQLException e) {
+			Log.getInstance().log(Level.INFO, this, Messages.staleCalculationTask_errorCheckingEntry, e);
+		}
+
+		synchronized (StaleCalculationTask.class) {
+			if (staleCorrIntervals.isEmpty() && staleSamples.isEmpty()) {
+				announced = false;
+			}
+		}
+
+		return true;
+	}
+
+	// entries that were already recalculated by a read or removed in the meantime are skipped
+	private boolean isCorrIntervalStillStale(ConnectionSource connectionSource, int corrIntervalId, int replicateAnalysisId) throws SQLException {
+		Dao<CorrIntervalScratchPad,Integer> corrIntervalScratchPadDao = DaoManager.createDao(connectionSource, CorrIntervalScratchPad.class);
+		QueryBuilder<CorrIntervalScratchPad,Integer> corrIntervalScratchPadQuery = corrIntervalScratchPadDao.queryBuilder();
+		corrIntervalScratchPadQuery.where()
+			.eq(CorrIntervalScratchPad.CORR_INTERVAL_ID_FIELD_NAME, corrIntervalId)
+			.and()
+			.eq(CorrIntervalScratchPad.DATA_ANALYSIS_ID_FIELD_NAME, replicateAnalysisId)
+			.and()
+			.eq(CorrIntervalScratchPad.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+
+		if (corrIntervalScratchPadQuery.countOf() != 0) {
+			return true;
+		}
+
+		Dao<CorrIntervalError,Integer> corrIntervalErrorDao = DaoManager.createDao(connectionSource, CorrIntervalError.class);
+		QueryBuilder<CorrIntervalError,Integer> corrIntervalErrorQuery = corrIntervalErrorDao.queryBuilder();
+		corrIntervalErrorQuery.where()
+			.eq(CorrIntervalError.CORR_INTERVAL_ID_FIELD_NAME, corrIntervalId)
+			.and()
+			.eq(CorrIntervalError.DATA_ANALYSIS_ID_FIELD_NAME, replicateAnalysisId)
+			.and()
+			.eq(CorrIntervalError.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+
+		return corrIntervalErrorQuery.countOf() != 0;
+	}
+
+	private boolean isSampleStillStale(ConnectionSource connectionSource, int sampleId, int sampleAnalysisId) throws SQLException {
+		Dao<CalcSampleCache,Integer> calcSampleCacheDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
+		QueryBuilder<CalcSampleCache,Integer> calcSampleCacheQuery = calcSampleCacheDao.queryBuilder();
+		calcSampleCacheQuery.where()
+			.eq(CalcSampleCache.SAMPLEID_FIELD_NAME, sampleId)
+			.and()
+			.eq(CalcSampleCache.SAMPLE_ANALYSIS_ID_FIELD_NAME, sampleAnalysisId)
+			.and()
+			.eq(CalcSampleCache.FINGERPRINT_FIELD_NAME, CalcCacheFingerprint.STALE);
+
+		return calcSampleCacheQuery.countOf() != 0;
+	}
+}
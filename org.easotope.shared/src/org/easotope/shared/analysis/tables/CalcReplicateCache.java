@@ -44,7 +44,7 @@ import com.j256.ormlite.table.DatabaseTable;
 public class CalcReplicateCache extends TableObjectWithIntegerId {
 	private static final long serialVersionUID = 1L;
 
-	public static final String TABLE_NAME = "CALCREPLICATECACHE_V0";
+	public static final String TABLE_NAME = "CALCREPLICATECACHE_V1";
 	public static final String REPLICATE_ID_FIELD_NAME = "REPLICATEID";
 	public static final String REPLICATE_ANALYSIS_ID_FIELD_NAME = "REPLICATEANALYSISID";
 	public static final String SCRATCH_PAD_FIELD_NAME = "SCRATCHPAD";
@@ -54,6 +54,7 @@ public class CalcReplicateCache extends TableObjectWithIntegerId {
 	public static final String COLUMN_ORDERING_FIELD_NAME = "COLUMN_ORDERING";
 	public static final String FORMAT_LOOKUP_FIELD_NAME = "FORMAT_LOOKUP";
 	public static final String CORR_INTERVAL_ID_FIELD_NAME = "CORRINTERVALID";
+	public static final String FINGERPRINT_FIELD_NAME = "FINGERPRINT";
 
 	@DatabaseField(columnName=REPLICATE_ID_FIELD_NAME, indexName="calcreplicatecache_replicateidanalysisid_idx")
 	private int replicateId;
@@ -74,6 +75,9 @@ public class CalcReplicateCache extends TableObjectWithIntegerId {
 	@DatabaseField(columnName=CORR_INTERVAL_ID_FIELD_NAME)
 	private int corrIntervalId;
 
+	@DatabaseField(columnName=FINGERPRINT_FIELD_NAME)
+	private String fingerprint;
+
 	public CalcReplicateCache() { }
 
 	public CalcReplicateCache(CalcReplicateCache calcSampleCache) {
@@ -99,6 +103,7 @@ public class CalcReplicateCache extends TableObjectWithIntegerId {
 		this.columnOrdering = calcSampleCache.columnOrdering == null ? null : new ColumnOrdering(calcSampleCache.columnOrdering);
 		this.formatLookup = calcSampleCache.formatLookup == null ? null : new FormatLookup(calcSampleCache.formatLookup);
 		this.corrIntervalId = calcSampleCache.corrIntervalId;
+		this.fingerprint = calcSampleCache.fingerprint;
 	}
 
 	public int getReplicateId() {
@@ -172,4 +177,12 @@ public class CalcReplicateCache extends TableObjectWithIntegerId {
 	public void setCorrIntervalId(int corrIntervalId) {
 		this.corrIntervalId = corrIntervalId;
 	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public void setFingerprint(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
 }
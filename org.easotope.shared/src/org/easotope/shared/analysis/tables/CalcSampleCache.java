@@ -45,7 +45,7 @@ import com.j256.ormlite.table.DatabaseTable;
 public class CalcSampleCache extends TableObjectWithIntegerId {
 	private static final long serialVersionUID = 1L;
 
-	public static final String TABLE_NAME = "CALCSAMPLECACHE_V0";
+	public static final String TABLE_NAME = "CALCSAMPLECACHE_V1";
 	public static final String SAMPLEID_FIELD_NAME = "SAMPLEID";
 	public static final String SAMPLE_ANALYSIS_ID_FIELD_NAME = "SAMPLEANALYSISID";
 	public static final String SCRATCH_PAD_FIELD_NAME = "SCRATCHPAD";
@@ -58,6 +58,7 @@ public class CalcSampleCache extends TableObjectWithIntegerId {
 	public static final String REP_ANALYSIS_IDS_FIELD_NAME = "REPANALYSISIDS";
 	public static final String REPLICATE_IDS_FIELD_NAME = "REPLICATEIDS";
 	public static final String POTENTIAL_REP_ANALYSES_FIELD_NAME = "POTENTIALREPANALYSES";
+	public static final String FINGERPRINT_FIELD_NAME = "FINGERPRINT";
 
 	@DatabaseField(columnName=SAMPLEID_FIELD_NAME, indexName="calcsamplecache_sampleidanalysisid_idx")
 	private int sampleId;
@@ -84,6 +85,9 @@ public class CalcSampleCache extends TableObjectWithIntegerId {
 	@DatabaseField(columnName=POTENTIAL_REP_ANALYSES_FIELD_NAME, dataType=DataType.SERIALIZABLE)
 	private int[][] potentialRepAnalyses;
 
+	@DatabaseField(columnName=FINGERPRINT_FIELD_NAME)
+	private String fingerprint;
+
 	public CalcSampleCache() { }
 
 	public CalcSampleCache(CalcSampleCache calcSampleCache) {
@@ -91,8 +95,8 @@ public class CalcSampleCache extends TableObjectWithIntegerId {
 
 		this.sampleId = calcSampleCache.sampleId;
 		this.sampleAnalysisId = calcSampleCache.sampleAnalysisId;
-		this.scratchPad = new ScratchPad<SamplePad>(calcSampleCache.scratchPad);
-		
+		this.scratchPad = calcSampleCache.scratchPad == null ? null : new ScratchPad<SamplePad>(calcSampleCache.scratchPad);
+
 		if (calcSampleCache.dependencies != null) {
 			this.dependencies = new ArrayList<HashMap<String,String>>();
 
@@ -106,10 +110,12 @@ public class CalcSampleCache extends TableObjectWithIntegerId {
 
 		this.errorSamStep = calcSampleCache.errorSamStep;
 		this.errorMessage = calcSampleCache.errorMessage;
-		this.corrIntervalIds = Arrays.copyOf(calcSampleCache.corrIntervalIds, calcSampleCache.corrIntervalIds.length);
-		this.columnOrdering = new ColumnOrdering(calcSampleCache.columnOrdering);
-		this.formatLookup = new FormatLookup(calcSampleCache.formatLookup);
-		this.repAnalysisIds = Arrays.copyOf(calcSampleCache.repAnalysisIds, calcSampleCache.repAnalysisIds.length);
+		this.corrIntervalIds = calcSampleCache.corrIntervalIds == null ? null : Arrays.copyOf(calcSampleCache.corrIntervalIds, calcSampleCache.corrIntervalIds.length);
+		this.columnOrdering = calcSampleCache.columnOrdering == null ? null : new ColumnOrdering(calcSampleCache.columnOrdering);
+		this.formatLookup = calcSampleCache.formatLookup == null ? null : new FormatLookup(calcSampleCache.formatLookup);
+		this.repAnalysisIds = calcSampleCache.repAnalysisIds == null ? null : Arrays.copyOf(calcSampleCache.repAnalysisIds, calcSampleCache.repAnalysisIds.length);
+		this.replicateIds = calcSampleCache.replicateIds == null ? null : Arrays.copyOf(calcSampleCache.replicateIds, calcSampleCache.replicateIds.length);
+		this.fingerprint = calcSampleCache.fingerprint;
 
 		if (calcSampleCache.potentialRepAnalyses == null) {
 			this.potentialRepAnalyses = null;
@@ -220,4 +226,12 @@ public class CalcSampleCache extends TableObjectWithIntegerId {
 	public void setPotentialRepAnalyses(int[][] potentialRepAnalyses) {
 		this.potentialRepAnalyses = potentialRepAnalyses;
 	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public void setFingerprint(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
 }
@@ -36,19 +36,20 @@ import com.j256.ormlite.table.DatabaseTable;
 public class CorrIntervalError extends TableObjectWithIntegerId {
 	private static final long serialVersionUID = 1L;
 
-	public static final String TABLE_NAME = "CORRINTERVALERROR_V0";
+	public static final String TABLE_NAME = "CORRINTERVALERROR_V1";
 	public static final String CORR_INTERVAL_ID_FIELD_NAME = "CORRINTERVALID";
 	public static final String DATA_ANALYSIS_ID_FIELD_NAME = "DATAANALYSISID";
+	public static final String CORR_INTERVAL_ID_DATA_ANALYSIS_ID_INDEX_NAME = "corrintervalerror_corrintervalidanalysisid_idx";
 	public static final String REPLICATE_ID_FIELD_NAME = "REPLICATEID";
 	public static final String REPLICATE_DATE_FIELD_NAME = "REPLICATEDATE";
 	public static final String REPLICATE_USER_ID_FIELD_NAME = "REPLICATEUSERID";
 	public static final String REPSTEP_CLASS_FIELD_NAME = "REPSTEPCLASS";
 	public static final String ERROR_MESSAGE_FIELD_NAME = "ERRORMESSAGE";
+	public static final String FINGERPRINT_FIELD_NAME = "FINGERPRINT";
 
-	// TODO there should be a dual index here
-	@DatabaseField(columnName=CORR_INTERVAL_ID_FIELD_NAME)
+	@DatabaseField(columnName=CORR_INTERVAL_ID_FIELD_NAME, indexName=CORR_INTERVAL_ID_DATA_ANALYSIS_ID_INDEX_NAME)
 	public int corrIntervalId;
-	@DatabaseField(columnName=DATA_ANALYSIS_ID_FIELD_NAME)
+	@DatabaseField(columnName=DATA_ANALYSIS_ID_FIELD_NAME, indexName=CORR_INTERVAL_ID_DATA_ANALYSIS_ID_INDEX_NAME)
 	public int dataAnalysislId;
 	@DatabaseField(columnName=REPLICATE_ID_FIELD_NAME)
 	public int replicateId;
@@ -61,6 +62,9 @@ public class CorrIntervalError extends TableObjectWithIntegerId {
 	@DatabaseField(columnName=ERROR_MESSAGE_FIELD_NAME)
 	public String errorMessage;
 
+	@DatabaseField(columnName=FINGERPRINT_FIELD_NAME)
+	public String fingerprint;
+
 	public CorrIntervalError() { }
 
 	public CorrIntervalError(CorrIntervalError corrIntervalError) {
@@ -73,6 +77,7 @@ public class CorrIntervalError extends TableObjectWithIntegerId {
 		replicateUserId = corrIntervalError.replicateUserId;
 		repStepName = corrIntervalError.repStepName;
 		errorMessage = corrIntervalError.errorMessage;
+		fingerprint = corrIntervalError.fingerprint;
 	}
 
 	public int getCorrIntervalId() {
@@ -130,4 +135,12 @@ public class CorrIntervalError extends TableObjectWithIntegerId {
 	public void setErrorMessage(String errorMessage) {
 		this.errorMessage = errorMessage;
 	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public void setFingerprint(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
 }
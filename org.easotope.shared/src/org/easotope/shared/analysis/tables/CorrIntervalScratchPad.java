@@ -41,17 +41,18 @@ import com.j256.ormlite.table.DatabaseTable;
 public class CorrIntervalScratchPad extends TableObjectWithIntegerId {
 	private static final long serialVersionUID = 1L;
 
-	public static final String TABLE_NAME = "CORRINTERVALSCRATCHPAD_V0";
+	public static final String TABLE_NAME = "CORRINTERVALSCRATCHPAD_V1";
 	public static final String CORR_INTERVAL_ID_FIELD_NAME = "CORRINTERVALID";
 	public static final String DATA_ANALYSIS_ID_FIELD_NAME = "DATAANALYSISID";
+	public static final String CORR_INTERVAL_ID_DATA_ANALYSIS_ID_INDEX_NAME = "corrintervalscratchpad_corrintervalidanalysisid_idx";
 	public static final String SCRATCH_PAD_FIELD_NAME = "SCRATCHPAD";
 	public static final String COLUMN_ORDERING_FIELD_NAME = "COLUMNORDERING";
 	public static final String FORMAT_LOOKUP_FIELD_NAME = "FORMATLOOKUP";
+	public static final String FINGERPRINT_FIELD_NAME = "FINGERPRINT";
 
-	// TODO there should be a dual index here
-	@DatabaseField(columnName=CORR_INTERVAL_ID_FIELD_NAME)
+	@DatabaseField(columnName=CORR_INTERVAL_ID_FIELD_NAME, indexName=CORR_INTERVAL_ID_DATA_ANALYSIS_ID_INDEX_NAME)
 	public int corrIntervalId;
-	@DatabaseField(columnName=DATA_ANALYSIS_ID_FIELD_NAME)
+	@DatabaseField(columnName=DATA_ANALYSIS_ID_FIELD_NAME, indexName=CORR_INTERVAL_ID_DATA_ANALYSIS_ID_INDEX_NAME)
 	public int dataAnalysisId;
 	@DatabaseField(columnName=SCRATCH_PAD_FIELD_NAME, dataType=DataType.SERIALIZABLE)
 	public ScratchPad<ReplicatePad> scratchPad;
@@ -60,6 +61,9 @@ public class CorrIntervalScratchPad extends TableObjectWithIntegerId {
 	@DatabaseField(columnName=FORMAT_LOOKUP_FIELD_NAME, dataType=DataType.SERIALIZABLE)
 	public FormatLookup formatLookup;
 
+	@DatabaseField(columnName=FINGERPRINT_FIELD_NAME)
+	public String fingerprint;
+
 	public CorrIntervalScratchPad() { }
 
 	public CorrIntervalScratchPad(CorrIntervalScratchPad analysisResults) {
@@ -68,6 +72,7 @@ public class CorrIntervalScratchPad extends TableObjectWithIntegerId {
 		this.scratchPad = new ScratchPad<ReplicatePad>(analysisResults.scratchPad);
 		this.columnOrdering = new ColumnOrdering(analysisResults.columnOrdering);
 		this.formatLookup = new FormatLookup(analysisResults.formatLookup);
+		this.fingerprint = analysisResults.fingerprint;
 	}
 
 	public int getCorrIntervalId() {
@@ -109,4 +114,12 @@ public class CorrIntervalScratchPad extends TableObjectWithIntegerId {
 	public void setFormatLookup(FormatLookup formatLookup) {
 		this.formatLookup = formatLookup;
 	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public void setFingerprint(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
 }
@@ -48,12 +48,13 @@ public class CorrIntervalV1 extends TableObjectWithIntegerId {
 	public static final String DATA_ANALYSIS_FIELD_NAME = "DATAANALYSIS";
 	public static final String BATCH_DELIMITER_FIELD_NAME = "BATCHDELIMITER";
 	public static final String CHANNEL_TO_MZX10_FIELD_NAME = "CHANNELTOMZX10";
+	public static final String MASSSPECID_VALIDFROM_INDEX_NAME = "corrinterval_massspecidvalidfrom_idx";
 
-	@DatabaseField(columnName=MASSSPECID_FIELD_NAME, canBeNull=false)
+	@DatabaseField(columnName=MASSSPECID_FIELD_NAME, canBeNull=false, indexName=MASSSPECID_VALIDFROM_INDEX_NAME)
 	private int massSpecId;
 	@DatabaseField(columnName=DESCRIPTION_FIELD_NAME, canBeNull=false)
 	private String description;
-	@DatabaseField(columnName=VALIDFROM_FIELD_NAME, canBeNull=false)
+	@DatabaseField(columnName=VALIDFROM_FIELD_NAME, canBeNull=false, indexName=MASSSPECID_VALIDFROM_INDEX_NAME)
 	private long validFrom = DatabaseConstants.EMPTY_DATE;
 	@DatabaseField(columnName=VALIDUNTIL_FIELD_NAME, canBeNull=false)
 	private long validUntil = DatabaseConstants.EMPTY_DATE;
@@ -36,8 +36,11 @@ import java.util.Set;
 import java.util.TreeSet;
 
 import org.easotope.framework.commands.Command;
+import org.easotope.framework.dbcore.cmdprocessors.CommandWithDeferredWrites;
+import org.easotope.framework.dbcore.cmdprocessors.CommandWithLargeReply;
 import org.easotope.framework.dbcore.tables.User;
 import org.easotope.framework.dbcore.util.RawFileManager;
+import org.easotope.shared.analysis.server.CalcCacheWrites;
 import org.easotope.shared.analysis.server.LoadOrCalculateCorrInterval;
 import org.easotope.shared.analysis.server.LoadOrCalculateSample;
 import org.easotope.shared.analysis.tables.CalcSampleCache;
@@ -59,7 +62,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class CalculatedExportGet extends Command {
+public class CalculatedExportGet extends Command implements CommandWithLargeReply, CommandWithDeferredWrites {
 	private static final long serialVersionUID = 1L;
 
 	private ArrayList<Integer> userIds = new ArrayList<Integer>();
@@ -67,6 +70,7 @@ public class CalculatedExportGet extends Command {
 	private ArrayList<Integer> sampleIds = new ArrayList<Integer>();
 
 	private transient RequestTree requestTree = null;
+	private transient CalcCacheWrites calcCacheWrites = null;
 
 	private ScratchPad<?> requestedScratchPad;
 	private ColumnOrdering requestedColumnOrdering;
@@ -114,10 +118,8 @@ public class CalculatedExportGet extends Command {
 		corrIntervalColumnOrdering = new ColumnOrdering();
 		corrIntervalFormatLookup = new FormatLookup();
 
-		HashSet<String> alreadyLoadedCorrIntervalRepAnalysis = new HashSet<String>();
 		HashMap<Integer,HashMap<Integer,ArrayList<Integer>>> tree = requestTree.getTree();
-
-		LoadOrCalculateSample loadOrCalculateSample = new LoadOrCalculateSample(connectionSource);
+		ArrayList<SampleJob> sampleJobs = new ArrayList<SampleJob>();
 
 		if (requestTree.hasMultipleUsers()) {
 			ScratchPad<UserPad> userScratchPad = new ScratchPad<UserPad>();
@@ -134,37 +136,7 @@ public class CalculatedExportGet extends Command {
 					Project project = projectDao.queryForId(projectId);
 					ProjectPad projectPad = new ProjectPad(userPad, project.getName());
 
-					for (Integer sampleId : tree.get(userId).get(projectId)) {
-						Dao<Sample,Integer> sampleDao = DaoManager.createDao(connectionSource, Sample.class);
-						Sample sample = sampleDao.queryForId(sampleId);
-
-						if (sample.getSamAnalyses() != null) {
-							for (int sampleAnalysisId : sample.getSamAnalyses()) {
-								CalcSampleCache calcSampleCache = loadOrCalculateSample.getCalcSampleCache(sampleId, sampleAnalysisId);
-								ScratchPad<SamplePad> scratchPad = calcSampleCache.getScratchPad();
-								scratchPad.getChild(0).reassignToParent(projectPad);
-
-								requestedColumnOrdering.add(calcSampleCache.getColumnOrdering());
-								requestedFormatLookup.add(calcSampleCache.getFormatLookup());
-
-								int[] corrIntervalIds = calcSampleCache.getCorrIntervalIds();
-								int[] repAnalysisIds = calcSampleCache.getRepAnalysisIds();
-								
-								for (int i=0; i<corrIntervalIds.length; i++) {
-									String key = corrIntervalIds[i] + "/" + repAnalysisIds[i];
-
-									if (!alreadyLoadedCorrIntervalRepAnalysis.contains(key)) {
-										LoadOrCalculateCorrInterval loadOrCalculateCorrInterval = new LoadOrCalculateCorrInterval(corrIntervalIds[i], repAnalysisIds[i], connectionSource);
-										CorrIntervalScratchPad corrIntervalScratchPad = loadOrCalculateCorrInterval.getCorrIntervalScratchPad();
-										corrIntervalScratchPad.getScratchPad().reassignAllStandardsToParent(corrIntervalReplicates);
-										corrIntervalColumnOrdering.add(corrIntervalScratchPad.getColumnOrdering());
-										corrIntervalFormatLookup.add(corrIntervalScratchPad.getFormatLookup());
-										alreadyLoadedCorrIntervalRepAnalysis.add(key);
-									}
-								}
-							}
-						}
-					}
+					addSampleJobs(sampleJobs, projectPad, tree.get(userId).get(projectId), connectionSource);
 				}
 			}
 
@@ -179,37 +151,7 @@ public class CalculatedExportGet extends Command {
 				Project project = projectDao.queryForId(projectId);
 				ProjectPad projectPad = new ProjectPad(projectScratchPad, project.getName());
 
-				for (Integer sampleId : tree.get(userId).get(projectId)) {
-					Dao<Sample,Integer> sampleDao = DaoManager.createDao(connectionSource, Sample.class);
-					Sample sample = sampleDao.queryForId(sampleId);
-
-					if (sample.getSamAnalyses() != null) {
-						for (int sampleAnalysisId : sample.getSamAnalyses()) {
-							CalcSampleCache calcSampleCache = loadOrCalculateSample.getCalcSampleCache(sampleId, sampleAnalysisId);
-							ScratchPad<SamplePad> scratchPad = calcSampleCache.getScratchPad();
-							scratchPad.getChild(0).reassignToParent(projectPad);
-							
-							requestedColumnOrdering.add(calcSampleCache.getColumnOrdering());
-							requestedFormatLookup.add(calcSampleCache.getFormatLookup());
-
-							int[] corrIntervalIds = calcSampleCache.getCorrIntervalIds();
-							int[] repAnalysisIds = calcSampleCache.getRepAnalysisIds();
-							
-							for (int i=0; i<corrIntervalIds.length; i++) {
-								String key = corrIntervalIds[i] + "/" + repAnalysisIds[i];
-								
-								if (!alreadyLoadedCorrIntervalRepAnalysis.contains(key)) {
-									LoadOrCalculateCorrInterval loadOrCalculateCorrInterval = new LoadOrCalculateCorrInterval(corrIntervalIds[i], repAnalysisIds[i], connectionSource);
-									CorrIntervalScratchPad corrIntervalScratchPad = loadOrCalculateCorrInterval.getCorrIntervalScratchPad();
-									corrIntervalScratchPad.getScratchPad().reassignAllStandardsToParent(corrIntervalReplicates);
-									corrIntervalColumnOrdering.add(corrIntervalScratchPad.getColumnOrdering());
-									corrIntervalFormatLookup.add(corrIntervalScratchPad.getFormatLookup());
-									alreadyLoadedCorrIntervalRepAnalysis.add(key);
-								}
-							}
-						}
-					}
-				}
+				addSampleJobs(sampleJobs, projectPad, tree.get(userId).get(projectId), connectionSource);
 			}
 
 		} else {
@@ -219,35 +161,34 @@ public class CalculatedExportGet extends Command {
 			int userId = tree.keySet().toArray(new Integer[1])[0];
 			int projectId = tree.get(userId).keySet().toArray(new Integer[1])[0];
 
-			for (Integer sampleId : tree.get(userId).get(projectId)) {
-				Dao<Sample,Integer> sampleDao = DaoManager.createDao(connectionSource, Sample.class);
-				Sample sample = sampleDao.queryForId(sampleId);
+			addSampleJobs(sampleJobs, sampleScratchPad, tree.get(userId).get(projectId), connectionSource);
+		}
+
+		calcCacheWrites = new CalcCacheWrites();
+		LoadOrCalculateSample loadOrCalculateSample = new LoadOrCalculateSample(connectionSource, calcCacheWrites);
+		HashSet<String> alreadyLoadedCorrIntervalRepAnalysis = new HashSet<String>();
+
+		for (SampleJob sampleJob : sampleJobs) {
+			CalcSampleCache calcSampleCache = loadOrCalculateSample.getCalcSampleCache(sampleJob.sampleId, sampleJob.sampleAnalysisId);
+			ScratchPad<SamplePad> scratchPad = calcSampleCache.getScratchPad();
+			scratchPad.getChild(0).reassignToParent(sampleJob.parent);
+
+			requestedColumnOrdering.add(calcSampleCache.getColumnOrdering());
+			requestedFormatLookup.add(calcSampleCache.getFormatLookup());
+
+			int[] corrIntervalIds = calcSampleCache.getCorrIntervalIds();
+			int[] repAnalysisIds = calcSampleCache.getRepAnalysisIds();
 
-				if (sample.getSamAnalyses() != null) {
-					for (int sampleAnalysisId : sample.getSamAnalyses()) {
-						CalcSampleCache calcSampleCache = loadOrCalculateSample.getCalcSampleCache(sampleId, sampleAnalysisId);
-						ScratchPad<SamplePad> scratchPad = calcSampleCache.getScratchPad();
-						scratchPad.getChild(0).reassignToParent(sampleScratchPad);
-
-						requestedColumnOrdering.add(calcSampleCache.getColumnOrdering());
-						requestedFormatLookup.add(calcSampleCache.getFormatLookup());
-
-						int[] corrIntervalIds = calcSampleCache.getCorrIntervalIds();
-						int[] repAnalysisIds = calcSampleCache.getRepAnalysisIds();
-
-						for (int i=0; i<corrIntervalIds.length; i++) {
-							String key = corrIntervalIds[i] + "/" + repAnalysisIds[i];
-
-							if (!alreadyLoadedCorrIntervalRepAnalysis.contains(key)) {
-								LoadOrCalculateCorrInterval loadOrCalculateCorrInterval = new LoadOrCalculateCorrInterval(corrIntervalIds[i], repAnalysisIds[i], connectionSource);
-								CorrIntervalScratchPad corrIntervalScratchPad = loadOrCalculateCorrInterval.getCorrIntervalScratchPad();
-								corrIntervalScratchPad.getScratchPad().reassignAllStandardsToParent(corrIntervalReplicates);
-								corrIntervalColumnOrdering.add(corrIntervalScratchPad.getColumnOrdering());
-								corrIntervalFormatLookup.add(corrIntervalScratchPad.getFormatLookup());
-								alreadyLoadedCorrIntervalRepAnalysis.add(key);
-							}
-						}
-					}
+			for (int i=0; i<corrIntervalIds.length; i++) {
+				String key = corrIntervalIds[i] + "/" + repAnalysisIds[i];
+
+				if (!alreadyLoadedCorrIntervalRepAnalysis.contains(key)) {
+					LoadOrCalculateCorrInterval loadOrCalculateCorrInterval = new LoadOrCalculateCorrInterval(corrIntervalIds[i], repAnalysisIds[i], connectionSource, calcCacheWrites);
+					CorrIntervalScratchPad corrIntervalScratchPad = loadOrCalculateCorrInterval.getCorrIntervalScratchPad();
+					corrIntervalScratchPad.getScratchPad().reassignAllStandardsToParent(corrIntervalReplicates);
+					corrIntervalColumnOrdering.add(corrIntervalScratchPad.getColumnOrdering());
+					corrIntervalFormatLookup.add(corrIntervalScratchPad.getFormatLookup());
+					alreadyLoadedCorrIntervalRepAnalysis.add(key);
 				}
 			}
 		}
@@ -259,6 +200,27 @@ public class CalculatedExportGet extends Command {
 		}
 	}
 
+	@Override
+	public void writeDeferred(ConnectionSource connectionSource, RawFileManager rawFileManager) throws Exception {
+		if (calcCacheWrites != null) {
+			calcCacheWrites.store(connectionSource);
+		}
+	}
+
+	private void addSampleJobs(ArrayList<SampleJob> sampleJobs, Pad parent, ArrayList<Integer> sampleIds, ConnectionSource connectionSource) throws SQLException {
+		Dao<Sample,Integer> sampleDao = DaoManager.createDao(connectionSource, Sample.class);
+
+		for (Integer sampleId : sampleIds) {
+			Sample sample = sampleDao.queryForId(sampleId);
+
+			if (sample.getSamAnalyses() != null) {
+				for (int sampleAnalysisId : sample.getSamAnalyses()) {
+					sampleJobs.add(new SampleJob(parent, sampleId, sampleAnalysisId));
+				}
+			}
+		}
+	}
+
 	public void addUserIds(TreeSet<Integer> userIds) {
 		this.userIds.addAll(userIds);
 	}
@@ -369,6 +331,18 @@ public class CalculatedExportGet extends Command {
 		}
 	}
 
+	private class SampleJob {
+		private Pad parent;
+		private int sampleId;
+		private int sampleAnalysisId;
+
+		SampleJob(Pad parent, int sampleId, int sampleAnalysisId) {
+			this.parent = parent;
+			this.sampleId = sampleId;
+			this.sampleAnalysisId = sampleAnalysisId;
+		}
+	}
+
 	public ColumnOrdering getRequestedColumnOrdering() {
 		return requestedColumnOrdering;
 	}
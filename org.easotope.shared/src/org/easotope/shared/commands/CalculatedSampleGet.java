@@ -30,8 +30,10 @@ package org.easotope.shared.commands;
 import java.util.Hashtable;
 
 import org.easotope.framework.commands.Command;
+import org.easotope.framework.dbcore.cmdprocessors.CommandWithDeferredWrites;
 import org.easotope.framework.dbcore.tables.User;
 import org.easotope.framework.dbcore.util.RawFileManager;
+import org.easotope.shared.analysis.server.CalcCacheWrites;
 import org.easotope.shared.analysis.server.LoadOrCalculateSample;
 import org.easotope.shared.analysis.tables.CalcSampleCache;
 import org.easotope.shared.core.AuthenticationKeys;
@@ -42,13 +44,14 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class CalculatedSampleGet extends Command {
+public class CalculatedSampleGet extends Command implements CommandWithDeferredWrites {
 	private static final long serialVersionUID = 1L;
 
 	private int sampleId;
 	private int sampleAnalysisId;
 	private CalcSampleCache calcSampleCache;
 	private transient Sample sample;
+	private transient CalcCacheWrites calcCacheWrites;
 
 	@Override
 	public boolean authenticate(ConnectionSource connectionSource, RawFileManager rawFileManager, Hashtable<String,Object> authenticationObjects) throws Exception {
@@ -66,7 +69,15 @@ public class CalculatedSampleGet extends Command {
 
 	@Override
 	public void execute(ConnectionSource connectionSource, RawFileManager rawFileManager, Hashtable<String,Object> authenticationObjects) throws Exception {
-		calcSampleCache = new LoadOrCalculateSample(connectionSource).getCalcSampleCache(sampleId, sampleAnalysisId);
+		calcCacheWrites = new CalcCacheWrites();
+		calcSampleCache = new LoadOrCalculateSample(connectionSource, calcCacheWrites).getCalcSampleCache(sampleId, sampleAnalysisId);
+	}
+
+	@Override
+	public void writeDeferred(ConnectionSource connectionSource, RawFileManager rawFileManager) throws Exception {
+		if (calcCacheWrites != null) {
+			calcCacheWrites.store(connectionSource);
+		}
 	}
 
 	public void setSampleId(int sampleId) {
@@ -31,7 +31,10 @@ import java.util.Hashtable;
 import java.util.List;
 
 import org.easotope.framework.commands.Command;
+import org.easotope.framework.dbcore.cmdprocessors.CommandWithDeferredWrites;
+import org.easotope.framework.dbcore.cmdprocessors.CommandWithLargeReply;
 import org.easotope.framework.dbcore.util.RawFileManager;
+import org.easotope.shared.analysis.server.CalcCacheWrites;
 import org.easotope.shared.analysis.server.GetFromDb;
 import org.easotope.shared.analysis.server.LoadOrCalculateCorrInterval;
 import org.easotope.shared.analysis.tables.CorrIntervalError;
@@ -40,7 +43,7 @@ import org.easotope.shared.analysis.tables.RepStepParams;
 
 import com.j256.ormlite.support.ConnectionSource;
 
-public class CorrIntervalCompGet extends Command {
+public class CorrIntervalCompGet extends Command implements CommandWithLargeReply, CommandWithDeferredWrites {
 	private static final long serialVersionUID = 1L;
 
 	private int corrIntervalId;
@@ -49,6 +52,7 @@ public class CorrIntervalCompGet extends Command {
 	private List<RepStepParams> repStepParams;
 	private CorrIntervalScratchPad corrIntervalScratchPad;
 	private List<CorrIntervalError> corrIntervalErrors;
+	private transient CalcCacheWrites calcCacheWrites;
 
 	@Override
 	public boolean authenticate(ConnectionSource connectionSource, RawFileManager rawFileManager, Hashtable<String, Object> authenticationObjects) throws Exception {
@@ -58,11 +62,19 @@ public class CorrIntervalCompGet extends Command {
 	@Override
 	public void execute(ConnectionSource connectionSource, RawFileManager rawFileManager, Hashtable<String,Object> authenticationObjects) throws Exception {
 		repStepParams = GetFromDb.getRepStepParameters(connectionSource, corrIntervalId, dataAnalysisId);
-		LoadOrCalculateCorrInterval loadOrCalculateCorrInterval = new LoadOrCalculateCorrInterval(corrIntervalId, dataAnalysisId, connectionSource);
+		calcCacheWrites = new CalcCacheWrites();
+		LoadOrCalculateCorrInterval loadOrCalculateCorrInterval = new LoadOrCalculateCorrInterval(corrIntervalId, dataAnalysisId, connectionSource, calcCacheWrites);
 		corrIntervalScratchPad = loadOrCalculateCorrInterval.getCorrIntervalScratchPad();
 		corrIntervalErrors = loadOrCalculateCorrInterval.getCorrIntervalError();
 	}
 
+	@Override
+	public void writeDeferred(ConnectionSource connectionSource, RawFileManager rawFileManager) throws Exception {
+		if (calcCacheWrites != null) {
+			calcCacheWrites.store(connectionSource);
+		}
+	}
+
 	public int getCorrIntervalId() {
 		return corrIntervalId;
 	}
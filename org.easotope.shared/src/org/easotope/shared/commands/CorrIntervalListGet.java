@@ -31,6 +31,7 @@ import java.util.HashMap;
 import java.util.Hashtable;
 
 import org.easotope.framework.commands.Command;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.admin.tables.RefGas;
 import org.easotope.shared.analysis.tables.CorrIntervalV1;
@@ -39,7 +40,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class CorrIntervalListGet extends Command {
+public class CorrIntervalListGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private int massSpecId;
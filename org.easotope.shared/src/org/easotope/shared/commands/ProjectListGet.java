@@ -31,6 +31,7 @@ import java.util.Hashtable;
 
 import org.easotope.framework.commands.Command;
 import org.easotope.framework.dbcore.DatabaseConstants;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.tables.User;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.core.AuthenticationKeys;
@@ -45,7 +46,7 @@ import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.dao.GenericRawResults;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class ProjectListGet extends Command {
+public class ProjectListGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private int userId = DatabaseConstants.EMPTY_DB_ID;
@@ -32,6 +32,8 @@ import java.util.List;
 
 import org.easotope.framework.commands.Command;
 import org.easotope.framework.dbcore.DatabaseConstants;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
+import org.easotope.framework.dbcore.cmdprocessors.CommandWithLargeReply;
 import org.easotope.framework.dbcore.tables.RawFile;
 import org.easotope.framework.dbcore.tables.User;
 import org.easotope.framework.dbcore.util.RawFileManager;
@@ -45,7 +47,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class RawFileGet extends Command {
+public class RawFileGet extends Command implements CommandThatDoesNotModifyDb, CommandWithLargeReply {
 	private static final long serialVersionUID = 1L;
 
 	private int rawFileId;
@@ -30,6 +30,7 @@ package org.easotope.shared.commands;
 import java.util.Hashtable;
 
 import org.easotope.framework.commands.Command;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.analysis.cache.analysis.repanalysislist.RepAnalysisList;
 import org.easotope.shared.analysis.cache.analysis.repanalysislist.RepAnalysisListItem;
@@ -39,7 +40,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class RepAnalysisListGet extends Command {
+public class RepAnalysisListGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private RepAnalysisList repAnalysisList = null;
@@ -33,6 +33,7 @@ import java.util.List;
 
 import org.easotope.framework.commands.Command;
 import org.easotope.framework.dbcore.DatabaseConstants;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.tables.User;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.admin.tables.SampleType;
@@ -48,7 +49,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class ReplicateGet extends Command {
+public class ReplicateGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private int replicateId;
@@ -31,6 +31,7 @@ import java.util.Hashtable;
 import java.util.List;
 
 import org.easotope.framework.commands.Command;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.analysis.server.GetFromDb;
 import org.easotope.shared.analysis.tables.SamAnalysis;
@@ -38,7 +39,7 @@ import org.easotope.shared.analysis.tables.SamStep;
 
 import com.j256.ormlite.support.ConnectionSource;
 
-public class SamAnalysisGet extends Command {
+public class SamAnalysisGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private int samAnalysisId;
@@ -30,6 +30,7 @@ package org.easotope.shared.commands;
 import java.util.Hashtable;
 
 import org.easotope.framework.commands.Command;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.analysis.cache.analysis.samanalysislist.SamAnalysisList;
 import org.easotope.shared.analysis.cache.analysis.samanalysislist.SamAnalysisListItem;
@@ -39,7 +40,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class SamAnalysisListGet extends Command {
+public class SamAnalysisListGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private SamAnalysisList samAnalysisList = null;
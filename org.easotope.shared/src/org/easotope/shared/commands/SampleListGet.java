@@ -31,6 +31,7 @@ import java.util.Hashtable;
 
 import org.easotope.framework.commands.Command;
 import org.easotope.framework.dbcore.DatabaseConstants;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.rawdata.cache.input.samplelist.SampleList;
 import org.easotope.shared.rawdata.cache.input.samplelist.SampleListItem;
@@ -42,7 +43,7 @@ import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.dao.GenericRawResults;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class SampleListGet extends Command {
+public class SampleListGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private int projectId = DatabaseConstants.EMPTY_DB_ID;
@@ -32,6 +32,7 @@ import java.util.Hashtable;
 import java.util.List;
 
 import org.easotope.framework.commands.Command;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
 import org.easotope.framework.dbcore.tables.RawFile;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.rawdata.ScanFile;
@@ -43,7 +44,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class ScanGet extends Command {
+public class ScanGet extends Command implements CommandThatDoesNotModifyDb {
 	private static final long serialVersionUID = 1L;
 
 	private int scanId;
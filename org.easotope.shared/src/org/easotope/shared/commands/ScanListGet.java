@@ -31,6 +31,8 @@ import java.util.Hashtable;
 
 import org.easotope.framework.commands.Command;
 import org.easotope.framework.dbcore.DatabaseConstants;
+import org.easotope.framework.dbcore.cmdprocessors.CommandThatDoesNotModifyDb;
+import org.easotope.framework.dbcore.cmdprocessors.CommandWithLargeReply;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.rawdata.cache.input.scanlist.ScanList;
 import org.easotope.shared.rawdata.cache.input.scanlist.ScanListItem;
@@ -40,7 +42,7 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
-public class ScanListGet extends Command {
+public class ScanListGet extends Command implements CommandThatDoesNotModifyDb, CommandWithLargeReply {
 	private static final long serialVersionUID = 1L;
 
 	private int massSpecId = DatabaseConstants.EMPTY_DB_ID;
@@ -40,6 +40,7 @@ import org.easotope.framework.core.util.Reflection;
 import org.easotope.framework.dbcore.cmdprocessors.CommandListener;
 import org.easotope.framework.dbcore.cmdprocessors.Event;
 import org.easotope.framework.dbcore.cmdprocessors.EventListener;
+import org.easotope.framework.dbcore.cmdprocessors.ImmediateProcessor;
 import org.easotope.framework.dbcore.cmdprocessors.ProcessorManager;
 import org.easotope.shared.core.PotentialGraphicsMethodsShared;
 import org.eclipse.swt.widgets.Display;
@@ -134,6 +135,19 @@ public abstract class AbstractCache implements CommandListener, EventListener {
 		CacheKey cacheKey = cachePlugin.createCacheKey(callParameters);
 		cacheKey.setRecallInfo(cachePlugin, callParameters);
 
+		boolean useReferenceDataSnapshot = useReferenceDataSnapshot(cachePlugin);
+		long referenceDataVersion = 0;
+
+		if (useReferenceDataSnapshot && !cache.containsKey(cacheKey)) {
+			ReferenceDataSnapshot referenceDataSnapshot = ReferenceDataSnapshot.getCurrent();
+			referenceDataVersion = referenceDataSnapshot.getVersion();
+			Object result = referenceDataSnapshot.get(getClass(), cacheKey);
+
+			if (result != null) {
+				cache.put(cacheKey, cachePlugin, callParameters, result);
+			}
+		}
+
 		if (cache.containsKey(cacheKey)) {
 			Object result = cache.get(cacheKey);
 			cachePlugin.callbackGetCompleted(cacheListener, Command.UNDEFINED_ID, result);
@@ -167,9 +181,24 @@ public abstract class AbstractCache implements CommandListener, EventListener {
 			return commandId;
 		}
 
+		if (useReferenceDataSnapshot && cache.containsKey(cacheKey)) {
+			ReferenceDataSnapshot.publish(referenceDataVersion, getClass(), cacheKey, cache.get(cacheKey));
+		}
+
 		return Command.UNDEFINED_ID;
 	}
 
+	// overridden by caches whose objects only change through update events
+	protected boolean isSharedReferenceData(CachePlugin cachePlugin) {
+		return false;
+	}
+
+	// only calculation threads executing directly against the database share reference data,
+	// the objects they get are never modified by events
+	private boolean useReferenceDataSnapshot(CachePlugin cachePlugin) {
+		return isSharedReferenceData(cachePlugin) && ProcessorManager.getInstance().getProcessor() instanceof ImmediateProcessor;
+	}
+
 	protected synchronized int saveObject(CachePlugin cachePlugin, CacheListener cacheListener, Object... callParameters) {
 		currentDatabaseSaveCallParameters = new DatabaseCallParameters(Command.UNDEFINED_ID, null, cachePlugin, callParameters);
 		currentDatabaseSaveCallParameters.getGuiCallbackParameters().add(new GuiCallbackParameters(Display.findDisplay(Thread.currentThread()), cacheListener));
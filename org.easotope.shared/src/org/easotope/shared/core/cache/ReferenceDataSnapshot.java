@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.core.cache;
+
+import java.util.HashMap;
+
+// read-only copy of reference data (mass specs, standards, constants...) shared by
+// all calculation threads. a snapshot is never modified after it is published,
+// adding or invalidating data always builds a new one.
+public class ReferenceDataSnapshot {
+	private static volatile ReferenceDataSnapshot current = new ReferenceDataSnapshot(0, new HashMap<Class<?>,HashMap<String,Object>>());
+
+	private final long version;
+	private final HashMap<Class<?>,HashMap<String,Object>> cacheClassToData;
+
+	private ReferenceDataSnapshot(long version, HashMap<Class<?>,HashMap<String,Object>> cacheClassToData) {
+		this.version = version;
+		this.cacheClassToData = cacheClassToData;
+	}
+
+	public static ReferenceDataSnapshot getCurrent() {
+		return current;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public Object get(Class<?> cacheClass, CacheKey cacheKey) {
+		HashMap<String,Object> data = cacheClassToData.get(cacheClass);
+		return data == null ? null : data.get(cacheKey.toString());
+	}
+
+	// the object is dropped if the snapshot was invalidated after it was read from the database
+	static synchronized void publish(long basedOnVersion, Class<?> cacheClass, CacheKey cacheKey, Object object) {
+		if (object == null || current.version != basedOnVersion) {
+			return;
+		}
+
+		HashMap<Class<?>,HashMap<String,Object>> newCacheClassToData = new HashMap<Class<?>,HashMap<String,Object>>(current.cacheClassToData);
+		HashMap<String,Object> oldData = current.cacheClassToData.get(cacheClass);
+		HashMap<String,Object> newData = (oldData == null) ? new HashMap<String,Object>() : new HashMap<String,Object>(oldData);
+		newData.put(cacheKey.toString(), object);
+		newCacheClassToData.put(cacheClass, newData);
+
+		current = new ReferenceDataSnapshot(basedOnVersion, newCacheClassToData);
+	}
+
+	public static synchronized void invalidate(Class<?>... cacheClasses) {
+		HashMap<Class<?>,HashMap<String,Object>> newCacheClassToData = new HashMap<Class<?>,HashMap<String,Object>>(current.cacheClassToData);
+
+		for (Class<?> cacheClass : cacheClasses) {
+			newCacheClassToData.remove(cacheClass);
+		}
+
+		current = new ReferenceDataSnapshot(current.version + 1, newCacheClassToData);
+	}
+
+	public static synchronized void invalidateAll() {
+		current = new ReferenceDataSnapshot(current.version + 1, new HashMap<Class<?>,HashMap<String,Object>>());
+	}
+}
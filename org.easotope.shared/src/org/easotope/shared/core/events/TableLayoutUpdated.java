@@ -49,6 +49,11 @@ public class TableLayoutUpdated extends Event {
 		return user.getId() == tableLayout.getUserId();
 	}
 
+	@Override
+	public Object getCoalescingKey() {
+		return "TableLayoutUpdated:" + tableLayout.getId();
+	}
+
 	public TableLayout getTableLayout() {
 		return tableLayout;
 	}
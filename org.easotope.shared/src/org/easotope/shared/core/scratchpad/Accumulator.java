@@ -37,6 +37,9 @@ public class Accumulator {
 	private String property;
 	private boolean isRecursive;
 	private double[] frozenValues;
+	private double[] cachedValues;
+	private long cachedModifications;
+	private double cachedConfidenceLevel;
 
 	Accumulator(Pad owningPad, String property, boolean isRecursive) {
 		this.owningPad = owningPad;
@@ -64,7 +67,30 @@ public class Accumulator {
 		if (frozenValues != null) {
 			return frozenValues;
 		}
-		
+
+		// the values are only recalculated if something in the pad tree or the
+		// confidence level changed since they were last asked for
+		double confidenceLevel = OptionsInfo.getInstance().getOptions().getConfidenceLevel();
+		long modifications = owningPad.getTreeModifications();
+
+		synchronized (this) {
+			if (cachedValues != null && cachedModifications == modifications && cachedConfidenceLevel == confidenceLevel) {
+				return cachedValues;
+			}
+		}
+
+		double[] values = calculateAccumulatedValues(confidenceLevel);
+
+		synchronized (this) {
+			cachedValues = values;
+			cachedModifications = modifications;
+			cachedConfidenceLevel = confidenceLevel;
+		}
+
+		return values;
+	}
+
+	private double[] calculateAccumulatedValues(double confidenceLevel) {
 		if (owningPad.children.size() == 1) {
 			Object object = owningPad.children.get(0).getValue(property);
 			
@@ -77,7 +103,6 @@ public class Accumulator {
 		Statistics statistics = new Statistics();
 		addChildPadsToStatistics(owningPad.children, statistics);
 
-		double confidenceLevel = OptionsInfo.getInstance().getOptions().getConfidenceLevel();
 		return new double[] { statistics.getMean(), statistics.getStandardDeviationSample(), statistics.getStandardErrorSample(), statistics.getConfidenceIntervalSample(confidenceLevel) };
 	}
 
@@ -86,10 +111,10 @@ public class Accumulator {
 			Object object = pad.getValue(property);
 
 			if (object instanceof Double) {
-				statistics.addNumber((Double) pad.getValue(property));
+				statistics.addNumber((Double) object);
 
 			} else if (object instanceof Integer) {
-				statistics.addNumber((Integer) pad.getValue(property));
+				statistics.addNumber((Integer) object);
 
 			} else if (object instanceof Accumulator) {
 				Accumulator accumulator = (Accumulator) object;
@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.easotope.shared.Messages;
 
@@ -55,10 +56,13 @@ public abstract class Pad implements Comparable<Pad> {
 
 	protected Pad parent = null;
 	private Vector<Pad> path = null;
-	protected HashMap<String,Object> data = new HashMap<String,Object>();
+	protected PadCells data = new PadCells();
 	protected ArrayList<Pad> children = new ArrayList<Pad>();
 	private HashMap<String,Object> volatileData = null;
 
+	private static final AtomicLong modificationCounter = new AtomicLong();
+	private volatile long modifications = 0;
+
 	abstract public String getPrintableIdentifier();
 	abstract boolean hasDisabled();
 	abstract boolean hasOffPeak();
@@ -70,26 +74,28 @@ public abstract class Pad implements Comparable<Pad> {
 
 		this.parent = parent;
 		this.parent.children.add(this);
+		treeModified();
 	}
 
 	Pad(Pad parent, Pad oldPad) {
-		assert(parent.children.size() == 0 || parent.children.get(0).getClass() == this.getClass());
+		assert(parent == null || parent.children.size() == 0 || parent.children.get(0).getClass() == this.getClass());
 
 		this.parent = parent;
 
 		if (parent != null) {
 			this.parent.children.add(this);
+			treeModified();
 		}
 
-		for (String property : oldPad.data.keySet()) {
+		data = new PadCells(oldPad.data);
+
+		for (String property : oldPad.data.objectKeySet()) {
 			Object value = oldPad.data.get(property);
 
 			if (value instanceof Accumulator) {
 				Accumulator oldAccumulator = (Accumulator) value;
 
-				if (oldAccumulator.isFrozen()) {
-					data.put(property, value);
-				} else {
+				if (!oldAccumulator.isFrozen()) {
 					data.put(property, new Accumulator(this, property, oldAccumulator.isRecursive()));
 				}
 
@@ -104,9 +110,6 @@ public abstract class Pad implements Comparable<Pad> {
 			} else if (value instanceof AccumulatorCL) {
 				AccumulatorCL oldAccumulatorCL = (AccumulatorCL) value;
 				data.put(property, new AccumulatorCL(this, oldAccumulatorCL.getAccumulatorColumn()));
-
-			} else {
-				data.put(property, value);
 			}
 		}
 
@@ -120,6 +123,7 @@ public abstract class Pad implements Comparable<Pad> {
 
 		this.parent = parent;
 		this.parent.children.add(this);
+		treeModified();
 
 		for (String property : allProperties) {
 			int cellTypeOrdinal = input.readByte();
@@ -196,9 +200,32 @@ public abstract class Pad implements Comparable<Pad> {
 	public void reassignToParent(Pad parent) {
 		assert(this.parent.children.size() == 0 || this.parent.children.get(0).getClass() == this.getClass());
 		this.parent.children.remove(this);
+		treeModified();
 		this.parent = parent;
 		this.parent.children.add(this);
 		Collections.sort(this.parent.children);
+		treeModified();
+	}
+
+	// every change to a tree of pads stamps its root with a new number so that
+	// cached accumulator values can tell when they have to be recalculated. the
+	// numbers are unique across trees since pads can move from one to another.
+	void treeModified() {
+		getRoot().modifications = modificationCounter.incrementAndGet();
+	}
+
+	long getTreeModifications() {
+		return getRoot().modifications;
+	}
+
+	private Pad getRoot() {
+		Pad pad = this;
+
+		while (pad.parent != null) {
+			pad = pad.parent;
+		}
+
+		return pad;
 	}
 
 	public void recursivelyAddChildrenToList(ArrayList<Pad> listOfNodes) {
@@ -210,14 +237,17 @@ public abstract class Pad implements Comparable<Pad> {
 
 	public void clearData() {
 		data.clear();
+		treeModified();
 	}
 	
 	public void removeAllChildren() {
 		children.clear();
+		treeModified();
 	}
 
 	public void removeChild(Pad child) {
 		children.remove(child);
+		treeModified();
 	}
 
 	public void removeChildren(HashSet<Pad> unwanted) {
@@ -228,9 +258,13 @@ public abstract class Pad implements Comparable<Pad> {
 				iter.remove();
 			}
 		}
+
+		treeModified();
 	}
 
-	public Object getValue(String string) {
+	// values are synchronized because independent rep steps read the pads of other
+	// replicates while those are being written on other threads
+	public synchronized Object getValue(String string) {
 		if (ID.equals(string)) {
 			return getPrintableIdentifier();
 		}
@@ -238,7 +272,7 @@ public abstract class Pad implements Comparable<Pad> {
 		return data.get(string);
 	}
 
-	public void setValue(String property, Object object) {
+	public synchronized void setValue(String property, Object object) {
 		assert(!data.containsKey(property));
 
 		if (property == null) {
@@ -246,9 +280,10 @@ public abstract class Pad implements Comparable<Pad> {
 		}
 
 		data.put(property, object);
+		treeModified();
 	}
 
-	public void setAccumulator(String meanProperty, String stdDevSampleProperty, String stdErrProperty, String clProperty, boolean isRecursive) {
+	public synchronized void setAccumulator(String meanProperty, String stdDevSampleProperty, String stdErrProperty, String clProperty, boolean isRecursive) {
 		assert(meanProperty != null);
 		assert(!data.containsKey(meanProperty));
 
@@ -266,6 +301,8 @@ public abstract class Pad implements Comparable<Pad> {
 		if (clProperty != null) {
 			data.put(clProperty, new AccumulatorCL(accumulator));
 		}
+
+		treeModified();
 	}
 
 	public Pad getParent() {
@@ -303,7 +340,7 @@ public abstract class Pad implements Comparable<Pad> {
 	}
 
 	Set<String> getColumns() {
-		HashSet<String> set = new HashSet<String>(data.keySet());
+		Set<String> set = data.keySet();
 
 		set.add(ID);
 
@@ -414,11 +451,12 @@ public abstract class Pad implements Comparable<Pad> {
 
 	public void removeChild(int index) {
 		children.remove(index);
+		treeModified();
 	}
 
 	public void trimChildrenToLevel(Class<?> clazz) {
 		if (this.getClass() == clazz) {
-			for (String key : data.keySet()) {
+			for (String key : data.objectKeySet()) {
 				Object value = data.get(key);
 	
 				if (value instanceof Accumulator) {
@@ -430,6 +468,7 @@ public abstract class Pad implements Comparable<Pad> {
 			}
 
 			children.clear();
+			treeModified();
 
 		} else {
 			for (Pad pad : children) {
@@ -438,7 +477,7 @@ public abstract class Pad implements Comparable<Pad> {
 		}
 	}
 
-	public Object getVolatileData(String key) {
+	public synchronized Object getVolatileData(String key) {
 		if (volatileData == null) {
 			return null;
 		} else {
@@ -446,7 +485,7 @@ public abstract class Pad implements Comparable<Pad> {
 		}
 	}
 
-	public void setVolatileData(String key, Object value) {
+	public synchronized void setVolatileData(String key, Object value) {
 		if (volatileData == null) {
 			volatileData = new HashMap<String,Object>();
 		}
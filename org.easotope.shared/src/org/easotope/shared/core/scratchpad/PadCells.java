@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.core.scratchpad;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// the cells of one pad. column names are interned once for the whole process and
+// cells are kept in parallel arrays sorted by column index. doubles, integers and
+// booleans are stored unboxed so that a pad with only numbers holds no objects.
+class PadCells {
+	private static final byte TYPE_NULL = 0;
+	private static final byte TYPE_DOUBLE = 1;
+	private static final byte TYPE_INTEGER = 2;
+	private static final byte TYPE_BOOLEAN = 3;
+	private static final byte TYPE_OBJECT = 4;
+
+	private static final int[] NO_COLUMNS = new int[0];
+	private static final byte[] NO_TYPES = new byte[0];
+
+	private static final ConcurrentHashMap<String,Integer> columnToIndex = new ConcurrentHashMap<String,Integer>();
+	private static volatile String[] indexToColumn = new String[64];
+
+	private int size = 0;
+	private int[] columns = NO_COLUMNS;
+	private byte[] types = NO_TYPES;
+	private long[] primitives = null;
+	private Object[] objects = null;
+
+	PadCells() { }
+
+	PadCells(PadCells oldCells) {
+		size = oldCells.size;
+		columns = Arrays.copyOf(oldCells.columns, size);
+		types = Arrays.copyOf(oldCells.types, size);
+		primitives = oldCells.primitives == null ? null : Arrays.copyOf(oldCells.primitives, size);
+		objects = oldCells.objects == null ? null : Arrays.copyOf(oldCells.objects, size);
+	}
+
+	private static int internColumn(String column) {
+		Integer index = columnToIndex.get(column);
+
+		if (index != null) {
+			return index;
+		}
+
+		synchronized (columnToIndex) {
+			index = columnToIndex.get(column);
+
+			if (index == null) {
+				index = columnToIndex.size();
+
+				if (index == indexToColumn.length) {
+					indexToColumn = Arrays.copyOf(indexToColumn, index * 2);
+				}
+
+				indexToColumn[index] = column;
+				columnToIndex.put(column, index);
+			}
+
+			return index;
+		}
+	}
+
+	private int find(String column) {
+		Integer index = columnToIndex.get(column);
+		return index == null ? -1 : Arrays.binarySearch(columns, 0, size, index);
+	}
+
+	Object get(String column) {
+		int position = find(column);
+
+		if (position < 0) {
+			return null;
+		}
+
+		switch (types[position]) {
+			case TYPE_DOUBLE:
+				return Double.longBitsToDouble(primitives[position]);
+
+			case TYPE_INTEGER:
+				return (int) primitives[position];
+
+			case TYPE_BOOLEAN:
+				return primitives[position] != 0;
+
+			case TYPE_OBJECT:
+				return objects[position];
+
+			default:
+				return null;
+		}
+	}
+
+	boolean containsKey(String column) {
+		return find(column) >= 0;
+	}
+
+	void put(String column, Object value) {
+		int index = internColumn(column);
+		int position = Arrays.binarySearch(columns, 0, size, index);
+
+		if (position < 0) {
+			position = -position - 1;
+			insertAt(position, index);
+		}
+
+		if (value == null) {
+			types[position] = TYPE_NULL;
+
+		} else if (value instanceof Double) {
+			types[position] = TYPE_DOUBLE;
+			setPrimitive(position, Double.doubleToRawLongBits((Double) value));
+
+		} else if (value instanceof Integer) {
+			types[position] = TYPE_INTEGER;
+			setPrimitive(position, (Integer) value);
+
+		} else if (value instanceof Boolean) {
+			types[position] = TYPE_BOOLEAN;
+			setPrimitive(position, ((Boolean) value) ? 1 : 0);
+
+		} else {
+			types[position] = TYPE_OBJECT;
+
+			if (objects == null) {
+				objects = new Object[columns.length];
+			}
+
+			objects[position] = value;
+			return;
+		}
+
+		if (objects != null) {
+			objects[position] = null;
+		}
+	}
+
+	private void setPrimitive(int position, long value) {
+		if (primitives == null) {
+			primitives = new long[columns.length];
+		}
+
+		primitives[position] = value;
+	}
+
+	private void insertAt(int position, int index) {
+		if (size == columns.length) {
+			int capacity = size == 0 ? 4 : size + (size >> 1) + 1;
+
+			columns = Arrays.copyOf(columns, capacity);
+			types = Arrays.copyOf(types, capacity);
+
+			if (primitives != null) {
+				primitives = Arrays.copyOf(primitives, capacity);
+			}
+
+			if (objects != null) {
+				objects = Arrays.copyOf(objects, capacity);
+			}
+		}
+
+		int numToMove = size - position;
+
+		System.arraycopy(columns, position, columns, position + 1, numToMove);
+		System.arraycopy(types, position, types, position + 1, numToMove);
+
+		if (primitives != null) {
+			System.arraycopy(primitives, position, primitives, position + 1, numToMove);
+		}
+
+		if (objects != null) {
+			System.arraycopy(objects, position, objects, position + 1, numToMove);
+			objects[position] = null;
+		}
+
+		columns[position] = index;
+		size++;
+	}
+
+	Set<String> keySet() {
+		String[] names = indexToColumn;
+		HashSet<String> result = new HashSet<String>();
+
+		for (int i=0; i<size; i++) {
+			result.add(names[columns[i]]);
+		}
+
+		return result;
+	}
+
+	// names of the cells that hold something other than a number or boolean
+	Set<String> objectKeySet() {
+		String[] names = indexToColumn;
+		HashSet<String> result = new HashSet<String>();
+
+		for (int i=0; i<size; i++) {
+			if (types[i] == TYPE_OBJECT) {
+				result.add(names[columns[i]]);
+			}
+		}
+
+		return result;
+	}
+
+	void clear() {
+		size = 0;
+		columns = NO_COLUMNS;
+		types = NO_TYPES;
+		primitives = null;
+		objects = null;
+	}
+}
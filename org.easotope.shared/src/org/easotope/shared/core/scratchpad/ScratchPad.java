@@ -286,6 +286,8 @@ public class ScratchPad<T> extends Pad implements Externalizable {
 		}
 
 		Collections.sort(newParent.children);
+		treeModified();
+		newParent.treeModified();
 	}
 
 	@Override
@@ -27,9 +27,7 @@
 
 package org.easotope.shared.math;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
@@ -45,14 +43,24 @@ public class ExponentialDecayFitter {
 	// See also:
 	// http://stackoverflow.com/questions/3938042/fitting-exponential-decay-with-no-initial-guessing
 
-	private ArrayList<Point> pointList = new ArrayList<Point>();
+	private double[] xs = new double[8];
+	private double[] ys = new double[8];
+	private int numPoints = 0;
 	private boolean needsCalculation = true;
 	private double a = Double.NaN;
 	private double b = Double.NaN;
 	private double c = Double.NaN;
 
 	public void addCoordinate(double x, double y) {
-		pointList.add(new Point(x, y));
+		if (numPoints == xs.length) {
+			xs = Arrays.copyOf(xs, numPoints * 2);
+			ys = Arrays.copyOf(ys, numPoints * 2);
+		}
+
+		xs[numPoints] = x;
+		ys[numPoints] = y;
+		numPoints++;
+
 		needsCalculation = true;
 	}
 
@@ -93,27 +101,26 @@ public class ExponentialDecayFitter {
 
 		a = b = c = Double.NaN;
 
-		if (pointList.size() < 2) {
+		if (numPoints < 2) {
 			return;
 		}
 
-		Point[] point = pointList.toArray(new Point[pointList.size()]);
-		Arrays.sort(point, new PointComparator());
-		
-		double[] s = new double[point.length];
+		sortByX();
+
+		double[] s = new double[numPoints];
 		s[0] = 0.0;
 
-		for (int k=1; k<point.length; k++) {
-			s[k] = s[k-1] + 0.5 * (point[k].y + point[k-1].y) * (point[k].x - point[k-1].x);
+		for (int k=1; k<numPoints; k++) {
+			s[k] = s[k-1] + 0.5 * (ys[k] + ys[k-1]) * (xs[k] - xs[k-1]);
 		}
 
 		// calculate m
 
 		RealMatrix m = MatrixUtils.createRealMatrix(2, 2);
 
-		for (int k=0; k<point.length; k++) {
-			m.setEntry(0, 0, m.getEntry(0, 0) + (point[k].x - point[0].x) * (point[k].x - point[0].x));
-			m.setEntry(0, 1, m.getEntry(0, 1) + (point[k].x - point[0].x) * s[k]);
+		for (int k=0; k<numPoints; k++) {
+			m.setEntry(0, 0, m.getEntry(0, 0) + (xs[k] - xs[0]) * (xs[k] - xs[0]));
+			m.setEntry(0, 1, m.getEntry(0, 1) + (xs[k] - xs[0]) * s[k]);
 			m.setEntry(1, 1, m.getEntry(1, 1) + s[k] * s[k]);
 		}
 
@@ -131,9 +138,9 @@ public class ExponentialDecayFitter {
 
 		RealMatrix n = MatrixUtils.createRealMatrix(2, 1);
 
-		for (int k=0; k<point.length; k++) {
-			n.setEntry(0, 0, n.getEntry(0, 0) + (point[k].y - point[0].y) * (point[k].x - point[0].x));
-			n.setEntry(1, 0, n.getEntry(1, 0) + (point[k].y - point[0].y) * s[k]);
+		for (int k=0; k<numPoints; k++) {
+			n.setEntry(0, 0, n.getEntry(0, 0) + (ys[k] - ys[0]) * (xs[k] - xs[0]));
+			n.setEntry(1, 0, n.getEntry(1, 0) + (ys[k] - ys[0]) * s[k]);
 		}
 
 		// calculate c
@@ -143,11 +150,11 @@ public class ExponentialDecayFitter {
 		// calculate m
 
 		m = MatrixUtils.createRealMatrix(2, 2);
-		m.setEntry(0, 0, point.length);
+		m.setEntry(0, 0, numPoints);
 
-		for (int k=0; k<point.length; k++) {
-			m.setEntry(0, 1, m.getEntry(0, 1) + Math.exp(c * point[k].x));
-			m.setEntry(1, 1, m.getEntry(1, 1) + Math.exp(2.0 * c * point[k].x));
+		for (int k=0; k<numPoints; k++) {
+			m.setEntry(0, 1, m.getEntry(0, 1) + Math.exp(c * xs[k]));
+			m.setEntry(1, 1, m.getEntry(1, 1) + Math.exp(2.0 * c * xs[k]));
 		}
 
 		m.setEntry(1, 0, m.getEntry(0, 1));
@@ -164,9 +171,9 @@ public class ExponentialDecayFitter {
 
 		n = MatrixUtils.createRealMatrix(2, 1);
 
-		for (int k=0; k<point.length; k++) {
-			n.setEntry(0, 0, n.getEntry(0, 0) + point[k].y);
-			n.setEntry(1, 0, n.getEntry(1, 0) + point[k].y * Math.exp(c * point[k].x));
+		for (int k=0; k<numPoints; k++) {
+			n.setEntry(0, 0, n.getEntry(0, 0) + ys[k]);
+			n.setEntry(1, 0, n.getEntry(1, 0) + ys[k] * Math.exp(c * xs[k]));
 		}
 
 		// calculate a & b
@@ -177,20 +184,22 @@ public class ExponentialDecayFitter {
 		b = r.getEntry(1, 0);
 	}
 
-	public class Point {
-		private double x;
-		private double y;
-
-		Point(double x, double y) {
-			this.x = x;
-			this.y = y;
-		}
-	}
-
-	public class PointComparator implements Comparator<Point> {
-		@Override
-		public int compare(Point o1, Point o2) {
-			return Double.compare(o1.x, o2.x);
+	// stable insertion sort of the coordinates by x. points are nearly always
+	// added in order so this is usually a single pass.
+	private void sortByX() {
+		for (int i=1; i<numPoints; i++) {
+			double x = xs[i];
+			double y = ys[i];
+			int j = i - 1;
+
+			while (j >= 0 && Double.compare(xs[j], x) > 0) {
+				xs[j+1] = xs[j];
+				ys[j+1] = ys[j];
+				j--;
+			}
+
+			xs[j+1] = x;
+			ys[j+1] = y;
 		}
 	}
 
@@ -28,13 +28,16 @@
 package org.easotope.shared.math;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.apache.commons.math3.stat.regression.SimpleRegression;
 
 public class LinearRegression implements PolynomialFitter {
 	private boolean minimizeHorizontalLeastSquares = false;
 	private SimpleRegression regression = new SimpleRegression();
-	private ArrayList<Point> pointList = new ArrayList<Point>();
+	private double[] xs = new double[8];
+	private double[] ys = new double[8];
+	private int numPoints = 0;
 
 	public LinearRegression() {
 		this.minimizeHorizontalLeastSquares = false;
@@ -45,20 +48,42 @@ public class LinearRegression implements PolynomialFitter {
 	}
 
 	public void addCoordinate(double x, double y) {
+		if (numPoints == xs.length) {
+			xs = Arrays.copyOf(xs, numPoints * 2);
+			ys = Arrays.copyOf(ys, numPoints * 2);
+		}
+
 		if (minimizeHorizontalLeastSquares) {
-			pointList.add(new Point(y, x));
+			xs[numPoints] = y;
+			ys[numPoints] = x;
 			regression.addData(y, x);
 		} else {
-			pointList.add(new Point(x, y));
+			xs[numPoints] = x;
+			ys[numPoints] = y;
 			regression.addData(x, y);
 		}
+
+		numPoints++;
+	}
+
+	// allows the same object to be reused without allocating
+	public void reset() {
+		regression.clear();
+		numPoints = 0;
 	}
 
 	public int getNumPoints() {
-		return pointList.size();
+		return numPoints;
 	}
 
+	// points are only created when asked for since this is just used for graphs
 	public ArrayList<Point> getPoints() {
+		ArrayList<Point> pointList = new ArrayList<Point>(numPoints);
+
+		for (int i=0; i<numPoints; i++) {
+			pointList.add(new Point(xs[i], ys[i]));
+		}
+
 		return pointList;
 	}
 
@@ -27,7 +27,7 @@
 
 package org.easotope.shared.math;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Vector;
@@ -38,9 +38,10 @@ import org.easotope.framework.core.logging.Log.Level;
 
 public class MultiLineCommonSlopeRegression {
 	private HashSet<Integer> groups = new HashSet<Integer>();
-	private ArrayList<Integer> groupList = new ArrayList<Integer>();
-	private ArrayList<Double> xList = new ArrayList<Double>();
-	private ArrayList<Double> yList = new ArrayList<Double>();
+	private int[] groupArray = new int[8];
+	private double[] xArray = new double[8];
+	private double[] yArray = new double[8];
+	private int numPoints = 0;
 
 	private double slope;
 	private HashMap<Integer,Double> intercepts = null;
@@ -49,25 +50,27 @@ public class MultiLineCommonSlopeRegression {
 	public void addPoint(int group, double x, double y) {
 		groups.add(group);
 
-		this.groupList.add(group);		
-		this.xList.add(x);
-		this.yList.add(y);
+		if (numPoints == yArray.length) {
+			groupArray = Arrays.copyOf(groupArray, numPoints * 2);
+			xArray = Arrays.copyOf(xArray, numPoints * 2);
+			yArray = Arrays.copyOf(yArray, numPoints * 2);
+		}
+
+		groupArray[numPoints] = group;
+		xArray[numPoints] = x;
+		yArray[numPoints] = y;
+		numPoints++;
 		
 		intercepts = null;
 	}
 
 	private void calculate() {
-		if (intercepts != null || yList.size() < 2) {
+		if (intercepts != null || numPoints < 2) {
 			return;
 		}
 
-		double[] yArray = new double[yList.size()];
-
-		for (int i=0; i<yList.size(); i++) {
-			yArray[i] = yList.get(i);
-		}
-
-		double[][] xArray = new double[xList.size()][groups.size()];
+		double[] y = Arrays.copyOf(yArray, numPoints);
+		double[][] x = new double[numPoints][groups.size()];
 		Vector<Integer> columnToGroup = new Vector<Integer>(groups);
 		HashMap<Integer,Integer> groupToColumn = new HashMap<Integer,Integer>();
 
@@ -76,20 +79,17 @@ public class MultiLineCommonSlopeRegression {
 			groupToColumn.put(group, column++);
 		}
 
-		for (int i=0; i<xList.size(); i++) {
-			int group = groupList.get(i);
-			column = groupToColumn.get(group);
-
-			double x = xList.get(i);
-			xArray[i][0] = x;
+		for (int i=0; i<numPoints; i++) {
+			column = groupToColumn.get(groupArray[i]);
+			x[i][0] = xArray[i];
 
 			if (column != 0) {
-				xArray[i][groupToColumn.get(group)] = 1.0d;
+				x[i][column] = 1.0d;
 			}
 		}
 		
 		OLSMultipleLinearRegression regression = new OLSMultipleLinearRegression();
-		regression.newSampleData(yArray, xArray);
+		regression.newSampleData(y, x);
 		double[] regressionParameters = null;
 
 		try {
@@ -27,27 +27,44 @@
 
 package org.easotope.shared.math;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.math3.distribution.TDistribution;
 
 public class Statistics {
-	private ArrayList<Double> numbers = new ArrayList<Double>();
+	private static ConcurrentHashMap<Double,ConcurrentHashMap<Integer,Double>> probabilityToCriticalValues = new ConcurrentHashMap<Double,ConcurrentHashMap<Integer,Double>>();
+
+	private double[] numbers = new double[8];
+	private int size = 0;
+	private double mean = Double.NaN;
+	private boolean meanIsValid = false;
 
 	public void addNumber(double number) {
-		numbers.add(number);
+		if (size == numbers.length) {
+			numbers = Arrays.copyOf(numbers, size * 2);
+		}
+
+		numbers[size++] = number;
+		meanIsValid = false;
 	}
 	
 	public void addNumbers(Double[] array) {
 		for (Double value : array) {
 			if (value != null) {
-				numbers.add(value);
+				addNumber(value);
 			}
 		}
 	}
 
+	// allows the same object to be reused without allocating
+	public void clear() {
+		size = 0;
+		meanIsValid = false;
+	}
+
 	public int getSampleSize() {
-		return numbers.size();
+		return size;
 	}
 
 	public double getMean() {
@@ -55,13 +72,20 @@ public class Statistics {
 			return Double.NaN;
 		}
 
+		if (meanIsValid) {
+			return mean;
+		}
+
 		double total = 0;
 		
-		for (double number : numbers) {
-			total += number;
+		for (int i=0; i<size; i++) {
+			total += numbers[i];
 		}
 		
-		return total / numbers.size();
+		mean = total / size;
+		meanIsValid = true;
+
+		return mean;
 	}
 
 //	public double getStandardDeviationPopulation() {
@@ -95,17 +119,37 @@ public class Statistics {
 			return Double.NaN;
 		}
         
-        TDistribution tDist = new TDistribution(getSampleSize() - 1);
-        double critVal = tDist.inverseCumulativeProbability(probability);
+        double critVal = getCriticalValue(getSampleSize() - 1, probability);
         return critVal * getStandardErrorSample();
 	}
 
+	// the inverse t distribution is expensive and only ever asked for a handful
+	// of confidence levels and sample sizes so the values are kept
+	private static double getCriticalValue(int degreesOfFreedom, double probability) {
+		ConcurrentHashMap<Integer,Double> degreesOfFreedomToCriticalValue = probabilityToCriticalValues.get(probability);
+
+		if (degreesOfFreedomToCriticalValue == null) {
+			probabilityToCriticalValues.putIfAbsent(probability, new ConcurrentHashMap<Integer,Double>());
+			degreesOfFreedomToCriticalValue = probabilityToCriticalValues.get(probability);
+		}
+
+		Double critVal = degreesOfFreedomToCriticalValue.get(degreesOfFreedom);
+
+		if (critVal == null) {
+			TDistribution tDist = new TDistribution(degreesOfFreedom);
+			critVal = tDist.inverseCumulativeProbability(probability);
+			degreesOfFreedomToCriticalValue.put(degreesOfFreedom, critVal);
+		}
+
+		return critVal;
+	}
+
 	private double getSumOfSquares() {
 		double mean = getMean();
 		double total = 0;
 
-		for (double number : numbers) {
-			total += (number - mean) * (number - mean);
+		for (int i=0; i<size; i++) {
+			total += (numbers[i] - mean) * (numbers[i] - mean);
 		}
 		
 		return total;
@@ -28,36 +28,88 @@
 package org.easotope.shared.plugin;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 
 import org.easotope.framework.dbcore.cmdprocessors.Event;
+import org.easotope.framework.dbcore.events.CoreStartup;
+import org.easotope.framework.dbcore.events.Initialized;
 import org.easotope.framework.dbcore.extensionpoint.definition.Plugin;
 import org.easotope.framework.dbcore.util.RawFileManager;
+import org.easotope.shared.admin.cache.massspec.MassSpecCache;
+import org.easotope.shared.admin.cache.sampletype.SampleTypeCache;
+import org.easotope.shared.admin.cache.sciconstant.SciConstantCache;
+import org.easotope.shared.admin.cache.standard.StandardCache;
+import org.easotope.shared.admin.events.AcidTempUpdated;
+import org.easotope.shared.admin.events.MassSpecUpdated;
+import org.easotope.shared.admin.events.RefGassesUpdated;
+import org.easotope.shared.admin.events.SampleTypeUpdated;
+import org.easotope.shared.admin.events.SciConstantUpdated;
+import org.easotope.shared.admin.events.StandardUpdated;
+import org.easotope.shared.analysis.cache.corrinterval.CorrIntervalCache;
+import org.easotope.shared.analysis.events.CorrIntervalsUpdated;
+import org.easotope.shared.analysis.server.CorrIntervalIndex;
+import org.easotope.shared.core.cache.ReferenceDataSnapshot;
 
 import com.j256.ormlite.support.ConnectionSource;
 
 public class EventPlugin implements Plugin {
+	private static final Class<?>[] referenceDataEventClasses = new Class<?>[] {
+		Initialized.class,
+		CoreStartup.class,
+		MassSpecUpdated.class,
+		RefGassesUpdated.class,
+		SampleTypeUpdated.class,
+		AcidTempUpdated.class,
+		SciConstantUpdated.class,
+		StandardUpdated.class,
+		CorrIntervalsUpdated.class
+	};
+
+	private Plugin adminPlugin = new org.easotope.shared.plugin.admin.EventPlugin();
+	private Plugin analysisPlugin = new org.easotope.shared.plugin.analysis.EventPlugin();
+	private Plugin corePlugin = new org.easotope.shared.plugin.core.EventPlugin();
+	private Plugin rawdataPlugin = new org.easotope.shared.plugin.rawdata.EventPlugin();
+
+	@Override
+	public Class<?>[] getEventClasses() {
+		LinkedHashSet<Class<?>> eventClasses = new LinkedHashSet<Class<?>>();
+
+		Collections.addAll(eventClasses, referenceDataEventClasses);
+		Collections.addAll(eventClasses, adminPlugin.getEventClasses());
+		Collections.addAll(eventClasses, analysisPlugin.getEventClasses());
+		Collections.addAll(eventClasses, corePlugin.getEventClasses());
+		Collections.addAll(eventClasses, rawdataPlugin.getEventClasses());
+
+		return eventClasses.toArray(new Class<?>[eventClasses.size()]);
+	}
+
 	public ArrayList<Event> processEvent(ArrayList<Event> newEvents, ArrayList<Event> previousEvents, RawFileManager rawFileManager, ConnectionSource connectionSource) {
 		ArrayList<Event> returnEvents = new ArrayList<Event>();
 
-		ArrayList<Event> events = new org.easotope.shared.plugin.admin.EventPlugin().processEvent(newEvents, previousEvents, rawFileManager, connectionSource);
+		for (Event event : newEvents) {
+			invalidateReferenceData(event);
+		}
+
+		ArrayList<Event> events = adminPlugin.processEvent(newEvents, previousEvents, rawFileManager, connectionSource);
 
 		if (events != null) {
 			returnEvents.addAll(events);
 		}
 
-		events = new org.easotope.shared.plugin.analysis.EventPlugin().processEvent(newEvents, previousEvents, rawFileManager, connectionSource);
+		events = analysisPlugin.processEvent(newEvents, previousEvents, rawFileManager, connectionSource);
 
 		if (events != null) {
 			returnEvents.addAll(events);
 		}
 
-		events = new org.easotope.shared.plugin.core.EventPlugin().processEvent(newEvents, previousEvents, rawFileManager, connectionSource);
+		events = corePlugin.processEvent(newEvents, previousEvents, rawFileManager, connectionSource);
 
 		if (events != null) {
 			returnEvents.addAll(events);
 		}
 
-		events = new org.easotope.shared.plugin.rawdata.EventPlugin().processEvent(newEvents, previousEvents, rawFileManager, connectionSource);
+		events = rawdataPlugin.processEvent(newEvents, previousEvents, rawFileManager, connectionSource);
 
 		if (events != null) {
 			returnEvents.addAll(events);
@@ -65,4 +117,28 @@ public class EventPlugin implements Plugin {
 
 		return returnEvents;
 	}
+
+	// reference data shared by the calculation threads must be reread after it changes
+	private void invalidateReferenceData(Event event) {
+		if (event instanceof Initialized || event instanceof CoreStartup) {
+			ReferenceDataSnapshot.invalidateAll();
+			CorrIntervalIndex.invalidateAll();
+
+		} else if (event instanceof MassSpecUpdated || event instanceof RefGassesUpdated) {
+			ReferenceDataSnapshot.invalidate(MassSpecCache.class);
+
+		} else if (event instanceof SampleTypeUpdated || event instanceof AcidTempUpdated) {
+			ReferenceDataSnapshot.invalidate(SampleTypeCache.class);
+
+		} else if (event instanceof SciConstantUpdated) {
+			ReferenceDataSnapshot.invalidate(SciConstantCache.class);
+
+		} else if (event instanceof StandardUpdated) {
+			ReferenceDataSnapshot.invalidate(StandardCache.class);
+
+		} else if (event instanceof CorrIntervalsUpdated) {
+			ReferenceDataSnapshot.invalidate(CorrIntervalCache.class);
+			CorrIntervalIndex.invalidate(((CorrIntervalsUpdated) event).getMassSpecId());
+		}
+	}
 }
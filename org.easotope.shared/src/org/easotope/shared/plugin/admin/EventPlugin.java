@@ -37,6 +37,11 @@ import org.easotope.framework.dbcore.util.RawFileManager;
 import com.j256.ormlite.support.ConnectionSource;
 
 public class EventPlugin implements Plugin {
+	@Override
+	public Class<?>[] getEventClasses() {
+		return new Class<?>[] { Initialized.class };
+	}
+
 	public ArrayList<Event> processEvent(ArrayList<Event> newEvents, ArrayList<Event> previousEvents, RawFileManager rawFileManager, ConnectionSource connectionSource) {
 		ArrayList<Event> returnEvents = new ArrayList<Event>();
 
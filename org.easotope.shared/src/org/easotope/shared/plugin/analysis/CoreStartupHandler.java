@@ -31,9 +31,14 @@ import java.util.ArrayList;
 
 import org.easotope.framework.core.logging.Log;
 import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.core.util.SystemProperty;
 import org.easotope.framework.dbcore.cmdprocessors.Event;
 import org.easotope.framework.dbcore.events.CoreStartup;
 import org.easotope.framework.dbcore.util.RawFileManager;
+import org.easotope.shared.Messages;
+import org.easotope.shared.analysis.server.CacheWarmUpTask;
+import org.easotope.shared.analysis.server.StaleCalculationTask;
+import org.easotope.shared.analysis.server.CalcCacheFingerprint;
 import org.easotope.shared.analysis.tables.CalcRepToCalcSamp;
 import org.easotope.shared.analysis.tables.CalcReplicateCache;
 import org.easotope.shared.analysis.tables.CalcSampleCache;
@@ -41,48 +46,63 @@ import org.easotope.shared.analysis.tables.CorrIntervalError;
 import org.easotope.shared.analysis.tables.CorrIntervalScratchPad;
 import org.easotope.shared.plugin.analysis.databaseupgradehandler.DatabaseUpgrade;
 
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 import com.j256.ormlite.table.TableUtils;
 
 public class CoreStartupHandler {
+	private static final String[] OLD_CACHE_TABLES = { "CALCREPLICATECACHE_V0", "CALCSAMPLECACHE_V0", "CORRINTERVALSCRATCHPAD_V0", "CORRINTERVALERROR_V0" };
+
 	public static ArrayList<Event> execute(CoreStartup event, RawFileManager rawFileManager, ConnectionSource connectionSource) {
 		try {
 			DatabaseUpgrade.upgradeFromVersion(event.getLastServerVersion(), event.getReparseAcquisitions(), rawFileManager, connectionSource);
 
-			TableUtils.dropTable(connectionSource, CalcReplicateCache.class, true);
-			TableUtils.createTable(connectionSource, CalcReplicateCache.class);
+			Dao<CalcSampleCache,Integer> calcSampleCacheDao = DaoManager.createDao(connectionSource, CalcSampleCache.class);
+
+			// caches from before fingerprinting can not be validated
+			for (String oldTable : OLD_CACHE_TABLES) {
+				calcSampleCacheDao.executeRaw("DROP TABLE IF EXISTS " + oldTable);
+			}
+
+			if (event.getReparseAcquisitions() || !calcSampleCacheDao.isTableExists()) {
+				Log.getInstance().log(Level.INFO, CoreStartupHandler.class, Messages.coreStartupHandler_rebuildingCaches);
+
+				TableUtils.dropTable(connectionSource, CalcReplicateCache.class, true);
+				TableUtils.createTable(connectionSource, CalcReplicateCache.class);
+
+				TableUtils.dropTable(connectionSource, CalcRepToCalcSamp.class, true);
+				TableUtils.createTable(connectionSource, CalcRepToCalcSamp.class);
 
-			TableUtils.dropTable(connectionSource, CalcRepToCalcSamp.class, true);
-			TableUtils.createTable(connectionSource, CalcRepToCalcSamp.class);
+				TableUtils.dropTable(connectionSource, CalcSampleCache.class, true);
+				TableUtils.createTable(connectionSource, CalcSampleCache.class);
 
-			TableUtils.dropTable(connectionSource, CalcSampleCache.class, true);
-			TableUtils.createTable(connectionSource, CalcSampleCache.class);
+				TableUtils.dropTable(connectionSource, CorrIntervalScratchPad.class, true);
+				TableUtils.createTable(connectionSource, CorrIntervalScratchPad.class);
 
-			TableUtils.dropTable(connectionSource, CorrIntervalScratchPad.class, true);
-			TableUtils.createTable(connectionSource, CorrIntervalScratchPad.class);
+				TableUtils.dropTable(connectionSource, CorrIntervalError.class, true);
+				TableUtils.createTable(connectionSource, CorrIntervalError.class);
 
-			TableUtils.dropTable(connectionSource, CorrIntervalError.class, true);
-			TableUtils.createTable(connectionSource, CorrIntervalError.class);
+			} else {
+				TableUtils.createTableIfNotExists(connectionSource, CalcReplicateCache.class);
+				TableUtils.createTableIfNotExists(connectionSource, CalcRepToCalcSamp.class);
+				TableUtils.createTableIfNotExists(connectionSource, CorrIntervalScratchPad.class);
+				TableUtils.createTableIfNotExists(connectionSource, CorrIntervalError.class);
+
+				CalcCacheFingerprint.removeStaleEntries(connectionSource);
+			}
 
 		} catch (Exception e) {
-			Log.getInstance().log(Level.INFO, CoreStartupHandler.class, "Error while dropping cache tables.", e);
+			Log.getInstance().log(Level.INFO, CoreStartupHandler.class, Messages.coreStartupHandler_errorPreparingCaches, e);
+		}
+
+		if (event.getIsServerMode() && SystemProperty.useCacheWarmUp()) {
+			event.addBackgroundTask(new CacheWarmUpTask(SystemProperty.getWarmUpSamples()));
 		}
 
-//		try {
-//			if (event.getIsServerMode()) { 
-//				Log.getInstance().log(Level.INFO, CoreStartupHandler.class, "Rebuilding corr interval tables.");
-//	
-//				Dao<CorrIntervalV1,Integer> corrIntervalDao = DaoManager.createDao(connectionSource, CorrIntervalV1.class);
-//				for (CorrIntervalV1 corrInterval : corrIntervalDao) {
-//					for (int replicateAnalysisId : corrInterval.getDataAnalysis()) {
-//						new LoadOrCalculateCorrInterval(corrInterval.getId(), replicateAnalysisId, connectionSource);
-//					}
-//				}
-//			}
-//
-//		} catch (Exception e) {
-//			Log.getInstance().log(Level.INFO, CoreStartupHandler.class, "Error while rebuilding corr interval tables.", e);
-//		}
+		if (SystemProperty.useLazyRecalculation()) {
+			event.addBackgroundTask(new StaleCalculationTask());
+		}
 
 		return null;
 	}
@@ -29,11 +29,13 @@ package org.easotope.shared.plugin.analysis;
 
 import java.util.ArrayList;
 
+import org.easotope.framework.core.util.SystemProperty;
 import org.easotope.framework.dbcore.cmdprocessors.Event;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.analysis.events.CalculatedSampleUpdated;
 import org.easotope.shared.analysis.events.CorrIntervalCompUpdated;
 import org.easotope.shared.analysis.server.LoadOrCalculateSample;
+import org.easotope.shared.analysis.server.StaleCalculationTask;
 import org.easotope.shared.analysis.tables.CalcSampleCache;
 
 import com.j256.ormlite.support.ConnectionSource;
@@ -44,6 +46,27 @@ public class CorrIntervalCompUpdatedHandler {
 		ArrayList<Event> results = new ArrayList<Event>();
 		CalculatedSampleUpdated calculatedSampleUpdated = new CalculatedSampleUpdated();
 
+		if (SystemProperty.useLazyRecalculation()) {
+			LoadOrCalculateSample loadOrCalculateSample = new LoadOrCalculateSample(connectionSource);
+			ArrayList<Integer> calcSampleCacheIds = new ArrayList<Integer>();
+
+			for (int i=0; i<event.size(); i++) {
+				calcSampleCacheIds.addAll(loadOrCalculateSample.getCalcSampleCacheIdsFromCorrIntervalAndReplicateAnalysis(event.getCorrIntervalId(i), event.getDataAnalysisId(i)));
+				loadOrCalculateSample.markReplicateCalculationsStale(event.getCorrIntervalId(i), event.getDataAnalysisId(i));
+			}
+
+			for (CalcSampleCache calcSampleCache : loadOrCalculateSample.markSampleCalculationsStale(calcSampleCacheIds)) {
+				calculatedSampleUpdated.add(calcSampleCache.getSampleId(), calcSampleCache.getSampleAnalysisId());
+				StaleCalculationTask.addSample(calcSampleCache.getSampleId(), calcSampleCache.getSampleAnalysisId());
+			}
+
+			if (calculatedSampleUpdated.size() != 0) {
+				results.add(calculatedSampleUpdated);
+			}
+
+			return results;
+		}
+
 		for (int i=0; i<event.size(); i++) {
 			LoadOrCalculateSample loadOrCalculateSample = new LoadOrCalculateSample(connectionSource);
 			
@@ -29,29 +29,36 @@ package org.easotope.shared.plugin.analysis;
 
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 
 import org.easotope.framework.core.logging.Log;
 import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.core.util.SystemProperty;
 import org.easotope.framework.dbcore.cmdprocessors.Event;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.admin.events.CorrIntervalsNeedRecalcByTime;
 import org.easotope.shared.admin.events.CorrIntervalsNeedRecalcByTime.FromToRange;
 import org.easotope.shared.analysis.events.CorrIntervalCompUpdated;
+import org.easotope.shared.analysis.server.CorrIntervalIndex;
 import org.easotope.shared.analysis.server.LoadOrCalculateCorrInterval;
+import org.easotope.shared.analysis.server.StaleCalculationTask;
 import org.easotope.shared.analysis.tables.CorrIntervalV1;
 
-import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 
 public class CorrIntervalsNeedRecalcByTimeHandler {
 	public ArrayList<Event> execute(CorrIntervalsNeedRecalcByTime corrIntervalsNeedRecalcByTime, RawFileManager rawFileManager, ConnectionSource connectionSource) {
 		HashSet<Integer> alreadyDidId = new HashSet<Integer>();
 		ArrayList<Event> returnEvents = new ArrayList<Event>();
+		boolean lazyRecalculation = SystemProperty.useLazyRecalculation();
 
 		try {
-			Dao<CorrIntervalV1,Integer> corrIntervalDao = DaoManager.createDao(connectionSource, CorrIntervalV1.class);
+			HashSet<Integer> massSpecIds = new HashSet<Integer>();
+
+			for (FromToRange fromToRange : corrIntervalsNeedRecalcByTime.getFromToRanges()) {
+				massSpecIds.add(fromToRange.getMassSpecId());
+			}
+
+			CorrIntervalIndex corrIntervalIndex = CorrIntervalIndex.getInstance(connectionSource, massSpecIds);
 			CorrIntervalCompUpdated corrIntervalCompUpdated = new CorrIntervalCompUpdated();
 
 			for (FromToRange fromToRange : corrIntervalsNeedRecalcByTime.getFromToRanges()) {
@@ -63,26 +70,24 @@ public class CorrIntervalsNeedRecalcByTimeHandler {
 					to++;
 				}
 
-				List<CorrIntervalV1> corrIntervals = corrIntervalDao.queryForEq(CorrIntervalV1.MASSSPECID_FIELD_NAME, massSpecId);
-
-				for (CorrIntervalV1 corrInterval : corrIntervals) {
+				for (CorrIntervalV1 corrInterval : corrIntervalIndex.getCorrIntervals(massSpecId, from, to)) {
 					if (alreadyDidId.contains(corrInterval.getId())) {
 						continue;
 					}
 
-					boolean inRange = (from <= corrInterval.getValidFrom() && to > corrInterval.getValidFrom());
-					inRange = inRange || (from < corrInterval.getValidUntil() && to >= corrInterval.getValidUntil());
-					inRange = inRange || (from >= corrInterval.getValidFrom() && to <= corrInterval.getValidUntil());
-
-					if (inRange) {
-						for (int dataAnalysisId : corrInterval.getDataAnalysis()) {
-							if (LoadOrCalculateCorrInterval.removeCorrIntervalCalculations(corrInterval.getId(), dataAnalysisId, connectionSource)) {
+					for (int dataAnalysisId : corrInterval.getDataAnalysis()) {
+						if (lazyRecalculation) {
+							if (LoadOrCalculateCorrInterval.markCorrIntervalCalculationsStale(corrInterval.getId(), dataAnalysisId, connectionSource)) {
 								corrIntervalCompUpdated.add(corrInterval.getId(), dataAnalysisId);
+								StaleCalculationTask.addCorrInterval(corrInterval.getId(), dataAnalysisId);
 							}
-						}
 
-						alreadyDidId.add(corrInterval.getId());
+						} else if (LoadOrCalculateCorrInterval.removeCorrIntervalCalculations(corrInterval.getId(), dataAnalysisId, connectionSource)) {
+							corrIntervalCompUpdated.add(corrInterval.getId(), dataAnalysisId);
+						}
 					}
+
+					alreadyDidId.add(corrInterval.getId());
 				}
 			}
 
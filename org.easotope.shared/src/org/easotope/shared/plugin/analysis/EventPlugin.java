@@ -47,6 +47,22 @@ import org.easotope.shared.rawdata.events.SampleUpdated;
 import com.j256.ormlite.support.ConnectionSource;
 
 public class EventPlugin implements Plugin {
+	@Override
+	public Class<?>[] getEventClasses() {
+		return new Class<?>[] {
+			Initialized.class,
+			CoreStartup.class,
+			CorrIntervalsNeedRecalcAll.class,
+			CorrIntervalsNeedRecalcById.class,
+			CorrIntervalsNeedRecalcByTime.class,
+			CorrIntervalCompUpdated.class,
+			ReplicateUpdated.class,
+			ReplicateDeleted.class,
+			RepAnalysisChoiceUpdated.class,
+			SampleUpdated.class
+		};
+	}
+
 	public ArrayList<Event> processEvent(ArrayList<Event> newEvents, ArrayList<Event> previousEvents, RawFileManager rawFileManager, ConnectionSource connectionSource) {
 		ArrayList<Event> returnEvents = new ArrayList<Event>();
 
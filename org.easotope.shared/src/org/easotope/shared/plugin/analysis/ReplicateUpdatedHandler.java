@@ -29,10 +29,12 @@ package org.easotope.shared.plugin.analysis;
 
 import java.util.ArrayList;
 
+import org.easotope.framework.core.util.SystemProperty;
 import org.easotope.framework.dbcore.cmdprocessors.Event;
 import org.easotope.framework.dbcore.util.RawFileManager;
 import org.easotope.shared.analysis.events.CalculatedSampleUpdated;
 import org.easotope.shared.analysis.server.LoadOrCalculateSample;
+import org.easotope.shared.analysis.server.StaleCalculationTask;
 import org.easotope.shared.analysis.tables.CalcSampleCache;
 import org.easotope.shared.rawdata.events.ReplicateUpdated;
 
@@ -46,6 +48,24 @@ public class ReplicateUpdatedHandler {
 
 		LoadOrCalculateSample loadOrCalculateSample = new LoadOrCalculateSample(connectionSource);
 
+		if (SystemProperty.useLazyRecalculation()) {
+			ArrayList<Integer> calcSampleCacheIds = loadOrCalculateSample.getCalcSampleCacheIdsFromReplicateId(event.getReplicate().getId());
+			calcSampleCacheIds.addAll(loadOrCalculateSample.getCalcSampleCacheIdsFromSampleId(event.getNewSampleId()));
+
+			loadOrCalculateSample.markReplicateCalculationsStale(event.getReplicate().getId());
+
+			for (CalcSampleCache calcSampleCache : loadOrCalculateSample.markSampleCalculationsStale(calcSampleCacheIds)) {
+				calculatedSampleUpdated.add(calcSampleCache.getSampleId(), calcSampleCache.getSampleAnalysisId());
+				StaleCalculationTask.addSample(calcSampleCache.getSampleId(), calcSampleCache.getSampleAnalysisId());
+			}
+
+			if (calculatedSampleUpdated.size() != 0) {
+				results.add(calculatedSampleUpdated);
+			}
+
+			return results;
+		}
+
 		for (Integer calcSampleCacheId : loadOrCalculateSample.getCalcSampleCacheIdsFromReplicateId(event.getReplicate().getId())) {
 			CalcSampleCache calcSampleCache = loadOrCalculateSample.removeSampleCalculations(calcSampleCacheId);
 
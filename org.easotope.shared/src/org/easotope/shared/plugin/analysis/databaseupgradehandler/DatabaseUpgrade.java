@@ -245,6 +245,7 @@ public abstract class DatabaseUpgrade {
 		new Upgrade20230220(),
 		new Upgrade20230622(),
 		new Upgrade20231126(),
-		new Upgrade20231203()
+		new Upgrade20231203(),
+		new Upgrade20231227()
 	};
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2016-2026 by Devon Bowen.
+ *
+ * This file is part of Easotope.
+ *
+ * Easotope is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * Additional permission under GNU GPL version 3 section 7:
+ * If you modify this Program, or any covered work, by linking or combining
+ * it with the Eclipse Rich Client Platform (or a modified version of that
+ * library), containing parts covered by the terms of the Eclipse Public
+ * License, the licensors of this Program grant you additional permission
+ * to convey the resulting work. Corresponding Source for a non-source form
+ * of such a combination shall include the source code for the parts of the
+ * Eclipse Rich Client Platform used as well as that of the covered work.
+ *
+ * Easotope is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Easotope. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.easotope.shared.plugin.analysis.databaseupgradehandler;
+
+import java.text.MessageFormat;
+
+import org.easotope.framework.core.logging.Log;
+import org.easotope.framework.core.logging.Log.Level;
+import org.easotope.framework.dbcore.tables.Version;
+import org.easotope.framework.dbcore.util.RawFileManager;
+import org.easotope.shared.Messages;
+import org.easotope.shared.analysis.tables.CorrIntervalError;
+import org.easotope.shared.analysis.tables.CorrIntervalScratchPad;
+import org.easotope.shared.analysis.tables.CorrIntervalV1;
+import org.easotope.shared.rawdata.tables.ReplicateV1;
+import org.easotope.shared.rawdata.tables.ScanV3;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.support.ConnectionSource;
+
+public class Upgrade20231227 extends DatabaseUpgrade {
+	@Override
+	public int appliesToVersion() {
+		return 20231227;
+	}
+
+	@Override
+	public int resultsInVersion() {
+		return 20261018;
+	}
+
+	@Override
+	public boolean upgrade(RawFileManager rawFileManager, ConnectionSource connectionSource, int originalServerVersion) {
+		// new tables get these indexes from their annotations but existing tables must be given them here
+		String[][] indexes = {
+			{ ReplicateV1.MASSSPECID_DATE_INDEX_NAME, ReplicateV1.TABLE_NAME, ReplicateV1.MASSSPECID_FIELD_NAME, ReplicateV1.DATE_FIELD_NAME },
+			{ ScanV3.MASSSPECID_DATE_INDEX_NAME, ScanV3.TABLE_NAME, ScanV3.MASSSPECID_FIELD_NAME, ScanV3.DATE_FIELD_NAME },
+			{ CorrIntervalV1.MASSSPECID_VALIDFROM_INDEX_NAME, CorrIntervalV1.TABLE_NAME, CorrIntervalV1.MASSSPECID_FIELD_NAME, CorrIntervalV1.VALIDFROM_FIELD_NAME },
+			{ CorrIntervalScratchPad.CORR_INTERVAL_ID_DATA_ANALYSIS_ID_INDEX_NAME, CorrIntervalScratchPad.TABLE_NAME, CorrIntervalScratchPad.CORR_INTERVAL_ID_FIELD_NAME, CorrIntervalScratchPad.DATA_ANALYSIS_ID_FIELD_NAME },
+			{ CorrIntervalError.CORR_INTERVAL_ID_DATA_ANALYSIS_ID_INDEX_NAME, CorrIntervalError.TABLE_NAME, CorrIntervalError.CORR_INTERVAL_ID_FIELD_NAME, CorrIntervalError.DATA_ANALYSIS_ID_FIELD_NAME }
+		};
+
+		boolean allCreated = true;
+
+		try {
+			Dao<Version,Integer> versionDao = DaoManager.createDao(connectionSource, Version.class);
+
+			// the remaining indexes are still attempted so that every failure is logged, the
+			// version is then left unchanged so that the upgrade is retried on the next start
+			for (String[] index : indexes) {
+				try {
+					versionDao.executeRaw("CREATE INDEX IF NOT EXISTS " + index[0] + " ON " + index[1] + " (" + index[2] + ", " + index[3] + ");");
+
+				} catch (Exception e) {
+					String message = MessageFormat.format(Messages.upgrade20231227_errorCreatingIndex, index[0], index[1]);
+					Log.getInstance().log(Level.INFO, Upgrade20231227.class, message, e);
+					allCreated = false;
+				}
+			}
+
+		} catch (Exception e) {
+			Log.getInstance().log(Level.INFO, Upgrade20231227.class, Messages.upgrade20231227_errorCreatingIndexes, e);
+			return false;
+		}
+
+		return allCreated;
+	}
+}
@@ -46,6 +46,7 @@ public class ReplicateV1 extends TableObjectWithIntegerId {
 	public static final String STANDARDID_FIELD_NAME = "STANDARDID";
 	public static final String DATE_FIELD_NAME = "DATE";
 	public static final String MASSSPECID_FIELD_NAME = "MASSSPECID";
+	public static final String MASSSPECID_DATE_INDEX_NAME = "replicate_massspeciddate_idx";
 	public static final String ACIDTEMPID_FIELD_NAME = "ACIDTEMPID";
 	public static final String DISABLED_FIELD_NAME = "DISABLED";
 	public static final String DESCRIPTION_FIELD_NAME = "DESCRIPTION";
@@ -57,10 +58,11 @@ public class ReplicateV1 extends TableObjectWithIntegerId {
 	public int sampleId = DatabaseConstants.EMPTY_DB_ID;
 	@DatabaseField(columnName=STANDARDID_FIELD_NAME, canBeNull=false, index=true)
 	public int standardId = DatabaseConstants.EMPTY_DB_ID;
-	@DatabaseField(columnName=DATE_FIELD_NAME, canBeNull=false)
-	public long date;
-	@DatabaseField(columnName=MASSSPECID_FIELD_NAME, canBeNull=false)
+	// mass spec must come before date so that it leads the composite index
+	@DatabaseField(columnName=MASSSPECID_FIELD_NAME, canBeNull=false, indexName=MASSSPECID_DATE_INDEX_NAME)
 	public int massSpecId = DatabaseConstants.EMPTY_DB_ID;
+	@DatabaseField(columnName=DATE_FIELD_NAME, canBeNull=false, indexName=MASSSPECID_DATE_INDEX_NAME)
+	public long date;
 	@DatabaseField(columnName=ACIDTEMPID_FIELD_NAME, canBeNull=false)
 	public int acidTempId = DatabaseConstants.EMPTY_DB_ID;
 	@DatabaseField(columnName=DISABLED_FIELD_NAME, canBeNull=false)
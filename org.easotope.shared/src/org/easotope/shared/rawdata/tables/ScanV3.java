@@ -42,6 +42,7 @@ public class ScanV3 extends TableObjectWithIntegerId {
 	public static final String USERID_FIELD_NAME = "USERID";
 	public static final String DATE_FIELD_NAME = "DATE";
 	public static final String MASSSPECID_FIELD_NAME = "MASSSPECID";
+	public static final String MASSSPECID_DATE_INDEX_NAME = "scan_massspeciddate_idx";
 	public static final String DISABLED_FIELD_NAME = "DISABLED";
 	public static final String DESCRIPTION_FIELD_NAME = "DESCRIPTION";
 	public static final String ON_PEAK_X1_FIELD_NAME = "ONPEAKX1";
@@ -62,10 +63,11 @@ public class ScanV3 extends TableObjectWithIntegerId {
 
 	@DatabaseField(columnName=USERID_FIELD_NAME, canBeNull=false)
 	public int userId = DatabaseConstants.EMPTY_DB_ID;
-	@DatabaseField(columnName=DATE_FIELD_NAME, canBeNull=false)
-	public long date;
-	@DatabaseField(columnName=MASSSPECID_FIELD_NAME, canBeNull=false)
+	// mass spec must come before date so that it leads the composite index
+	@DatabaseField(columnName=MASSSPECID_FIELD_NAME, canBeNull=false, indexName=MASSSPECID_DATE_INDEX_NAME)
 	public int massSpecId = DatabaseConstants.EMPTY_DB_ID;
+	@DatabaseField(columnName=DATE_FIELD_NAME, canBeNull=false, indexName=MASSSPECID_DATE_INDEX_NAME)
+	public long date;
 	@DatabaseField(columnName=DISABLED_FIELD_NAME, canBeNull=false)
 	public boolean disabled;
 	@DatabaseField(columnName=DESCRIPTION_FIELD_NAME, canBeNull=false)